@@ -0,0 +1,38 @@
+package com.cap.stone.benchmark;
+
+import com.cap.stone.util.GzipJsonReader;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+// Decompress + parse of one uploaded file, the first stage of every import
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GzipJsonReaderBenchmark {
+
+    // 42 matches the small testdata files, 500 the trend files
+    @Param({"42", "500", "5000"})
+    private int documentsPerFile;
+
+    private byte[] gzipFile;
+
+    @Setup
+    public void setUp() {
+        SyntheticSessionGenerator generator = new SyntheticSessionGenerator(42, 0.2, 200);
+        gzipFile = SyntheticSessionGenerator.toGzipJson(generator.importDocuments(documentsPerFile, 1_755_734_400_000L));
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> readGzipJsonStream() throws IOException {
+        return GzipJsonReader.readGzipJsonStream(new GZIPInputStream(new ByteArrayInputStream(gzipFile)));
+    }
+}
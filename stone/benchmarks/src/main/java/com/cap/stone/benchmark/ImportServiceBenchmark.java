@@ -0,0 +1,68 @@
+package com.cap.stone.benchmark;
+
+import com.cap.stone.infra.opensearch.AnomalyScoringService;
+import com.cap.stone.infra.opensearch.DataGenerationService;
+import com.cap.stone.infra.opensearch.SessionRoutingService;
+import com.cap.stone.infra.segment.DaySegmentStore;
+import com.cap.stone.service.ImportService;
+import com.cap.stone.service.OpenSearchClientService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Batch building in ImportService: document conversion, BulkOperation construction and batching,
+// with the OpenSearch round trip stubbed out so only the app side is measured.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ImportServiceBenchmark {
+
+    @Param({"500", "5000"})
+    private int documentCount;
+
+    private ImportService importService;
+    private List<Map<String, Object>> documents;
+    private StubClientService clientService;
+
+    // Accepts every bulk request instantly, keeping the last one reachable so it is not optimized away
+    static class StubClientService extends OpenSearchClientService {
+        private static final BulkResponse ACCEPTED = BulkResponse.of(b -> b.errors(false).items(List.of()).took(1));
+        volatile BulkRequest lastRequest;
+
+        @Override
+        public BulkResponse executeBulk(BulkRequest bulkRequest) {
+            lastRequest = bulkRequest;
+            return ACCEPTED;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        SyntheticSessionGenerator generator = new SyntheticSessionGenerator(7, 0.2, 200);
+        documents = generator.importDocuments(documentCount, 1_755_734_400_000L);
+
+        clientService = new StubClientService();
+        importService = new ImportService();
+        Wiring.inject(importService, "clientService", clientService);
+        Wiring.inject(importService, "dataGenerationService", new DataGenerationService());
+        Wiring.inject(importService, "segmentStore", new DaySegmentStore()); // Disabled unless configured
+        Wiring.inject(importService, "anomalyScoringService", new AnomalyScoringService()); // Nothing kept yet
+        Wiring.inject(importService, "routingService", new SessionRoutingService()); // No routing unless configured
+        Wiring.inject(importService, "meterRegistry", new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public void indexDocumentsByIndex(Blackhole blackhole) throws Exception {
+        blackhole.consume(importService.indexDocumentsByIndex(documents));
+        blackhole.consume(clientService.lastRequest);
+    }
+}
@@ -0,0 +1,60 @@
+package com.cap.stone.benchmark;
+
+import com.cap.stone.infra.opensearch.SessionDataProcessor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Per-hit work done for every document of every analytics and daily-details query
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionDataProcessorBenchmark {
+
+    // One search page, the size analytics requests per index
+    private static final int HITS_PER_PAGE = 1000;
+
+    private SessionDataProcessor processor;
+    private List<Hit<Map<String, Object>>> hits;
+    private Object sidList;
+    private Object sidNumber;
+
+    @Setup
+    public void setUp() {
+        SyntheticSessionGenerator generator = new SyntheticSessionGenerator(11, 1.0, 200);
+        hits = generator.hits(generator.importDocuments(HITS_PER_PAGE, 1_755_734_400_000L));
+
+        processor = new SessionDataProcessor();
+        Wiring.inject(processor, "meterRegistry", new SimpleMeterRegistry());
+        Wiring.initialize(processor, "registerMeters");
+
+        sidList = List.of(7146911, 7264377L, 7375773);
+        sidNumber = 7942413;
+    }
+
+    // Ops/s x 1000 = hits/s
+    @Benchmark
+    public void processHitPage(Blackhole blackhole) {
+        for (Hit<Map<String, Object>> hit : hits) {
+            blackhole.consume(processor.processHit(hit));
+        }
+    }
+
+    @Benchmark
+    public List<Long> extractSidsFromList() {
+        return processor.extractSids(sidList);
+    }
+
+    @Benchmark
+    public List<Long> extractSidsFromNumber() {
+        return processor.extractSids(sidNumber);
+    }
+}
@@ -0,0 +1,81 @@
+package com.cap.stone.benchmark;
+
+import com.cap.stone.infra.opensearch.SessionDataProcessor;
+import com.cap.stone.infra.opensearch.model.SessionGroup;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Filling one bucket and reading the per-bucket aggregates, as done for every bucket of /api/sessions
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionGroupBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    private int sessionsPerBucket;
+
+    // Fewer distinct community IDs means more repeated network sessions within a bucket
+    @Param({"50", "5000"})
+    private int communityIdPoolSize;
+
+    private List<Map<String, Object>> sessions;
+    private List<List<Long>> sids;
+    private SessionGroup filledGroup;
+
+    @Setup
+    public void setUp() {
+        SyntheticSessionGenerator generator = new SyntheticSessionGenerator(3, 1.0, communityIdPoolSize);
+        List<Hit<Map<String, Object>>> hits = generator.hits(generator.importDocuments(sessionsPerBucket, 1_755_734_400_000L));
+
+        SessionDataProcessor processor = new SessionDataProcessor();
+        Wiring.inject(processor, "meterRegistry", new SimpleMeterRegistry());
+        Wiring.initialize(processor, "registerMeters");
+
+        sessions = new ArrayList<>(hits.size());
+        sids = new ArrayList<>(hits.size());
+        for (Hit<Map<String, Object>> hit : hits) {
+            Map<String, Object> session = processor.processHit(hit);
+            sessions.add(session);
+            sids.add(processor.extractSids(session.get("sid")));
+        }
+        filledGroup = fill();
+    }
+
+    @Benchmark
+    public SessionGroup addSessions() {
+        return fill();
+    }
+
+    @Benchmark
+    public void aggregateBucket(Blackhole blackhole) {
+        blackhole.consume(filledGroup.getCommunityIdHitCounts());
+        blackhole.consume(filledGroup.getUniqueCommunityIds());
+        blackhole.consume(filledGroup.getUniqueSids());
+        blackhole.consume(filledGroup.getSampleSessions(100));
+    }
+
+    // Same calls SessionAnalyticsService makes per matching hit
+    private SessionGroup fill() {
+        SessionGroup group = new SessionGroup("2025-08-21", 1_755_705_600_000L);
+        for (int i = 0; i < sessions.size(); i++) {
+            Map<String, Object> session = sessions.get(i);
+            group.addSession(session);
+            String communityId = (String) session.get("communityId");
+            if (communityId != null) {
+                group.addCommunityIds(List.of(communityId));
+            }
+            group.addSids(sids.get(i));
+        }
+        return group;
+    }
+}
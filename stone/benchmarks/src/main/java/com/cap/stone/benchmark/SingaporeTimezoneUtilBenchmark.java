@@ -0,0 +1,55 @@
+package com.cap.stone.benchmark;
+
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import com.cap.stone.util.TimeGranularity;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Conversions applied to every hit: timestamp normalization, date assignment and bucketing
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SingaporeTimezoneUtilBenchmark {
+
+    private SingaporeTimezoneUtil timezoneUtil;
+    private Object epochMillis;
+    private Object isoTimestamp;
+    private long singaporeTimestamp;
+
+    @Setup
+    public void setUp() {
+        timezoneUtil = new SingaporeTimezoneUtil();
+        epochMillis = 1_755_810_317_000L;
+        isoTimestamp = "2025-08-21T21:05:17Z";
+        singaporeTimestamp = timezoneUtil.convertToSingaporeTimestamp(epochMillis);
+    }
+
+    @Benchmark
+    public long convertEpochMillis() {
+        return timezoneUtil.convertToSingaporeTimestamp(epochMillis);
+    }
+
+    @Benchmark
+    public long convertIsoString() {
+        return timezoneUtil.convertToSingaporeTimestamp(isoTimestamp);
+    }
+
+    @Benchmark
+    public String singaporeDate() {
+        return timezoneUtil.getSingaporeDateFromTimestamp(singaporeTimestamp);
+    }
+
+    @Benchmark
+    public boolean belongsToDate() {
+        return timezoneUtil.timestampBelongsToSingaporeDate(singaporeTimestamp, "2025-08-22");
+    }
+
+    @Benchmark
+    public long hourBucketStart() {
+        return timezoneUtil.getBucketStartTimestamp(singaporeTimestamp, TimeGranularity.HOUR);
+    }
+}
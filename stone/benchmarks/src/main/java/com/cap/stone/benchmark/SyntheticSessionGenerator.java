@@ -0,0 +1,168 @@
+package com.cap.stone.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opensearch.client.opensearch.core.search.Hit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.zip.GZIPOutputStream;
+
+// Generates Arkime session documents shaped like testdata/*.gz: import wrapper {data, id, index},
+// nested source/destination/network objects, and on a fraction of them extended.sid + snort_message lists.
+public class SyntheticSessionGenerator {
+
+    private static final DateTimeFormatter INDEX_DATE = DateTimeFormatter.ofPattern("yyMMdd").withZone(ZoneOffset.UTC);
+    private static final String[] PROTOCOLS = {"tcp", "udp", "http", "dns", "ftp", "ntp", "ssh", "tls"};
+    private static final String[] OUIS = {"Dell Inc.", "Intel Corporate", "Apple, Inc.", "Cisco Systems, Inc"};
+    private static final String[] SNORT_MESSAGES = {"Trend Snort Alert", "Fake Snort Alert Message"};
+
+    private final Random random;
+    private final double sidRatio;
+    private final int communityIdPoolSize;
+
+    // sidRatio is the share of sessions carrying snort hits (the trend files have roughly 0.1 to 0.3),
+    // communityIdPoolSize controls how often network sessions repeat
+    public SyntheticSessionGenerator(long seed, double sidRatio, int communityIdPoolSize) {
+        this.random = new Random(seed);
+        this.sidRatio = sidRatio;
+        this.communityIdPoolSize = communityIdPoolSize;
+    }
+
+    // Documents in the upload format read by GzipJsonReader, spread over one UTC day starting at dayStartMs
+    public List<Map<String, Object>> importDocuments(int count, long dayStartMs) {
+        List<Map<String, Object>> documents = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long timestamp = dayStartMs + (long) (random.nextDouble() * 86_400_000L);
+            String day = INDEX_DATE.format(Instant.ofEpochMilli(timestamp));
+
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("data", sessionSource(timestamp));
+            document.put("id", day + "-" + hex(24));
+            document.put("index", "arkime_sessions3-" + day);
+            documents.add(document);
+        }
+        return documents;
+    }
+
+    // Search hits as returned for the detailed fields query
+    public List<Hit<Map<String, Object>>> hits(List<Map<String, Object>> importDocuments) {
+        List<Hit<Map<String, Object>>> hits = new ArrayList<>(importDocuments.size());
+        for (Map<String, Object> document : importDocuments) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> source = (Map<String, Object>) document.get("data");
+            hits.add(Hit.of(h -> h
+                .index((String) document.get("index"))
+                .id((String) document.get("id"))
+                .source(source)));
+        }
+        return hits;
+    }
+
+    // Gzipped JSON array, byte for byte what an upload of these documents looks like
+    public static byte[] toGzipJson(List<Map<String, Object>> documents) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+            new ObjectMapper().writeValue(gzip, documents);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private Map<String, Object> sessionSource(long timestamp) {
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("@timestamp", timestamp);
+        source.put("client", Map.of("bytes", random.nextInt(2000)));
+        source.put("destination", endpoint(true));
+        source.put("source", endpoint(false));
+
+        Map<String, Object> extended = new LinkedHashMap<>();
+        extended.put("network", "enp0s8");
+        extended.put("tenant", "foobar");
+        if (random.nextDouble() < sidRatio) {
+            extended.put("sid", List.of(7_000_000L + random.nextInt(1_000_000)));
+            extended.put("snort_message", List.of(SNORT_MESSAGES[random.nextInt(SNORT_MESSAGES.length)]));
+        }
+        source.put("extended", extended);
+
+        source.put("firstPacket", timestamp - random.nextInt(5000));
+        source.put("lastPacket", timestamp + random.nextInt(10000));
+        source.put("ipProtocol", random.nextBoolean() ? 6 : 17);
+        source.put("length", random.nextInt(2000));
+        source.put("network", Map.of(
+            "bytes", random.nextInt(5000),
+            "community_id", "1:" + communityId(random.nextInt(communityIdPoolSize)) + "=",
+            "packets", 1 + random.nextInt(20)));
+
+        int protocolCount = 1 + random.nextInt(3);
+        List<String> protocols = new ArrayList<>(protocolCount);
+        for (int i = 0; i < protocolCount; i++) {
+            protocols.add(PROTOCOLS[random.nextInt(PROTOCOLS.length)]);
+        }
+        source.put("protocol", protocols);
+        source.put("protocolCnt", protocolCount);
+        source.put("segmentCnt", 1);
+        source.put("server", Map.of("bytes", random.nextInt(2000)));
+        source.put("srcOui", List.of(OUIS[random.nextInt(OUIS.length)]));
+        source.put("srcOuiCnt", 1);
+        source.put("totDataBytes", random.nextInt(2000));
+        return source;
+    }
+
+    private Map<String, Object> endpoint(boolean destination) {
+        Map<String, Object> endpoint = new LinkedHashMap<>();
+        endpoint.put("bytes", random.nextInt(2000));
+        endpoint.put("geo", Map.of(
+            "city", "-",
+            "country_iso_code", "-",
+            "isp", destination ? "Multicast" : "Link Local Unicast",
+            "usage", "RSV"));
+        endpoint.put("ip", ipv6());
+        endpoint.put("mac", List.of(mac()));
+        endpoint.put("mac-cnt", 1);
+        endpoint.put("packets", 1 + random.nextInt(20));
+        endpoint.put("port", random.nextInt(65536));
+        return endpoint;
+    }
+
+    // Stable per pool slot so the same community ID recurs across sessions, 28 hex digits like the real ones
+    private static String communityId(int slot) {
+        long mixed = (slot + 1) * 0x9E3779B97F4A7C15L;
+        return String.format("%016x%012x", mixed, Long.rotateLeft(mixed, 21) & 0xFFFFFFFFFFFFL);
+    }
+
+    private String ipv6() {
+        StringBuilder ip = new StringBuilder();
+        for (int i = 0; i < 8; i++) {
+            if (i > 0) {
+                ip.append(':');
+            }
+            ip.append(String.format("%04x", random.nextInt(0x10000)));
+        }
+        return ip.toString();
+    }
+
+    private String mac() {
+        StringBuilder mac = new StringBuilder();
+        for (int i = 0; i < 6; i++) {
+            if (i > 0) {
+                mac.append(':');
+            }
+            mac.append(String.format("%02x", random.nextInt(256)));
+        }
+        return mac.toString();
+    }
+
+    private String hex(int length) {
+        StringBuilder hex = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            hex.append(Character.forDigit(random.nextInt(16), 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,44 @@
+package com.cap.stone.benchmark;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+
+// Minimal stand-in for Spring's field injection, the benchmarks build app beans without a context
+final class Wiring {
+
+    private Wiring() {
+    }
+
+    static <T> T inject(T target, String fieldName, Object value) {
+        try {
+            Field field = findField(target.getClass(), fieldName);
+            field.setAccessible(true);
+            field.set(target, value);
+            return target;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot inject " + fieldName + " into " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    // Runs a @PostConstruct style no-arg method
+    static void initialize(Object target, String methodName) {
+        try {
+            Method method = target.getClass().getDeclaredMethod(methodName);
+            method.setAccessible(true);
+            method.invoke(target);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot call " + methodName + " on " + target.getClass().getSimpleName(), e);
+        }
+    }
+
+    private static Field findField(Class<?> type, String fieldName) throws NoSuchFieldException {
+        for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+            try {
+                return current.getDeclaredField(fieldName);
+            } catch (NoSuchFieldException e) {
+                // Keep looking in the superclass
+            }
+        }
+        throw new NoSuchFieldException(fieldName);
+    }
+}
@@ -0,0 +1,343 @@
+package com.cap.stone.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.GZIPInputStream;
+
+// Local plain-HTTP stand-in for OpenSearch, speaking enough of _bulk, _search, _msearch and _stats for stone.
+// Latency is base + exponential jitter (a long right tail like a real cluster), plus a per-document cost for bulk.
+//
+//   java -cp target/loadtest.jar com.cap.stone.loadtest.FakeOpenSearch --port=9201 --search-latency-ms=40
+public class FakeOpenSearch {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final Pattern INDEX_DATE = Pattern.compile("(\\d{6})");
+    private static final DateTimeFormatter YYMMDD = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final String[] SNORT_MESSAGES = {"Trend Snort Alert", "Fake Snort Alert Message"};
+
+    private final int searchLatencyMs;
+    private final int searchJitterMs;
+    private final int bulkLatencyMs;
+    private final int bulkPerDocumentMicros;
+    private final int hitsPerSearch;
+    private final double sidRatio;
+    private final int communityIdPoolSize;
+    private final double errorRate;
+
+    private final AtomicLong indexedDocuments = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+
+    FakeOpenSearch(Options options) {
+        this.searchLatencyMs = options.integer("search-latency-ms", 40);
+        this.searchJitterMs = options.integer("search-jitter-ms", 20);
+        this.bulkLatencyMs = options.integer("bulk-latency-ms", 15);
+        this.bulkPerDocumentMicros = options.integer("bulk-per-doc-us", 40);
+        this.hitsPerSearch = options.integer("hits", 300);
+        this.sidRatio = options.decimal("sid-ratio", 0.3);
+        this.communityIdPoolSize = options.integer("community-ids", 500);
+        this.errorRate = options.decimal("error-rate", 0.0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Options options = new Options(args);
+        int port = options.integer("port", 9201);
+        FakeOpenSearch fake = new FakeOpenSearch(options);
+
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 1024);
+        server.createContext("/", fake::handle);
+        // Latency is simulated by sleeping, virtual threads keep that from capping concurrency
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        System.out.printf(Locale.ROOT, "Fake OpenSearch on http://localhost:%d (search %d+~%dms, bulk %dms + %dus/doc, %d hits/search)%n",
+            port, fake.searchLatencyMs, fake.searchJitterMs, fake.bulkLatencyMs, fake.bulkPerDocumentMicros, fake.hitsPerSearch);
+        System.out.println("Point stone at it with --opensearch.hosts=http://localhost:" + port);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try (exchange) {
+            String path = URLDecoder.decode(exchange.getRequestURI().getRawPath(), StandardCharsets.UTF_8);
+            byte[] body = readBody(exchange);
+
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                sleep(searchLatencyMs);
+                respond(exchange, 503, error("simulated overload"));
+                return;
+            }
+
+            if (path.endsWith("/_bulk")) {
+                respond(exchange, 200, bulk(body));
+            } else if (path.endsWith("/_msearch")) {
+                respond(exchange, 200, multiSearch(body));
+            } else if (path.endsWith("/_search")) {
+                sleep(searchLatency());
+                respond(exchange, 200, search(indexOf(path), parse(body)));
+            } else if (path.contains("/_stats")) {
+                respond(exchange, 200, stats(indexOf(path)));
+            } else if (path.equals("/")) {
+                respond(exchange, 200, clusterInfo());
+            } else {
+                respond(exchange, 404, error("no handler for " + exchange.getRequestMethod() + " " + path));
+            }
+        } catch (Exception e) {
+            respond(exchange, 500, error(e.getMessage()));
+        }
+    }
+
+    // NDJSON action/document pairs, every document is accepted
+    private ObjectNode bulk(byte[] body) throws IOException {
+        List<JsonNode> actions = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new java.io.ByteArrayInputStream(body), StandardCharsets.UTF_8))) {
+            String line;
+            boolean expectAction = true;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (expectAction) {
+                    actions.add(MAPPER.readTree(line));
+                }
+                expectAction = !expectAction;
+            }
+        }
+        sleep(bulkLatencyMs + actions.size() * bulkPerDocumentMicros / 1000);
+        indexedDocuments.addAndGet(actions.size());
+
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("took", bulkLatencyMs);
+        response.put("errors", false);
+        ArrayNode items = response.putArray("items");
+        for (JsonNode action : actions) {
+            String type = action.fieldNames().next();
+            JsonNode meta = action.get(type);
+            ObjectNode result = items.addObject().putObject(type);
+            result.put("_index", meta.path("_index").asText("unknown"));
+            result.put("_id", meta.path("_id").asText(Long.toHexString(ThreadLocalRandom.current().nextLong())));
+            result.put("_version", 1);
+            result.put("result", "created");
+            result.put("status", 201);
+            result.put("_seq_no", 0);
+            result.put("_primary_term", 1);
+            ObjectNode shards = result.putObject("_shards");
+            shards.put("total", 1).put("successful", 1).put("failed", 0);
+        }
+        return response;
+    }
+
+    // NDJSON header/body pairs, searches run in parallel so the whole request costs one search latency
+    private ObjectNode multiSearch(byte[] body) throws IOException {
+        String[] lines = new String(body, StandardCharsets.UTF_8).split("\n");
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("took", searchLatencyMs);
+        ArrayNode responses = response.putArray("responses");
+        sleep(searchLatency());
+        for (int i = 0; i + 1 < lines.length; i += 2) {
+            JsonNode header = parse(lines[i].getBytes(StandardCharsets.UTF_8));
+            JsonNode index = header.path("index");
+            String indexName = index.isArray() ? index.path(0).asText("") : index.asText("");
+            ObjectNode searchResponse = search(indexName, parse(lines[i + 1].getBytes(StandardCharsets.UTF_8)));
+            searchResponse.put("status", 200);
+            responses.add(searchResponse);
+        }
+        return response;
+    }
+
+    // Hits shaped like imported Arkime sessions on the index's day, empty buckets for any aggregations
+    private ObjectNode search(String index, JsonNode request) {
+        int size = request.path("size").asInt(10);
+        int hitCount = Math.min(size, hitsPerSearch);
+        long dayStart = dayStartOf(index);
+
+        ObjectNode response = MAPPER.createObjectNode();
+        response.put("took", searchLatencyMs);
+        response.put("timed_out", false);
+        response.putObject("_shards").put("total", 1).put("successful", 1).put("skipped", 0).put("failed", 0);
+
+        ObjectNode hits = response.putObject("hits");
+        hits.putObject("total").put("value", hitsPerSearch).put("relation", "eq");
+        hits.putNull("max_score");
+        ArrayNode hitArray = hits.putArray("hits");
+        String concreteIndex = index.replace("*", "3");
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < hitCount; i++) {
+            ObjectNode hit = hitArray.addObject();
+            hit.put("_index", concreteIndex);
+            hit.put("_id", Long.toHexString(random.nextLong()));
+            hit.putNull("_score");
+            hit.set("_source", session(dayStart + random.nextLong(86_400_000L), random));
+        }
+
+        JsonNode aggregations = request.has("aggregations") ? request.get("aggregations") : request.get("aggs");
+        if (aggregations != null) {
+            response.set("aggregations", emptyAggregations(aggregations));
+        }
+        return response;
+    }
+
+    private ObjectNode session(long timestamp, ThreadLocalRandom random) {
+        ObjectNode source = MAPPER.createObjectNode();
+        source.put("@timestamp", timestamp);
+        source.put("firstPacket", timestamp - random.nextInt(10_000));
+        source.put("lastPacket", timestamp + random.nextInt(10_000));
+        source.put("ipProtocol", random.nextBoolean() ? 6 : 17);
+        source.putArray("protocol").add(random.nextBoolean() ? "tcp" : "udp").add("http");
+        int packets = 1 + random.nextInt(50);
+        source.putObject("network")
+            .put("community_id", String.format(Locale.ROOT, "1:%028x=", (random.nextInt(communityIdPoolSize) + 1) * 0x9E3779B97F4A7C15L))
+            .put("packets", packets)
+            .put("bytes", packets * (60 + random.nextInt(1400)));
+        ObjectNode extended = source.putObject("extended");
+        if (random.nextDouble() < sidRatio) {
+            extended.putArray("sid").add(7_000_000L + random.nextInt(1_000_000));
+            extended.putArray("snort_message").add(SNORT_MESSAGES[random.nextInt(SNORT_MESSAGES.length)]);
+        }
+        source.putObject("source").put("ip", "10.0." + random.nextInt(256) + "." + random.nextInt(256)).put("port", random.nextInt(65536));
+        source.putObject("destination").put("ip", "10.1." + random.nextInt(256) + "." + random.nextInt(256)).put("port", random.nextInt(65536));
+        return source;
+    }
+
+    // typed_keys style names (the Java client sends typed_keys=true) with no buckets
+    private ObjectNode emptyAggregations(JsonNode requested) {
+        ObjectNode result = MAPPER.createObjectNode();
+        requested.fields().forEachRemaining(entry -> {
+            String type = "filter";
+            for (var fields = entry.getValue().fieldNames(); fields.hasNext(); ) {
+                String field = fields.next();
+                if (!field.equals("aggregations") && !field.equals("aggs") && !field.equals("meta")) {
+                    type = field;
+                    break;
+                }
+            }
+            switch (type) {
+                case "terms" -> result.putObject("sterms#" + entry.getKey())
+                    .put("doc_count_error_upper_bound", 0).put("sum_other_doc_count", 0).putArray("buckets");
+                case "date_histogram" -> result.putObject("date_histogram#" + entry.getKey()).putArray("buckets");
+                case "cardinality", "value_count", "sum", "min", "max", "avg" ->
+                    result.putObject(type + "#" + entry.getKey()).putNull("value");
+                default -> result.putObject("filter#" + entry.getKey()).put("doc_count", 0);
+            }
+        });
+        return result;
+    }
+
+    // Enough of the indices stats response for stone's ETag computation
+    private ObjectNode stats(String index) {
+        long docs = indexedDocuments.get();
+        ObjectNode response = MAPPER.createObjectNode();
+        response.putObject("_shards").put("total", 1).put("successful", 1).put("failed", 0);
+        ObjectNode all = response.putObject("_all");
+        all.putObject("primaries").putObject("docs").put("count", docs).put("deleted", 0);
+        all.putObject("total").putObject("docs").put("count", docs).put("deleted", 0);
+        ObjectNode indexStats = response.putObject("indices").putObject(index.isEmpty() ? "arkime_sessions3-000000" : index.replace("*", "3"));
+        indexStats.put("uuid", "fake-" + Integer.toHexString(index.hashCode()));
+        indexStats.putObject("primaries").putObject("docs").put("count", docs).put("deleted", 0);
+        indexStats.putObject("total").putObject("docs").put("count", docs).put("deleted", 0);
+        return response;
+    }
+
+    private ObjectNode clusterInfo() {
+        ObjectNode info = MAPPER.createObjectNode();
+        info.put("name", "fake-opensearch");
+        info.put("cluster_name", "stone-loadtest");
+        info.put("cluster_uuid", "fake");
+        ObjectNode version = info.putObject("version");
+        version.put("distribution", "opensearch").put("number", "3.0.0").put("build_type", "fake")
+            .put("build_hash", "fake").put("build_date", "2025-01-01T00:00:00Z").put("build_snapshot", false)
+            .put("lucene_version", "10.0.0").put("minimum_wire_compatibility_version", "2.19.0")
+            .put("minimum_index_compatibility_version", "2.0.0");
+        info.put("tagline", "The OpenSearch Project: https://opensearch.org/");
+        return info;
+    }
+
+    private ObjectNode error(String reason) {
+        ObjectNode response = MAPPER.createObjectNode();
+        ObjectNode error = response.putObject("error");
+        error.put("type", "fake_exception");
+        error.put("reason", reason == null ? "unknown" : reason);
+        response.put("status", 500);
+        return response;
+    }
+
+    // First path segment, e.g. arkime_sessions*-250821 from /arkime_sessions*-250821/_search
+    private static String indexOf(String path) {
+        String trimmed = path.startsWith("/") ? path.substring(1) : path;
+        int slash = trimmed.indexOf('/');
+        String first = slash < 0 ? trimmed : trimmed.substring(0, slash);
+        return first.startsWith("_") ? "" : first;
+    }
+
+    // UTC start of the yyMMdd day in the index name, today when there is none
+    private static long dayStartOf(String index) {
+        Matcher matcher = INDEX_DATE.matcher(index);
+        LocalDate day = LocalDate.now(ZoneOffset.UTC);
+        if (matcher.find()) {
+            try {
+                day = LocalDate.parse(matcher.group(1), YYMMDD);
+            } catch (Exception e) {
+                // Not a date, keep today
+            }
+        }
+        return day.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+    }
+
+    private int searchLatency() {
+        double jitter = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) * searchJitterMs;
+        return searchLatencyMs + (int) jitter;
+    }
+
+    private static byte[] readBody(HttpExchange exchange) throws IOException {
+        InputStream body = exchange.getRequestBody();
+        if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+            body = new GZIPInputStream(body);
+        }
+        return body.readAllBytes();
+    }
+
+    private static JsonNode parse(byte[] body) throws IOException {
+        return body.length == 0 ? MAPPER.createObjectNode() : MAPPER.readTree(body);
+    }
+
+    private static void respond(HttpExchange exchange, int status, JsonNode body) throws IOException {
+        byte[] bytes = MAPPER.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=UTF-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.cap.stone.loadtest;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Collects per-request latencies of one endpoint and summarizes them. Thread-safe, sorting happens only at report time.
+final class LatencyRecorder {
+
+    private final String name;
+    private long[] latenciesNanos = new long[1024];
+    private int count;
+    private int errors;
+
+    LatencyRecorder(String name) {
+        this.name = name;
+    }
+
+    synchronized void record(long latencyNanos, boolean success) {
+        if (!success) {
+            errors++;
+        }
+        if (count == latenciesNanos.length) {
+            latenciesNanos = Arrays.copyOf(latenciesNanos, count * 2);
+        }
+        latenciesNanos[count++] = latencyNanos;
+    }
+
+    synchronized void reset() {
+        count = 0;
+        errors = 0;
+    }
+
+    // One line: requests, errors, throughput and latency percentiles in milliseconds
+    synchronized String summary(double elapsedSeconds) {
+        if (count == 0) {
+            return String.format(Locale.ROOT, "%-10s no requests", name);
+        }
+        long[] sorted = Arrays.copyOf(latenciesNanos, count);
+        Arrays.sort(sorted);
+        return String.format(Locale.ROOT,
+            "%-10s requests=%d errors=%d throughput=%.1f req/s  p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms",
+            name, count, errors, count / elapsedSeconds,
+            millis(percentile(sorted, 0.50)), millis(percentile(sorted, 0.90)),
+            millis(percentile(sorted, 0.99)), millis(sorted[sorted.length - 1]));
+    }
+
+    // Nearest-rank percentile
+    static long percentile(long[] sorted, double quantile) {
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
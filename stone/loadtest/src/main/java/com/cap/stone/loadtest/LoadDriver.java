@@ -0,0 +1,246 @@
+package com.cap.stone.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+// Closed-loop load against a running stone: each worker sends its next request as soon as the previous one returns.
+// Latencies collected during the warm-up are discarded, the rest is reported per endpoint.
+//
+//   java -jar target/loadtest.jar --cookie=JSESSIONID=... --scenario=mixed --concurrency=32 --duration=60s
+public class LoadDriver {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final HttpClient http;
+    private final String target;
+    private final String cookie;
+    private final LocalDate start;
+    private final LocalDate end;
+    private final List<byte[]> importFiles;
+    private final double importShare;
+    private final Duration requestTimeout;
+
+    private final LatencyRecorder sessions = new LatencyRecorder("sessions");
+    private final LatencyRecorder imports = new LatencyRecorder("import");
+
+    private String csrfHeader;
+    private String csrfToken;
+
+    LoadDriver(Options options) throws Exception {
+        this.target = stripTrailingSlash(options.string("target", "https://localhost:8443"));
+        this.cookie = options.string("cookie", null);
+        this.end = LocalDate.parse(options.string("end", LocalDate.now().toString()));
+        this.start = LocalDate.parse(options.string("start", end.minusDays(6).toString()));
+        this.requestTimeout = options.duration("request-timeout", Duration.ofSeconds(30));
+
+        String scenario = options.string("scenario", "sessions");
+        this.importShare = switch (scenario) {
+            case "sessions" -> 0.0;
+            case "import" -> 1.0;
+            case "mixed" -> options.decimal("import-share", 0.2);
+            default -> throw new IllegalArgumentException("Unknown scenario " + scenario + ", use sessions, import or mixed");
+        };
+        this.importFiles = importShare > 0 ? loadImportFiles(Path.of(options.string("files", "../../testdata"))) : List.of();
+
+        HttpClient.Builder builder = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .executor(Executors.newVirtualThreadPerTaskExecutor());
+        if (options.flag("insecure")) {
+            // The dev server runs on a self-signed certificate
+            System.setProperty("jdk.internal.httpclient.disableHostnameVerification", "true");
+            builder.sslContext(trustAllContext());
+        }
+        this.http = builder.build();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Options options = new Options(args);
+        int concurrency = options.integer("concurrency", 16);
+        Duration warmup = options.duration("warmup", Duration.ofSeconds(10));
+        Duration duration = options.duration("duration", Duration.ofSeconds(60));
+
+        LoadDriver driver = new LoadDriver(options);
+        if (driver.cookie == null) {
+            System.out.println("No --cookie given, /api requests will be redirected to the login page.");
+            System.out.println("Log in with a browser and pass its session cookie, e.g. --cookie=JSESSIONID=ABC123");
+        }
+        if (driver.importShare > 0) {
+            driver.fetchCsrfToken();
+        }
+
+        System.out.printf(Locale.ROOT, "Driving %s with %d workers, %s warm-up + %s measured, sessions %s..%s, %.0f%% imports%n",
+            driver.target, concurrency, warmup, duration, driver.start, driver.end, driver.importShare * 100);
+
+        long warmupEnds = System.nanoTime() + warmup.toNanos();
+        long runEnds = warmupEnds + duration.toNanos();
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < concurrency; i++) {
+                workers.submit(() -> driver.work(runEnds));
+            }
+            Thread.sleep(warmup.toMillis());
+            driver.sessions.reset();
+            driver.imports.reset();
+            System.out.println("Warm-up done, measuring...");
+        }
+
+        double measuredSeconds = duration.toNanos() / 1e9;
+        System.out.println(driver.sessions.summary(measuredSeconds));
+        if (driver.importShare > 0) {
+            System.out.println(driver.imports.summary(measuredSeconds));
+        }
+    }
+
+    private void work(long runEnds) {
+        while (System.nanoTime() < runEnds) {
+            if (ThreadLocalRandom.current().nextDouble() < importShare) {
+                send(imports, importRequest());
+            } else {
+                send(sessions, sessionsRequest());
+            }
+        }
+    }
+
+    // A 2xx with an "error" body is a failure too, stone reports most errors that way
+    private void send(LatencyRecorder recorder, HttpRequest request) {
+        long startTime = System.nanoTime();
+        boolean success;
+        try {
+            HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+            success = response.statusCode() / 100 == 2 && !hasErrorField(response.body());
+        } catch (IOException e) {
+            success = false;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        recorder.record(System.nanoTime() - startTime, success);
+    }
+
+    // Random sub-range of the configured window so the ETag cache does not answer everything
+    private HttpRequest sessionsRequest() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long days = Math.max(0, end.toEpochDay() - start.toEpochDay());
+        LocalDate from = start.plusDays(random.nextLong(days + 1));
+        LocalDate to = from.plusDays(random.nextLong(end.toEpochDay() - from.toEpochDay() + 1));
+        return authenticated(HttpRequest.newBuilder(URI.create(target + "/api/sessions?start=" + from + "&end=" + to)))
+            .GET()
+            .build();
+    }
+
+    private HttpRequest importRequest() {
+        byte[] file = importFiles.get(ThreadLocalRandom.current().nextInt(importFiles.size()));
+        String boundary = "stone-load-" + UUID.randomUUID();
+        ByteArrayOutputStream body = new ByteArrayOutputStream(file.length + 256);
+        body.writeBytes(("--" + boundary + "\r\n"
+            + "Content-Disposition: form-data; name=\"files\"; filename=\"load.gz\"\r\n"
+            + "Content-Type: application/gzip\r\n\r\n").getBytes(StandardCharsets.US_ASCII));
+        body.writeBytes(file);
+        body.writeBytes(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(target + "/api/import"))
+            .header("Content-Type", "multipart/form-data; boundary=" + boundary)
+            .POST(HttpRequest.BodyPublishers.ofByteArray(body.toByteArray()));
+        if (csrfToken != null) {
+            builder.header(csrfHeader, csrfToken);
+        }
+        return authenticated(builder).build();
+    }
+
+    // POSTs need the CSRF token bound to the session, fetched once like the frontend does
+    private void fetchCsrfToken() throws IOException, InterruptedException {
+        HttpResponse<String> response = http.send(
+            authenticated(HttpRequest.newBuilder(URI.create(target + "/api/csrf"))).GET().build(),
+            HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Could not fetch CSRF token, /api/csrf answered " + response.statusCode());
+        }
+        JsonNode token = MAPPER.readTree(response.body());
+        csrfHeader = token.path("headerName").asText("X-CSRF-TOKEN");
+        csrfToken = token.path("token").asText();
+    }
+
+    private HttpRequest.Builder authenticated(HttpRequest.Builder builder) {
+        builder.timeout(requestTimeout);
+        if (cookie != null) {
+            builder.header("Cookie", cookie);
+        }
+        return builder;
+    }
+
+    private static boolean hasErrorField(String body) {
+        if (body == null || !body.startsWith("{")) {
+            return false;
+        }
+        try {
+            return MAPPER.readTree(body).has("error");
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    // A single .gz file or every .gz file in a directory, read once up front
+    private static List<byte[]> loadImportFiles(Path path) throws IOException {
+        List<byte[]> files = new ArrayList<>();
+        if (Files.isDirectory(path)) {
+            try (Stream<Path> entries = Files.list(path)) {
+                for (Path entry : entries.filter(p -> p.toString().endsWith(".gz")).sorted().toList()) {
+                    files.add(Files.readAllBytes(entry));
+                }
+            }
+        } else {
+            files.add(Files.readAllBytes(path));
+        }
+        if (files.isEmpty()) {
+            throw new IllegalArgumentException("No .gz files found in " + path);
+        }
+        return files;
+    }
+
+    private static SSLContext trustAllContext() throws Exception {
+        TrustManager trustAll = new X509TrustManager() {
+            @Override
+            public void checkClientTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public void checkServerTrusted(X509Certificate[] chain, String authType) {
+            }
+
+            @Override
+            public X509Certificate[] getAcceptedIssuers() {
+                return new X509Certificate[0];
+            }
+        };
+        SSLContext context = SSLContext.getInstance("TLS");
+        context.init(null, new TrustManager[] {trustAll}, null);
+        return context;
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,35 @@
+package com.cap.stone.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.cap.stone.util.FairAdmissionExecutor;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Executor for work that mostly waits on OpenSearch: async session responses and the per-index search fan-out.
+// One virtual thread per task, so thousands of waiting requests cost a few KB each instead of a platform thread.
+@Configuration
+public class ConcurrencyConfig {
+
+    @Bean(destroyMethod = "close")
+    public ExecutorService virtualThreadExecutor() {
+        return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("stone-vt-", 0).factory());
+    }
+
+    // Uploads are decompressed, parsed and turned into bulk requests on a few platform threads of their own, so an
+    // import can't occupy the carrier threads every virtual thread of the query path runs on
+    @Bean(destroyMethod = "close")
+    public ExecutorService ingestExecutor(@Value("${stone.bulkhead.ingest.threads:4}") int threads) {
+        return Executors.newFixedThreadPool(Math.max(1, threads), Thread.ofPlatform().name("stone-ingest-", 0).daemon(true).factory());
+    }
+
+    // Uploads wait for a thread of the ingest executor per uploader instead of in its FIFO queue, so one uploader
+    // with more uploads than threads doesn't hold everyone else back
+    @Bean
+    public FairAdmissionExecutor ingestUploads(ExecutorService ingestExecutor, @Value("${stone.bulkhead.ingest.threads:4}") int threads) {
+        return new FairAdmissionExecutor(ingestExecutor, Math.max(1, threads));
+    }
+}
@@ -0,0 +1,99 @@
+package com.cap.stone.config;
+
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecChainHandler;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.nio.AsyncDataConsumer;
+import org.apache.hc.core5.http.nio.AsyncEntityProducer;
+import org.opensearch.client.transport.httpclient5.internal.Node;
+import org.opensearch.client.transport.httpclient5.internal.NodeSelector;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Narrows the living nodes to the one with the fewest in-flight requests, round-robin among equals.
+// The transport rotates the selected list round-robin after select() returns, so a longer list would lose the order;
+// a single node is the only selection it can't rotate away. Failover happens across requests instead: a node that
+// fails is marked dead and left out of the living nodes the next request selects from.
+// The counts come from the exec interceptor returned by inFlightTracker(), registered on the HTTP client.
+public class LeastLoadedNodeSelector implements NodeSelector {
+
+    private final ConcurrentMap<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+    private final AtomicInteger nextTie = new AtomicInteger();
+
+    @Override
+    public void select(Iterable<Node> nodes) {
+        // Living nodes come as a mutable list. Dead nodes come as a plain iterable when none is living, those are
+        // left to the transport, which retries the one closest to being revived.
+        if (!(nodes instanceof List<Node> nodeList) || nodeList.size() < 2) {
+            return;
+        }
+        int fewest = nodeList.stream().mapToInt(node -> inFlightCount(node.getHost())).min().getAsInt();
+        List<Node> leastLoaded = nodeList.stream().filter(node -> inFlightCount(node.getHost()) == fewest).toList();
+        Node selected = leastLoaded.get(Math.floorMod(nextTie.getAndIncrement(), leastLoaded.size()));
+        nodeList.clear();
+        nodeList.add(selected);
+    }
+
+    public int inFlightCount(HttpHost host) {
+        AtomicInteger count = inFlight.get(key(host));
+        return count == null ? 0 : count.get();
+    }
+
+    // Counts requests per target host from dispatch until completion or failure
+    public AsyncExecChainHandler inFlightTracker() {
+        return (HttpRequest request, AsyncEntityProducer entityProducer, AsyncExecChain.Scope scope,
+                AsyncExecChain chain, AsyncExecCallback callback) -> {
+            AtomicInteger counter = inFlight.computeIfAbsent(key(scope.route.getTargetHost()), k -> new AtomicInteger());
+            AtomicBoolean released = new AtomicBoolean();
+            Runnable release = () -> {
+                if (released.compareAndSet(false, true)) {
+                    counter.decrementAndGet();
+                }
+            };
+            counter.incrementAndGet();
+
+            try {
+                chain.proceed(request, entityProducer, scope, new AsyncExecCallback() {
+                    @Override
+                    public AsyncDataConsumer handleResponse(HttpResponse response, EntityDetails entityDetails) throws HttpException, IOException {
+                        return callback.handleResponse(response, entityDetails);
+                    }
+
+                    @Override
+                    public void handleInformationResponse(HttpResponse response) throws HttpException, IOException {
+                        callback.handleInformationResponse(response);
+                    }
+
+                    @Override
+                    public void completed() {
+                        release.run();
+                        callback.completed();
+                    }
+
+                    @Override
+                    public void failed(Exception cause) {
+                        release.run();
+                        callback.failed(cause);
+                    }
+                });
+            } catch (HttpException | IOException | RuntimeException e) {
+                release.run();
+                throw e;
+            }
+        };
+    }
+
+    private static String key(HttpHost host) {
+        return host.getSchemeName() + "://" + host.getHostName() + ":" + host.getPort();
+    }
+}
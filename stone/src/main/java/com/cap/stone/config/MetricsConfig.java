@@ -0,0 +1,56 @@
+package com.cap.stone.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import com.cap.stone.util.RequestStageTimer;
+
+// Micrometer setup shared by the import and query paths, plus the debug-only per-request stage breakdown
+@Configuration
+public class MetricsConfig implements WebMvcConfigurer {
+
+    @Value("${stone.metrics.stage-breakdown:false}")
+    private boolean stageBreakdownEnabled;
+
+    // Debug mode: collect stage timings for every API request, sent back as a Server-Timing header
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (stageBreakdownEnabled) {
+            registry.addInterceptor(new StageTimingInterceptor()).addPathPatterns("/api/**");
+        }
+    }
+
+    // Async responses dispatch twice (once to start, once to write the result), the stages ride along in a request attribute
+    private static class StageTimingInterceptor implements AsyncHandlerInterceptor {
+
+        private static final String STAGES_ATTRIBUTE = StageTimingInterceptor.class.getName() + ".stages";
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            RequestStageTimer.Stages stages = (RequestStageTimer.Stages) request.getAttribute(STAGES_ATTRIBUTE);
+            if (stages != null) {
+                RequestStageTimer.attach(stages);
+            } else {
+                RequestStageTimer.begin();
+                request.setAttribute(STAGES_ATTRIBUTE, RequestStageTimer.current());
+            }
+            return true;
+        }
+
+        @Override
+        public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            // The servlet thread goes back to the pool, the request continues elsewhere
+            RequestStageTimer.end();
+        }
+
+        @Override
+        public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+            RequestStageTimer.end();
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.cap.stone.config;
 
 import javax.net.ssl.SSLContext;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.apache.hc.client5.http.auth.AuthScope;
 import org.apache.hc.client5.http.auth.UsernamePasswordCredentials;
 import org.apache.hc.client5.http.impl.auth.BasicCredentialsProvider;
@@ -9,29 +11,52 @@ import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBu
 import org.apache.hc.client5.http.nio.AsyncClientConnectionManager;
 import org.apache.hc.client5.http.ssl.ClientTlsStrategyBuilder;
 import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.HttpRequestInterceptor;
 import org.apache.hc.core5.ssl.SSLContextBuilder;
 import org.apache.hc.core5.util.Timeout;
 import org.opensearch.client.opensearch.OpenSearchClient;
 import org.opensearch.client.transport.OpenSearchTransport;
 import org.opensearch.client.transport.httpclient5.ApacheHttpClient5TransportBuilder;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 
 @Configuration
+@EnableConfigurationProperties(OpenSearchProperties.class)
 public class OpenSearchConfig {
 
-    // Creates and configures an OpenSearch client bean for connecting to the OpenSearch cluster.
+    // Creates and configures an OpenSearch client bean for connecting to the OpenSearch cluster, used by the queries.
+    // Requests rotate across all configured hosts; failing hosts are skipped with exponential backoff by the transport.
     @Bean
-    public OpenSearchClient openSearchClient() {
+    @Primary
+    public OpenSearchClient openSearchClient(OpenSearchProperties properties, MeterRegistry meterRegistry) {
+        return buildClient(properties, meterRegistry, properties.getMaxConnectionsPerRoute(), properties.getMaxConnectionsTotal());
+    }
+
+    // Same cluster for bulk ingest, on a connection pool of its own so a large import can't hold the query connections
+    @Bean
+    public OpenSearchClient ingestOpenSearchClient(OpenSearchProperties properties, MeterRegistry meterRegistry) {
+        return buildClient(properties, meterRegistry, properties.getIngestMaxConnectionsPerRoute(), properties.getIngestMaxConnectionsTotal());
+    }
+
+    private OpenSearchClient buildClient(OpenSearchProperties properties, MeterRegistry meterRegistry,
+                                         int maxConnectionsPerRoute, int maxConnectionsTotal) {
         try {
-            final HttpHost httpHost = new HttpHost("https", "opensearch-node1", 9200);
-            
-            // Configure basic authentication credentials
+            final HttpHost[] httpHosts = properties.getHosts().stream()
+                .map(OpenSearchConfig::toHttpHost)
+                .toArray(HttpHost[]::new);
+
+            // Configure basic authentication credentials for every node
             final BasicCredentialsProvider credentialsProvider = new BasicCredentialsProvider();
-            credentialsProvider.setCredentials(
-                new AuthScope(httpHost), 
-                new UsernamePasswordCredentials("admin", "MyStrongPassword123!".toCharArray())
-            );
+            if (properties.getUsername() != null && properties.getPassword() != null) {
+                for (HttpHost httpHost : httpHosts) {
+                    credentialsProvider.setCredentials(
+                        new AuthScope(httpHost),
+                        new UsernamePasswordCredentials(properties.getUsername(), properties.getPassword().toCharArray())
+                    );
+                }
+            }
 
             // Create SSL context that trusts all certificates (for demo certificates)
             final SSLContext sslContext = SSLContextBuilder
@@ -40,17 +65,27 @@ public class OpenSearchConfig {
                 .build();
 
             // Build the HTTP transport layer
-            final ApacheHttpClient5TransportBuilder builder = ApacheHttpClient5TransportBuilder.builder(httpHost);
-            
+            final ApacheHttpClient5TransportBuilder builder = ApacheHttpClient5TransportBuilder.builder(httpHosts);
+
+            // Least-loaded selection needs in-flight counts from the HTTP client
+            final LeastLoadedNodeSelector leastLoadedSelector = "least-loaded".equals(properties.getNodeSelection())
+                ? new LeastLoadedNodeSelector()
+                : null;
+            if (leastLoadedSelector != null) {
+                builder.setNodeSelector(leastLoadedSelector);
+            }
+
             // Configure HTTP client with SSL and credentials
             builder.setHttpClientConfigCallback(httpClientBuilder -> {
-                    // Create connection manager with SSL context
+                    // Create connection manager with SSL context and configured pool limits
                     final AsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder
                         .create()
                         .setTlsStrategy(ClientTlsStrategyBuilder.create()
                             .setSslContext(sslContext)
                             .setHostnameVerifier((hostname, session) -> true) // Disable hostname verification
                             .buildAsync())
+                        .setMaxConnPerRoute(maxConnectionsPerRoute)
+                        .setMaxConnTotal(maxConnectionsTotal)
                         .build();
 
                     // Apply credentials and connection manager to HTTP client
@@ -58,16 +93,26 @@ public class OpenSearchConfig {
                         .setDefaultCredentialsProvider(credentialsProvider)
                         .setConnectionManager(connectionManager);
 
+                    if (leastLoadedSelector != null) {
+                        httpClientBuilder.addExecInterceptorFirst("in-flight-tracker", leastLoadedSelector.inFlightTracker());
+                    }
+
+                    // Request body sizes as sent on the wire (after compression, when enabled)
+                    httpClientBuilder.addRequestInterceptorLast(requestBytesRecorder(meterRegistry));
+
                 return httpClientBuilder;
             });
 
             // Set timeouts
-            builder.setRequestConfigCallback(requestConfigBuilder -> 
+            builder.setRequestConfigCallback(requestConfigBuilder ->
                 requestConfigBuilder
-                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(30000))
-                    .setResponseTimeout(Timeout.ofMilliseconds(60000))
+                    .setConnectionRequestTimeout(Timeout.ofMilliseconds(properties.getConnectionRequestTimeoutMs()))
+                    .setResponseTimeout(Timeout.ofMilliseconds(properties.getResponseTimeoutMs()))
             );
 
+            // Gzip request bodies (bulk imports) when enabled
+            builder.setCompressionEnabled(properties.isCompressionEnabled());
+
             // Build final transport and create OpenSearch client
             final OpenSearchTransport transport = builder.build();
             return new OpenSearchClient(transport);
@@ -76,4 +121,37 @@ public class OpenSearchConfig {
             throw new RuntimeException("Failed to create OpenSearch client", e);
         }
     }
+
+    // Records request body sizes per endpoint type, bodies of unknown length (streamed) are skipped
+    private static HttpRequestInterceptor requestBytesRecorder(MeterRegistry meterRegistry) {
+        DistributionSummary bulkBytes = requestBytesSummary(meterRegistry, "bulk");
+        DistributionSummary searchBytes = requestBytesSummary(meterRegistry, "search");
+        DistributionSummary otherBytes = requestBytesSummary(meterRegistry, "other");
+        return (request, entity, context) -> {
+            if (entity == null || entity.getContentLength() < 0) {
+                return;
+            }
+            String path = request.getPath();
+            DistributionSummary summary = path.contains("/_bulk") ? bulkBytes
+                : path.contains("/_search") ? searchBytes
+                : otherBytes;
+            summary.record(entity.getContentLength());
+        };
+    }
+
+    private static DistributionSummary requestBytesSummary(MeterRegistry meterRegistry, String endpoint) {
+        return DistributionSummary.builder("stone.opensearch.request.bytes")
+            .baseUnit("bytes")
+            .tag("endpoint", endpoint)
+            .register(meterRegistry);
+    }
+
+    // Parses a host entry like https://opensearch-node1:9200
+    private static HttpHost toHttpHost(String host) {
+        try {
+            return HttpHost.create(host.trim());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid opensearch.hosts entry: " + host, e);
+        }
+    }
 }
@@ -0,0 +1,66 @@
+package com.cap.stone.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Externalized OpenSearch connection settings (opensearch.* in application.properties)
+@ConfigurationProperties(prefix = "opensearch")
+public class OpenSearchProperties {
+
+    // Cluster nodes as scheme://host:port, requests are spread across them
+    private List<String> hosts = new ArrayList<>(List.of("https://opensearch-node1:9200"));
+    private String username;
+    private String password;
+
+    // Connection pool limits of the query traffic
+    private int maxConnectionsPerRoute = 10;
+    private int maxConnectionsTotal = 30;
+
+    // Connection pool limits of bulk ingest, a separate pool
+    private int ingestMaxConnectionsPerRoute = 4;
+    private int ingestMaxConnectionsTotal = 8;
+
+    // "round-robin" or "least-loaded" (the node with the fewest in-flight requests)
+    private String nodeSelection = "round-robin";
+
+    // Gzip request bodies, mostly useful for large _bulk payloads
+    private boolean compressionEnabled = false;
+
+    private long connectionRequestTimeoutMs = 30000;
+    private long responseTimeoutMs = 60000;
+
+    public List<String> getHosts() { return hosts; }
+    public void setHosts(List<String> hosts) { this.hosts = hosts; }
+
+    public String getUsername() { return username; }
+    public void setUsername(String username) { this.username = username; }
+
+    public String getPassword() { return password; }
+    public void setPassword(String password) { this.password = password; }
+
+    public int getMaxConnectionsPerRoute() { return maxConnectionsPerRoute; }
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) { this.maxConnectionsPerRoute = maxConnectionsPerRoute; }
+
+    public int getMaxConnectionsTotal() { return maxConnectionsTotal; }
+    public void setMaxConnectionsTotal(int maxConnectionsTotal) { this.maxConnectionsTotal = maxConnectionsTotal; }
+
+    public int getIngestMaxConnectionsPerRoute() { return ingestMaxConnectionsPerRoute; }
+    public void setIngestMaxConnectionsPerRoute(int ingestMaxConnectionsPerRoute) { this.ingestMaxConnectionsPerRoute = ingestMaxConnectionsPerRoute; }
+
+    public int getIngestMaxConnectionsTotal() { return ingestMaxConnectionsTotal; }
+    public void setIngestMaxConnectionsTotal(int ingestMaxConnectionsTotal) { this.ingestMaxConnectionsTotal = ingestMaxConnectionsTotal; }
+
+    public String getNodeSelection() { return nodeSelection; }
+    public void setNodeSelection(String nodeSelection) { this.nodeSelection = nodeSelection; }
+
+    public boolean isCompressionEnabled() { return compressionEnabled; }
+    public void setCompressionEnabled(boolean compressionEnabled) { this.compressionEnabled = compressionEnabled; }
+
+    public long getConnectionRequestTimeoutMs() { return connectionRequestTimeoutMs; }
+    public void setConnectionRequestTimeoutMs(long connectionRequestTimeoutMs) { this.connectionRequestTimeoutMs = connectionRequestTimeoutMs; }
+
+    public long getResponseTimeoutMs() { return responseTimeoutMs; }
+    public void setResponseTimeoutMs(long responseTimeoutMs) { this.responseTimeoutMs = responseTimeoutMs; }
+}
@@ -21,6 +21,8 @@ public class SecurityConfig {
         http
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/assets/**", "/static/**", "/favicon.ico", "/api/csrf").permitAll()
+                // Health and metrics scrapes come from infrastructure, not logged-in users
+                .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                 .anyRequest().authenticated()
             )
             // default settings for OAuth2 login
@@ -0,0 +1,33 @@
+package com.cap.stone.config;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import com.cap.stone.util.RequestStageTimer;
+
+// Adds the collected stage timings as a Server-Timing header just before the body is written,
+// browser dev tools show it next to the request. Does nothing unless stone.metrics.stage-breakdown is on.
+@ControllerAdvice
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        String serverTiming = RequestStageTimer.toServerTiming();
+        if (serverTiming != null) {
+            response.getHeaders().add("Server-Timing", serverTiming);
+        }
+        return body;
+    }
+}
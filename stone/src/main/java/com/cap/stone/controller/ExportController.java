@@ -0,0 +1,82 @@
+package com.cap.stone.controller;
+
+import com.cap.stone.infra.opensearch.SessionExportService;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.Map;
+
+// Bulk export of sessions for offline analysis or reloading another environment
+@RestController
+@RequestMapping("/api/export")
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+    private static final String CONTENT_TYPE = "application/gzip";
+
+    @Autowired
+    private SessionExportService exportService;
+
+    // Streams every session of the range as a .ndjson.gz file that /api/import takes back unchanged.
+    // The request runs on a virtual thread and writes straight to the response, so there is no async timeout to outlast.
+    @GetMapping("/sessions")
+    public Object exportSessions(@RequestParam String start,
+                                 @RequestParam String end,
+                                 HttpServletResponse servletResponse) {
+        Map<String, Object> response = new HashMap<>();
+
+        LocalDate startDate;
+        LocalDate endDate;
+        try {
+            startDate = LocalDate.parse(start);
+            endDate = LocalDate.parse(end);
+        } catch (DateTimeParseException e) {
+            response.put("error", "Invalid date format. Use YYYY-MM-DD");
+            return response;
+        }
+
+        if (startDate.isAfter(endDate)) {
+            response.put("error", "Start date cannot be after end date");
+            return response;
+        }
+
+        if (startDate.plusYears(1).isBefore(endDate)) {
+            response.put("error", "Date range too large (max 1 year)");
+            return response;
+        }
+
+        servletResponse.setContentType(CONTENT_TYPE);
+        servletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+            "attachment; filename=\"sessions_" + startDate + "_" + endDate + ".ndjson.gz\"");
+        servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+
+        try {
+            long exported = exportService.exportSessions(startDate, endDate, servletResponse.getOutputStream());
+            logger.info("Exported {} sessions for {} to {}", exported, startDate, endDate);
+        } catch (IOException e) {
+            logger.warn("Export of {} to {} aborted: {}", startDate, endDate, e.getMessage());
+            if (!servletResponse.isCommitted()) {
+                // Failed before the first buffer went out (e.g. shed), answer like the other endpoints
+                servletResponse.reset();
+                response.put("error", e.getMessage());
+                return response;
+            }
+            // The body is already streaming and the status can't change any more. Dropping the connection leaves a
+            // truncated gzip that fails to decompress rather than a file that silently misses sessions.
+            throw new IllegalStateException("Export aborted", e);
+        }
+        return null;
+    }
+}
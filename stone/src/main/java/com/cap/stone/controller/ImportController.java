@@ -1,8 +1,13 @@
 package com.cap.stone.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -10,13 +15,26 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 
 import com.cap.stone.service.ImportService;
+import com.cap.stone.service.IngestBulkhead;
+import com.cap.stone.service.OpenSearchOverloadedException;
+import com.cap.stone.service.RejectedRecordStore;
+import com.cap.stone.util.FairAdmissionExecutor;
 import com.cap.stone.util.GzipJsonReader;
+import com.cap.stone.util.RejectedRecord;
+import com.cap.stone.util.RequestStageTimer;
 
+import java.io.EOFException;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipException;
 
 //  Handles file upload and bulk import of compressed JSON data into OpenSearch indices.
 @RestController
@@ -25,34 +43,114 @@ public class ImportController {
     
     private static final Logger logger = LoggerFactory.getLogger(ImportController.class); //log errors or messages
 
+    private static final String NDJSON_SUFFIX = ".ndjson.gz";
+    
+    // Rejections listed in the response body, the download has all of them
+    private static final int MAX_LISTED_REJECTIONS = 20;
+    
     @Autowired
     private ImportService importService;
     
+    @Autowired
+    private RejectedRecordStore rejectedRecordStore;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    @Autowired
+    private FairAdmissionExecutor ingestUploads;
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    // lenient=true skips malformed or incomplete records and records OpenSearch refuses instead of failing the upload,
+    // and keeps what was read before a truncated gzip tail. The skipped records are listed with their byte offset in
+    // the decompressed file and can be downloaded as a .ndjson.gz, fixed and uploaded again on their own.
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE) //accepts mutiple file uploads
-    public ResponseEntity<String> importGzipJson(@RequestParam("files") MultipartFile[] files) {
+    public ResponseEntity<String> importGzipJson(@RequestParam("files") MultipartFile[] files,
+                                                 @RequestParam(defaultValue = "false") boolean lenient,
+                                                 HttpServletRequest request) {
+        // The upload waits for its uploader's turn at an ingest thread, and its bulk requests take turns with other
+        // uploaders' in the ingest bulkhead
+        String uploader = request.getUserPrincipal() != null ? request.getUserPrincipal().getName() : request.getRemoteAddr();
+        try {
+            return ingestUploads.call(uploader,
+                RequestStageTimer.propagate(() -> IngestBulkhead.callAs(uploader, () -> importFiles(files, lenient))));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Import interrupted while waiting for its turn");
+        }
+    }
+    
+    private ResponseEntity<String> importFiles(MultipartFile[] files, boolean lenient) {
         int totalImported = 0;
         Map<String, Integer> indexCounts = new HashMap<>(); // Track documents per index
+        List<Map<String, Object>> rejectedLines = new ArrayList<>();
+        List<Map<String, Object>> rejections = new ArrayList<>();
         
         // Process each uploaded file
         for (MultipartFile file : files) {
+            String fileName = file.getOriginalFilename();
+            List<RejectedRecord> fileRejected = new ArrayList<>();
             try (InputStream inputStream = new GZIPInputStream(file.getInputStream())) {
                 // Decompress and parse JSON documents from the gzipped file
-                List<Map<String, Object>> documents = GzipJsonReader.readGzipJsonStream(inputStream);
+                long parseStart = System.nanoTime();
+                List<Map<String, Object>> documents;
+                if (lenient) {
+                    GzipJsonReader.LenientResult result = isNdjson(file)
+                        ? GzipJsonReader.readNdjsonStreamLenient(inputStream, ImportService::rejectionReason)
+                        : GzipJsonReader.readGzipJsonStreamLenient(inputStream, ImportService::rejectionReason);
+                    documents = result.documents();
+                    fileRejected.addAll(result.rejected());
+                } else {
+                    // .ndjson.gz is what /api/export/sessions produces, everything else is a JSON array
+                    documents = isNdjson(file)
+                        ? GzipJsonReader.readNdjsonStream(inputStream)
+                        : GzipJsonReader.readGzipJsonStream(inputStream);
+                }
+                long parseTime = System.nanoTime() - parseStart;
+                
+                // Parse rate = documents (or compressed bytes) over parse time
+                meterRegistry.timer("stone.import.parse").record(parseTime, TimeUnit.NANOSECONDS);
+                meterRegistry.counter("stone.import.parse.documents").increment(documents.size());
+                meterRegistry.counter("stone.import.parse.bytes").increment(file.getSize());
+                RequestStageTimer.record("parse", parseTime);
 
                 // Import documents and get count per index
-                Map<String, Integer> fileCounts = importService.indexDocumentsByIndex(documents);
+                Map<String, Integer> fileCounts = lenient
+                    ? importService.indexDocumentsByIndex(documents, fileRejected)
+                    : importService.indexDocumentsByIndex(documents);
                 
                 // Merge counts from this file into total counts
                 fileCounts.forEach((index, count) -> 
                     indexCounts.merge(index, count, Integer::sum)
                 );
                 
-                totalImported += documents.size();
+                totalImported += lenient
+                    ? fileCounts.values().stream().mapToInt(Integer::intValue).sum()
+                    : documents.size();
+            } catch (ZipException | EOFException e) {
+                // Not gzip at all, or nothing left after the header
+                if (!lenient) {
+                    logger.error("Error processing file: {} - {}", fileName, e.getMessage(), e);
+                    return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                        .body("Error processing uploaded file. Please check the file format and try again.");
+                }
+                fileRejected.add(new RejectedRecord(0L, "Not a gzip file, file skipped: " + e.getMessage(), null));
+            } catch (OpenSearchOverloadedException e) {
+                // Shed before reaching OpenSearch, the client should retry later
+                logger.warn("Import of {} rejected: {}", file.getOriginalFilename(), e.getMessage());
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .body(e.getMessage() + ". " + totalImported + " documents were imported before the rejection.");
             } catch (Exception e) {
                 logger.error("Error processing file: {} - {}", file.getOriginalFilename(), e.getMessage(), e);
                 return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
                     .body("Error processing uploaded file. Please check the file format and try again.");
-}
+            }
+            
+            for (RejectedRecord record : fileRejected) {
+                rejectedLines.add(record.toRejectedLine(fileName));
+                rejections.add(record.toApiResponse(fileName));
+            }
         }
         
         // Build response message with import stats
@@ -65,6 +163,55 @@ public class ImportController {
             responseMsg.append("- ").append(index).append(": ").append(count).append(" documents\n")
         );
         
+        if (!rejectedLines.isEmpty()) {
+            meterRegistry.counter("stone.import.rejected").increment(rejectedLines.size());
+            String rejectedId = rejectedRecordStore.save(rejectedLines);
+            responseMsg.append("Rejected ").append(rejectedLines.size()).append(" records, download them from /api/import/rejected/")
+                       .append(rejectedId);
+            if (rejectedLines.size() > rejectedRecordStore.getMaxRecords()) {
+                responseMsg.append(" (first ").append(rejectedRecordStore.getMaxRecords()).append(" kept)");
+            }
+            responseMsg.append(":\n");
+            for (Map<String, Object> rejection : rejections.subList(0, Math.min(rejections.size(), MAX_LISTED_REJECTIONS))) {
+                responseMsg.append("- ").append(rejection.get("file"));
+                if (rejection.get("offset") != null) {
+                    responseMsg.append(" at byte ").append(rejection.get("offset"));
+                }
+                responseMsg.append(": ").append(rejection.get("reason")).append("\n");
+            }
+            if (rejections.size() > MAX_LISTED_REJECTIONS) {
+                responseMsg.append("- ... and ").append(rejections.size() - MAX_LISTED_REJECTIONS).append(" more\n");
+            }
+        }
+        
         return ResponseEntity.ok(responseMsg.toString());
     }
+    
+    // Rejected records of a lenient import as .ndjson.gz, one record per line with a "rejection" entry saying why.
+    // Documents keep their fields, so the file can be fixed in place and uploaded again with lenient=true.
+    @GetMapping("/rejected/{id}")
+    public Object downloadRejected(@PathVariable String id, HttpServletResponse servletResponse) throws IOException {
+        List<Map<String, Object>> lines = rejectedRecordStore.get(id);
+        if (lines == null) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("error", "Unknown or expired rejected records id");
+            return response;
+        }
+        
+        servletResponse.setContentType("application/gzip");
+        servletResponse.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"rejected_" + id + NDJSON_SUFFIX + "\"");
+        servletResponse.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        try (GZIPOutputStream gzip = new GZIPOutputStream(servletResponse.getOutputStream())) {
+            for (Map<String, Object> line : lines) {
+                gzip.write(objectMapper.writeValueAsBytes(line));
+                gzip.write('\n');
+            }
+        }
+        return null;
+    }
+    
+    private boolean isNdjson(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        return name != null && name.toLowerCase(Locale.ROOT).endsWith(NDJSON_SUFFIX);
+    }
 }
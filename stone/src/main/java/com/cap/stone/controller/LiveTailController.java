@@ -0,0 +1,27 @@
+package com.cap.stone.controller;
+
+import com.cap.stone.infra.opensearch.LiveTailService;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+// Server-Sent Events stream of newly indexed snort hits
+@RestController
+@RequestMapping("/api")
+public class LiveTailController {
+
+    @Autowired
+    private LiveTailService liveTailService;
+
+    @GetMapping(value = "/sessions/live", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamNewSessions(HttpServletResponse response) {
+        // Stop nginx from buffering the stream
+        response.setHeader("X-Accel-Buffering", "no");
+        return liveTailService.subscribe();
+    }
+}
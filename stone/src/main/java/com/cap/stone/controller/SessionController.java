@@ -1,20 +1,49 @@
 package com.cap.stone.controller;
 
+import com.cap.stone.infra.opensearch.AnomalyScoringService;
+import com.cap.stone.infra.opensearch.ColumnarResponseEncoder;
+import com.cap.stone.infra.opensearch.DataGenerationService;
 import com.cap.stone.infra.opensearch.SessionAnalyticsService;
+import com.cap.stone.infra.opensearch.SessionSearchService;
+import com.cap.stone.infra.opensearch.TrafficStatsService;
+import com.cap.stone.infra.opensearch.model.AnomalyReport;
+import com.cap.stone.infra.opensearch.model.CommunityTrend;
 import com.cap.stone.infra.opensearch.model.SessionAnalytics;
+import com.cap.stone.infra.opensearch.model.SessionScope;
+import com.cap.stone.infra.opensearch.model.SessionSearchFilter;
+import com.cap.stone.infra.opensearch.model.SessionSearchResult;
+import com.cap.stone.infra.opensearch.model.TopHitters;
+import com.cap.stone.infra.opensearch.model.TrafficStats;
+import com.cap.stone.service.OpenSearchOverloadedException;
+import com.cap.stone.util.AnalyticsDetail;
+import com.cap.stone.util.IpPattern;
+import com.cap.stone.util.PortRanges;
+import com.cap.stone.util.RequestStageTimer;
+import com.cap.stone.util.SearchCursor;
+import com.cap.stone.util.TimeGranularity;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeParseException;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
 
 
 // REST API endpoints for querying network session data
@@ -25,10 +54,48 @@ public class SessionController {
     @Autowired
     private SessionAnalyticsService sessionAnalyticsService;
     
+    @Autowired
+    private ColumnarResponseEncoder columnarEncoder;
+    
+    @Autowired
+    private DataGenerationService dataGenerationService;
+    
+    @Autowired
+    private SessionSearchService sessionSearchService;
+    
+    @Autowired
+    private AnomalyScoringService anomalyScoringService;
+    
+    @Autowired
+    private TrafficStatsService trafficStatsService;
+
+    @Autowired
+    private ExecutorService virtualThreadExecutor;
+    
+    private static final int MAX_TOP_N = 100;
+    private static final int MAX_MINUTE_RANGE_DAYS = 2;
+    private static final int MAX_HOUR_RANGE_DAYS = 31;
+    private static final int MIN_MAX_POINTS = 3; // LTTB always keeps the first and last point
+    private static final int MAX_SEARCH_RANGE_DAYS = 31;
+    private static final int MAX_SEARCH_SIZE = 1000;
+    private static final int MAX_SEARCH_SIDS = 100;
+    private static final int MAX_EXTRA_FIELDS = 20;
+    private static final Pattern FIELD_PATH = Pattern.compile("[A-Za-z0-9_@][A-Za-z0-9_@.\\-]*");
+    
     // Retrieves network sessions for a specified date range.
+    // tenant and network restrict this and the other session endpoints to one tenant or sensor network.
+    // detail=summary returns counts and top-k per bucket only, samples then come from /sessions/samples.
     @GetMapping("/sessions")
     public Object getSessions(@RequestParam String start,
-                             @RequestParam String end) {
+                             @RequestParam String end,
+                             @RequestParam(defaultValue = "day") String granularity,
+                             @RequestParam(required = false) Integer maxPoints,
+                             @RequestParam(defaultValue = "json") String format,
+                             @RequestParam(defaultValue = "full") String detail,
+                             @RequestParam(defaultValue = "false") boolean traffic,
+                             @RequestParam(required = false) String tenant,
+                             @RequestParam(required = false) String network,
+                             ServletWebRequest webRequest) {
         Map<String, Object> response = new HashMap<>();
         
         try {
@@ -48,14 +115,84 @@ public class SessionController {
                 return response;
             }
             
-            SessionAnalytics analytics = sessionAnalyticsService.getSessionAnalytics(start, end);
+            // Resolve bucket size, "auto" picks one from the range length
+            TimeGranularity timeGranularity = TimeGranularity.fromParam(granularity, startDate, endDate);
+            if (timeGranularity == null) {
+                response.put("error", "Invalid granularity. Use minute, hour, day, week or auto");
+                return response;
+            }
+            
+            // Fine buckets are only allowed for short ranges
+            if (timeGranularity == TimeGranularity.MINUTE && startDate.plusDays(MAX_MINUTE_RANGE_DAYS).isBefore(endDate)) {
+                response.put("error", "Date range too large for minute granularity (max " + MAX_MINUTE_RANGE_DAYS + " days)");
+                return response;
+            }
+            if (timeGranularity == TimeGranularity.HOUR && startDate.plusDays(MAX_HOUR_RANGE_DAYS).isBefore(endDate)) {
+                response.put("error", "Date range too large for hour granularity (max " + MAX_HOUR_RANGE_DAYS + " days)");
+                return response;
+            }
+            
+            if (!isSupportedFormat(format)) {
+                response.put("error", "Invalid format. Use json or columnar");
+                return response;
+            }
+            
+            if (maxPoints != null && maxPoints < MIN_MAX_POINTS) {
+                response.put("error", "maxPoints must be at least " + MIN_MAX_POINTS);
+                return response;
+            }
+            
+            AnalyticsDetail analyticsDetail = AnalyticsDetail.fromParam(detail);
+            if (analyticsDetail == null) {
+                response.put("error", "Invalid detail. Use full or summary");
+                return response;
+            }
+            // The columnar encoding is built around the sample sessions, which a summary doesn't have
+            if (analyticsDetail == AnalyticsDetail.SUMMARY && ColumnarResponseEncoder.FORMAT.equals(format)) {
+                response.put("error", "Summary detail is only available as json");
+                return response;
+            }
+            
+            SessionScope scope = SessionScope.of(tenant, network);
+            
+            // Answer 304 straight away when nothing changed in the touched indices
+            String etag = dataGenerationService.computeRangeEtag(startDate, endDate,
+                "sessions|" + startDate + "|" + endDate + "|" + timeGranularity + "|" + maxPoints + "|" + format + "|"
+                    + analyticsDetail.toParam() + "|" + traffic + "|" + scope.toKey());
+            if (isNotModified(webRequest, etag)) {
+                return null;
+            }
             
-            return analytics.toApiResponse();
+            return async(() -> {
+                // Bytes, packets and flow duration per bucket, aggregated by OpenSearch while the analytics run
+                CompletableFuture<TrafficStats> trafficStats = traffic ? trafficAsync(start, end, timeGranularity, scope) : null;
+                try {
+                    SessionAnalytics analytics = sessionAnalyticsService.getSessionAnalytics(start, end, timeGranularity, maxPoints, scope, analyticsDetail);
+                    if (analytics.isPartial()) {
+                        // A later request may complete the missing days, so the partial body must not be revalidated
+                        preventCaching(webRequest);
+                    }
+                    
+                    Map<String, Object> body = ColumnarResponseEncoder.FORMAT.equals(format)
+                        ? columnarEncoder.encodeAnalytics(analytics)
+                        : analytics.toApiResponse();
+                    if (trafficStats != null) {
+                        addTraffic(body, trafficStats, analytics, maxPoints, webRequest);
+                    }
+                    return body;
+                    
+                } catch (OpenSearchOverloadedException e) {
+                    preventCaching(webRequest);
+                    response.put("error", e.getMessage());
+                } catch (IOException e) {
+                    preventCaching(webRequest);
+                    response.put("error", "Error fetching data");
+                }
+                return response;
+            });
             
         } catch (DateTimeParseException e) {
             response.put("error", "Invalid date format. Use YYYY-MM-DD");
-        } catch (IOException e) {
-            response.put("error", "Error fetching data");
         }
         return response;
     }
@@ -65,7 +202,11 @@ public class SessionController {
     @GetMapping("/sessions/daily-details")
     public Object getDailySessionDetails(@RequestParam String start,
                                        @RequestParam String end,
-                                       @RequestParam String date) {
+                                       @RequestParam String date,
+                                       @RequestParam(defaultValue = "json") String format,
+                                       @RequestParam(required = false) String tenant,
+                                       @RequestParam(required = false) String network,
+                                       ServletWebRequest webRequest) {
         Map<String, Object> response = new HashMap<>();
         
         try {
@@ -80,20 +221,451 @@ public class SessionController {
                 return response;
             }
             
-            // Get session details for the specific day
-            List<Map<String, Object>> sessions = sessionAnalyticsService.getSessionsForSpecificDay(date);
+            if (!isSupportedFormat(format)) {
+                response.put("error", "Invalid format. Use json or columnar");
+                return response;
+            }
             
-            response.put("sessions", sessions);
-            response.put("date", date);
-            response.put("totalSessions", sessions.size());
+            SessionScope scope = SessionScope.of(tenant, network);
+            String etag = dataGenerationService.computeRangeEtag(targetDate, targetDate,
+                "daily-details|" + targetDate + "|" + format + "|" + scope.toKey());
+            if (isNotModified(webRequest, etag)) {
+                return null;
+            }
             
-            return response;
+            return async(() -> {
+                try {
+                    // Get session details for the specific day
+                    List<Map<String, Object>> sessions = sessionAnalyticsService.getSessionsForSpecificDay(date, scope);
+                    
+                    if (ColumnarResponseEncoder.FORMAT.equals(format)) {
+                        return columnarEncoder.encodeSessions(sessions, date);
+                    }
+                    
+                    response.put("sessions", sessions);
+                    response.put("date", date);
+                    response.put("totalSessions", sessions.size());
+                    
+                } catch (OpenSearchOverloadedException e) {
+                    preventCaching(webRequest);
+                    response.put("error", e.getMessage());
+                } catch (IOException e) {
+                    preventCaching(webRequest);
+                    response.put("error", "Error fetching session details");
+                }
+                return response;
+            });
             
         } catch (DateTimeParseException e) {
             response.put("error", "Invalid date format. Use YYYY-MM-DD");
-        } catch (IOException e) {
-            response.put("error", "Error fetching session details");
         }
         return response;
     }
+
+    // Sample sessions of one day, requested lazily for the bucket a summary chart expands. from and to (bucket bounds
+    // as returned in the timeseries) narrow it to one intra-day bucket. A day the summary just computed is not searched again.
+    @GetMapping("/sessions/samples")
+    public Object getSampleSessions(@RequestParam String date,
+                                    @RequestParam(required = false) Long from,
+                                    @RequestParam(required = false) Long to,
+                                    @RequestParam(defaultValue = "0") int offset,
+                                    @RequestParam(defaultValue = "100") int limit,
+                                    @RequestParam(required = false) String tenant,
+                                    @RequestParam(required = false) String network,
+                                    ServletWebRequest webRequest) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            LocalDate targetDate = LocalDate.parse(date);
+
+            if (offset < 0) {
+                response.put("error", "offset must not be negative");
+                return response;
+            }
+            if (limit < 1 || limit > MAX_SEARCH_SIZE) {
+                response.put("error", "limit must be between 1 and " + MAX_SEARCH_SIZE);
+                return response;
+            }
+
+            SessionScope scope = SessionScope.of(tenant, network);
+            String etag = dataGenerationService.computeRangeEtag(targetDate, targetDate,
+                "samples|" + targetDate + "|" + from + "|" + to + "|" + offset + "|" + limit + "|" + scope.toKey());
+            if (isNotModified(webRequest, etag)) {
+                return null;
+            }
+
+            return async(() -> {
+                try {
+                    List<Map<String, Object>> sessions = sessionAnalyticsService.getSessionsForSpecificDay(date, scope).stream()
+                        .filter(session -> withinBucket(session.get("timestamp"), from, to))
+                        .toList();
+
+                    int pageStart = Math.min(offset, sessions.size());
+                    int pageEnd = Math.min(pageStart + limit, sessions.size());
+                    response.put("date", date);
+                    response.put("sessions", sessions.subList(pageStart, pageEnd));
+                    response.put("totalSessions", sessions.size());
+                    response.put("hasMoreSessions", pageEnd < sessions.size());
+
+                } catch (OpenSearchOverloadedException e) {
+                    preventCaching(webRequest);
+                    response.put("error", e.getMessage());
+                } catch (IOException e) {
+                    preventCaching(webRequest);
+                    response.put("error", "Error fetching sample sessions");
+                }
+                return response;
+            });
+
+        } catch (DateTimeParseException e) {
+            response.put("error", "Invalid date format. Use YYYY-MM-DD");
+        }
+        return response;
+    }
+
+    // Session timestamp (Singapore time) inside [from, to), either bound optional
+    private boolean withinBucket(Object timestamp, Long from, Long to) {
+        if (from == null && to == null) {
+            return true;
+        }
+        if (!(timestamp instanceof Number number)) {
+            return false;
+        }
+        long value = number.longValue();
+        return (from == null || value >= from) && (to == null || value < to);
+    }
+
+    //Retrieves the per-day (or per-hour) hit series for a single community ID and/or sid.
+    @GetMapping("/sessions/trend")
+    public Object getCommunityIdTrend(@RequestParam String start,
+                                      @RequestParam String end,
+                                      @RequestParam(required = false) String communityId,
+                                      @RequestParam(required = false) Long sid,
+                                      @RequestParam(defaultValue = "day") String interval,
+                                      @RequestParam(required = false) String tenant,
+                                      @RequestParam(required = false) String network) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            // Parse and validate dates
+            LocalDate startDate = LocalDate.parse(start);
+            LocalDate endDate = LocalDate.parse(end);
+            
+            if (startDate.isAfter(endDate)) {
+                response.put("error", "Start date cannot be after end date");
+                return response;
+            }
+            
+            if (startDate.plusYears(1).isBefore(endDate)) {
+                response.put("error", "Date range too large (max 1 year)");
+                return response;
+            }
+            
+            // A drill-down needs something to drill into
+            String communityIdFilter = (communityId == null || communityId.isBlank()) ? null : communityId;
+            if (communityIdFilter == null && sid == null) {
+                response.put("error", "communityId or sid is required");
+                return response;
+            }
+            
+            if (!"day".equals(interval) && !"hour".equals(interval)) {
+                response.put("error", "Invalid interval. Use day or hour");
+                return response;
+            }
+            
+            // Hourly buckets are only useful (and bounded) for short ranges
+            if ("hour".equals(interval) && startDate.plusDays(MAX_HOUR_RANGE_DAYS).isBefore(endDate)) {
+                response.put("error", "Date range too large for hourly interval (max " + MAX_HOUR_RANGE_DAYS + " days)");
+                return response;
+            }
+            
+            return async(() -> {
+                try {
+                    CommunityTrend trend = sessionAnalyticsService.getCommunityIdTrend(
+                        start, end, communityIdFilter, sid, interval, SessionScope.of(tenant, network));
+                    
+                    return trend.toApiResponse();
+                    
+                } catch (OpenSearchOverloadedException e) {
+                    response.put("error", e.getMessage());
+                } catch (IOException e) {
+                    response.put("error", "Error fetching trend data");
+                }
+                return response;
+            });
+            
+        } catch (DateTimeParseException e) {
+            response.put("error", "Invalid date format. Use YYYY-MM-DD");
+        }
+        return response;
+    }
+    
+    //Retrieves the most frequent sids and community IDs for a date range.
+    @GetMapping("/sessions/top")
+    public Object getTopHitters(@RequestParam String start,
+                                @RequestParam String end,
+                                @RequestParam(defaultValue = "10") int n,
+                                @RequestParam(required = false) String tenant,
+                                @RequestParam(required = false) String network) {
+        Map<String, Object> response = new HashMap<>();
+        
+        try {
+            // Parse and validate dates
+            LocalDate startDate = LocalDate.parse(start);
+            LocalDate endDate = LocalDate.parse(end);
+            
+            if (startDate.isAfter(endDate)) {
+                response.put("error", "Start date cannot be after end date");
+                return response;
+            }
+            
+            if (startDate.plusYears(1).isBefore(endDate)) {
+                response.put("error", "Date range too large (max 1 year)");
+                return response;
+            }
+            
+            // Keep the response bounded
+            if (n < 1 || n > MAX_TOP_N) {
+                response.put("error", "n must be between 1 and " + MAX_TOP_N);
+                return response;
+            }
+            
+            return async(() -> {
+                try {
+                    TopHitters topHitters = sessionAnalyticsService.getTopHitters(start, end, n, SessionScope.of(tenant, network));
+                    
+                    return topHitters.toApiResponse();
+                    
+                } catch (OpenSearchOverloadedException e) {
+                    response.put("error", e.getMessage());
+                } catch (IOException e) {
+                    response.put("error", "Error fetching top hitters");
+                }
+                return response;
+            });
+            
+        } catch (DateTimeParseException e) {
+            response.put("error", "Invalid date format. Use YYYY-MM-DD");
+        }
+        return response;
+    }
+
+    // Retrieves the sids and community IDs whose hit count on the given day is furthest above their rolling baseline,
+    // with z-scores. Only the top n per field are returned.
+    @GetMapping("/sessions/anomalies")
+    public Object getAnomalies(@RequestParam String date,
+                               @RequestParam(defaultValue = "20") int n) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            LocalDate scoredDate = LocalDate.parse(date);
+
+            // Keep the response bounded
+            if (n < 1 || n > MAX_TOP_N) {
+                response.put("error", "n must be between 1 and " + MAX_TOP_N);
+                return response;
+            }
+
+            return async(() -> {
+                try {
+                    AnomalyReport report = anomalyScoringService.getAnomalies(scoredDate, n);
+
+                    return report.toApiResponse();
+
+                } catch (OpenSearchOverloadedException e) {
+                    response.put("error", e.getMessage());
+                } catch (IOException e) {
+                    response.put("error", "Error scoring anomalies");
+                }
+                return response;
+            });
+
+        } catch (DateTimeParseException e) {
+            response.put("error", "Invalid date format. Use YYYY-MM-DD");
+        }
+        return response;
+    }
+
+    //Finds individual sessions by network filters, newest first. Follow nextCursor for the next page.
+    @GetMapping("/sessions/search")
+    public Object searchSessions(@RequestParam String start,
+                                 @RequestParam String end,
+                                 @RequestParam(required = false) Long from,
+                                 @RequestParam(required = false) Long to,
+                                 @RequestParam(required = false) String sourceIp,
+                                 @RequestParam(required = false) String destIp,
+                                 @RequestParam(required = false) String sourcePort,
+                                 @RequestParam(required = false) String destPort,
+                                 @RequestParam(required = false) String sid,
+                                 @RequestParam(required = false) String communityId,
+                                 @RequestParam(required = false) String message,
+                                 @RequestParam(required = false) String fields,
+                                 @RequestParam(defaultValue = "100") int size,
+                                 @RequestParam(required = false) String cursor) {
+        Map<String, Object> response = new HashMap<>();
+
+        try {
+            // Parse and validate dates
+            LocalDate startDate = LocalDate.parse(start);
+            LocalDate endDate = LocalDate.parse(end);
+
+            if (startDate.isAfter(endDate)) {
+                response.put("error", "Start date cannot be after end date");
+                return response;
+            }
+
+            // Unlike the aggregations this returns documents, keep the scanned range bounded
+            if (startDate.plusDays(MAX_SEARCH_RANGE_DAYS).isBefore(endDate)) {
+                response.put("error", "Date range too large for search (max " + MAX_SEARCH_RANGE_DAYS + " days)");
+                return response;
+            }
+
+            if (from != null && to != null && from >= to) {
+                response.put("error", "from must be before to");
+                return response;
+            }
+
+            if (size < 1 || size > MAX_SEARCH_SIZE) {
+                response.put("error", "size must be between 1 and " + MAX_SEARCH_SIZE);
+                return response;
+            }
+
+            List<String> extraFields = parseFields(fields);
+            if (extraFields == null) {
+                response.put("error", "Invalid fields. Use up to " + MAX_EXTRA_FIELDS + " comma separated field paths");
+                return response;
+            }
+
+            List<Long> sids = parseSids(sid);
+            if (sid != null && !sid.isBlank() && sids == null) {
+                response.put("error", "Invalid sid. Use up to " + MAX_SEARCH_SIDS + " comma separated numbers");
+                return response;
+            }
+
+            SessionSearchFilter filter;
+            SearchCursor searchCursor;
+            try {
+                filter = new SessionSearchFilter(startDate, endDate, from, to,
+                    isBlank(sourceIp) ? null : IpPattern.parse(sourceIp),
+                    isBlank(destIp) ? null : IpPattern.parse(destIp),
+                    isBlank(sourcePort) ? null : PortRanges.parse(sourcePort),
+                    isBlank(destPort) ? null : PortRanges.parse(destPort),
+                    sids,
+                    isBlank(communityId) ? null : communityId.trim(),
+                    isBlank(message) ? null : message.trim());
+                searchCursor = isBlank(cursor) ? null : SearchCursor.decode(cursor);
+            } catch (IllegalArgumentException e) {
+                response.put("error", e.getMessage());
+                return response;
+            }
+
+            return async(() -> {
+                try {
+                    SessionSearchResult result = sessionSearchService.search(filter, extraFields, size, searchCursor);
+
+                    return result.toApiResponse();
+
+                } catch (OpenSearchOverloadedException e) {
+                    response.put("error", e.getMessage());
+                } catch (IOException e) {
+                    response.put("error", "Error searching sessions");
+                }
+                return response;
+            });
+
+        } catch (DateTimeParseException e) {
+            response.put("error", "Invalid date format. Use YYYY-MM-DD");
+        }
+        return response;
+    }
+
+    // Runs the OpenSearch-bound part of a request on a virtual thread. Validation errors and 304s are answered
+    // synchronously, the CompletableFuture frees the request thread while OpenSearch works and Spring MVC writes
+    // whatever it completes with.
+    private CompletableFuture<Object> async(Supplier<Object> work) {
+        return CompletableFuture.supplyAsync(RequestStageTimer.propagate(work), virtualThreadExecutor);
+    }
+    
+    private CompletableFuture<TrafficStats> trafficAsync(String start, String end, TimeGranularity granularity, SessionScope scope) {
+        return CompletableFuture.supplyAsync(RequestStageTimer.propagate(() -> {
+            try {
+                return trafficStatsService.getTrafficStats(start, end, granularity, scope);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }), virtualThreadExecutor);
+    }
+    
+    // Traffic of the buckets the timeseries returned. The timeseries stands on its own, a failed traffic aggregation
+    // is reported next to it instead of replacing it.
+    private void addTraffic(Map<String, Object> body, CompletableFuture<TrafficStats> trafficStats, SessionAnalytics analytics,
+                            Integer maxPoints, ServletWebRequest webRequest) {
+        try {
+            TrafficStats stats = trafficStats.join();
+            if (maxPoints != null) {
+                Set<Long> timestamps = new HashSet<>();
+                for (Map<String, Object> bucket : analytics.getDailyData()) {
+                    timestamps.add(((Number) bucket.get("timestamp")).longValue());
+                }
+                stats = stats.alignedTo(timestamps);
+            }
+            body.put("traffic", stats.toApiResponse());
+        } catch (CompletionException e) {
+            preventCaching(webRequest);
+            body.put("trafficError", e.getCause() instanceof OpenSearchOverloadedException
+                ? e.getCause().getMessage()
+                : "Error fetching traffic stats");
+        }
+    }
+    
+    // Extra source fields to project, null when any of them is not a plain field path
+    private List<String> parseFields(String fields) {
+        if (isBlank(fields)) {
+            return List.of();
+        }
+        List<String> paths = Arrays.stream(fields.split(",")).map(String::trim).filter(path -> !path.isEmpty()).toList();
+        if (paths.size() > MAX_EXTRA_FIELDS || !paths.stream().allMatch(path -> FIELD_PATH.matcher(path).matches())) {
+            return null;
+        }
+        return paths;
+    }
+
+    // Comma separated sids, null when missing or invalid
+    private List<Long> parseSids(String sid) {
+        if (isBlank(sid)) {
+            return null;
+        }
+        try {
+            List<Long> sids = Arrays.stream(sid.split(",")).map(String::trim).map(Long::parseLong).distinct().toList();
+            return sids.size() > MAX_SEARCH_SIDS ? null : sids;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    // Response formats: default row-per-object json, or compact columnar
+    private boolean isSupportedFormat(String format) {
+        return "json".equals(format) || ColumnarResponseEncoder.FORMAT.equals(format);
+    }
+    
+    // Sets the ETag and reports whether the client's If-None-Match already matches (response becomes 304).
+    // no-cache makes browsers revalidate on every load instead of reusing the body blindly.
+    private boolean isNotModified(ServletWebRequest webRequest, String etag) {
+        if (etag == null) {
+            return false;
+        }
+        webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        return webRequest.checkNotModified(etag);
+    }
+    
+    // Error and partial bodies must never be revalidated against the ETag already sent
+    private void preventCaching(ServletWebRequest webRequest) {
+        if (webRequest.getResponse() != null) {
+            webRequest.getResponse().setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+        }
+    }
 }
\ No newline at end of file
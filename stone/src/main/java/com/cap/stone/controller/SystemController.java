@@ -0,0 +1,55 @@
+package com.cap.stone.controller;
+
+import com.cap.stone.infra.opensearch.IndexConsolidationService;
+import com.cap.stone.infra.opensearch.WarmupService;
+import com.cap.stone.service.IngestBulkhead;
+import com.cap.stone.service.OpenSearchGuard;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+// Operational status of the backend
+@RestController
+@RequestMapping("/api/system")
+public class SystemController {
+
+    @Autowired
+    private OpenSearchGuard openSearchGuard;
+
+    @Autowired
+    private IngestBulkhead ingestBulkhead;
+
+    @Autowired
+    private IndexConsolidationService consolidationService;
+
+    @Autowired
+    private WarmupService warmupService;
+
+    // Concurrency limit, circuit breaker state and shed counts for OpenSearch calls
+    @GetMapping("/opensearch")
+    public Map<String, Object> getOpenSearchMetrics() {
+        return openSearchGuard.getMetrics();
+    }
+
+    // Bulk requests in flight, uploaders waiting their turn and how close the queries are to making ingest yield
+    @GetMapping("/ingest")
+    public Map<String, Object> getIngestMetrics() {
+        return ingestBulkhead.getMetrics();
+    }
+
+    // Outcome of the last daily index consolidation run
+    @GetMapping("/consolidation")
+    public Map<String, Object> getConsolidationStatus() {
+        return consolidationService.getStatus();
+    }
+
+    // Progress of the startup warm-up, readiness follows it at /actuator/health/readiness
+    @GetMapping("/warmup")
+    public Map<String, Object> getWarmupStatus() {
+        return warmupService.getStatus();
+    }
+}
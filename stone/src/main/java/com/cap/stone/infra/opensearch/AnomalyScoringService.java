@@ -0,0 +1,231 @@
+package com.cap.stone.infra.opensearch;
+
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.opensearch._types.aggregations.Aggregate;
+import org.opensearch.client.opensearch._types.aggregations.Aggregation;
+import org.opensearch.client.opensearch._types.aggregations.LongTermsBucket;
+import org.opensearch.client.opensearch._types.aggregations.StringTermsBucket;
+import org.opensearch.client.opensearch._types.query_dsl.ExistsQuery;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.infra.opensearch.model.AnomalyReport;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.ConsolidationPeriod;
+import com.cap.stone.util.EwmaBaseline;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import com.cap.stone.util.SingleFlight;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// Rolling per-day baselines (EWMA mean and variance of the daily hit count) per sid and per community ID, and the
+// z-score of a day against them. Only the top anomalous series leave the server.
+//
+// The per-series counts of a finished day are fetched once with a terms aggregation and kept, an import marks the days
+// it touched to be fetched again. The baselines are replayed over exactly the window from the kept counts for every
+// request (in-memory work only), so a date always scores the same whatever was scored before. Fetching happens
+// without a lock, concurrent requests share a fetch of the same day and imports never wait for a scoring run.
+@Service
+public class AnomalyScoringService {
+
+    @Autowired
+    private OpenSearchClientService clientService;
+
+    @Autowired
+    private SingaporeTimezoneUtil timezoneUtil;
+
+    // Weight of the newest day in the baselines
+    @Value("${stone.anomaly.alpha:0.3}")
+    private double alpha;
+
+    // Days before the scored day the baselines are built from
+    @Value("${stone.anomaly.history-days:28}")
+    private int historyDays;
+
+    // Distinct series fetched per field and day, the rest of a day's long tail is ignored
+    @Value("${stone.anomaly.max-terms:10000}")
+    private int maxTerms;
+
+    // Floor on the baseline deviation, keeps flat and brand-new series from scoring infinitely high
+    @Value("${stone.anomaly.min-std-dev:1.0}")
+    private double minStdDev;
+
+    // Series with fewer hits on the scored day are not reported, however unusual
+    @Value("${stone.anomaly.min-count:5}")
+    private long minCount;
+
+    private static final String SID_FIELD = "extended.sid";
+    private static final String TIMESTAMP_FIELD = "@timestamp";
+    private static final String COMMUNITY_ID_FIELD = "network.community_id.keyword";
+    private static final String SIDS_AGG = "sids";
+    private static final String COMMUNITY_IDS_AGG = "communityIds";
+    // A series whose baseline mean decayed below this is dropped, it is as good as never seen
+    private static final double FORGOTTEN_MEAN = 0.01;
+
+    // Hit count per series of one Singapore day
+    private record DayCounts(Map<Long, Long> sids, Map<String, Long> communityIds) {}
+
+    // Counts of finished days, and the ones an import changed since they were fetched
+    private final ConcurrentSkipListMap<LocalDate, DayCounts> dayCounts = new ConcurrentSkipListMap<>();
+    private final Set<LocalDate> staleDays = ConcurrentHashMap.newKeySet();
+    private final SingleFlight<LocalDate, DayCounts> dayFetches = new SingleFlight<>();
+
+    // Scores date against the baselines of the days before it and returns the topN highest z-scores per field
+    public AnomalyReport getAnomalies(LocalDate date, int topN) throws IOException {
+        LocalDate windowStart = date.minusDays(historyDays);
+
+        Map<Long, EwmaBaseline> sidBaselines = new HashMap<>();
+        Map<String, EwmaBaseline> communityIdBaselines = new HashMap<>();
+        for (LocalDate day = windowStart; day.isBefore(date); day = day.plusDays(1)) {
+            DayCounts counts = countsFor(day);
+            boolean started = !day.equals(windowStart);
+            fold(sidBaselines, counts.sids(), started);
+            fold(communityIdBaselines, counts.communityIds(), started);
+        }
+        // Days before the window are only needed again when an older date is scored, then they are fetched again
+        dayCounts.headMap(windowStart.minusDays(historyDays)).clear();
+        staleDays.removeIf(day -> day.isBefore(windowStart.minusDays(historyDays)));
+
+        DayCounts current = countsFor(date);
+        return new AnomalyReport(
+            date.toString(),
+            historyDays,
+            score(sidBaselines, current.sids(), topN, "sid"),
+            score(communityIdBaselines, current.communityIds(), topN, "communityId")
+        );
+    }
+
+    // Marks the Singapore days around the imported daily indices as changed (a UTC index day straddles two Singapore days)
+    public void invalidateIndices(Collection<String> indexNames) {
+        for (String indexName : indexNames) {
+            LocalDate indexDate = ConsolidationPeriod.dailyIndexDate(indexName);
+            if (indexDate == null) {
+                // Can't tell which days it belongs to
+                staleDays.addAll(dayCounts.keySet());
+                continue;
+            }
+            staleDays.add(indexDate.minusDays(1));
+            staleDays.add(indexDate);
+            staleDays.add(indexDate.plusDays(1));
+        }
+    }
+
+    // Kept counts of a finished day, fetched when missing or stale. Today is still filling up and always fetched.
+    private DayCounts countsFor(LocalDate day) throws IOException {
+        LocalDate today = LocalDate.now(ZoneId.of(timezoneUtil.getZoneId()));
+        if (!day.isBefore(today)) {
+            return dayFetches.execute(day, () -> fetchDayCounts(day));
+        }
+        DayCounts counts = dayCounts.get(day);
+        if (counts != null && !staleDays.contains(day)) {
+            return counts;
+        }
+        return dayFetches.execute(day, () -> {
+            // Cleared before the fetch, an import landing meanwhile marks the day again and the next request refetches
+            staleDays.remove(day);
+            DayCounts fetched = fetchDayCounts(day);
+            dayCounts.put(day, fetched);
+            return fetched;
+        });
+    }
+
+    private DayCounts fetchDayCounts(LocalDate day) throws IOException {
+        long rangeStart = timezoneUtil.getSingaporeStartOfDayTimestamp(day);
+        long rangeEnd = timezoneUtil.getSingaporeEndOfDayTimestamp(day);
+        Query query = Query.of(q -> q.bool(b -> b
+            .filter(Query.of(f -> f.exists(ExistsQuery.of(e -> e.field(SID_FIELD)))))
+            .filter(Query.of(f -> f.range(r -> r
+                .field(TIMESTAMP_FIELD)
+                .gte(JsonData.of(rangeStart))
+                .lt(JsonData.of(rangeEnd)))))));
+
+        SearchResponse<Map<String, Object>> response = clientService.executeAggregation(
+            timezoneUtil.getIndexPatternsForDateRange(day, day),
+            query,
+            Map.of(
+                SIDS_AGG, Aggregation.of(a -> a.terms(t -> t.field(SID_FIELD).size(maxTerms))),
+                COMMUNITY_IDS_AGG, Aggregation.of(a -> a.terms(t -> t.field(COMMUNITY_ID_FIELD).size(maxTerms)))
+            )
+        );
+
+        Map<Long, Long> sids = new HashMap<>();
+        Aggregate sidAggregate = response.aggregations().get(SIDS_AGG);
+        if (sidAggregate != null && sidAggregate.isLterms()) {
+            for (LongTermsBucket bucket : sidAggregate.lterms().buckets().array()) {
+                sids.put(Long.parseLong(String.valueOf(bucket.key()._get())), bucket.docCount());
+            }
+        } else if (sidAggregate != null && sidAggregate.isSterms()) {
+            // sid mapped as keyword instead of a number
+            for (StringTermsBucket bucket : sidAggregate.sterms().buckets().array()) {
+                sids.put(Long.parseLong(bucket.key()), bucket.docCount());
+            }
+        }
+
+        Map<String, Long> communityIds = new HashMap<>();
+        Aggregate communityAggregate = response.aggregations().get(COMMUNITY_IDS_AGG);
+        if (communityAggregate != null && communityAggregate.isSterms()) {
+            for (StringTermsBucket bucket : communityAggregate.sterms().buckets().array()) {
+                communityIds.put(bucket.key(), bucket.docCount());
+            }
+        }
+        return new DayCounts(sids, communityIds);
+    }
+
+    // Folds one day into every baseline, a series without hits that day counts as zero. started is false for the
+    // first day of the window, where a new series has no earlier zero days behind it.
+    private <K> void fold(Map<K, EwmaBaseline> baselines, Map<K, Long> counts, boolean started) {
+        for (Map.Entry<K, Long> entry : counts.entrySet()) {
+            baselines.computeIfAbsent(entry.getKey(), key -> {
+                EwmaBaseline baseline = new EwmaBaseline();
+                if (started) {
+                    baseline.update(0, alpha);
+                }
+                return baseline;
+            });
+        }
+        Iterator<Map.Entry<K, EwmaBaseline>> iterator = baselines.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<K, EwmaBaseline> entry = iterator.next();
+            EwmaBaseline baseline = entry.getValue();
+            baseline.update(counts.getOrDefault(entry.getKey(), 0L), alpha);
+            if (baseline.getMean() < FORGOTTEN_MEAN) {
+                iterator.remove();
+            }
+        }
+    }
+
+    // Series of the scored day ranked by how far above their baseline they are. Series never seen before score
+    // against a zero baseline.
+    private <K> List<Map<String, Object>> score(Map<K, EwmaBaseline> baselines, Map<K, Long> counts, int topN, String keyName) {
+        EwmaBaseline unseen = new EwmaBaseline();
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Map.Entry<K, Long> entry : counts.entrySet()) {
+            long count = entry.getValue();
+            if (count < minCount) {
+                continue;
+            }
+            EwmaBaseline baseline = baselines.getOrDefault(entry.getKey(), unseen);
+            double zScore = baseline.zScore(count, minStdDev);
+            if (zScore <= 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put(keyName, entry.getKey());
+            row.put("hitCount", count);
+            row.put("baselineMean", baseline.getMean());
+            row.put("baselineStdDev", baseline.getStdDev());
+            row.put("zScore", zScore);
+            rows.add(row);
+        }
+        rows.sort(Comparator.comparingDouble((Map<String, Object> row) -> (Double) row.get("zScore")).reversed());
+        return new ArrayList<>(rows.subList(0, Math.min(topN, rows.size())));
+    }
+}
@@ -0,0 +1,196 @@
+package com.cap.stone.infra.opensearch;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import com.cap.stone.infra.opensearch.model.SessionAnalytics;
+
+import java.util.*;
+
+// Encodes analytics and session lists into a compact columnar shape: parallel arrays instead of one map per row,
+// with per-response dictionaries so repeated community IDs, index names and snort messages are sent once.
+@Component
+public class ColumnarResponseEncoder {
+
+    public static final String FORMAT = "columnar";
+
+    @Autowired
+    private SessionDataProcessor dataProcessor;
+
+    // Columnar version of SessionAnalytics.toApiResponse()
+    public Map<String, Object> encodeAnalytics(SessionAnalytics analytics) {
+        Dictionaries dictionaries = new Dictionaries();
+        List<Map<String, Object>> dailyData = analytics.getDailyData();
+
+        List<Object> timestamps = new ArrayList<>(dailyData.size());
+        List<Object> singaporeDates = new ArrayList<>(dailyData.size());
+        List<Object> hitCounts = new ArrayList<>(dailyData.size());
+        List<Object> hasMoreSessions = new ArrayList<>(dailyData.size());
+        List<Object> incomplete = new ArrayList<>(dailyData.size());
+        List<Object> sids = new ArrayList<>(dailyData.size());
+        List<List<Integer>> communityIdRefs = new ArrayList<>(dailyData.size());
+        List<List<Integer>> communityIdCounts = new ArrayList<>(dailyData.size());
+
+        List<Map<String, Object>> samples = new ArrayList<>();
+        List<Integer> sampleBuckets = new ArrayList<>();
+
+        for (int bucket = 0; bucket < dailyData.size(); bucket++) {
+            Map<String, Object> dayData = dailyData.get(bucket);
+            timestamps.add(dayData.get("timestamp"));
+            singaporeDates.add(dayData.get("singaporeDate"));
+            hitCounts.add(dayData.get("hitCount"));
+            hasMoreSessions.add(dayData.get("hasMoreSessions"));
+            incomplete.add(Boolean.TRUE.equals(dayData.get("incomplete")));
+            sids.add(dayData.get("sids"));
+
+            // communityIds is implied by the hit count keys, so only the counts are encoded
+            List<Integer> refs = new ArrayList<>();
+            List<Integer> counts = new ArrayList<>();
+            @SuppressWarnings("unchecked")
+            Map<String, Integer> hitCountsById = (Map<String, Integer>) dayData.get("communityIdHitCounts");
+            if (hitCountsById != null) {
+                hitCountsById.forEach((communityId, count) -> {
+                    refs.add(dictionaries.communityIdRef(communityId));
+                    counts.add(count);
+                });
+            }
+            communityIdRefs.add(refs);
+            communityIdCounts.add(counts);
+
+            // Flatten samples of every bucket into one column block, remembering their bucket
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> bucketSamples = (List<Map<String, Object>>) dayData.get("sampleSessions");
+            if (bucketSamples != null) {
+                for (Map<String, Object> sample : bucketSamples) {
+                    samples.add(sample);
+                    sampleBuckets.add(bucket);
+                }
+            }
+        }
+
+        Map<String, Object> timeseries = new LinkedHashMap<>();
+        timeseries.put("timestamp", timestamps);
+        timeseries.put("singaporeDate", singaporeDates);
+        timeseries.put("hitCount", hitCounts);
+        timeseries.put("hasMoreSessions", hasMoreSessions);
+        timeseries.put("incomplete", incomplete);
+        timeseries.put("sids", sids);
+        timeseries.put("communityIdRefs", communityIdRefs);     // Indices into dictionaries.communityIds
+        timeseries.put("communityIdCounts", communityIdCounts); // Hit count for each ref, same position
+
+        Map<String, Object> sampleSessions = encodeSessionColumns(samples, dictionaries);
+        sampleSessions.put("bucket", sampleBuckets); // Index into the timeseries arrays
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("format", FORMAT);
+        response.put("timeseriesData", timeseries);
+        response.put("sampleSessions", sampleSessions);
+        response.put("dictionaries", dictionaries.toMap());
+        response.put("totalSnortHits", analytics.getTotalSnortHits());
+        response.put("totalUniqueSessions", analytics.getTotalUniqueSessions());
+        response.put("topSids", analytics.getTopSids());
+        response.put("topCommunityIds", analytics.getTopCommunityIds());
+        response.put("granularity", analytics.getGranularity());
+        response.put("downsampled", analytics.isDownsampled());
+        response.put("partial", analytics.isPartial());
+        response.put("incompleteDays", analytics.getIncompleteDays());
+        response.put("slowIndices", analytics.getSlowIndices());
+        return response;
+    }
+
+    // Columnar version of the daily-details response
+    public Map<String, Object> encodeSessions(List<Map<String, Object>> sessions, String date) {
+        Dictionaries dictionaries = new Dictionaries();
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("format", FORMAT);
+        response.put("sessions", encodeSessionColumns(sessions, dictionaries));
+        response.put("dictionaries", dictionaries.toMap());
+        response.put("date", date);
+        response.put("totalSessions", sessions.size());
+        return response;
+    }
+
+    // One array per processed session field, snort messages move into the sid dictionary
+    private Map<String, Object> encodeSessionColumns(List<Map<String, Object>> sessions, Dictionaries dictionaries) {
+        int size = sessions.size();
+        List<Object> timestamps = new ArrayList<>(size);
+        List<Integer> indexRefs = new ArrayList<>(size);
+        List<Object> documentIds = new ArrayList<>(size);
+        List<Integer> communityIdRefs = new ArrayList<>(size);
+        List<List<Long>> sids = new ArrayList<>(size);
+        List<Object> sessionInfo = new ArrayList<>(size);
+        List<Object> sourceIps = new ArrayList<>(size);
+        List<Object> destIps = new ArrayList<>(size);
+        List<Object> sourcePorts = new ArrayList<>(size);
+        List<Object> destPorts = new ArrayList<>(size);
+
+        for (Map<String, Object> session : sessions) {
+            timestamps.add(session.get("timestamp"));
+            indexRefs.add(dictionaries.indexNameRef((String) session.get("indexName")));
+            documentIds.add(session.get("documentId"));
+            communityIdRefs.add(dictionaries.communityIdRef((String) session.get("communityId")));
+
+            List<Long> sessionSids = dataProcessor.extractSids(session.get("sid"));
+            sids.add(sessionSids);
+            dictionaries.addSidMessages(sessionSids, session.get("snortMessage"));
+
+            sessionInfo.add(session.get("session"));
+            sourceIps.add(session.get("sourceIp"));
+            destIps.add(session.get("destIp"));
+            sourcePorts.add(session.get("sourcePort"));
+            destPorts.add(session.get("destPort"));
+        }
+
+        Map<String, Object> columns = new LinkedHashMap<>();
+        columns.put("timestamp", timestamps);
+        columns.put("indexName", indexRefs);       // Indices into dictionaries.indexNames
+        columns.put("documentId", documentIds);
+        columns.put("communityId", communityIdRefs); // Indices into dictionaries.communityIds, -1 when absent
+        columns.put("sid", sids);                  // Messages in dictionaries.sidMessages
+        columns.put("session", sessionInfo);
+        columns.put("sourceIp", sourceIps);
+        columns.put("destIp", destIps);
+        columns.put("sourcePort", sourcePorts);
+        columns.put("destPort", destPorts);
+        return columns;
+    }
+
+    // Per-response value dictionaries, built while encoding
+    private static class Dictionaries {
+        private final Map<String, Integer> communityIds = new LinkedHashMap<>();
+        private final Map<String, Integer> indexNames = new LinkedHashMap<>();
+        private final Map<Long, String> sidMessages = new LinkedHashMap<>();
+
+        int communityIdRef(String communityId) {
+            return communityId == null ? -1 : communityIds.computeIfAbsent(communityId, key -> communityIds.size());
+        }
+
+        int indexNameRef(String indexName) {
+            return indexName == null ? -1 : indexNames.computeIfAbsent(indexName, key -> indexNames.size());
+        }
+
+        // snort_message is either a single string or a list parallel to the sid list
+        void addSidMessages(List<Long> sids, Object snortMessage) {
+            if (snortMessage instanceof List<?> messages) {
+                for (int i = 0; i < sids.size() && i < messages.size(); i++) {
+                    if (messages.get(i) != null) {
+                        sidMessages.putIfAbsent(sids.get(i), messages.get(i).toString());
+                    }
+                }
+            } else if (snortMessage != null) {
+                for (Long sid : sids) {
+                    sidMessages.putIfAbsent(sid, snortMessage.toString());
+                }
+            }
+        }
+
+        Map<String, Object> toMap() {
+            Map<String, Object> map = new HashMap<>();
+            map.put("communityIds", new ArrayList<>(communityIds.keySet()));
+            map.put("indexNames", new ArrayList<>(indexNames.keySet()));
+            map.put("sidMessages", sidMessages);
+            return map;
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.cap.stone.infra.opensearch;
+
+import org.opensearch.client.opensearch.indices.IndicesStatsResponse;
+import org.opensearch.client.opensearch.indices.stats.IndexShardStats;
+import org.opensearch.client.opensearch.indices.stats.IndicesStats;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.ConsolidationPeriod;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Tracks a data generation for the indices a request reads, so unchanged data can be answered with 304 Not Modified.
+//
+// The generation comes from the cluster, not from this instance: uuid, doc counts and the highest sequence number of
+// every session index, read with one stats call on arkime_sessions* and shared by all requests for stats-ttl-ms.
+// Any write bumps an index's max sequence number, so overwrites and deletes change the ETag even when a merge leaves
+// the counts as they were, imports through other instances are seen, and the ETags survive a restart.
+@Service
+public class DataGenerationService {
+
+    @Autowired
+    private OpenSearchClientService clientService;
+    
+    @Autowired
+    private SingaporeTimezoneUtil timezoneUtil;
+
+    // How long one stats call serves the ETags of every request, imports through this instance refresh it right away
+    @Value("${stone.etag.stats-ttl-ms:1000}")
+    private long statsTtlMs;
+
+    // Bumped after every import through this application, local caches compare against it
+    private final AtomicLong importGeneration = new AtomicLong();
+
+    // What a request's ETag is built from, per concrete index
+    private record IndexGeneration(String uuid, long docs, long deleted, long maxSeqNo) {}
+
+    // Generations of all session indices, as of fetchedAt and the local import generation at the time
+    private record Snapshot(Map<String, IndexGeneration> indices, long fetchedAt, long importGeneration) {}
+
+    private volatile Snapshot snapshot;
+
+    public void markImported() {
+        importGeneration.incrementAndGet();
+    }
+
+    public long getImportGeneration() {
+        return importGeneration.get();
+    }
+
+    // ETag for a request reading a Singapore date range (including the boundary indices the queries touch). Only the
+    // daily indices of the range count, plus every consolidated index since any of them may hold a day of the range.
+    // Returns null when the index stats can't be read, callers then skip conditional handling.
+    public String computeRangeEtag(LocalDate startDate, LocalDate endDate, String requestKey) {
+        Snapshot current;
+        try {
+            current = currentSnapshot();
+        } catch (Exception e) {
+            System.out.println("Could not read session index stats: " + e.getMessage());
+            return null;
+        }
+
+        LocalDate first = startDate.minusDays(1);
+        LocalDate last = endDate.plusDays(1);
+        // Sorted so the fingerprint doesn't depend on response ordering
+        StringBuilder fingerprint = new StringBuilder(requestKey);
+        for (Map.Entry<String, IndexGeneration> entry : new TreeMap<>(current.indices()).entrySet()) {
+            LocalDate day = ConsolidationPeriod.dailyIndexDate(entry.getKey());
+            if (day != null && (day.isBefore(first) || day.isAfter(last))) {
+                continue;
+            }
+            IndexGeneration generation = entry.getValue();
+            fingerprint.append('|').append(entry.getKey())
+                .append(':').append(generation.uuid())
+                .append(':').append(generation.docs())
+                .append(':').append(generation.deleted())
+                .append(':').append(generation.maxSeqNo());
+        }
+
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(fingerprint.toString().getBytes(StandardCharsets.UTF_8));
+            return "\"" + HexFormat.of().formatHex(hash, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private Snapshot currentSnapshot() throws IOException {
+        Snapshot current = snapshot;
+        if (isFresh(current)) {
+            return current;
+        }
+        synchronized (this) {
+            // Requests that queued up behind a refresh use its result
+            current = snapshot;
+            if (isFresh(current)) {
+                return current;
+            }
+            long generation = importGeneration.get();
+            current = new Snapshot(readGenerations(), System.currentTimeMillis(), generation);
+            snapshot = current;
+            return current;
+        }
+    }
+
+    private boolean isFresh(Snapshot current) {
+        return current != null
+            && current.importGeneration() == importGeneration.get()
+            && System.currentTimeMillis() - current.fetchedAt() < statsTtlMs;
+    }
+
+    // Primary doc counts and the highest sequence number over the primary shards of each index
+    private Map<String, IndexGeneration> readGenerations() throws IOException {
+        IndicesStatsResponse stats = clientService.getShardStats(timezoneUtil.getAllSessionsIndexPattern());
+        Map<String, IndexGeneration> generations = new HashMap<>();
+        for (Map.Entry<String, IndicesStats> entry : stats.indices().entrySet()) {
+            IndicesStats indexStats = entry.getValue();
+            long docs = -1;
+            long deleted = -1;
+            if (indexStats.primaries() != null && indexStats.primaries().docs() != null) {
+                docs = indexStats.primaries().docs().count();
+                deleted = indexStats.primaries().docs().deleted();
+            }
+            long maxSeqNo = -1;
+            for (List<IndexShardStats> copies : indexStats.shards().values()) {
+                for (IndexShardStats copy : copies) {
+                    if (copy.routing() != null && copy.routing().primary() && copy.seqNo() != null) {
+                        maxSeqNo = Math.max(maxSeqNo, copy.seqNo().maxSeqNo());
+                    }
+                }
+            }
+            generations.put(entry.getKey(), new IndexGeneration(indexStats.uuid(), docs, deleted, maxSeqNo));
+        }
+        return generations;
+    }
+}
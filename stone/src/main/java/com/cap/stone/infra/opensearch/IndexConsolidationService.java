@@ -0,0 +1,302 @@
+package com.cap.stone.infra.opensearch;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.opensearch._types.Conflicts;
+import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.OpType;
+import org.opensearch.client.opensearch._types.Refresh;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.ReindexRequest;
+import org.opensearch.client.opensearch.indices.CreateIndexRequest;
+import org.opensearch.client.opensearch.indices.IndexSettings;
+import org.opensearch.client.opensearch.indices.update_aliases.Action;
+import org.opensearch.client.opensearch.tasks.GetTasksResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.ConsolidationPeriod;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Maintenance job that folds closed-out daily session indices into weekly or monthly indices, so a long range fans out
+// over a few large shards instead of hundreds of small ones.
+//
+// Each daily index is replaced by a filtered alias of the same name on the consolidated index, swapped in atomically
+// with the removal of the daily index. The daily patterns the queries use (arkime_sessions*-yyMMdd) therefore resolve
+// to the consolidated index and see exactly the documents of that day, no query needs to know about consolidation.
+// Range queries on arkime_sessions* would see a day twice while its copy and its daily index coexist, so the
+// consolidated index stays hidden from wildcards until the swap.
+@Service
+public class IndexConsolidationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(IndexConsolidationService.class);
+
+    @Autowired
+    private OpenSearchClientService clientService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stone.consolidation.enabled:false}")
+    private boolean enabled;
+
+    // week or month
+    @Value("${stone.consolidation.period:month}")
+    private String periodParam;
+
+    // A period is consolidated once its last day ended this many days ago, imports into it are not expected any more
+    @Value("${stone.consolidation.min-age-days:7}")
+    private int minAgeDays;
+
+    @Value("${stone.consolidation.interval-ms:21600000}")
+    private long intervalMs;
+
+    // Bounds the cluster work of a single run, the backlog is worked off run by run, oldest first
+    @Value("${stone.consolidation.max-periods-per-run:1}")
+    private int maxPeriodsPerRun;
+
+    @Value("${stone.consolidation.shards:1}")
+    private int shards;
+
+    @Value("${stone.consolidation.max-segments:1}")
+    private long maxSegments;
+
+    @Value("${stone.consolidation.merge-timeout-ms:3600000}")
+    private long mergeTimeoutMs;
+
+    @Value("${stone.consolidation.task-poll-ms:10000}")
+    private long taskPollMs;
+
+    // Source daily index of every consolidated document, what the per-day alias filters on
+    public static final String DAILY_INDEX_FIELD = "stone_daily_index";
+
+    private static final String SESSION_INDEX_PATTERN = "arkime_sessions*";
+    private static final String TIMESTAMP_FIELD = "@timestamp";
+    private static final long INITIAL_DELAY_MS = 5 * 60 * 1000;
+
+    private ConsolidationPeriod period;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "index-consolidation");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Outcome of the last run, for /api/system/consolidation
+    private volatile Map<String, Object> lastRun = Map.of("status", "never");
+
+    // Daily indices of one period and where they go
+    private record PeriodGroup(LocalDate start, String targetIndex, List<String> dailyIndices) {}
+
+    @PostConstruct
+    void start() {
+        period = ConsolidationPeriod.fromParam(periodParam);
+        if (period == null) {
+            throw new IllegalStateException("Invalid stone.consolidation.period: " + periodParam + ". Use week or month");
+        }
+        if (enabled) {
+            scheduler.scheduleWithFixedDelay(this::runScheduled, INITIAL_DELAY_MS, intervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> status = new LinkedHashMap<>(lastRun);
+        status.put("enabled", enabled);
+        status.put("period", period.toParam());
+        return status;
+    }
+
+    private void runScheduled() {
+        long startTime = System.currentTimeMillis();
+        Map<String, Object> run = new LinkedHashMap<>();
+        run.put("startedAt", startTime);
+        try {
+            List<String> consolidated = consolidate();
+            run.put("status", "success");
+            run.put("consolidated", consolidated);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            run.put("status", "interrupted");
+        } catch (Exception e) {
+            // Nothing was swapped for the failed period, the next run retries it
+            logger.warn("Index consolidation failed: {}", e.getMessage());
+            run.put("status", "failed");
+            run.put("error", e.getMessage());
+        }
+        run.put("tookMs", System.currentTimeMillis() - startTime);
+        lastRun = run;
+    }
+
+    // Consolidates up to maxPeriodsPerRun eligible periods, oldest first, and returns the consolidated index names
+    public synchronized List<String> consolidate() throws IOException, InterruptedException {
+        List<String> consolidated = new ArrayList<>();
+        for (PeriodGroup group : findEligibleGroups()) {
+            if (consolidated.size() >= Math.max(1, maxPeriodsPerRun)) {
+                break;
+            }
+            consolidatePeriod(group);
+            consolidated.add(group.targetIndex());
+        }
+        return consolidated;
+    }
+
+    // Daily indices (not aliases) grouped by period, for periods that closed out at least minAgeDays ago
+    private List<PeriodGroup> findEligibleGroups() throws IOException {
+        // Index days are UTC days
+        LocalDate today = LocalDate.now(ZoneOffset.UTC);
+        Map<String, PeriodGroup> groups = new HashMap<>();
+        for (String index : clientService.listIndices(SESSION_INDEX_PATTERN)) {
+            LocalDate date = ConsolidationPeriod.dailyIndexDate(index);
+            if (date == null || !period.periodEnd(date).plusDays(minAgeDays).isBefore(today)) {
+                continue;
+            }
+            String target = period.targetIndex(ConsolidationPeriod.dailyIndexPrefix(index), date);
+            groups.computeIfAbsent(target, key -> new PeriodGroup(period.periodStart(date), key, new ArrayList<>()))
+                .dailyIndices().add(index);
+        }
+        List<PeriodGroup> eligible = new ArrayList<>(groups.values());
+        eligible.sort(Comparator.comparing(PeriodGroup::start).thenComparing(PeriodGroup::targetIndex));
+        eligible.forEach(group -> Collections.sort(group.dailyIndices()));
+        return eligible;
+    }
+
+    // Block writes, copy, verify, merge, then swap. Until the swap the daily indices stay in place and serve every
+    // query, so a failure at any step lifts the block and leaves a partial copy in the consolidated index that the next
+    // run completes.
+    private void consolidatePeriod(PeriodGroup group) throws IOException, InterruptedException {
+        String target = group.targetIndex();
+        List<String> dailyIndices = group.dailyIndices();
+        logger.info("Consolidating {} daily indices into {}", dailyIndices.size(), target);
+
+        if (!clientService.indexExists(target)) {
+            clientService.createIndex(CreateIndexRequest.of(c -> c
+                .index(target)
+                .settings(s -> s.numberOfShards(shards).hidden(true))
+                .mappings(m -> m.properties(DAILY_INDEX_FIELD, p -> p.keyword(k -> k)))));
+        }
+
+        // Imports of past captures are routine, one landing after the copy would be deleted with its daily index.
+        // Writes are refused while the days are copied and swapped, such an import fails and can be repeated.
+        clientService.updateSettings(dailyIndices, writeBlock(true));
+        try {
+            copyAndVerify(target, dailyIndices);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            liftWriteBlock(dailyIndices);
+            throw e;
+        }
+
+        // One cluster state update: each daily index disappears and its name reappears as an alias in the same step.
+        // The block goes with the daily index, writes through the alias land in the consolidated index.
+        List<Action> actions = new ArrayList<>();
+        for (String dailyIndex : dailyIndices) {
+            actions.add(Action.of(a -> a.removeIndex(r -> r.index(dailyIndex))));
+            actions.add(Action.of(a -> a.add(add -> add
+                .index(target)
+                .alias(dailyIndex)
+                .filter(dailyFilter(dailyIndex)))));
+        }
+        try {
+            clientService.updateAliases(actions);
+        } catch (IOException | RuntimeException e) {
+            liftWriteBlock(dailyIndices);
+            throw e;
+        }
+
+        // Until this succeeds range queries still see every day through the aliases, only not the index itself
+        try {
+            clientService.updateSettings(List.of(target), IndexSettings.of(s -> s.hidden(false)));
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Could not unhide {}: {}", target, e.getMessage());
+        }
+
+        meterRegistry.counter("stone.consolidation.indices").increment(dailyIndices.size());
+        logger.info("Consolidated {} daily indices into {}", dailyIndices.size(), target);
+    }
+
+    // Runs with the daily indices write-blocked, so the verified counts still hold at the swap
+    private void copyAndVerify(String target, List<String> dailyIndices) throws IOException, InterruptedException {
+        // Create only: documents already copied by an earlier, interrupted run are skipped as conflicts
+        String taskId = clientService.startReindex(ReindexRequest.of(r -> r
+            .source(s -> s.index(dailyIndices))
+            .dest(d -> d.index(target).opType(OpType.Create))
+            .conflicts(Conflicts.Proceed)
+            .script(s -> s.inline(i -> i.source("ctx._source['" + DAILY_INDEX_FIELD + "'] = ctx._index")))
+            .refresh(Refresh.True)
+            .waitForCompletion(false)));
+        awaitTask(taskId);
+
+        // Every document of every day must be in the consolidated index before its daily index can go
+        for (String dailyIndex : dailyIndices) {
+            long expected = clientService.count(dailyIndex, Query.of(q -> q.matchAll(m -> m)));
+            long copied = clientService.count(target, Query.of(q -> q.term(t -> t
+                .field(DAILY_INDEX_FIELD).value(FieldValue.of(dailyIndex)))));
+            if (copied < expected) {
+                throw new IOException("Consolidation of " + dailyIndex + " incomplete, copied " + copied + " of " + expected);
+            }
+        }
+
+        clientService.forceMerge(target, maxSegments, Duration.ofMillis(mergeTimeoutMs));
+    }
+
+    private static IndexSettings writeBlock(boolean blocked) {
+        return IndexSettings.of(s -> s.blocks(b -> b.write(blocked)));
+    }
+
+    // Best effort, the original failure is what gets reported
+    private void liftWriteBlock(List<String> dailyIndices) {
+        try {
+            clientService.updateSettings(dailyIndices, writeBlock(false));
+        } catch (Exception e) {
+            logger.warn("Could not lift the write block of {}: {}", dailyIndices, e.getMessage());
+        }
+    }
+
+    // Documents copied from the daily index, or written through the alias afterwards (an import of that day), which
+    // carry no source marker and are matched by the UTC day of their timestamp instead
+    private Query dailyFilter(String dailyIndex) {
+        LocalDate date = ConsolidationPeriod.dailyIndexDate(dailyIndex);
+        long dayStart = date.atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        long dayEnd = date.plusDays(1).atStartOfDay(ZoneOffset.UTC).toInstant().toEpochMilli();
+        return Query.of(q -> q.bool(b -> b
+            .minimumShouldMatch("1")
+            .should(Query.of(s -> s.term(t -> t.field(DAILY_INDEX_FIELD).value(FieldValue.of(dailyIndex)))))
+            .should(Query.of(s -> s.bool(unmarked -> unmarked
+                .mustNot(Query.of(n -> n.exists(e -> e.field(DAILY_INDEX_FIELD))))
+                .filter(Query.of(f -> f.range(r -> r
+                    .field(TIMESTAMP_FIELD)
+                    .gte(JsonData.of(dayStart))
+                    .lt(JsonData.of(dayEnd))))))))));
+    }
+
+    // Polls a cluster task until it finishes, throws when it failed
+    private void awaitTask(String taskId) throws IOException, InterruptedException {
+        while (true) {
+            Thread.sleep(taskPollMs);
+            GetTasksResponse task = clientService.getTask(taskId);
+            if (task.completed()) {
+                if (task.error() != null) {
+                    throw new IOException("Reindex task " + taskId + " failed: " + task.error().reason());
+                }
+                return;
+            }
+        }
+    }
+}
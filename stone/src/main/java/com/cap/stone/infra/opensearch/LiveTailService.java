@@ -0,0 +1,214 @@
+package com.cap.stone.infra.opensearch;
+
+import jakarta.annotation.PreDestroy;
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.opensearch._types.SortOrder;
+import org.opensearch.client.opensearch._types.mapping.FieldType;
+import org.opensearch.client.opensearch._types.query_dsl.BoolQuery;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.cap.stone.service.ImportService;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Streams newly indexed sessions with sids to Server-Sent Events subscribers.
+// One poll loop with one cursor serves every subscriber, it only runs while someone is listening.
+//
+// The cursor follows event.ingested, the time ImportService sent the document, not @timestamp: an import of an older
+// capture streams too, and a session captured earlier but indexed after a later one isn't skipped. A poll only takes
+// documents ingested before now - settle-ms and before the oldest stamp of any bulk ImportService still has in flight
+// or hasn't given settle-ms to refresh, so that range is final however long a bulk waits, and the next poll starts
+// where it ended. Each page is sent before the cursor moves past it.
+@Service
+public class LiveTailService {
+
+    @Autowired
+    private OpenSearchClientService clientService;
+
+    @Autowired
+    private SessionDataProcessor dataProcessor;
+
+    @Autowired
+    private SingaporeTimezoneUtil timezoneUtil;
+
+    @Autowired
+    private ImportService importService;
+
+    @Value("${stone.live-tail.poll-interval-ms:5000}")
+    private long pollIntervalMs;
+
+    @Value("${stone.live-tail.batch-size:500}")
+    private int batchSize;
+
+    @Value("${stone.live-tail.emitter-timeout-ms:1800000}")
+    private long emitterTimeoutMs;
+
+    // Time from a bulk request returning to its documents being searchable: refresh interval plus margin
+    @Value("${stone.live-tail.settle-ms:5000}")
+    private long settleMs;
+
+    private static final String SID_FIELD = "extended.sid";
+
+    private final Set<SseEmitter> subscribers = new CopyOnWriteArraySet<>();
+    private final ScheduledExecutorService poller = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "live-tail-poller");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private ScheduledFuture<?> pollTask;
+
+    // Shared cursor, only touched on the poller thread: everything ingested before cursorIngested has been sent,
+    // boundaryIds are the ids already sent at exactly that time
+    private long cursorIngested;
+    private final Set<String> boundaryIds = new HashSet<>();
+
+    // Registers a new subscriber and starts the poll loop if it was idle
+    public SseEmitter subscribe() {
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMs);
+        emitter.onCompletion(() -> unsubscribe(emitter));
+        emitter.onTimeout(() -> unsubscribe(emitter));
+        emitter.onError(e -> unsubscribe(emitter));
+
+        synchronized (this) {
+            subscribers.add(emitter);
+            if (pollTask == null) {
+                // Start tailing from now, the dashboard already shows what happened before. The reset is queued on
+                // the poller thread, behind a poll of the previous loop that may still be finishing.
+                long now = System.currentTimeMillis();
+                poller.execute(() -> resetCursor(now));
+                pollTask = poller.scheduleWithFixedDelay(this::poll, 0, pollIntervalMs, TimeUnit.MILLISECONDS);
+            }
+        }
+        return emitter;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    private void unsubscribe(SseEmitter emitter) {
+        synchronized (this) {
+            subscribers.remove(emitter);
+            if (subscribers.isEmpty() && pollTask != null) {
+                pollTask.cancel(false);
+                pollTask = null;
+            }
+        }
+    }
+
+    private void resetCursor(long ingested) {
+        cursorIngested = ingested;
+        boundaryIds.clear();
+    }
+
+    // One query per interval regardless of subscriber count, pages until caught up with one event per page
+    private void poll() {
+        try {
+            long settled = Math.min(System.currentTimeMillis() - settleMs, importService.oldestUnsettledIngest());
+            boolean sentAny = false;
+            if (settled > cursorIngested) {
+                List<Hit<Map<String, Object>>> page;
+                do {
+                    page = fetchAfterCursor(settled);
+                    List<Map<String, Object>> newSessions = new ArrayList<>();
+                    for (Hit<Map<String, Object>> hit : page) {
+                        Map<String, Object> processedSession = dataProcessor.processHit(hit);
+                        Object timestampObj = processedSession.get("timestamp");
+                        if (timestampObj == null) {
+                            continue;
+                        }
+                        processedSession.put("timestamp", timezoneUtil.convertToSingaporeTimestamp(timestampObj));
+                        newSessions.add(processedSession);
+                    }
+                    if (!newSessions.isEmpty()) {
+                        Map<String, Object> payload = Map.of("sessions", newSessions, "count", newSessions.size());
+                        broadcast(() -> SseEmitter.event().name("sessions").data(payload));
+                        sentAny = true;
+                    }
+                    // Only a page that has been sent moves the cursor
+                    for (Hit<Map<String, Object>> hit : page) {
+                        advanceCursor(hit.sort().get(0).longValue(), hit.id());
+                    }
+                } while (page.size() == batchSize);
+                // Everything ingested before settled has been sent
+                resetCursor(settled);
+            }
+
+            if (!sentAny) {
+                broadcast(() -> SseEmitter.event().comment("keepalive"));
+            }
+        } catch (Exception e) {
+            // Keep the loop alive, the next poll resumes after the last page that was sent
+            System.out.println("Live tail poll failed: " + e.getMessage());
+        }
+    }
+
+    // Equivalent of search_after on (event.ingested, _id) up to settled: later ingest times, or the same time with an
+    // unseen id. Done with a range plus ids exclusion because sorting on _id is disabled by default.
+    private List<Hit<Map<String, Object>>> fetchAfterCursor(long settled) throws IOException {
+        long from = cursorIngested;
+        BoolQuery.Builder bool = new BoolQuery.Builder()
+            .filter(Query.of(q -> q.exists(e -> e.field(SID_FIELD))))
+            .filter(Query.of(q -> q.range(r -> r.field(ImportService.INGESTED_FIELD)
+                .gte(JsonData.of(from))
+                .lt(JsonData.of(settled)))));
+        if (!boundaryIds.isEmpty()) {
+            List<String> seen = new ArrayList<>(boundaryIds);
+            bool.mustNot(Query.of(q -> q.ids(i -> i.values(seen))));
+        }
+
+        // Every day's index, an import can write to any of them. Indices nothing was imported into since
+        // event.ingested exists don't map it and match nothing.
+        SearchResponse<Map<String, Object>> response = clientService.executeSearch(
+            List.of(timezoneUtil.getAllSessionsIndexPattern()),
+            Query.of(q -> q.bool(bool.build())),
+            batchSize,
+            dataProcessor.getDetailedFields(),
+            ImportService.INGESTED_FIELD,
+            SortOrder.Asc,                     // Oldest first so the cursor only moves forward
+            FieldType.Date
+        );
+        return response.hits().hits();
+    }
+
+    private void advanceCursor(long ingested, String id) {
+        if (ingested > cursorIngested) {
+            cursorIngested = ingested;
+            boundaryIds.clear();
+        }
+        boundaryIds.add(id);
+    }
+
+    // Event builders can only be built once, so each subscriber gets a fresh one
+    private void broadcast(Supplier<SseEmitter.SseEventBuilder> event) {
+        for (SseEmitter emitter : subscribers) {
+            try {
+                emitter.send(event.get());
+            } catch (Exception e) {
+                // Client went away, completing triggers unsubscribe
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        poller.shutdownNow();
+        subscribers.forEach(SseEmitter::complete);
+    }
+}
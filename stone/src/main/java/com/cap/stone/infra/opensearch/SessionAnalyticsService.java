@@ -1,5 +1,15 @@
 package com.cap.stone.infra.opensearch;
 
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.opensearch._types.OpenSearchException;
+import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.aggregations.Aggregate;
+import org.opensearch.client.opensearch._types.aggregations.Aggregation;
+import org.opensearch.client.opensearch._types.aggregations.CalendarInterval;
+import org.opensearch.client.opensearch._types.aggregations.DateHistogramBucket;
+import org.opensearch.client.opensearch._types.aggregations.FieldDateMath;
+import org.opensearch.client.opensearch._types.aggregations.LongTermsBucket;
+import org.opensearch.client.opensearch._types.aggregations.StringTermsBucket;
 import org.opensearch.client.opensearch._types.query_dsl.BoolQuery;
 import org.opensearch.client.opensearch._types.query_dsl.ExistsQuery;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
@@ -7,16 +17,31 @@ import org.opensearch.client.opensearch._types.SortOrder;
 import org.opensearch.client.opensearch.core.SearchResponse;
 import org.opensearch.client.opensearch.core.search.Hit;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.cap.stone.infra.opensearch.model.CommunityTrend;
 import com.cap.stone.infra.opensearch.model.SessionAnalytics;
 import com.cap.stone.infra.opensearch.model.SessionGroup;
+import com.cap.stone.infra.opensearch.model.SessionScope;
+import com.cap.stone.infra.opensearch.model.TopHitters;
+import com.cap.stone.infra.segment.DaySegment;
+import com.cap.stone.infra.segment.DaySegmentStore;
 import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.AnalyticsDetail;
 import com.cap.stone.util.SingaporeTimezoneUtil;
+import com.cap.stone.util.SingleFlight;
+import com.cap.stone.util.LttbDownsampler;
+import com.cap.stone.util.RequestStageTimer;
+import com.cap.stone.util.SpaceSavingCounter;
+import com.cap.stone.util.TimeGranularity;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 
 @Service
 public class SessionAnalyticsService {
@@ -30,102 +55,375 @@ public class SessionAnalyticsService {
     @Autowired
     private SingaporeTimezoneUtil timezoneUtil;
     
+    // Time budget for one analytics computation, whatever has not finished by then is reported as incomplete
+    @Value("${stone.analytics.deadline-ms:10000}")
+    private long analyticsDeadlineMs;
+    
+    // Searches of one analytics computation allowed in flight at once
+    @Value("${stone.analytics.fan-out-parallelism:4}")
+    private int fanOutParallelism;
+    
+    @Autowired
+    private ExecutorService virtualThreadExecutor;
+    
+    @Autowired
+    private DaySegmentStore segmentStore;
+    
+    @Autowired
+    private SessionRoutingService routingService;
+    
+    @Autowired
+    private DataGenerationService dataGenerationService;
+    
+    // Community IDs and sids listed per bucket in summary mode
+    @Value("${stone.analytics.summary-top-k:10}")
+    private int summaryTopK;
+    
+    // Sessions of the most recently computed days kept for /api/sessions/samples and daily-details, and for how long
+    @Value("${stone.analytics.recent-days:64}")
+    private int recentDaysCapacity;
+    
+    @Value("${stone.analytics.recent-days-ttl-ms:300000}")
+    private long recentDaysTtlMs;
+    
     private static final String SID_FIELD = "extended.sid";
     private static final String TIMESTAMP_FIELD = "@timestamp";
+    // Imported documents are dynamically mapped, so string fields are only exact-matchable through their keyword sub-field
+    private static final String COMMUNITY_ID_FIELD = "network.community_id.keyword";
+    private static final String TREND_HISTOGRAM_AGG = "trend";
+    private static final String UNIQUE_SESSIONS_AGG = "uniqueSessions";
+    private static final String SNORT_MESSAGE_FIELD = "extended.snort_message.keyword";
+    private static final String TOP_SIDS_AGG = "topSids";
+    private static final String TOP_COMMUNITY_IDS_AGG = "topCommunityIds";
+    private static final String SNORT_MESSAGE_AGG = "snortMessage";
+    private static final int DEFAULT_TOP_N = 10;
+    private static final int SKETCH_CAPACITY = 100; // Counters kept by the in-process heavy-hitter sketch
+    
+    // Normalized parameters identifying an analytics computation. The time budget is part of it: a caller must not
+    // join a computation that was started with less time than it was given (the warm-up's leftover budget).
+    private record AnalyticsKey(LocalDate start, LocalDate end, String zone, TimeGranularity granularity, Integer maxPoints, SessionScope scope, AnalyticsDetail detail, Duration deadline) {}
+    private record DayKey(LocalDate date, SessionScope scope) {}
+    
+    // Sessions of one complete day as an analytics computation saw them, valid while no import happened since
+    private record RecentDay(List<Map<String, Object>> sessions, long importGeneration, long storedAt) {}
+    
+    // One day's index pattern to search, and what came back (no response and no failure = no index for that day)
+    private record IndexSearch(LocalDate date, String indexPattern) {}
+    private record IndexSearchResult(SearchResponse<Map<String, Object>> response, String failure) {}
+    
+    private final SingleFlight<AnalyticsKey, SessionAnalytics> analyticsFlights = new SingleFlight<>();
+    private final SingleFlight<DayKey, List<Map<String, Object>>> dailySessionFlights = new SingleFlight<>();
+    
+    // Least recently used day goes first
+    private final Map<DayKey, RecentDay> recentDays = new LinkedHashMap<>(16, 0.75f, true);
     
      //method to get daily data, count sid hits and count unique network sessions
     public SessionAnalytics getSessionAnalytics(String startDate, String endDate) throws IOException {
+        return getSessionAnalytics(startDate, endDate, TimeGranularity.DAY, null);
+    }
+    
+    // Same as above but bucketed at the given granularity, optionally downsampled (LTTB) to at most maxPoints buckets.
+    // Identical concurrent requests share one computation instead of each querying OpenSearch.
+    public SessionAnalytics getSessionAnalytics(String startDate, String endDate, TimeGranularity granularity, Integer maxPoints) throws IOException {
+        return getSessionAnalytics(startDate, endDate, granularity, maxPoints, SessionScope.ALL);
+    }
+    
+    // Restricted to one tenant and/or sensor network, routed to their shard when routing is on
+    public SessionAnalytics getSessionAnalytics(String startDate, String endDate, TimeGranularity granularity, Integer maxPoints, SessionScope scope) throws IOException {
+        return getSessionAnalytics(startDate, endDate, granularity, maxPoints, scope, AnalyticsDetail.FULL);
+    }
+    
+    // Summary detail leaves the sample sessions and full id lists out of the buckets, the sessions of each complete day
+    // are kept so the samples requested afterwards don't search again
+    public SessionAnalytics getSessionAnalytics(String startDate, String endDate, TimeGranularity granularity, Integer maxPoints, SessionScope scope, AnalyticsDetail detail) throws IOException {
+        return getSessionAnalytics(startDate, endDate, granularity, maxPoints, scope, detail, Duration.ofMillis(analyticsDeadlineMs));
+    }
+    
+    // Within the given time budget instead of the configured one, for callers with a budget of their own
+    public SessionAnalytics getSessionAnalytics(String startDate, String endDate, TimeGranularity granularity, Integer maxPoints, SessionScope scope, AnalyticsDetail detail, Duration deadline) throws IOException {
         LocalDate start = LocalDate.parse(startDate);
         LocalDate end = LocalDate.parse(endDate);
         
-        // Use LinkedHashMap to preserve chronological order
-        Map<String, SessionGroup> singaporeDateGroups = new LinkedHashMap<>();
+        AnalyticsKey key = new AnalyticsKey(start, end, timezoneUtil.getZoneId(), granularity, maxPoints, scope, detail, deadline);
+        return analyticsFlights.execute(key, () -> computeSessionAnalytics(start, end, granularity, maxPoints, scope, detail, deadline));
+    }
+    
+    private SessionAnalytics computeSessionAnalytics(LocalDate start, LocalDate end, TimeGranularity granularity, Integer maxPoints, SessionScope scope, AnalyticsDetail detail, Duration deadline) {
+        AnalyticsAccumulator accumulator = new AnalyticsAccumulator(granularity);
+        long importGeneration = dataGenerationService.getImportGeneration();
         
-        // Tracking across all days
-        Set<String> globalUniqueCommunityIds = new HashSet<>();
-        int totalHits = 0;
+        // One deadline for the whole request, each search only gets what is left of it
+        long deadlineNanos = System.nanoTime() + deadline.toNanos();
+        Set<String> incompleteDays = new TreeSet<>();
+        List<Map<String, Object>> slowIndices = new ArrayList<>();
         
-        // Query each day individually
-        LocalDate currentDate = start;
-        while (!currentDate.isAfter(end)) {
-            
+        // Finished days already held locally are scanned from their segment, the rest is searched. Segments hold every
+        // tenant's sessions, a scoped request always searches.
+        long segmentGeneration = segmentStore.getGeneration();
+        Map<LocalDate, DaySegment> segments = new HashMap<>();
+        
+        // One search per day and index pattern, fetched ahead on virtual threads while earlier days are processed.
+        // At most fanOutParallelism searches of this request are in flight so one long range can't hog the cluster.
+        List<IndexSearch> searches = new ArrayList<>();
+        for (LocalDate date = start; !date.isAfter(end); date = date.plusDays(1)) {
+            DaySegment segment = scope.isAll() ? segmentStore.get(date) : null;
+            if (segment != null) {
+                segments.put(date, segment);
+                continue;
+            }
             // Get index patterns for timezone boundary handling
-            List<String> indexPatterns = timezoneUtil.getIndexPatternsForAnalytics(currentDate);
+            for (String indexPattern : timezoneUtil.getIndexPatternsForAnalytics(date)) {
+                searches.add(new IndexSearch(date, indexPattern));
+            }
+        }
+        
+        Deque<CompletableFuture<IndexSearchResult>> window = new ArrayDeque<>();
+        int nextSearch = 0;
+        for (LocalDate currentDate = start; !currentDate.isAfter(end); currentDate = currentDate.plusDays(1)) {
+            DaySegment segment = segments.get(currentDate);
+            if (segment != null) {
+                accumulator.addSegment(segment);
+                continue;
+            }
             
-            for (String indexPattern : indexPatterns) {
-                try {
-                    // Query for documents with sid field
-                    Query sidQuery = Query.of(q -> q.bool(BoolQuery.of(b -> b
-                        .must(Query.of(mq -> mq.exists(ExistsQuery.of(e -> e.field(SID_FIELD)))))
-                    )));
-                    
-                    // search with field filtering and sorting
-                    SearchResponse<Map<String, Object>> response = clientService.executeSearch(
-                        indexPattern, 
-                        sidQuery, 
-                        1000,                          // Max results per day
-                        dataProcessor.getDetailedFields(), // Only fetch required fields
-                        TIMESTAMP_FIELD,                   // Sort by timestamp
-                        SortOrder.Desc                     // Most recent first
-                    );
-                    
-                    List<Hit<Map<String, Object>>> hits = response.hits().hits();
+            // Kept to freeze the day into a segment once it is known to be complete
+            List<Map<String, Object>> daySessions = new ArrayList<>();
+            boolean dayComplete = true;
+            long dayStart = timezoneUtil.getSingaporeStartOfDayTimestamp(currentDate);
+            
+            for (String indexPattern : timezoneUtil.getIndexPatternsForAnalytics(currentDate)) {
+                while (nextSearch < searches.size() && window.size() < Math.max(1, fanOutParallelism)) {
+                    IndexSearch ahead = searches.get(nextSearch++);
+                    window.add(CompletableFuture.supplyAsync(
+                        RequestStageTimer.propagate(() -> searchIndex(ahead, scope, deadlineNanos)), virtualThreadExecutor));
+                }
+                IndexSearchResult result = window.poll().join();
+                
+                if (result.failure() != null) {
+                    // Skipped, shed or failed: the day is missing rather than empty
+                    incompleteDays.add(currentDate.toString());
+                    slowIndices.add(slowIndex(indexPattern, currentDate, result.failure()));
+                    dayComplete = false;
+                    continue;
+                }
+                if (result.response() == null) {
+                    continue; // No index for this day
+                }
+                
+                SearchResponse<Map<String, Object>> response = result.response();
+                if (response.timedOut()) {
+                    // Shards stopped early, the hits below are only part of the day
+                    incompleteDays.add(currentDate.toString());
+                    slowIndices.add(slowIndex(indexPattern, currentDate, "timed_out"));
+                    dayComplete = false;
+                    System.out.println("Search timed out for index " + indexPattern + " after " + response.took() + "ms, using partial results");
+                }
+                
+                long oldestHit = Long.MAX_VALUE;
+                for (Hit<Map<String, Object>> hit : response.hits().hits()) {
+                    Map<String, Object> processedSession = dataProcessor.processHit(hit);
                     
-                    for (Hit<Map<String, Object>> hit : hits) {
-                        Map<String, Object> processedSession = dataProcessor.processHit(hit);
-
-                        // Convert UTC timestamp to Singapore time
-                        Object timestampObj = processedSession.get("timestamp");
-                        if (timestampObj != null) {
-                            long singaporeTimestamp = timezoneUtil.convertToSingaporeTimestamp(timestampObj);
-                            processedSession.put("timestamp", singaporeTimestamp);
-                            
-                            // Check if this session belongs to the current Singapore date
-                            if (timezoneUtil.timestampBelongsToSingaporeDate(singaporeTimestamp, currentDate.toString())) {
-                                String singaporeDate = currentDate.toString();
-                                SessionGroup group = singaporeDateGroups.computeIfAbsent(singaporeDate, SessionGroup::new);
-                                group.addSession(processedSession);
-                                totalHits++;
-                                
-                                // Extract and track sid and community ID
-                                String communityId = (String) processedSession.get("communityId");
-                                Object sidObj = processedSession.get("sid");
-                                
-                                if (communityId != null) {
-                                    group.addCommunityIds(List.of(communityId));
-                                    globalUniqueCommunityIds.add(communityId);
-                                }
-                                
-                                if (sidObj != null) {
-                                    List<Long> sids = dataProcessor.extractSids(sidObj);
-                                    group.addSids(sids);
-                                }
-                            }
+                    // Convert UTC timestamp to Singapore time
+                    Object timestampObj = processedSession.get("timestamp");
+                    if (timestampObj != null) {
+                        long singaporeTimestamp = timezoneUtil.convertToSingaporeTimestamp(timestampObj);
+                        processedSession.put("timestamp", singaporeTimestamp);
+                        oldestHit = Math.min(oldestHit, singaporeTimestamp);
+                        
+                        // Check if this session belongs to the current Singapore date
+                        if (timezoneUtil.timestampBelongsToSingaporeDate(singaporeTimestamp, currentDate.toString())) {
+                            accumulator.add(processedSession, singaporeTimestamp,
+                                (String) processedSession.get("communityId"),
+                                dataProcessor.extractSids(processedSession.get("sid")));
+                            daySessions.add(processedSession);
                         }
                     }
-                    
-                } catch (Exception e) {
-                    // Log but continue, some days may not have data
-                    System.out.println("No data found for index " + indexPattern + ": " + e.getMessage());
+                }
+                
+                // Hits come newest first and capped, the ones left out are older than the oldest returned. If that
+                // is still inside the day, its earlier sessions are missing from every bucket.
+                if (isTruncated(response) && oldestHit >= dayStart) {
+                    incompleteDays.add(currentDate.toString());
+                    slowIndices.add(slowIndex(indexPattern, currentDate, "truncated"));
+                    dayComplete = false;
                 }
             }
             
-            currentDate = currentDate.plusDays(1);
+            if (dayComplete) {
+                rememberDay(new DayKey(currentDate, scope), daySessions, importGeneration);
+            }
+            if (dayComplete && scope.isAll() && segmentStore.isEligible(currentDate)) {
+                LocalDate frozenDate = currentDate;
+                virtualThreadExecutor.execute(() -> segmentStore.store(frozenDate, daySessions, segmentGeneration));
+            }
         }
         
-        // Build daily data for timeseries visualization
-        List<Map<String, Object>> dailyData = buildDailyDataList(singaporeDateGroups);
+        // Build daily data for timeseries visualization, flagging buckets of days that did not finish
+        List<Map<String, Object>> dailyData = detail == AnalyticsDetail.SUMMARY
+            ? buildSummaryDataList(accumulator.bucketGroups)
+            : buildDailyDataList(accumulator.bucketGroups);
+        for (Map<String, Object> dayData : dailyData) {
+            dayData.put("incomplete", overlapsIncompleteDay((Long) dayData.get("timestamp"), granularity, incompleteDays));
+        }
+        
+        // Cap the chart payload while keeping the visual shape of the series
+        boolean downsampled = false;
+        if (maxPoints != null && dailyData.size() > maxPoints) {
+            dailyData = LttbDownsampler.downsample(dailyData, maxPoints, "timestamp", "hitCount");
+            downsampled = true;
+        }
         
         return new SessionAnalytics(
             dailyData, 
-            totalHits, 
-            globalUniqueCommunityIds.size()
+            accumulator.totalHits, 
+            accumulator.globalUniqueCommunityIds.size(),
+            accumulator.sidSketch.top(DEFAULT_TOP_N, "sid"),
+            accumulator.communityIdSketch.top(DEFAULT_TOP_N, "communityId"),
+            granularity.toParam(),
+            downsampled,
+            new ArrayList<>(incompleteDays),
+            slowIndices
         );
     }
     
-    // Retrieves all network sessions with snort sids for a specific day.
+    // Running totals of one analytics computation, fed the sessions of each day in order
+    private class AnalyticsAccumulator {
+        private final TimeGranularity granularity;
+        
+        // Keyed by bucket start, TreeMap keeps chronological order since hits arrive newest first per index
+        private final Map<Long, SessionGroup> bucketGroups = new TreeMap<>();
+        
+        // Tracking across all days
+        private final Set<String> globalUniqueCommunityIds = new HashSet<>();
+        private int totalHits = 0;
+        
+        // Bounded heavy-hitter tracking, memory stays fixed whatever the range
+        private final SpaceSavingCounter<Long> sidSketch = new SpaceSavingCounter<>(SKETCH_CAPACITY);
+        private final SpaceSavingCounter<String> communityIdSketch = new SpaceSavingCounter<>(SKETCH_CAPACITY);
+        
+        AnalyticsAccumulator(TimeGranularity granularity) {
+            this.granularity = granularity;
+        }
+        
+        // One session of the day being processed, timestamp already converted to Singapore time
+        void add(Map<String, Object> processedSession, long singaporeTimestamp, String communityId, List<Long> sids) {
+            long bucketStart = timezoneUtil.getBucketStartTimestamp(singaporeTimestamp, granularity);
+            SessionGroup group = bucketGroups.computeIfAbsent(bucketStart, key -> 
+                new SessionGroup(timezoneUtil.getSingaporeDateFromTimestamp(key), key));
+            group.addSession(processedSession);
+            totalHits++;
+            
+            // Extract and track sid and community ID
+            if (communityId != null) {
+                group.addCommunityIds(List.of(communityId));
+                globalUniqueCommunityIds.add(communityId);
+                communityIdSketch.offer(communityId);
+            }
+            
+            group.addSids(sids);
+            sids.forEach(sidSketch::offer);
+        }
+        
+        // A whole stored day, rows are already filtered to the day and in search order
+        void addSegment(DaySegment segment) {
+            long startTime = System.nanoTime();
+            for (int row = 0; row < segment.rowCount(); row++) {
+                add(segment.session(row), segment.timestamp(row), segment.communityId(row), segment.sids(row));
+            }
+            RequestStageTimer.record("segment", System.nanoTime() - startTime);
+        }
+    }
+    
+    // Entry of the slowIndices list in the analytics response
+    private Map<String, Object> slowIndex(String indexPattern, LocalDate date, String reason) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("index", indexPattern);
+        entry.put("date", date.toString());
+        entry.put("reason", reason); // skipped, timed_out, failed or truncated
+        return entry;
+    }
+    
+    // A bucket is incomplete when any day that did not finish overlaps [bucketStart, nextBucketStart): the day itself
+    // for minute, hour and day buckets, any of its seven days for a week
+    private boolean overlapsIncompleteDay(long bucketStart, TimeGranularity granularity, Set<String> incompleteDays) {
+        for (String day : incompleteDays) {
+            LocalDate date = LocalDate.parse(day);
+            long dayStart = timezoneUtil.getSingaporeStartOfDayTimestamp(date);
+            if (timezoneUtil.getBucketStartTimestamp(dayStart, granularity) <= bucketStart
+                    && bucketStart < timezoneUtil.getSingaporeEndOfDayTimestamp(date)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    // More sessions matched than the search returned
+    private static boolean isTruncated(SearchResponse<Map<String, Object>> response) {
+        return response.hits().total() != null && response.hits().total().value() > response.hits().hits().size();
+    }
+    
+    // Runs one day's sid search within what is left of the deadline. Never throws, failures come back as a reason
+    private IndexSearchResult searchIndex(IndexSearch search, SessionScope scope, long deadlineNanos) {
+        String indexPattern = search.indexPattern();
+        long remainingMs = (deadlineNanos - System.nanoTime()) / 1_000_000L;
+        if (remainingMs <= 0) {
+            // Out of time, do not even start the search
+            return new IndexSearchResult(null, "skipped");
+        }
+        
+        try {
+            // search with field filtering and sorting
+            SearchResponse<Map<String, Object>> response = clientService.executeSearch(
+                indexPattern, 
+                sidQuery(scope), 
+                1000,                          // Max results per day
+                dataProcessor.getDetailedFields(), // Only fetch required fields
+                TIMESTAMP_FIELD,                   // Sort by timestamp
+                SortOrder.Desc,                    // Most recent first
+                Duration.ofMillis(remainingMs),
+                routingService.routingForScope(scope)
+            );
+            return new IndexSearchResult(response, null);
+            
+        } catch (OpenSearchException e) {
+            if (e.status() == 404) {
+                // Some days simply have no index
+                System.out.println("No data found for index " + indexPattern + ": " + e.getMessage());
+                return new IndexSearchResult(null, null);
+            }
+            System.out.println("Search failed for index " + indexPattern + ": " + e.getMessage());
+            return new IndexSearchResult(null, "failed");
+        } catch (Exception e) {
+            // Client cutoff, shed load or connection error
+            System.out.println("Search failed for index " + indexPattern + ": " + e.getMessage());
+            return new IndexSearchResult(null, "failed");
+        }
+    }
+    
+    // Retrieves all network sessions with snort sids for a specific day, coalescing identical concurrent requests.
     public List<Map<String, Object>> getSessionsForSpecificDay(String date) throws IOException {
+        return getSessionsForSpecificDay(date, SessionScope.ALL);
+    }
+    
+    public List<Map<String, Object>> getSessionsForSpecificDay(String date, SessionScope scope) throws IOException {
         LocalDate localDate = LocalDate.parse(date);
+        return dailySessionFlights.execute(new DayKey(localDate, scope), () -> computeSessionsForSpecificDay(localDate, scope));
+    }
+    
+    private List<Map<String, Object>> computeSessionsForSpecificDay(LocalDate localDate, SessionScope scope) {
+        String date = localDate.toString();
+        
+        // Same indices and filter as the analytics, a frozen day is read locally
+        DaySegment segment = scope.isAll() ? segmentStore.get(localDate) : null;
+        if (segment != null) {
+            return segment.sessions();
+        }
+        
+        // A day the dashboard just computed is answered from what that computation saw
+        List<Map<String, Object>> recent = recentDay(new DayKey(localDate, scope));
+        if (recent != null) {
+            return recent;
+        }
         
         // Get index patterns for timezone boundary handling
         List<String> indexPatterns = timezoneUtil.getIndexPatternsForSingaporeDate(localDate);
@@ -135,17 +433,15 @@ public class SessionAnalyticsService {
         for (String indexPattern : indexPatterns) {
             try {
                 // Query for all sessions with sids
-                Query sidQuery = Query.of(q -> q.bool(BoolQuery.of(b -> b
-                    .must(Query.of(mq -> mq.exists(ExistsQuery.of(e -> e.field(SID_FIELD)))))
-                )));
-                
                 SearchResponse<Map<String, Object>> response = clientService.executeSearch(
                     indexPattern, 
-                    sidQuery, 
+                    sidQuery(scope), 
                     1000,                       
                     dataProcessor.getDetailedFields(),
                     TIMESTAMP_FIELD,
-                    SortOrder.Desc
+                    SortOrder.Desc,
+                    null,
+                    routingService.routingForScope(scope)
                 );
                 
                 // Process all hits into session objects
@@ -172,19 +468,196 @@ public class SessionAnalyticsService {
         return sessions;
     }
     
-    // Transforms grouped session data into the daily data list for timeseries visualization. Creates data points with aggregated stats for each day.
-    private List<Map<String, Object>> buildDailyDataList(Map<String, SessionGroup> singaporeDateGroups) {
-        List<Map<String, Object>> dailyData = new ArrayList<>();
+    private synchronized void rememberDay(DayKey key, List<Map<String, Object>> sessions, long importGeneration) {
+        recentDays.put(key, new RecentDay(sessions, importGeneration, System.currentTimeMillis()));
+        Iterator<DayKey> eldest = recentDays.keySet().iterator();
+        while (recentDays.size() > Math.max(0, recentDaysCapacity)) {
+            eldest.next();
+            eldest.remove();
+        }
+    }
+    
+    // Kept sessions of the day, null when not kept, expired or older than the last import
+    private synchronized List<Map<String, Object>> recentDay(DayKey key) {
+        RecentDay recent = recentDays.get(key);
+        if (recent == null) {
+            return null;
+        }
+        if (recent.importGeneration() != dataGenerationService.getImportGeneration()
+                || System.currentTimeMillis() - recent.storedAt() > recentDaysTtlMs) {
+            recentDays.remove(key);
+            return null;
+        }
+        return new ArrayList<>(recent.sessions());
+    }
+    
+    // Retrieves the hit series for one community ID and/or sid, filtering and bucketing inside OpenSearch
+    public CommunityTrend getCommunityIdTrend(String startDate, String endDate, String communityId, Long sid, String interval) throws IOException {
+        return getCommunityIdTrend(startDate, endDate, communityId, sid, interval, SessionScope.ALL);
+    }
+    
+    public CommunityTrend getCommunityIdTrend(String startDate, String endDate, String communityId, Long sid, String interval, SessionScope scope) throws IOException {
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        long rangeStart = timezoneUtil.getSingaporeStartOfDayTimestamp(start);
+        long rangeEnd = timezoneUtil.getSingaporeEndOfDayTimestamp(end);
         
-        for (SessionGroup group : singaporeDateGroups.values()) {
-            LocalDate localDate = LocalDate.parse(group.getDate());
+        // Push every filter down so only matching documents are counted
+        BoolQuery.Builder bool = buildSidRangeFilter(rangeStart, rangeEnd, scope);
+        if (communityId != null) {
+            bool.filter(Query.of(q -> q.term(t -> t.field(COMMUNITY_ID_FIELD).value(FieldValue.of(communityId)))));
+        }
+        if (sid != null) {
+            bool.filter(Query.of(q -> q.term(t -> t.field(SID_FIELD).value(FieldValue.of(sid)))));
+        }
+        Query trendQuery = Query.of(q -> q.bool(bool.build()));
+        
+        // Buckets aligned to Singapore days/hours, zero-filled across the whole requested range
+        CalendarInterval calendarInterval = "hour".equals(interval) ? CalendarInterval.Hour : CalendarInterval.Day;
+        Aggregation histogram = Aggregation.of(a -> a
+            .dateHistogram(h -> h
+                .field(TIMESTAMP_FIELD)
+                .calendarInterval(calendarInterval)
+                .timeZone(timezoneUtil.getZoneId())
+                .minDocCount(0)
+                .extendedBounds(b -> b
+                    .min(FieldDateMath.of(f -> f.value((double) rangeStart)))
+                    .max(FieldDateMath.of(f -> f.value((double) (rangeEnd - 1))))))
+            .aggregations(UNIQUE_SESSIONS_AGG, sub -> sub.cardinality(c -> c.field(COMMUNITY_ID_FIELD)))
+        );
+        
+        SearchResponse<Map<String, Object>> response = clientService.executeAggregation(
+            List.of(timezoneUtil.getAllSessionsIndexPattern()),
+            trendQuery,
+            Map.of(TREND_HISTOGRAM_AGG, histogram),
+            routingService.routingForScope(scope)
+        );
+        
+        List<Map<String, Object>> series = new ArrayList<>();
+        long totalHits = 0;
+        
+        for (DateHistogramBucket bucket : response.aggregations().get(TREND_HISTOGRAM_AGG).dateHistogram().buckets().array()) {
+            long timestampMs = bucket.key();
             
+            Map<String, Object> point = new HashMap<>();
+            point.put("timestamp", timestampMs);                                              // Unix timestamp for charts
+            point.put("singaporeDate", timezoneUtil.getSingaporeDateFromTimestamp(timestampMs)); // singapore date
+            if (calendarInterval == CalendarInterval.Hour) {
+                point.put("hour", timezoneUtil.getSingaporeHourFromTimestamp(timestampMs));    // singapore hour of day
+            }
+            point.put("hitCount", bucket.docCount());                                          // Matching sessions in bucket
+            point.put("uniqueSessions", bucket.aggregations().get(UNIQUE_SESSIONS_AGG).cardinality().value()); // Distinct community IDs
             
-            long timestampMs = timezoneUtil.getSingaporeStartOfDayTimestamp(localDate);
+            series.add(point);
+            totalHits += bucket.docCount();
+        }
+        
+        return new CommunityTrend(communityId, sid, calendarInterval == CalendarInterval.Hour ? "hour" : "day", series, totalHits);
+    }
+    
+    // Retrieves the top N sids and community IDs over a date range using terms aggregations
+    public TopHitters getTopHitters(String startDate, String endDate, int topN) throws IOException {
+        return getTopHitters(startDate, endDate, topN, SessionScope.ALL);
+    }
+    
+    public TopHitters getTopHitters(String startDate, String endDate, int topN, SessionScope scope) throws IOException {
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        long rangeStart = timezoneUtil.getSingaporeStartOfDayTimestamp(start);
+        long rangeEnd = timezoneUtil.getSingaporeEndOfDayTimestamp(end);
+        
+        Query rangeQuery = Query.of(q -> q.bool(buildSidRangeFilter(rangeStart, rangeEnd, scope).build()));
+        
+        // Only N buckets come back per field, each sid carrying its most common snort message
+        Aggregation topSidsAgg = Aggregation.of(a -> a
+            .terms(t -> t.field(SID_FIELD).size(topN))
+            .aggregations(SNORT_MESSAGE_AGG, sub -> sub.terms(t -> t.field(SNORT_MESSAGE_FIELD).size(1)))
+        );
+        Aggregation topCommunityIdsAgg = Aggregation.of(a -> a
+            .terms(t -> t.field(COMMUNITY_ID_FIELD).size(topN))
+        );
+        
+        SearchResponse<Map<String, Object>> response = clientService.executeAggregation(
+            List.of(timezoneUtil.getAllSessionsIndexPattern()),
+            rangeQuery,
+            Map.of(TOP_SIDS_AGG, topSidsAgg, TOP_COMMUNITY_IDS_AGG, topCommunityIdsAgg),
+            routingService.routingForScope(scope)
+        );
+        
+        List<Map<String, Object>> topSids = new ArrayList<>();
+        long otherSidHits = 0;
+        Aggregate sidAggregate = response.aggregations().get(TOP_SIDS_AGG);
+        if (sidAggregate.isLterms()) {
+            for (LongTermsBucket bucket : sidAggregate.lterms().buckets().array()) {
+                topSids.add(buildTopSidRow(Long.parseLong(String.valueOf(bucket.key()._get())), bucket.docCount(), bucket.aggregations()));
+            }
+            otherSidHits = sidAggregate.lterms().sumOtherDocCount();
+        } else if (sidAggregate.isSterms()) {
+            // sid mapped as keyword instead of a number
+            for (StringTermsBucket bucket : sidAggregate.sterms().buckets().array()) {
+                topSids.add(buildTopSidRow(Long.parseLong(bucket.key()), bucket.docCount(), bucket.aggregations()));
+            }
+            otherSidHits = sidAggregate.sterms().sumOtherDocCount();
+        }
+        
+        List<Map<String, Object>> topCommunityIds = new ArrayList<>();
+        long otherCommunityIdHits = 0;
+        Aggregate communityAggregate = response.aggregations().get(TOP_COMMUNITY_IDS_AGG);
+        if (communityAggregate.isSterms()) {
+            for (StringTermsBucket bucket : communityAggregate.sterms().buckets().array()) {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put("communityId", bucket.key());
+                row.put("hitCount", bucket.docCount());
+                topCommunityIds.add(row);
+            }
+            otherCommunityIdHits = communityAggregate.sterms().sumOtherDocCount();
+        }
+        
+        return new TopHitters(topSids, topCommunityIds, otherSidHits, otherCommunityIdHits);
+    }
+    
+    // Builds one top sid entry, attaching the snort message from the sub-aggregation when present
+    private Map<String, Object> buildTopSidRow(long sid, long hitCount, Map<String, Aggregate> subAggregations) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("sid", sid);
+        row.put("hitCount", hitCount);
+        
+        Aggregate messageAggregate = subAggregations.get(SNORT_MESSAGE_AGG);
+        if (messageAggregate != null && messageAggregate.isSterms() && !messageAggregate.sterms().buckets().array().isEmpty()) {
+            row.put("snortMessage", messageAggregate.sterms().buckets().array().get(0).key());
+        }
+        return row;
+    }
+    
+    // Base filter shared by the aggregation queries: sessions of the scope with a sid inside [rangeStart, rangeEnd)
+    private BoolQuery.Builder buildSidRangeFilter(long rangeStart, long rangeEnd, SessionScope scope) {
+        return new BoolQuery.Builder()
+            .filter(Query.of(q -> q.exists(ExistsQuery.of(e -> e.field(SID_FIELD)))))
+            .filter(Query.of(q -> q.range(r -> r
+                .field(TIMESTAMP_FIELD)
+                .gte(JsonData.of(rangeStart))
+                .lt(JsonData.of(rangeEnd)))))
+            .filter(routingService.scopeFilters(scope));
+    }
+    
+    // Documents with a sid field, restricted to the scope's tenant and network
+    private Query sidQuery(SessionScope scope) {
+        return Query.of(q -> q.bool(BoolQuery.of(b -> b
+            .must(Query.of(mq -> mq.exists(ExistsQuery.of(e -> e.field(SID_FIELD)))))
+            .filter(routingService.scopeFilters(scope))
+        )));
+    }
+    
+    // Transforms grouped session data into the daily data list for timeseries visualization. Creates data points with aggregated stats for each bucket (a day unless another granularity was requested).
+    private List<Map<String, Object>> buildDailyDataList(Map<Long, SessionGroup> bucketGroups) {
+        List<Map<String, Object>> dailyData = new ArrayList<>();
+        
+        for (SessionGroup group : bucketGroups.values()) {
+            long timestampMs = group.getBucketTimestamp();
             
             Map<String, Integer> communityIdHitCounts = group.getCommunityIdHitCounts();
             
-            // Build data point for this day
+            // Build data point for this bucket
             Map<String, Object> dayData = new HashMap<>();
             dayData.put("timestamp", timestampMs);                    // Unix timestamp for charts
             dayData.put("singaporeDate", group.getDate());            // singapore date
@@ -200,4 +673,24 @@ public class SessionAnalyticsService {
         
         return dailyData;
     }
-}
\ No newline at end of file
+    
+    // Summary variant of the above: counts and top-k per bucket, no sessions. Samples are requested per day afterwards.
+    private List<Map<String, Object>> buildSummaryDataList(Map<Long, SessionGroup> bucketGroups) {
+        List<Map<String, Object>> dailyData = new ArrayList<>();
+        
+        for (SessionGroup group : bucketGroups.values()) {
+            Map<String, Object> dayData = new HashMap<>();
+            dayData.put("timestamp", group.getBucketTimestamp());
+            dayData.put("singaporeDate", group.getDate());
+            dayData.put("hitCount", group.getSessionCount());
+            dayData.put("uniqueCommunityIdCount", group.getUniqueCommunityIds().size());
+            dayData.put("uniqueSidCount", group.getUniqueSids().size());
+            dayData.put("topCommunityIds", group.getTopCommunityIds(summaryTopK));
+            dayData.put("topSids", group.getTopSids(summaryTopK));
+            
+            dailyData.add(dayData);
+        }
+        
+        return dailyData;
+    }
+}
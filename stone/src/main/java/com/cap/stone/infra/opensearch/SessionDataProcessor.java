@@ -1,9 +1,16 @@
 package com.cap.stone.infra.opensearch;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
 import org.opensearch.client.opensearch.core.search.Hit;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import com.cap.stone.util.RequestStageTimer;
+
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 @Component
@@ -11,7 +18,45 @@ public class SessionDataProcessor {
     
     private static final String TIMESTAMP_FIELD = "@timestamp";
     
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    private Timer processTimer;
+    
+    // Looked up once, processHit runs for every hit of every query
+    @PostConstruct
+    void registerMeters() {
+        processTimer = meterRegistry.timer("stone.session.process");
+    }
+    
     public Map<String, Object> processHit(Hit<Map<String, Object>> hit) { //flattened and subset of the document
+        long startTime = System.nanoTime();
+        Map<String, Object> processed = extractFields(hit);
+        long elapsed = System.nanoTime() - startTime;
+        processTimer.record(elapsed, TimeUnit.NANOSECONDS);
+        RequestStageTimer.record("process", elapsed);
+        return processed;
+    }
+    
+    // Same as processHit without recording it, for generated sessions that would skew the timings of real ones
+    Map<String, Object> processHitUnrecorded(Hit<Map<String, Object>> hit) {
+        return extractFields(hit);
+    }
+    
+    // processHit plus the requested extra source fields under "fields", keyed by their dotted path
+    public Map<String, Object> processHit(Hit<Map<String, Object>> hit, List<String> extraFields) {
+        Map<String, Object> processed = processHit(hit);
+        if (!extraFields.isEmpty()) {
+            Map<String, Object> fields = new LinkedHashMap<>();
+            for (String field : extraFields) {
+                fields.put(field, getNestedValue(hit.source(), field.split("\\.")));
+            }
+            processed.put("fields", fields);
+        }
+        return processed;
+    }
+    
+    private Map<String, Object> extractFields(Hit<Map<String, Object>> hit) {
         Map<String, Object> session = hit.source(); //raw opensearch hit data
         
         // extract necessary data for chart. (metadata, snort alerts)
@@ -62,6 +107,13 @@ public class SessionDataProcessor {
     }
     
 
+    // getDetailedFields plus a projection of extra fields requested by the caller
+    public String[] getDetailedFields(List<String> extraFields) {
+        Set<String> fields = new LinkedHashSet<>(Arrays.asList(getDetailedFields()));
+        fields.addAll(extraFields);
+        return fields.toArray(new String[0]);
+    }
+    
     //helper class to extracts nested values
     private Object getNestedValue(Map<String, Object> source, String... keys) {
         Object current = source;
@@ -0,0 +1,191 @@
+package com.cap.stone.infra.opensearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPOutputStream;
+
+// Streams a date range of sessions out of OpenSearch as gzip NDJSON, one {"id","index","data"} document per line, the
+// same documents the import accepts. Slices of one scroll are read in parallel on virtual threads and handed to the
+// writing thread through a small bounded queue, so memory stays at a few pages whatever the range.
+@Service
+public class SessionExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SessionExportService.class);
+
+    @Autowired
+    private OpenSearchClientService clientService;
+
+    @Autowired
+    private SingaporeTimezoneUtil timezoneUtil;
+
+    @Autowired
+    private ExecutorService virtualThreadExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    // Parallel scroll slices, 0 = one per core (capped at MAX_SLICES)
+    @Value("${stone.export.slices:0}")
+    private int configuredSlices;
+
+    @Value("${stone.export.page-size:1000}")
+    private int pageSize;
+
+    @Value("${stone.export.scroll-keep-alive:2m}")
+    private String scrollKeepAlive;
+
+    private static final String TIMESTAMP_FIELD = "@timestamp";
+    private static final int MAX_SLICES = 8;
+    private static final int PAGES_PER_SLICE_BUFFERED = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    // One page of export documents from a slice, or the end marker of a slice (documents null)
+    private record Page(List<Map<String, Object>> documents, Exception failure) {
+        static Page end(Exception failure) {
+            return new Page(null, failure);
+        }
+    }
+
+    // Writes every session between the start of start and the end of end (Singapore days) to out, returns the count.
+    // The gzip stream is finished but out is left open. A slice failing midway aborts the export with an IOException,
+    // the truncated gzip then fails to import instead of silently loading a partial range.
+    public long exportSessions(LocalDate start, LocalDate end, OutputStream out) throws IOException {
+        // Every day's index, filtered by the @timestamp range: a year of daily patterns would overflow the request line
+        List<String> indexPatterns = List.of(timezoneUtil.getAllSessionsIndexPattern());
+        long rangeStart = timezoneUtil.getSingaporeStartOfDayTimestamp(start);
+        long rangeEnd = timezoneUtil.getSingaporeEndOfDayTimestamp(end);
+        Query rangeQuery = Query.of(q -> q.range(r -> r
+            .field(TIMESTAMP_FIELD)
+            .gte(JsonData.of(rangeStart))
+            .lt(JsonData.of(rangeEnd))));
+
+        int slices = configuredSlices > 0 ? configuredSlices : Math.min(Runtime.getRuntime().availableProcessors(), MAX_SLICES);
+        BlockingQueue<Page> pages = new ArrayBlockingQueue<>(slices * PAGES_PER_SLICE_BUFFERED);
+
+        AtomicBoolean abandoned = new AtomicBoolean();
+        List<Future<?>> readers = new ArrayList<>();
+        for (int slice = 0; slice < slices; slice++) {
+            int sliceId = slice;
+            readers.add(virtualThreadExecutor.submit(() -> readSlice(indexPatterns, rangeQuery, sliceId, slices, pages, abandoned)));
+        }
+
+        long exported = 0;
+        try {
+            GZIPOutputStream gzip = new GZIPOutputStream(out, 64 * 1024);
+            int finishedSlices = 0;
+            while (finishedSlices < slices) {
+                Page page = pages.take();
+                if (page.documents() == null) {
+                    if (page.failure() != null) {
+                        throw new IOException("Export aborted, reading a slice failed: " + page.failure().getMessage(), page.failure());
+                    }
+                    finishedSlices++;
+                    continue;
+                }
+                for (Map<String, Object> document : page.documents()) {
+                    gzip.write(objectMapper.writeValueAsBytes(document));
+                    gzip.write('\n');
+                }
+                exported += page.documents().size();
+            }
+            gzip.finish();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } finally {
+            // Client gone or a slice failed: stop the other readers, they clear their scrolls on the way out
+            abandoned.set(true);
+            readers.forEach(reader -> reader.cancel(true));
+            meterRegistry.counter("stone.export.documents").increment(exported);
+        }
+        return exported;
+    }
+
+    // Scrolls one slice to the end, pushing pages into the queue
+    private void readSlice(List<String> indexPatterns, Query query, int sliceId, int slices, BlockingQueue<Page> pages, AtomicBoolean abandoned) {
+        String scrollId = null;
+        Exception failure = null;
+        try {
+            SearchResponse<Map<String, Object>> response = clientService.openScroll(
+                indexPatterns, query, pageSize, sliceId, slices, scrollKeepAlive);
+            scrollId = response.scrollId();
+            while (!response.hits().hits().isEmpty()) {
+                if (!enqueue(pages, new Page(toExportDocuments(response.hits().hits()), null), abandoned)) {
+                    return;
+                }
+                response = clientService.continueScroll(scrollId, scrollKeepAlive);
+                scrollId = response.scrollId();
+            }
+        } catch (InterruptedException e) {
+            // Export cancelled, nobody reads the queue any more
+            return;
+        } catch (Exception e) {
+            logger.warn("Export slice {} failed: {}", sliceId, e.getMessage());
+            failure = e;
+        } finally {
+            if (scrollId != null) {
+                // A cancelled reader still frees its search context, so drop the interrupt before the call
+                Thread.interrupted();
+                clientService.clearScroll(scrollId);
+            }
+        }
+        try {
+            enqueue(pages, Page.end(failure), abandoned);
+        } catch (InterruptedException e) {
+            // Export cancelled
+        }
+    }
+
+    // Waits while the writer is behind, gives up once the export was abandoned
+    private boolean enqueue(BlockingQueue<Page> pages, Page page, AtomicBoolean abandoned) throws InterruptedException {
+        while (!abandoned.get()) {
+            if (pages.offer(page, 1, TimeUnit.SECONDS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Same document layout as the import files. Consolidated documents go back under their daily index name, without
+    // the marker the consolidation added, so the file imports into daily indices like any other.
+    private List<Map<String, Object>> toExportDocuments(List<Hit<Map<String, Object>>> hits) {
+        List<Map<String, Object>> documents = new ArrayList<>(hits.size());
+        for (Hit<Map<String, Object>> hit : hits) {
+            Map<String, Object> source = hit.source();
+            Object dailyIndex = source.remove(IndexConsolidationService.DAILY_INDEX_FIELD);
+            Map<String, Object> document = new LinkedHashMap<>();
+            document.put("id", hit.id());
+            document.put("index", dailyIndex != null ? dailyIndex : hit.index());
+            document.put("data", source);
+            documents.add(document);
+        }
+        return documents;
+    }
+}
@@ -0,0 +1,99 @@
+package com.cap.stone.infra.opensearch;
+
+import jakarta.annotation.PostConstruct;
+import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.infra.opensearch.model.SessionScope;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Custom shard routing of session documents by tenant or sensor network. With routing on, all documents of one
+// tenant (or network) of a daily index sit on one shard, and a query restricted to that tenant only asks that shard
+// instead of fanning out to every shard of the index. Routing is only used when the query carries a matching filter,
+// the filter itself keeps documents of other tenants that hash to the same shard out.
+@Service
+public class SessionRoutingService {
+
+    // none, tenant or network. Only switch it on for days whose daily index doesn't exist yet: documents already
+    // indexed sit on their id's shard, and routed queries miss them. Importing them again does not move them, the same
+    // _id with a routing value is a second copy on another shard and unscoped analytics count the session twice.
+    @Value("${stone.routing.mode:none}")
+    private String mode;
+
+    public static final String TENANT_FIELD = "extended.tenant";
+    public static final String NETWORK_FIELD = "extended.network";
+    // Dynamically mapped strings are only exact-matchable through their keyword sub-field
+    private static final String TENANT_KEYWORD_FIELD = TENANT_FIELD + ".keyword";
+    private static final String NETWORK_KEYWORD_FIELD = NETWORK_FIELD + ".keyword";
+
+    private static final String TENANT = "tenant";
+    private static final String NETWORK = "network";
+
+    @PostConstruct
+    void validate() {
+        if (!"none".equals(mode) && !TENANT.equals(mode) && !NETWORK.equals(mode)) {
+            throw new IllegalStateException("Invalid stone.routing.mode: " + mode + ". Use none, tenant or network");
+        }
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    // Routing value of a document being imported (its data object), null to let OpenSearch route by id
+    public String routingForDocument(Map<String, Object> data) {
+        if (TENANT.equals(mode)) {
+            return stringValue(data, TENANT_FIELD);
+        }
+        if (NETWORK.equals(mode)) {
+            return stringValue(data, NETWORK_FIELD);
+        }
+        return null;
+    }
+
+    // Routing of a query restricted to scope, null when the scope doesn't pin the routed field and all shards are asked
+    public String routingForScope(SessionScope scope) {
+        if (TENANT.equals(mode)) {
+            return scope.tenant();
+        }
+        if (NETWORK.equals(mode)) {
+            return scope.network();
+        }
+        return null;
+    }
+
+    // Term filters restricting a query to scope, empty for SessionScope.ALL
+    public List<Query> scopeFilters(SessionScope scope) {
+        List<Query> filters = new ArrayList<>();
+        if (scope.tenant() != null) {
+            filters.add(Query.of(q -> q.term(t -> t.field(TENANT_KEYWORD_FIELD).value(FieldValue.of(scope.tenant())))));
+        }
+        if (scope.network() != null) {
+            filters.add(Query.of(q -> q.term(t -> t.field(NETWORK_KEYWORD_FIELD).value(FieldValue.of(scope.network())))));
+        }
+        return filters;
+    }
+
+    // Value at a dotted path, nested objects (extended.tenant as {"extended": {"tenant": ...}}) or a flat dotted key
+    private String stringValue(Map<String, Object> data, String path) {
+        if (data == null) {
+            return null;
+        }
+        Object current = data.get(path);
+        if (current == null) {
+            current = data;
+            for (String key : path.split("\\.")) {
+                if (!(current instanceof Map<?, ?> map)) {
+                    return null;
+                }
+                current = map.get(key);
+            }
+        }
+        return current == null || current instanceof Map || current.toString().isEmpty() ? null : current.toString();
+    }
+}
@@ -0,0 +1,174 @@
+package com.cap.stone.infra.opensearch;
+
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.SortOrder;
+import org.opensearch.client.opensearch._types.query_dsl.BoolQuery;
+import org.opensearch.client.opensearch._types.query_dsl.Operator;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.infra.opensearch.model.SessionSearchFilter;
+import com.cap.stone.infra.opensearch.model.SessionSearchResult;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.IpPattern;
+import com.cap.stone.util.SearchCursor;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Filtered session lookups: every filter becomes part of one bool query so OpenSearch returns only matching sessions,
+// newest first, one page at a time.
+@Service
+public class SessionSearchService {
+
+    @Autowired
+    private OpenSearchClientService clientService;
+
+    @Autowired
+    private SessionDataProcessor dataProcessor;
+
+    @Autowired
+    private SingaporeTimezoneUtil timezoneUtil;
+
+    private static final String TIMESTAMP_FIELD = "@timestamp";
+    private static final String SOURCE_IP_FIELD = "source.ip";
+    private static final String DEST_IP_FIELD = "destination.ip";
+    private static final String SOURCE_PORT_FIELD = "source.port";
+    private static final String DEST_PORT_FIELD = "destination.port";
+    private static final String SID_FIELD = "extended.sid";
+    // Imported documents are dynamically mapped, so string fields are only exact-matchable through their keyword sub-field
+    private static final String COMMUNITY_ID_FIELD = "network.community_id.keyword";
+    private static final String SNORT_MESSAGE_FIELD = "extended.snort_message";
+    private static final String KEYWORD_SUFFIX = ".keyword";
+
+    // One page of sessions matching the filter, continuing after cursor when given
+    public SessionSearchResult search(SessionSearchFilter filter, List<String> extraFields, int size, SearchCursor cursor) throws IOException {
+        Query query = Query.of(q -> q.bool(buildQuery(filter, cursor).build()));
+
+        // One extra hit tells whether another page exists without counting all matches
+        SearchResponse<Map<String, Object>> response = clientService.executeSearch(
+            timezoneUtil.getIndexPatternsForDateRange(filter.getStart(), filter.getEnd()),
+            query,
+            size + 1,
+            dataProcessor.getDetailedFields(extraFields),
+            TIMESTAMP_FIELD,
+            SortOrder.Desc
+        );
+
+        List<Hit<Map<String, Object>>> hits = response.hits().hits();
+        List<Map<String, Object>> sessions = new ArrayList<>();
+        for (Hit<Map<String, Object>> hit : hits.subList(0, Math.min(size, hits.size()))) {
+            Map<String, Object> processedSession = dataProcessor.processHit(hit, extraFields);
+            Object timestampObj = processedSession.get("timestamp");
+            if (timestampObj != null) {
+                processedSession.put("timestamp", timezoneUtil.convertToSingaporeTimestamp(timestampObj));
+            }
+            sessions.add(processedSession);
+        }
+
+        String nextCursor = hits.size() > size ? nextCursor(sessions, cursor).encode() : null;
+        return new SessionSearchResult(sessions, nextCursor, response.took());
+    }
+
+    // Filters that always apply (time range, cursor position) plus each filter that was given
+    private BoolQuery.Builder buildQuery(SessionSearchFilter filter, SearchCursor cursor) {
+        long rangeStart = timezoneUtil.getSingaporeStartOfDayTimestamp(filter.getStart());
+        long rangeEnd = timezoneUtil.getSingaporeEndOfDayTimestamp(filter.getEnd());
+        if (filter.getFrom() != null) {
+            rangeStart = Math.max(rangeStart, filter.getFrom());
+        }
+        if (filter.getTo() != null) {
+            rangeEnd = Math.min(rangeEnd, filter.getTo());
+        }
+        long lowerBound = rangeStart;
+        long upperBound = rangeEnd;
+
+        BoolQuery.Builder bool = new BoolQuery.Builder()
+            .filter(Query.of(q -> q.range(r -> r
+                .field(TIMESTAMP_FIELD)
+                .gte(JsonData.of(lowerBound))
+                .lt(JsonData.of(upperBound)))));
+
+        if (cursor != null) {
+            // Continue at the last returned timestamp, minus the sessions already returned at exactly that time
+            bool.filter(Query.of(q -> q.range(r -> r.field(TIMESTAMP_FIELD).lte(JsonData.of(cursor.getTimestamp())))));
+            if (!cursor.getIds().isEmpty()) {
+                bool.mustNot(Query.of(q -> q.ids(i -> i.values(cursor.getIds()))));
+            }
+        }
+        if (filter.getSourceIp() != null && !filter.getSourceIp().matchesAll()) {
+            bool.filter(ipQuery(SOURCE_IP_FIELD, filter.getSourceIp()));
+        }
+        if (filter.getDestIp() != null && !filter.getDestIp().matchesAll()) {
+            bool.filter(ipQuery(DEST_IP_FIELD, filter.getDestIp()));
+        }
+        if (filter.getSourcePorts() != null) {
+            bool.filter(portQuery(SOURCE_PORT_FIELD, filter.getSourcePorts()));
+        }
+        if (filter.getDestPorts() != null) {
+            bool.filter(portQuery(DEST_PORT_FIELD, filter.getDestPorts()));
+        }
+        if (filter.getSids() != null) {
+            List<FieldValue> sidValues = filter.getSids().stream().map(FieldValue::of).toList();
+            bool.filter(Query.of(q -> q.terms(t -> t.field(SID_FIELD).terms(v -> v.value(sidValues)))));
+        }
+        if (filter.getCommunityId() != null) {
+            bool.filter(Query.of(q -> q.term(t -> t.field(COMMUNITY_ID_FIELD).value(FieldValue.of(filter.getCommunityId())))));
+        }
+        if (filter.getMessage() != null) {
+            // Full text on the analyzed field, every word has to appear
+            bool.filter(Query.of(q -> q.match(m -> m
+                .field(SNORT_MESSAGE_FIELD)
+                .query(FieldValue.of(filter.getMessage()))
+                .operator(Operator.And))));
+        }
+        return bool;
+    }
+
+    // Matches on whichever mapping the index has: the ip-typed field (Arkime template) or the dynamic keyword sub-field
+    private Query ipQuery(String field, IpPattern pattern) {
+        BoolQuery.Builder any = new BoolQuery.Builder().minimumShouldMatch("1");
+        any.should(Query.of(q -> q.term(t -> t.field(field).value(FieldValue.of(pattern.getValue())))));
+        if (!pattern.getKeywordValues().isEmpty()) {
+            List<FieldValue> values = pattern.getKeywordValues().stream().map(FieldValue::of).toList();
+            any.should(Query.of(q -> q.terms(t -> t.field(field + KEYWORD_SUFFIX).terms(v -> v.value(values)))));
+        }
+        for (String prefix : pattern.getKeywordPrefixes()) {
+            any.should(Query.of(q -> q.prefix(p -> p.field(field + KEYWORD_SUFFIX).value(prefix))));
+        }
+        return Query.of(q -> q.bool(any.build()));
+    }
+
+    private Query portQuery(String field, List<int[]> ranges) {
+        BoolQuery.Builder any = new BoolQuery.Builder().minimumShouldMatch("1");
+        for (int[] range : ranges) {
+            any.should(Query.of(q -> q.range(r -> r.field(field).gte(JsonData.of(range[0])).lte(JsonData.of(range[1])))));
+        }
+        return Query.of(q -> q.bool(any.build()));
+    }
+
+    // Last timestamp of the page and every id returned at it, carrying over ids when the whole page shared the timestamp
+    private SearchCursor nextCursor(List<Map<String, Object>> sessions, SearchCursor previous) {
+        long lastTimestamp = ((Number) sessions.get(sessions.size() - 1).get("timestamp")).longValue();
+        Set<String> ids = new LinkedHashSet<>();
+        if (previous != null && previous.getTimestamp() == lastTimestamp) {
+            ids.addAll(previous.getIds());
+        }
+        for (Map<String, Object> session : sessions) {
+            Object timestamp = session.get("timestamp");
+            if (timestamp instanceof Number number && number.longValue() == lastTimestamp) {
+                ids.add(String.valueOf(session.get("documentId")));
+            }
+        }
+        return new SearchCursor(lastTimestamp, new ArrayList<>(ids));
+    }
+}
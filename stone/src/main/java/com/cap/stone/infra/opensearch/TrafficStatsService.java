@@ -0,0 +1,267 @@
+package com.cap.stone.infra.opensearch;
+
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.opensearch._types.aggregations.Aggregate;
+import org.opensearch.client.opensearch._types.aggregations.Aggregation;
+import org.opensearch.client.opensearch._types.aggregations.ArrayPercentilesItem;
+import org.opensearch.client.opensearch._types.aggregations.CalendarInterval;
+import org.opensearch.client.opensearch._types.aggregations.DateHistogramBucket;
+import org.opensearch.client.opensearch._types.aggregations.LongTermsBucket;
+import org.opensearch.client.opensearch._types.aggregations.Percentiles;
+import org.opensearch.client.opensearch._types.aggregations.StatsAggregate;
+import org.opensearch.client.opensearch._types.aggregations.StringTermsBucket;
+import org.opensearch.client.opensearch._types.query_dsl.BoolQuery;
+import org.opensearch.client.opensearch._types.query_dsl.ExistsQuery;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.infra.opensearch.model.SessionScope;
+import com.cap.stone.infra.opensearch.model.TrafficStats;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import com.cap.stone.util.TimeGranularity;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+
+// Bytes, packets and flow duration of the snort-hit sessions per timeseries bucket, plus the protocol mix.
+// Everything is aggregated by OpenSearch over every matching session, nothing is computed from fetched hits, so the
+// numbers are exact for the sums and counts and t-digest estimates for the percentiles however many sessions there are.
+@Service
+public class TrafficStatsService {
+
+    @Autowired
+    private OpenSearchClientService clientService;
+
+    @Autowired
+    private SingaporeTimezoneUtil timezoneUtil;
+
+    @Autowired
+    private SessionRoutingService routingService;
+
+    // Protocols listed per bucket, the rest are only in the bucket's session count
+    @Value("${stone.traffic.top-protocols:10}")
+    private int topProtocols;
+
+    private static final String SID_FIELD = "extended.sid";
+    private static final String TIMESTAMP_FIELD = "@timestamp";
+    private static final String BYTES_FIELD = "network.bytes";
+    private static final String PACKETS_FIELD = "network.packets";
+    private static final String SOURCE_BYTES_FIELD = "source.bytes";
+    private static final String DESTINATION_BYTES_FIELD = "destination.bytes";
+    private static final String FIRST_PACKET_FIELD = "firstPacket";
+    private static final String LAST_PACKET_FIELD = "lastPacket";
+    private static final String PROTOCOL_FIELD = "ipProtocol";
+
+    private static final String HISTOGRAM_AGG = "traffic";
+    private static final String BYTES_STATS_AGG = "bytesStats";
+    private static final String BYTES_PERCENTILES_AGG = "bytesPercentiles";
+    private static final String PACKETS_STATS_AGG = "packetsStats";
+    private static final String PACKETS_PERCENTILES_AGG = "packetsPercentiles";
+    private static final String SOURCE_BYTES_AGG = "sourceBytes";
+    private static final String DESTINATION_BYTES_AGG = "destinationBytes";
+    private static final String TIMED_AGG = "timed";
+    private static final String DURATION_STATS_AGG = "durationStats";
+    private static final String DURATION_PERCENTILES_AGG = "durationPercentiles";
+    private static final String PROTOCOLS_AGG = "protocols";
+
+    private static final double[] PERCENTS = {50.0, 95.0, 99.0};
+
+    // Flow duration in ms. The packet times are epoch ms numbers in Arkime documents but may be mapped as dates.
+    private static final String DURATION_SCRIPT =
+        "def first = doc['" + FIRST_PACKET_FIELD + "'].value; def last = doc['" + LAST_PACKET_FIELD + "'].value; "
+            + "return first instanceof Number ? last - first : last.toInstant().toEpochMilli() - first.toInstant().toEpochMilli();";
+
+    // IANA protocol numbers worth a name in the breakdown
+    private static final Map<Long, String> PROTOCOL_NAMES = Map.of(
+        1L, "icmp",
+        6L, "tcp",
+        17L, "udp",
+        47L, "gre",
+        50L, "esp",
+        58L, "icmpv6",
+        132L, "sctp"
+    );
+
+    public TrafficStats getTrafficStats(String startDate, String endDate, TimeGranularity granularity, SessionScope scope) throws IOException {
+        LocalDate start = LocalDate.parse(startDate);
+        LocalDate end = LocalDate.parse(endDate);
+        long rangeStart = timezoneUtil.getSingaporeStartOfDayTimestamp(start);
+        long rangeEnd = timezoneUtil.getSingaporeEndOfDayTimestamp(end);
+
+        // Same sessions the timeseries counts: with a sid, inside the range, in the scope
+        Query query = Query.of(q -> q.bool(BoolQuery.of(b -> b
+            .filter(Query.of(f -> f.exists(ExistsQuery.of(e -> e.field(SID_FIELD)))))
+            .filter(Query.of(f -> f.range(r -> r
+                .field(TIMESTAMP_FIELD)
+                .gte(JsonData.of(rangeStart))
+                .lt(JsonData.of(rangeEnd)))))
+            .filter(routingService.scopeFilters(scope)))));
+
+        // Buckets aligned to Singapore time like the timeseries. Empty buckets are left out rather than zero-filled,
+        // a minute histogram with this many sub-aggregations per bucket would otherwise run into max_buckets.
+        Map<String, Aggregation> statsAggregations = statsAggregations();
+        Aggregation histogram = Aggregation.of(a -> a
+            .dateHistogram(h -> h
+                .field(TIMESTAMP_FIELD)
+                .calendarInterval(calendarInterval(granularity))
+                .timeZone(timezoneUtil.getZoneId()))
+            .aggregations(statsAggregations)
+        );
+        Map<String, Aggregation> aggregations = new HashMap<>(statsAggregations);
+        aggregations.put(HISTOGRAM_AGG, histogram);
+
+        SearchResponse<Map<String, Object>> response = clientService.executeAggregation(
+            List.of(timezoneUtil.getAllSessionsIndexPattern()),
+            query,
+            aggregations,
+            routingService.routingForScope(scope)
+        );
+
+        List<Map<String, Object>> buckets = new ArrayList<>();
+        long totalSessions = 0;
+        for (DateHistogramBucket bucket : response.aggregations().get(HISTOGRAM_AGG).dateHistogram().buckets().array()) {
+            long timestampMs = bucket.key();
+
+            Map<String, Object> point = new HashMap<>();
+            point.put("timestamp", timestampMs);                                              // Unix timestamp for charts
+            point.put("singaporeDate", timezoneUtil.getSingaporeDateFromTimestamp(timestampMs)); // singapore date
+            point.put("sessions", bucket.docCount());                                          // Sessions in bucket
+            point.putAll(readStats(bucket.aggregations()));
+            buckets.add(point);
+            totalSessions += bucket.docCount();
+        }
+
+        Map<String, Object> totals = new HashMap<>();
+        totals.put("sessions", totalSessions);
+        totals.putAll(readStats(response.aggregations()));
+
+        return new TrafficStats(granularity.toParam(), buckets, totals);
+    }
+
+    private static CalendarInterval calendarInterval(TimeGranularity granularity) {
+        return switch (granularity) {
+            case MINUTE -> CalendarInterval.Minute;
+            case HOUR -> CalendarInterval.Hour;
+            case DAY -> CalendarInterval.Day;
+            case WEEK -> CalendarInterval.Week;
+        };
+    }
+
+    // Statistics computed per bucket and once over the whole range
+    private Map<String, Aggregation> statsAggregations() {
+        Map<String, Aggregation> aggregations = new HashMap<>();
+        aggregations.put(BYTES_STATS_AGG, Aggregation.of(a -> a.stats(s -> s.field(BYTES_FIELD))));
+        aggregations.put(BYTES_PERCENTILES_AGG, Aggregation.of(a -> a.percentiles(p -> p
+            .field(BYTES_FIELD).percents(PERCENTS[0], PERCENTS[1], PERCENTS[2]).keyed(false))));
+        aggregations.put(PACKETS_STATS_AGG, Aggregation.of(a -> a.stats(s -> s.field(PACKETS_FIELD))));
+        aggregations.put(PACKETS_PERCENTILES_AGG, Aggregation.of(a -> a.percentiles(p -> p
+            .field(PACKETS_FIELD).percents(PERCENTS[0], PERCENTS[1], PERCENTS[2]).keyed(false))));
+        aggregations.put(SOURCE_BYTES_AGG, Aggregation.of(a -> a.sum(s -> s.field(SOURCE_BYTES_FIELD))));
+        aggregations.put(DESTINATION_BYTES_AGG, Aggregation.of(a -> a.sum(s -> s.field(DESTINATION_BYTES_FIELD))));
+
+        // The duration script needs both packet times, sessions missing one are left out of the duration only
+        aggregations.put(TIMED_AGG, Aggregation.of(a -> a
+            .filter(Query.of(q -> q.bool(b -> b
+                .filter(Query.of(f -> f.exists(ExistsQuery.of(e -> e.field(FIRST_PACKET_FIELD)))))
+                .filter(Query.of(f -> f.exists(ExistsQuery.of(e -> e.field(LAST_PACKET_FIELD))))))))
+            .aggregations(DURATION_STATS_AGG, sub -> sub.stats(s -> s
+                .script(sc -> sc.inline(i -> i.source(DURATION_SCRIPT)))))
+            .aggregations(DURATION_PERCENTILES_AGG, sub -> sub.percentiles(p -> p
+                .script(sc -> sc.inline(i -> i.source(DURATION_SCRIPT)))
+                .percents(PERCENTS[0], PERCENTS[1], PERCENTS[2]).keyed(false)))));
+
+        aggregations.put(PROTOCOLS_AGG, Aggregation.of(a -> a.terms(t -> t.field(PROTOCOL_FIELD).size(topProtocols))));
+        return aggregations;
+    }
+
+    private Map<String, Object> readStats(Map<String, Aggregate> aggregations) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("bytes", distribution(aggregations.get(BYTES_STATS_AGG), aggregations.get(BYTES_PERCENTILES_AGG)));
+        stats.put("packets", distribution(aggregations.get(PACKETS_STATS_AGG), aggregations.get(PACKETS_PERCENTILES_AGG)));
+        stats.put("sourceBytes", sum(aggregations.get(SOURCE_BYTES_AGG)));
+        stats.put("destinationBytes", sum(aggregations.get(DESTINATION_BYTES_AGG)));
+
+        Aggregate timed = aggregations.get(TIMED_AGG);
+        Map<String, Aggregate> timedAggregations = timed.filter().aggregations();
+        Map<String, Object> duration = distribution(timedAggregations.get(DURATION_STATS_AGG), timedAggregations.get(DURATION_PERCENTILES_AGG));
+        duration.put("sessions", timed.filter().docCount());
+        stats.put("durationMs", duration);
+
+        stats.put("protocols", protocols(aggregations.get(PROTOCOLS_AGG)));
+        return stats;
+    }
+
+    private static long sum(Aggregate aggregate) {
+        Double value = aggregate.sum().value();
+        return value != null ? value.longValue() : 0L;
+    }
+
+    // Sum, min, max, average and percentiles of one field. Null entries when the bucket has no value for it.
+    private static Map<String, Object> distribution(Aggregate statsAggregate, Aggregate percentilesAggregate) {
+        StatsAggregate stats = statsAggregate.stats();
+        Map<String, Object> distribution = new HashMap<>();
+        distribution.put("count", stats.count());
+        distribution.put("sum", stats.count() > 0 ? stats.sum() : 0.0);
+        distribution.put("min", stats.min());
+        distribution.put("max", stats.max());
+        distribution.put("avg", stats.avg());
+
+        Map<Double, Double> percentiles = percentiles(percentilesAggregate.tdigestPercentiles().values());
+        for (double percent : PERCENTS) {
+            distribution.put("p" + (int) percent, percentiles.get(percent));
+        }
+        return distribution;
+    }
+
+    // Percent -> value, from either the array or the keyed response form
+    private static Map<Double, Double> percentiles(Percentiles values) {
+        Map<Double, Double> result = new HashMap<>();
+        if (values.isArray()) {
+            for (ArrayPercentilesItem item : values.array()) {
+                result.put(Double.parseDouble(item.key()), item.value());
+            }
+        } else if (values.isKeyed()) {
+            for (Map.Entry<String, JsonData> entry : values.keyed().entrySet()) {
+                JsonData value = entry.getValue();
+                result.put(Double.parseDouble(entry.getKey()), value != null ? value.to(Double.class) : null);
+            }
+        }
+        return result;
+    }
+
+    // Sessions per protocol, largest first. The protocol number may be mapped as a number or as a keyword.
+    private static List<Map<String, Object>> protocols(Aggregate aggregate) {
+        List<Map<String, Object>> protocols = new ArrayList<>();
+        if (aggregate.isLterms()) {
+            for (LongTermsBucket bucket : aggregate.lterms().buckets().array()) {
+                protocols.add(protocol(Long.parseLong(String.valueOf(bucket.key()._get())), bucket.docCount()));
+            }
+        } else if (aggregate.isSterms()) {
+            for (StringTermsBucket bucket : aggregate.sterms().buckets().array()) {
+                try {
+                    protocols.add(protocol(Long.parseLong(bucket.key()), bucket.docCount()));
+                } catch (NumberFormatException e) {
+                    Map<String, Object> entry = new HashMap<>();
+                    entry.put("ipProtocol", bucket.key());
+                    entry.put("name", bucket.key());
+                    entry.put("sessions", bucket.docCount());
+                    protocols.add(entry);
+                }
+            }
+        }
+        return protocols;
+    }
+
+    private static Map<String, Object> protocol(long number, long sessions) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("ipProtocol", number);
+        entry.put("name", PROTOCOL_NAMES.getOrDefault(number, String.valueOf(number)));
+        entry.put("sessions", sessions);
+        return entry;
+    }
+}
@@ -0,0 +1,242 @@
+package com.cap.stone.infra.opensearch;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.config.OpenSearchProperties;
+import com.cap.stone.infra.opensearch.model.SessionAnalytics;
+import com.cap.stone.infra.opensearch.model.SessionGroup;
+import com.cap.stone.infra.opensearch.model.SessionScope;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.AnalyticsDetail;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import com.cap.stone.util.TimeGranularity;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Optional warm-up after startup, so the first dashboard load after a deploy doesn't pay for TLS handshakes, cold JIT
+// and cold OpenSearch caches. Runs inside the ApplicationReadyEvent, before Spring Boot switches readiness to
+// ACCEPTING_TRAFFIC, so /actuator/health/readiness only reports UP once the warm-up finished or ran out of budget.
+// Every step is best effort, a failing step is recorded and the next one runs. Each step gets the deadline and stops
+// at it, so one slow step can't hold readiness past the budget.
+@Service
+public class WarmupService {
+
+    @Autowired
+    private OpenSearchClientService clientService;
+
+    @Autowired
+    private OpenSearchProperties openSearchProperties;
+
+    @Autowired
+    private SessionAnalyticsService sessionAnalyticsService;
+
+    @Autowired
+    private SessionDataProcessor dataProcessor;
+
+    @Autowired
+    private SingaporeTimezoneUtil timezoneUtil;
+
+    @Autowired
+    private ExecutorService virtualThreadExecutor;
+
+    @Value("${stone.warmup.enabled:false}")
+    private boolean enabled;
+
+    // Whole warm-up, steps that would start after it ran out are skipped
+    @Value("${stone.warmup.budget-ms:30000}")
+    private long budgetMs;
+
+    // Concurrent calls that open pooled connections, 0 = max-connections-per-route per host, capped at the pool total
+    @Value("${stone.warmup.connections:0}")
+    private int connections;
+
+    // Singapore days (ending today) whose analytics are computed once
+    @Value("${stone.warmup.days:7}")
+    private int days;
+
+    // Generated sessions run through the processing path to get it compiled
+    @Value("${stone.warmup.synthetic-sessions:20000}")
+    private int syntheticSessions;
+
+    private static final String SESSION_INDEX_PATTERN = "arkime_sessions*";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private volatile Map<String, Object> status = Map.of("status", "pending");
+
+    public Map<String, Object> getStatus() {
+        Map<String, Object> current = new LinkedHashMap<>(status);
+        current.put("enabled", enabled);
+        return current;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!enabled) {
+            status = Map.of("status", "disabled");
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        long deadline = startTime + budgetMs;
+        // Read by /api/system/warmup while the steps run, an entry is only added once it is complete
+        List<Map<String, Object>> steps = new CopyOnWriteArrayList<>();
+        Map<String, Object> running = new LinkedHashMap<>();
+        running.put("status", "running");
+        running.put("startedAt", startTime);
+        running.put("steps", steps);
+        status = running;
+
+        runStep(steps, "processing", deadline, this::warmProcessing);
+        runStep(steps, "connections", deadline, this::warmConnections);
+        runStep(steps, "indices", deadline, this::warmIndices);
+        runStep(steps, "analytics", deadline, this::warmAnalytics);
+
+        Map<String, Object> done = new LinkedHashMap<>(running);
+        // Same test as runStep's skip, a warm-up that ran out of time exactly at the deadline skipped steps too
+        done.put("status", System.currentTimeMillis() >= deadline ? "budget_exceeded" : "warm");
+        done.put("tookMs", System.currentTimeMillis() - startTime);
+        status = done;
+        System.out.println("Warm-up finished in " + done.get("tookMs") + "ms: " + steps);
+    }
+
+    private interface WarmupStep {
+        Object run(long deadline) throws Exception;
+    }
+
+    private void runStep(List<Map<String, Object>> steps, String name, long deadline, WarmupStep step) {
+        Map<String, Object> entry = new LinkedHashMap<>();
+        entry.put("step", name);
+        if (System.currentTimeMillis() >= deadline) {
+            entry.put("outcome", "skipped");
+            steps.add(entry);
+            return;
+        }
+        long stepStart = System.currentTimeMillis();
+        try {
+            entry.put("result", step.run(deadline));
+            entry.put("outcome", "done");
+        } catch (Exception e) {
+            entry.put("outcome", "failed");
+            entry.put("error", e.getMessage());
+        }
+        entry.put("tookMs", System.currentTimeMillis() - stepStart);
+        steps.add(entry);
+    }
+
+    // Hit processing, bucketing and response serialization with generated sessions, no cluster involved. Not recorded
+    // in the processing timer, which only measures real hits.
+    private Object warmProcessing(long deadline) throws Exception {
+        Random random = new Random(42);
+        long now = System.currentTimeMillis();
+        SessionGroup group = new SessionGroup(timezoneUtil.getSingaporeDateFromTimestamp(now), now);
+        int processedSessions = 0;
+        for (; processedSessions < syntheticSessions; processedSessions++) {
+            // Reading the clock every 1000 sessions is enough to stop close to the deadline
+            if (processedSessions % 1000 == 0 && System.currentTimeMillis() >= deadline) {
+                break;
+            }
+            Map<String, Object> source = syntheticSource(random, now - random.nextInt(86_400_000));
+            Hit<Map<String, Object>> hit = Hit.of(h -> h.index("warmup").id("warmup").source(source));
+            Map<String, Object> processed = dataProcessor.processHitUnrecorded(hit);
+            group.addSession(processed);
+            group.addCommunityIds(List.of((String) processed.get("communityId")));
+            group.addSids(dataProcessor.extractSids(processed.get("sid")));
+        }
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("communityIdHitCounts", group.getCommunityIdHitCounts());
+        response.put("sampleSessions", group.getSampleSessions(100));
+        objectMapper.writeValueAsBytes(response);
+        return processedSessions;
+    }
+
+    // Enough concurrent calls to open (and TLS handshake) the pooled connections, counts the ones that succeeded by
+    // the deadline. Calls still running then are left to finish on their own.
+    private Object warmConnections(long deadline) throws InterruptedException {
+        int calls = connections > 0 ? connections : Math.min(
+            openSearchProperties.getMaxConnectionsPerRoute() * openSearchProperties.getHosts().size(),
+            openSearchProperties.getMaxConnectionsTotal());
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (int i = 0; i < calls; i++) {
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                try {
+                    clientService.listIndices(SESSION_INDEX_PATTERN);
+                    return true;
+                } catch (Exception e) {
+                    return false;
+                }
+            }, virtualThreadExecutor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            // Out of budget, only the calls that completed count
+        }
+        return futures.stream().filter(future -> future.getNow(false)).count();
+    }
+
+    // Index listing, which resolves every session index. Waited for until the deadline only, like the connections.
+    private Object warmIndices(long deadline) throws Exception {
+        CompletableFuture<Integer> listing = CompletableFuture.supplyAsync(() -> {
+            try {
+                return clientService.listIndices(SESSION_INDEX_PATTERN).size();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, virtualThreadExecutor);
+        try {
+            return listing.get(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new TimeoutException("Index listing still running at the end of the warm-up budget");
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof UncheckedIOException io ? io.getCause() : e;
+        }
+    }
+
+    // The default dashboard view, pulls the recent indices into OpenSearch's caches (and freezes finished days into
+    // segments when the segment tier is on)
+    private Object warmAnalytics(long deadline) throws Exception {
+        LocalDate today = LocalDate.now(ZoneId.of(timezoneUtil.getZoneId()));
+        LocalDate start = today.minusDays(Math.max(1, days) - 1);
+        SessionAnalytics analytics = sessionAnalyticsService.getSessionAnalytics(
+            start.toString(), today.toString(), TimeGranularity.DAY, null, SessionScope.ALL, AnalyticsDetail.FULL,
+            Duration.ofMillis(Math.max(0, deadline - System.currentTimeMillis())));
+        objectMapper.writeValueAsBytes(analytics.toApiResponse());
+        return start + " to " + today;
+    }
+
+    // Session source with the fields the detailed query fetches
+    private Map<String, Object> syntheticSource(Random random, long timestamp) {
+        Map<String, Object> source = new LinkedHashMap<>();
+        source.put("@timestamp", timestamp);
+        source.put("network", Map.of("community_id", "1:warmup" + random.nextInt(500) + "="));
+        source.put("source", Map.of("ip", "10.0.0." + random.nextInt(255), "port", 1024 + random.nextInt(60000)));
+        source.put("destination", Map.of("ip", "192.168.0." + random.nextInt(255), "port", 443));
+        source.put("session", Map.of("length", random.nextInt(100000)));
+        if (random.nextInt(4) == 0) {
+            source.put("extended", Map.of("sid", List.of(2000000 + random.nextInt(100)), "snort_message", List.of("Warm-up alert")));
+        }
+        return source;
+    }
+}
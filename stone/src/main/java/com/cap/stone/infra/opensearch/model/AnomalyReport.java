@@ -0,0 +1,33 @@
+package com.cap.stone.infra.opensearch.model;
+
+import java.util.*;
+
+// The most anomalous sids and community IDs of one day, scored against their rolling baselines
+public class AnomalyReport {
+    private final String date;
+    private final int baselineDays;
+    private final List<Map<String, Object>> sids;
+    private final List<Map<String, Object>> communityIds;
+
+    public AnomalyReport(String date, int baselineDays, List<Map<String, Object>> sids, List<Map<String, Object>> communityIds) {
+        this.date = date; // Scored day (YYYY-MM-DD, Singapore time)
+        this.baselineDays = baselineDays; // Days the baselines were built from
+        this.sids = sids; // Highest z-score first
+        this.communityIds = communityIds; // Highest z-score first
+    }
+
+    public String getDate() { return date; }
+    public int getBaselineDays() { return baselineDays; }
+    public List<Map<String, Object>> getSids() { return sids; }
+    public List<Map<String, Object>> getCommunityIds() { return communityIds; }
+
+    //Converts to the API response format expected by the controller.
+    public Map<String, Object> toApiResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("date", date);
+        response.put("baselineDays", baselineDays);
+        response.put("sids", sids);
+        response.put("communityIds", communityIds);
+        return response;
+    }
+}
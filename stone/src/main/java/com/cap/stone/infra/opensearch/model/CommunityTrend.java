@@ -0,0 +1,38 @@
+package com.cap.stone.infra.opensearch.model;
+
+import java.util.*;
+
+// Represents the hit series of a single community ID and/or sid over a date range
+public class CommunityTrend {
+    private final String communityId;
+    private final Long sid;
+    private final String interval;
+    private final List<Map<String, Object>> series;
+    private final long totalHits;
+
+    public CommunityTrend(String communityId, Long sid, String interval,
+                          List<Map<String, Object>> series, long totalHits) {
+        this.communityId = communityId; // Community ID filter, null when filtering by sid only
+        this.sid = sid; // Snort sid filter, null when filtering by community ID only
+        this.interval = interval; // Bucket size of the series ("day" or "hour")
+        this.series = series; // One data point per bucket, zero-filled across the range
+        this.totalHits = totalHits; // Total matching sessions across the range
+    }
+
+    public String getCommunityId() { return communityId; }
+    public Long getSid() { return sid; }
+    public String getInterval() { return interval; }
+    public List<Map<String, Object>> getSeries() { return series; }
+    public long getTotalHits() { return totalHits; }
+
+    //Converts to the API response format expected by the controller.
+    public Map<String, Object> toApiResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("communityId", communityId);
+        response.put("sid", sid);
+        response.put("interval", interval);
+        response.put("series", series);
+        response.put("totalHits", totalHits);
+        return response;
+    }
+}
@@ -7,18 +7,49 @@ public class SessionAnalytics {
     private final List<Map<String, Object>> dailyData;
     private final int totalSnortHits;
     private final int totalUniqueSessions;
+    private final List<Map<String, Object>> topSids;
+    private final List<Map<String, Object>> topCommunityIds;
+    private final String granularity;
+    private final boolean downsampled;
+    private final List<String> incompleteDays;
+    private final List<Map<String, Object>> slowIndices;
 
-    //New SessionAnalytics object with computed stats.
+    //New SessionAnalytics object with computed stats, every day complete.
     public SessionAnalytics(List<Map<String, Object>> dailyData, int totalSnortHits, 
-                           int totalUniqueSessions) {
+                           int totalUniqueSessions, List<Map<String, Object>> topSids,
+                           List<Map<String, Object>> topCommunityIds, String granularity,
+                           boolean downsampled) {
+        this(dailyData, totalSnortHits, totalUniqueSessions, topSids, topCommunityIds, granularity, downsampled,
+             List.of(), List.of());
+    }
+
+    //New SessionAnalytics object where some days may have missed the request deadline.
+    public SessionAnalytics(List<Map<String, Object>> dailyData, int totalSnortHits, 
+                           int totalUniqueSessions, List<Map<String, Object>> topSids,
+                           List<Map<String, Object>> topCommunityIds, String granularity,
+                           boolean downsampled, List<String> incompleteDays,
+                           List<Map<String, Object>> slowIndices) {
         this.dailyData = dailyData; // List of daily aggregated data points for timeseries visualization
         this.totalSnortHits = totalSnortHits; // Total count of Snort sids hits across the date range
         this.totalUniqueSessions = totalUniqueSessions; // Count of unique network sessions (community IDs) with sids
+        this.topSids = topSids; // Heavy-hitter sids estimated while streaming the hits
+        this.topCommunityIds = topCommunityIds; // Heavy-hitter community IDs estimated while streaming the hits
+        this.granularity = granularity; // Bucket size of the timeseries (minute, hour, day or week)
+        this.downsampled = downsampled; // True when buckets were reduced to the requested max points
+        this.incompleteDays = incompleteDays; // Singapore dates whose data is missing, cut short by the deadline or capped
+        this.slowIndices = slowIndices; // Index, date and reason for every search that did not finish in time or was capped
     }
     
     public List<Map<String, Object>> getDailyData() { return dailyData; }
     public int getTotalSnortHits() { return totalSnortHits; }
     public int getTotalUniqueSessions() { return totalUniqueSessions; }
+    public List<Map<String, Object>> getTopSids() { return topSids; }
+    public List<Map<String, Object>> getTopCommunityIds() { return topCommunityIds; }
+    public String getGranularity() { return granularity; }
+    public boolean isDownsampled() { return downsampled; }
+    public List<String> getIncompleteDays() { return incompleteDays; }
+    public List<Map<String, Object>> getSlowIndices() { return slowIndices; }
+    public boolean isPartial() { return !incompleteDays.isEmpty(); }
     
      //Converts to the API response format expected by the controller.
     public Map<String, Object> toApiResponse() {
@@ -26,6 +57,13 @@ public class SessionAnalytics {
         response.put("timeseriesData", dailyData);
         response.put("totalSnortHits", totalSnortHits);
         response.put("totalUniqueSessions", totalUniqueSessions);
+        response.put("topSids", topSids);
+        response.put("topCommunityIds", topCommunityIds);
+        response.put("granularity", granularity);
+        response.put("downsampled", downsampled);
+        response.put("partial", isPartial());
+        response.put("incompleteDays", incompleteDays);
+        response.put("slowIndices", slowIndices);
         return response;
     }
 }
\ No newline at end of file
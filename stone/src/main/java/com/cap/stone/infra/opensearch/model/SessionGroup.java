@@ -3,15 +3,17 @@ package com.cap.stone.infra.opensearch.model;
 import java.util.*;
 import java.util.stream.Collectors;
 
-// Represents data for a single day
+// Represents data for a single time bucket (a day by default)
 public class SessionGroup {
-    private final String date; // Date this group represents
+    private final String date; // Singapore date the bucket starts on
+    private final long bucketTimestamp; // Bucket start as epoch milliseconds
     private final List<Map<String, Object>> sessions = new ArrayList<>(); // All sessions for this date
     private final List<String> allCommunityIds = new ArrayList<>(); // All community IDs (with duplicates)
     private final List<Long> allSids = new ArrayList<>(); // All Snort SIDs (with duplicates)
     
-    public SessionGroup(String date) {
+    public SessionGroup(String date, long bucketTimestamp) {
         this.date = date;
+        this.bucketTimestamp = bucketTimestamp;
     }
     
     public void addSession(Map<String, Object> session) {
@@ -30,6 +32,10 @@ public class SessionGroup {
         return date;
     }
     
+    public long getBucketTimestamp() {
+        return bucketTimestamp;
+    }
+    
     public int getSessionCount() {
         return sessions.size();
     }
@@ -65,4 +71,31 @@ public class SessionGroup {
         
         return counts;
     }
-}
\ No newline at end of file
+
+    //Most frequent community IDs of this bucket with their hit counts, highest first
+    public List<Map<String, Object>> getTopCommunityIds(int limit) {
+        return topCounts(getCommunityIdHitCounts(), limit, "communityId");
+    }
+
+    //Most frequent sids of this bucket with their hit counts, highest first
+    public List<Map<String, Object>> getTopSids(int limit) {
+        Map<Long, Integer> counts = new HashMap<>();
+        for (Long sid : allSids) {
+            counts.merge(sid, 1, Integer::sum);
+        }
+        return topCounts(counts, limit, "sid");
+    }
+
+    private static <K> List<Map<String, Object>> topCounts(Map<K, Integer> counts, int limit, String keyName) {
+        return counts.entrySet().stream()
+            .sorted(Map.Entry.<K, Integer>comparingByValue().reversed())
+            .limit(limit)
+            .map(entry -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put(keyName, entry.getKey());
+                row.put("hitCount", entry.getValue());
+                return row;
+            })
+            .collect(Collectors.toList());
+    }
+}
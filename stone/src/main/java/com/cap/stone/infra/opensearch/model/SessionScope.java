@@ -0,0 +1,23 @@
+package com.cap.stone.infra.opensearch.model;
+
+// Tenant and sensor network a request is restricted to, a null part is not restricted
+public record SessionScope(String tenant, String network) {
+
+    public static final SessionScope ALL = new SessionScope(null, null);
+
+    // From request parameters, blank values mean no restriction
+    public static SessionScope of(String tenant, String network) {
+        String tenantValue = tenant == null || tenant.isBlank() ? null : tenant.trim();
+        String networkValue = network == null || network.isBlank() ? null : network.trim();
+        return tenantValue == null && networkValue == null ? ALL : new SessionScope(tenantValue, networkValue);
+    }
+
+    public boolean isAll() {
+        return tenant == null && network == null;
+    }
+
+    // Part of ETags and cache keys
+    public String toKey() {
+        return tenant + "|" + network;
+    }
+}
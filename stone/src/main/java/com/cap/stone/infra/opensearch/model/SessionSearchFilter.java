@@ -0,0 +1,51 @@
+package com.cap.stone.infra.opensearch.model;
+
+import com.cap.stone.util.IpPattern;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Structured filters of a session search, all optional except the date range. Every filter set must match (AND),
+// multiple values inside one filter are alternatives (OR).
+public class SessionSearchFilter {
+    private final LocalDate start;
+    private final LocalDate end;
+    private final Long from;
+    private final Long to;
+    private final IpPattern sourceIp;
+    private final IpPattern destIp;
+    private final List<int[]> sourcePorts;
+    private final List<int[]> destPorts;
+    private final List<Long> sids;
+    private final String communityId;
+    private final String message;
+
+    public SessionSearchFilter(LocalDate start, LocalDate end, Long from, Long to,
+                               IpPattern sourceIp, IpPattern destIp,
+                               List<int[]> sourcePorts, List<int[]> destPorts,
+                               List<Long> sids, String communityId, String message) {
+        this.start = start; // First Singapore day searched
+        this.end = end; // Last Singapore day searched (inclusive)
+        this.from = from; // Optional epoch ms lower bound (inclusive) inside the days
+        this.to = to; // Optional epoch ms upper bound (exclusive) inside the days
+        this.sourceIp = sourceIp; // Source address or CIDR block
+        this.destIp = destIp; // Destination address or CIDR block
+        this.sourcePorts = sourcePorts; // Inclusive {from, to} ranges
+        this.destPorts = destPorts; // Inclusive {from, to} ranges
+        this.sids = sids; // Any of these snort sids
+        this.communityId = communityId; // Exact community ID
+        this.message = message; // Words that must all appear in the snort message
+    }
+
+    public LocalDate getStart() { return start; }
+    public LocalDate getEnd() { return end; }
+    public Long getFrom() { return from; }
+    public Long getTo() { return to; }
+    public IpPattern getSourceIp() { return sourceIp; }
+    public IpPattern getDestIp() { return destIp; }
+    public List<int[]> getSourcePorts() { return sourcePorts; }
+    public List<int[]> getDestPorts() { return destPorts; }
+    public List<Long> getSids() { return sids; }
+    public String getCommunityId() { return communityId; }
+    public String getMessage() { return message; }
+}
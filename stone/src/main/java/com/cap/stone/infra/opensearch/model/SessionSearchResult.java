@@ -0,0 +1,31 @@
+package com.cap.stone.infra.opensearch.model;
+
+import java.util.*;
+
+// One page of a session search
+public class SessionSearchResult {
+    private final List<Map<String, Object>> sessions;
+    private final String nextCursor;
+    private final long tookMs;
+
+    public SessionSearchResult(List<Map<String, Object>> sessions, String nextCursor, long tookMs) {
+        this.sessions = sessions; // Matching sessions, newest first
+        this.nextCursor = nextCursor; // Pass back as cursor for the next page, null on the last page
+        this.tookMs = tookMs; // OpenSearch time for this page
+    }
+
+    public List<Map<String, Object>> getSessions() { return sessions; }
+    public String getNextCursor() { return nextCursor; }
+    public long getTookMs() { return tookMs; }
+
+    //Converts to the API response format expected by the controller.
+    public Map<String, Object> toApiResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("sessions", sessions);
+        response.put("count", sessions.size());
+        response.put("nextCursor", nextCursor);
+        response.put("hasMore", nextCursor != null);
+        response.put("took", tookMs);
+        return response;
+    }
+}
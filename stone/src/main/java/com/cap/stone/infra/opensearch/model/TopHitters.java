@@ -0,0 +1,34 @@
+package com.cap.stone.infra.opensearch.model;
+
+import java.util.*;
+
+// Represents the most frequent sids and community IDs over a date range
+public class TopHitters {
+    private final List<Map<String, Object>> topSids;
+    private final List<Map<String, Object>> topCommunityIds;
+    private final long otherSidHits;
+    private final long otherCommunityIdHits;
+
+    public TopHitters(List<Map<String, Object>> topSids, List<Map<String, Object>> topCommunityIds,
+                      long otherSidHits, long otherCommunityIdHits) {
+        this.topSids = topSids; // Most frequent sids, highest count first
+        this.topCommunityIds = topCommunityIds; // Most frequent community IDs, highest count first
+        this.otherSidHits = otherSidHits; // Hits belonging to sids outside the top N
+        this.otherCommunityIdHits = otherCommunityIdHits; // Hits belonging to community IDs outside the top N
+    }
+
+    public List<Map<String, Object>> getTopSids() { return topSids; }
+    public List<Map<String, Object>> getTopCommunityIds() { return topCommunityIds; }
+    public long getOtherSidHits() { return otherSidHits; }
+    public long getOtherCommunityIdHits() { return otherCommunityIdHits; }
+
+    //Converts to the API response format expected by the controller.
+    public Map<String, Object> toApiResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("topSids", topSids);
+        response.put("topCommunityIds", topCommunityIds);
+        response.put("otherSidHits", otherSidHits);
+        response.put("otherCommunityIdHits", otherCommunityIdHits);
+        return response;
+    }
+}
@@ -0,0 +1,41 @@
+package com.cap.stone.infra.opensearch.model;
+
+import java.util.*;
+
+// Traffic volume and flow duration of the snort-hit sessions per timeseries bucket, computed by OpenSearch aggregations
+public class TrafficStats {
+    private final String granularity;
+    private final List<Map<String, Object>> buckets;
+    private final Map<String, Object> totals;
+
+    public TrafficStats(String granularity, List<Map<String, Object>> buckets, Map<String, Object> totals) {
+        this.granularity = granularity; // Bucket size, same as the timeseries it goes with
+        this.buckets = buckets; // One entry per non-empty bucket, keyed by the same timestamps as the timeseries
+        this.totals = totals; // Same statistics over the whole requested range
+    }
+
+    // Only the buckets at the given timestamps, for a timeseries downsampled to some of its buckets. Totals still
+    // cover the whole range.
+    public TrafficStats alignedTo(Set<Long> timestamps) {
+        List<Map<String, Object>> aligned = new ArrayList<>();
+        for (Map<String, Object> bucket : buckets) {
+            if (timestamps.contains(((Number) bucket.get("timestamp")).longValue())) {
+                aligned.add(bucket);
+            }
+        }
+        return new TrafficStats(granularity, aligned, totals);
+    }
+
+    public String getGranularity() { return granularity; }
+    public List<Map<String, Object>> getBuckets() { return buckets; }
+    public Map<String, Object> getTotals() { return totals; }
+
+    //Converts to the API response format expected by the controller.
+    public Map<String, Object> toApiResponse() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("granularity", granularity);
+        response.put("buckets", buckets);
+        response.put("totals", totals);
+        return response;
+    }
+}
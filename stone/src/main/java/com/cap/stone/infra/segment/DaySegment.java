@@ -0,0 +1,283 @@
+package com.cap.stone.infra.segment;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// One Singapore day of processed sessions as an immutable columnar file, memory-mapped for reading.
+//
+// Layout (big endian): header {magic, version, rows, sids, dictionary entries, reserved}, then the columns
+// timestamp long[rows] | sid long[sids] | sid offset int[rows + 1] | sid is list byte[rows] padded to 4 |
+// source port, destination port int[rows] | community id, source ip, destination ip, snort message, index name,
+// document id, session int[rows] (dictionary references) | dictionary offset int[entries + 1] | dictionary UTF-8 bytes.
+// Missing values are -1. Every string column shares one dictionary, so a community ID seen a thousand times is stored once.
+public final class DaySegment {
+
+    private static final int MAGIC = 0x53544753; // "STGS"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final int NONE = -1;
+
+    // Dictionary encoded columns, in file order
+    private static final String[] STRING_COLUMNS = {
+        "communityId", "sourceIp", "destIp", "snortMessage", "indexName", "documentId", "session"
+    };
+    private static final int COMMUNITY_ID = 0;
+    private static final int SESSION = 6;
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private final MappedByteBuffer buffer;
+    private final int rows;
+    private final int timestampOffset;
+    private final int sidOffset;
+    private final int sidIndexOffset;
+    private final int sidIsListOffset;
+    private final int portOffset;
+    private final int stringColumnOffset;
+    private final int dictionaryIndexOffset;
+    private final int dictionaryOffset;
+    // Decoded on first use, the same few community IDs are read over and over
+    private final String[] decoded;
+
+    private DaySegment(MappedByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a day segment");
+        }
+        rows = buffer.getInt(8);
+        int sids = buffer.getInt(12);
+        int entries = buffer.getInt(16);
+
+        timestampOffset = HEADER_BYTES;
+        sidOffset = timestampOffset + rows * Long.BYTES;
+        sidIndexOffset = sidOffset + sids * Long.BYTES;
+        sidIsListOffset = sidIndexOffset + (rows + 1) * Integer.BYTES;
+        portOffset = sidIsListOffset + padded(rows);
+        stringColumnOffset = portOffset + 2 * rows * Integer.BYTES;
+        dictionaryIndexOffset = stringColumnOffset + STRING_COLUMNS.length * rows * Integer.BYTES;
+        dictionaryOffset = dictionaryIndexOffset + (entries + 1) * Integer.BYTES;
+        if (dictionaryOffset > buffer.capacity()
+                || dictionaryOffset + buffer.getInt(dictionaryIndexOffset + entries * Integer.BYTES) != buffer.capacity()) {
+            throw new IOException("Truncated day segment");
+        }
+        decoded = new String[entries];
+    }
+
+    // Maps an existing segment file, throws IOException when it is not a complete segment
+    public static DaySegment open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // The mapping stays valid after the channel is closed (and after the file is deleted)
+            return new DaySegment(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // Writes processed sessions (as produced by SessionDataProcessor, timestamps already in Singapore time) in their
+    // current order. Goes through a temporary file so readers never map a half written segment.
+    public static void write(Path file, List<Map<String, Object>> sessions) throws IOException {
+        int rows = sessions.size();
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+        List<Long> sids = new ArrayList<>();
+        int[] sidIndex = new int[rows + 1];
+        byte[] sidIsList = new byte[padded(rows)];
+        int[][] stringRefs = new int[STRING_COLUMNS.length][rows];
+
+        for (int row = 0; row < rows; row++) {
+            Map<String, Object> session = sessions.get(row);
+            Object sidObj = session.get("sid");
+            sidIsList[row] = (byte) (sidObj instanceof List ? 1 : 0);
+            sids.addAll(toSids(sidObj));
+            sidIndex[row + 1] = sids.size();
+            for (int column = 0; column < STRING_COLUMNS.length; column++) {
+                String text = toText(session.get(STRING_COLUMNS[column]), column == SESSION);
+                stringRefs[column][row] = text == null ? NONE : dictionary.computeIfAbsent(text, key -> dictionary.size());
+            }
+        }
+
+        List<byte[]> entries = new ArrayList<>(dictionary.size());
+        int dictionaryBytes = 0;
+        for (String text : dictionary.keySet()) {
+            byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+            entries.add(bytes);
+            dictionaryBytes += bytes.length;
+        }
+
+        int size = HEADER_BYTES
+            + rows * Long.BYTES
+            + sids.size() * Long.BYTES
+            + (rows + 1) * Integer.BYTES
+            + sidIsList.length
+            + 2 * rows * Integer.BYTES
+            + STRING_COLUMNS.length * rows * Integer.BYTES
+            + (entries.size() + 1) * Integer.BYTES
+            + dictionaryBytes;
+        ByteBuffer out = ByteBuffer.allocate(size);
+
+        out.putInt(MAGIC).putInt(VERSION).putInt(rows).putInt(sids.size()).putInt(entries.size()).putInt(0);
+        for (Map<String, Object> session : sessions) {
+            out.putLong(((Number) session.get("timestamp")).longValue());
+        }
+        sids.forEach(out::putLong);
+        for (int offset : sidIndex) {
+            out.putInt(offset);
+        }
+        out.put(sidIsList);
+        for (String port : new String[] {"sourcePort", "destPort"}) {
+            for (Map<String, Object> session : sessions) {
+                out.putInt(session.get(port) instanceof Number number ? number.intValue() : NONE);
+            }
+        }
+        for (int[] column : stringRefs) {
+            for (int ref : column) {
+                out.putInt(ref);
+            }
+        }
+        int entryOffset = 0;
+        out.putInt(entryOffset);
+        for (byte[] entry : entries) {
+            entryOffset += entry.length;
+            out.putInt(entryOffset);
+        }
+        entries.forEach(out::put);
+        out.flip();
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                channel.write(out);
+            }
+            channel.force(false);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    public int rowCount() {
+        return rows;
+    }
+
+    public long sizeBytes() {
+        return buffer.capacity();
+    }
+
+    public long timestamp(int row) {
+        return buffer.getLong(timestampOffset + row * Long.BYTES);
+    }
+
+    public String communityId(int row) {
+        return string(COMMUNITY_ID, row);
+    }
+
+    public List<Long> sids(int row) {
+        int from = buffer.getInt(sidIndexOffset + row * Integer.BYTES);
+        int to = buffer.getInt(sidIndexOffset + (row + 1) * Integer.BYTES);
+        List<Long> sids = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            sids.add(buffer.getLong(sidOffset + i * Long.BYTES));
+        }
+        return sids;
+    }
+
+    // The row in the shape SessionDataProcessor.processHit returns it
+    public Map<String, Object> session(int row) {
+        Map<String, Object> session = new HashMap<>();
+        session.put("timestamp", timestamp(row));
+        List<Long> sids = sids(row);
+        if (buffer.get(sidIsListOffset + row) == 1) {
+            session.put("sid", sids);
+        } else {
+            session.put("sid", sids.isEmpty() ? null : sids.get(0));
+        }
+        session.put("sourcePort", port(0, row));
+        session.put("destPort", port(1, row));
+        for (int column = 0; column < STRING_COLUMNS.length; column++) {
+            session.put(STRING_COLUMNS[column], column == SESSION ? fromJson(string(column, row)) : string(column, row));
+        }
+        return session;
+    }
+
+    // Every row in file order
+    public List<Map<String, Object>> sessions() {
+        List<Map<String, Object>> sessions = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            sessions.add(session(row));
+        }
+        return sessions;
+    }
+
+    private Integer port(int column, int row) {
+        int port = buffer.getInt(portOffset + (column * rows + row) * Integer.BYTES);
+        return port == NONE ? null : port;
+    }
+
+    private String string(int column, int row) {
+        int ref = buffer.getInt(stringColumnOffset + (column * rows + row) * Integer.BYTES);
+        if (ref == NONE) {
+            return null;
+        }
+        String text = decoded[ref];
+        if (text == null) {
+            int from = buffer.getInt(dictionaryIndexOffset + ref * Integer.BYTES);
+            int to = buffer.getInt(dictionaryIndexOffset + (ref + 1) * Integer.BYTES);
+            byte[] bytes = new byte[to - from];
+            buffer.get(dictionaryOffset + from, bytes);
+            text = new String(bytes, StandardCharsets.UTF_8);
+            decoded[ref] = text; // Racing readers decode the same value, harmless
+        }
+        return text;
+    }
+
+    private static List<Long> toSids(Object sidObj) {
+        List<Long> sids = new ArrayList<>();
+        if (sidObj instanceof List<?> list) {
+            list.stream().filter(s -> s instanceof Number).forEach(s -> sids.add(((Number) s).longValue()));
+        } else if (sidObj instanceof Number number) {
+            sids.add(number.longValue());
+        }
+        return sids;
+    }
+
+    // Strings as they are, the free-form session object as JSON
+    private static String toText(Object value, boolean json) {
+        if (value == null) {
+            return null;
+        }
+        if (!json) {
+            return value.toString();
+        }
+        try {
+            return MAPPER.writeValueAsString(value);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Session field is not serializable", e);
+        }
+    }
+
+    private static Object fromJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return MAPPER.readValue(json, Object.class);
+        } catch (IOException e) {
+            return json;
+        }
+    }
+
+    // Byte columns are padded so the int columns after them stay aligned
+    private static int padded(int bytes) {
+        return (bytes + 3) & ~3;
+    }
+}
@@ -0,0 +1,221 @@
+package com.cap.stone.infra.segment;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.cap.stone.util.SingaporeTimezoneUtil;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Optional local tier for finished days: each Singapore day's processed sessions are kept as a memory-mapped
+// DaySegment, so dashboards over old days are answered without touching the cluster. Segments are written from
+// complete analytics results only, dropped when an import touches their indices, and evicted least recently used
+// once the directory grows past max-bytes.
+@Service
+public class DaySegmentStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(DaySegmentStore.class);
+
+    @Autowired
+    private SingaporeTimezoneUtil timezoneUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${stone.segments.enabled:false}")
+    private boolean enabled;
+
+    @Value("${stone.segments.directory:${java.io.tmpdir}/stone-segments}")
+    private String directory;
+
+    @Value("${stone.segments.max-bytes:1073741824}")
+    private long maxBytes;
+
+    // A day is only frozen once it ended this many days ago, late arriving sessions of younger days are still expected
+    @Value("${stone.segments.min-age-days:2}")
+    private int minAgeDays;
+
+    private static final String SUFFIX = ".seg";
+    private static final DateTimeFormatter INDEX_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyMMdd");
+
+    // Access ordered, the eldest entry is the least recently read segment
+    private final Map<LocalDate, DaySegment> segments = new LinkedHashMap<>(16, 0.75f, true);
+    private long totalBytes;
+
+    // Bumped by every invalidation, a segment built from data read before it is discarded instead of stored
+    private final AtomicLong generation = new AtomicLong();
+
+    // Picks up the segments of a previous run
+    @PostConstruct
+    void load() {
+        meterRegistry.gauge("stone.segments.bytes", this, store -> store.getTotalBytes());
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(root());
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(root(), "*" + SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    try {
+                        LocalDate date = LocalDate.parse(name.substring(0, name.length() - SUFFIX.length()));
+                        register(date, DaySegment.open(file));
+                    } catch (DateTimeParseException | IOException e) {
+                        logger.warn("Dropping unreadable day segment {}: {}", file, e.getMessage());
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+            synchronized (this) {
+                evict();
+            }
+            logger.info("Loaded {} day segments ({} bytes) from {}", segments.size(), totalBytes, root());
+        } catch (IOException e) {
+            logger.warn("Day segment store unavailable, disabling it: {}", e.getMessage());
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    // Segment of a Singapore day, null when the day is not stored locally
+    public DaySegment get(LocalDate date) {
+        if (!enabled) {
+            return null;
+        }
+        DaySegment segment;
+        synchronized (this) {
+            segment = segments.get(date);
+        }
+        meterRegistry.counter("stone.segments.lookups", "outcome", segment != null ? "hit" : "miss").increment();
+        return segment;
+    }
+
+    // Whether a day is old enough to be frozen into a segment
+    public boolean isEligible(LocalDate date) {
+        LocalDate today = LocalDate.now(ZoneId.of(timezoneUtil.getZoneId()));
+        return enabled && date.plusDays(minAgeDays).isBefore(today);
+    }
+
+    // Stores a complete day. expectedGeneration is getGeneration() from before the sessions were read, if an import
+    // invalidated segments since then the sessions may be stale and are not stored.
+    public void store(LocalDate date, List<Map<String, Object>> sessions, long expectedGeneration) {
+        if (!isEligible(date)) {
+            return;
+        }
+        Path file = root().resolve(date + SUFFIX);
+        try {
+            synchronized (this) {
+                if (generation.get() != expectedGeneration || segments.containsKey(date)) {
+                    return;
+                }
+                // Written under the lock so an invalidation can't slip in between the check and the registration
+                DaySegment.write(file, sessions);
+                register(date, DaySegment.open(file));
+                evict();
+            }
+        } catch (IOException e) {
+            logger.warn("Could not write day segment for {}: {}", date, e.getMessage());
+        }
+    }
+
+    // Drops the segments that read any of the given indices (named like arkime_sessions3-250821). Analytics for a
+    // Singapore day reads the indices of the day before, the day and the day after, so each index touches three days.
+    public void invalidateIndices(Collection<String> indexNames) {
+        if (!enabled) {
+            return;
+        }
+        Set<LocalDate> dates = new HashSet<>();
+        for (String indexName : indexNames) {
+            try {
+                LocalDate indexDate = LocalDate.parse(indexName.substring(indexName.lastIndexOf('-') + 1), INDEX_DATE_FORMATTER);
+                dates.add(indexDate.minusDays(1));
+                dates.add(indexDate);
+                dates.add(indexDate.plusDays(1));
+            } catch (DateTimeParseException e) {
+                // Can't tell which days it belongs to
+                invalidateAll();
+                return;
+            }
+        }
+        invalidate(dates);
+    }
+
+    public synchronized void invalidate(Collection<LocalDate> dates) {
+        generation.incrementAndGet();
+        for (LocalDate date : dates) {
+            DaySegment segment = segments.remove(date);
+            if (segment != null) {
+                delete(date, segment);
+            }
+        }
+    }
+
+    public synchronized void invalidateAll() {
+        invalidate(new ArrayList<>(segments.keySet()));
+    }
+
+    private synchronized void register(LocalDate date, DaySegment segment) {
+        DaySegment previous = segments.put(date, segment);
+        if (previous != null) {
+            totalBytes -= previous.sizeBytes();
+        }
+        totalBytes += segment.sizeBytes();
+    }
+
+    // Least recently read segments go first. Readers still scanning one keep their mapping, only the file goes.
+    private void evict() {
+        Iterator<Map.Entry<LocalDate, DaySegment>> eldest = segments.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<LocalDate, DaySegment> entry = eldest.next();
+            eldest.remove();
+            delete(entry.getKey(), entry.getValue());
+            meterRegistry.counter("stone.segments.evictions").increment();
+        }
+    }
+
+    private void delete(LocalDate date, DaySegment segment) {
+        totalBytes -= segment.sizeBytes();
+        try {
+            Files.deleteIfExists(root().resolve(date + SUFFIX));
+        } catch (IOException e) {
+            logger.warn("Could not delete day segment for {}: {}", date, e.getMessage());
+        }
+    }
+
+    private Path root() {
+        return Paths.get(directory);
+    }
+}
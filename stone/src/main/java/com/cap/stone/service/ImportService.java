@@ -2,31 +2,91 @@ package com.cap.stone.service;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import org.opensearch.client.opensearch.OpenSearchClient;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.opensearch.client.opensearch.core.BulkRequest;
 import org.opensearch.client.opensearch.core.BulkResponse;
 import org.opensearch.client.opensearch.core.bulk.BulkOperation;
 import org.opensearch.client.opensearch.core.bulk.IndexOperation;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import com.cap.stone.infra.opensearch.AnomalyScoringService;
+import com.cap.stone.infra.opensearch.DataGenerationService;
+import com.cap.stone.infra.opensearch.SessionRoutingService;
+import com.cap.stone.infra.segment.DaySegmentStore;
+import com.cap.stone.util.RejectedRecord;
+
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 // bulk importing of documents into OpenSearch with batch processing
 @Service
 public class ImportService {
     @Autowired
-    private OpenSearchClient client;
+    private OpenSearchClientService clientService;
+    
+    @Autowired
+    private DataGenerationService dataGenerationService;
+    
+    @Autowired
+    private DaySegmentStore segmentStore;
+    
+    @Autowired
+    private AnomalyScoringService anomalyScoringService;
+    
+    @Autowired
+    private SessionRoutingService routingService;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
     
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final int BATCH_SIZE = 500;
     
+    // Epoch millis the document was handed to OpenSearch (ECS event.ingested), the order the live tail follows
+    public static final String INGESTED_FIELD = "event.ingested";
+    
+    // Time from a bulk request returning to its documents being searchable (refresh interval plus margin)
+    @Value("${stone.live-tail.settle-ms:5000}")
+    private long settleMs;
+    
+    // A bulk batch whose documents may not be searchable yet: from before its first event.ingested stamp, through
+    // waiting for the bulkhead and the bulk request, until settleMs after the request returned
+    private static final class UnsettledBatch {
+        private final long oldestStamp = System.currentTimeMillis();
+        private volatile long sentAt; // 0 while being built or sent
+    }
+    
+    private final Set<UnsettledBatch> unsettledBatches = ConcurrentHashMap.newKeySet();
+    
     // Indexes documents into OpenSearch by grouping them by their target index
     public Map<String, Integer> indexDocumentsByIndex(List<Map<String, Object>> documents) throws Exception {
+        return indexDocumentsByIndex(documents, null);
+    }
+    
+    // Lenient variant when rejected is not null: documents without id, index or data and documents OpenSearch refuses
+    // are added to rejected instead of failing the import, the counts only include documents that were indexed
+    public Map<String, Integer> indexDocumentsByIndex(List<Map<String, Object>> documents,
+                                                      List<RejectedRecord> rejected) throws Exception {
+        if (rejected != null) {
+            List<Map<String, Object>> valid = new ArrayList<>(documents.size());
+            for (Map<String, Object> doc : documents) {
+                String reason = rejectionReason(doc);
+                if (reason != null) {
+                    rejected.add(new RejectedRecord(null, reason, doc));
+                } else {
+                    valid.add(doc);
+                }
+            }
+            documents = valid;
+        }
 
         // Group documents by their index field
         Map<String, List<Map<String, Object>>> documentsByIndex = documents.stream()
@@ -35,66 +95,183 @@ public class ImportService {
         Map<String, Integer> indexCounts = new HashMap<>();
         
         // Process each index separately
-        for (Map.Entry<String, List<Map<String, Object>>> entry : documentsByIndex.entrySet()) {
-            String indexName = entry.getKey();
-            List<Map<String, Object>> indexDocuments = entry.getValue();
-            
-            indexDocuments(indexName, indexDocuments);
-            indexCounts.put(indexName, indexDocuments.size());
+        try {
+            for (Map.Entry<String, List<Map<String, Object>>> entry : documentsByIndex.entrySet()) {
+                String indexName = entry.getKey();
+                List<Map<String, Object>> indexDocuments = entry.getValue();
+                
+                indexCounts.put(indexName, indexDocuments(indexName, indexDocuments, rejected));
+            }
+        } finally {
+            // Even a partial import changes data, invalidate cached dashboard responses, the frozen days it touched and their
+            // anomaly counts. Those days are rebuilt from the cluster by the next request that reads them.
+            dataGenerationService.markImported();
+            segmentStore.invalidateIndices(documentsByIndex.keySet());
+            anomalyScoringService.invalidateIndices(documentsByIndex.keySet());
         }
         
         return indexCounts;
     }
     
+    // Why a document can't be imported, null when it has everything the import needs
+    public static String rejectionReason(Map<String, Object> doc) {
+        if (doc.get("id") == null) {
+            return "Missing id";
+        }
+        if (!(doc.get("index") instanceof String index) || index.isBlank()) {
+            return "Missing index";
+        }
+        if (!(doc.get("data") instanceof Map)) {
+            return "Missing data object";
+        }
+        return null;
+    }
+    
     // Indexes a collection of documents into a specific OpenSearch index
     public void indexDocuments(String indexName, List<Map<String, Object>> documents) throws Exception {
+        indexDocuments(indexName, documents, null);
+    }
+    
+    // Returns how many documents were indexed, less than documents.size() only when rejected collects refusals
+    private int indexDocuments(String indexName, List<Map<String, Object>> documents,
+                               List<RejectedRecord> rejected) throws Exception {
         List<BulkOperation> operations = new ArrayList<>();
+        List<Map<String, Object>> batch = new ArrayList<>();
         int count = 0;
+        int refused = 0;
+        UnsettledBatch unsettled = null;
         
-        for (Map<String, Object> doc : documents) {
-            String id = doc.get("id").toString();
-            
-            // Extract the actual document data (nested under 'data' field)
-            Map<String, Object> data = objectMapper.convertValue(
-                doc.get("data"), new TypeReference<Map<String, Object>>() {}
-            );
-            
-            // Create index operation for this document
-            IndexOperation<Map<String, Object>> indexOp = IndexOperation.of(i -> i
-                .index(indexName)
-                .id(id) /// Use provided document ID
-                .document(data)
-            );
-            
-            operations.add(BulkOperation.of(op -> op.index(indexOp)));
-            count++;
+        try {
+            for (Map<String, Object> doc : documents) {
+                String id = doc.get("id").toString();
+                
+                // Extract the actual document data (nested under 'data' field)
+                Map<String, Object> data = objectMapper.convertValue(
+                    doc.get("data"), new TypeReference<Map<String, Object>>() {}
+                );
+                
+                // Registered before the first stamp so the live tail cursor never passes it
+                if (unsettled == null) {
+                    unsettled = openBatch();
+                }
+                stampIngested(data);
+                
+                // Tenant or sensor network routing keeps a tenant's documents on one shard per index (null = by id)
+                String routing = routingService.routingForDocument(data);
+                
+                // Create index operation for this document
+                IndexOperation<Map<String, Object>> indexOp = IndexOperation.of(i -> i
+                    .index(indexName)
+                    .id(id) /// Use provided document ID
+                    .routing(routing)
+                    .document(data)
+                );
+                
+                operations.add(BulkOperation.of(op -> op.index(indexOp)));
+                batch.add(doc);
+                count++;
+                
+                // Flush batch when it reaches batch size
+                if (count % BATCH_SIZE == 0) {
+                    try {
+                        refused += flushBulk(operations, batch, rejected);
+                    } finally {
+                        unsettled.sentAt = System.currentTimeMillis();
+                        unsettled = null;
+                    }
+                    operations.clear();
+                    batch.clear();
+                }
+            }
             
-            // Flush batch when it reaches batch size
-            if (count % BATCH_SIZE == 0) {
-                flushBulk(operations);
-                operations.clear();
+            // Flush remaining documents
+            if (!operations.isEmpty()) {
+                refused += flushBulk(operations, batch, rejected);
+            }
+        } finally {
+            if (unsettled != null) {
+                unsettled.sentAt = System.currentTimeMillis();
             }
         }
-        
-        // Flush remaining documents
-        if (!operations.isEmpty()) {
-            flushBulk(operations);
+        return count - refused;
+    }
+    
+    // Oldest event.ingested stamp whose document may not be searchable yet, Long.MAX_VALUE when every batch has
+    // settled; the live tail keeps its cursor below this however long a bulk waits for the bulkhead or the cluster
+    public long oldestUnsettledIngest() {
+        pruneSettled();
+        long oldest = Long.MAX_VALUE;
+        for (UnsettledBatch unsettled : unsettledBatches) {
+            oldest = Math.min(oldest, unsettled.oldestStamp);
         }
+        return oldest;
+    }
+    
+    private UnsettledBatch openBatch() {
+        pruneSettled();
+        UnsettledBatch unsettled = new UnsettledBatch();
+        unsettledBatches.add(unsettled);
+        return unsettled;
     }
     
-    // Executes a bulk request to OpenSearch
-    private void flushBulk(List<BulkOperation> operations) throws Exception {
+    private void pruneSettled() {
+        long settledBefore = System.currentTimeMillis() - settleMs;
+        unsettledBatches.removeIf(unsettled -> unsettled.sentAt != 0 && unsettled.sentAt <= settledBefore);
+    }
+    
+    // Sets event.ingested to now, keeping the rest of an existing event object
+    @SuppressWarnings("unchecked")
+    private void stampIngested(Map<String, Object> data) {
+        Object event = data.get("event");
+        if (event == null) {
+            event = new HashMap<String, Object>();
+            data.put("event", event);
+        }
+        if (event instanceof Map) {
+            ((Map<String, Object>) event).put("ingested", System.currentTimeMillis());
+        }
+    }
+    
+    // Executes a bulk request to OpenSearch and returns the number of documents it refused
+    // Request bytes are recorded by the HTTP client as stone.opensearch.request.bytes{endpoint=bulk}
+    private int flushBulk(List<BulkOperation> operations, List<Map<String, Object>> batch,
+                          List<RejectedRecord> rejected) throws Exception {
         BulkRequest bulkRequest = BulkRequest.of(b -> b.operations(operations));
-        BulkResponse bulkResponse = client.bulk(bulkRequest);
+        meterRegistry.summary("stone.import.bulk.documents").record(operations.size());
         
-        if (bulkResponse.errors()) {
-            StringBuilder errorMsg = new StringBuilder("Bulk indexing failed: ");
-            bulkResponse.items().forEach(item -> {
-                if (item.error() != null) {
-                    errorMsg.append(item.error().reason()).append("; ");
+        Timer.Sample sample = Timer.start(meterRegistry);
+        BulkResponse bulkResponse;
+        try {
+            bulkResponse = clientService.executeBulk(bulkRequest);
+        } catch (Exception e) {
+            sample.stop(meterRegistry.timer("stone.import.bulk", "outcome", "error"));
+            throw e;
+        }
+        sample.stop(meterRegistry.timer("stone.import.bulk", "outcome", bulkResponse.errors() ? "partial" : "success"));
+        
+        if (!bulkResponse.errors()) {
+            return 0;
+        }
+        long refused = bulkResponse.items().stream().filter(item -> item.error() != null).count();
+        meterRegistry.counter("stone.import.bulk.rejected").increment(refused);
+        
+        if (rejected != null) {
+            // Items come back in request order
+            for (int i = 0; i < bulkResponse.items().size(); i++) {
+                if (bulkResponse.items().get(i).error() != null) {
+                    rejected.add(new RejectedRecord(null, "Rejected by OpenSearch: "
+                        + bulkResponse.items().get(i).error().reason(), batch.get(i)));
                 }
-            });
-            throw new RuntimeException(errorMsg.toString());
+            }
+            return (int) refused;
         }
+        
+        StringBuilder errorMsg = new StringBuilder("Bulk indexing failed: ");
+        bulkResponse.items().forEach(item -> {
+            if (item.error() != null) {
+                errorMsg.append(item.error().reason()).append("; ");
+            }
+        });
+        throw new RuntimeException(errorMsg.toString());
     }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.cap.stone.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cap.stone.util.FairBulkhead;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Admission for bulk ingest, kept apart from the query traffic's concurrency limit. At most concurrency bulk requests
+// are in flight, handed out round-robin between uploaders so one huge import can't hold all of them. Queries win under
+// contention: while they use yield-at-query-load of their limit or more, bulk requests wait (up to max-yield-ms each).
+@Component
+public class IngestBulkhead {
+
+    // Uploader the current thread imports for, set by the import endpoint around the whole upload
+    private static final ThreadLocal<String> OWNER = new ThreadLocal<>();
+    private static final String DEFAULT_OWNER = "anonymous";
+
+    private final FairBulkhead bulkhead;
+    private final OpenSearchGuard guard;
+    private final double yieldAtQueryLoad;
+    private final long maxYieldMs;
+    private final long yieldPollMs;
+    private final Timer waitTimer;
+
+    public IngestBulkhead(
+            @Value("${stone.bulkhead.ingest.concurrency:2}") int concurrency,
+            @Value("${stone.bulkhead.ingest.yield-at-query-load:0.75}") double yieldAtQueryLoad,
+            @Value("${stone.bulkhead.ingest.max-yield-ms:5000}") long maxYieldMs,
+            @Value("${stone.bulkhead.ingest.yield-poll-ms:25}") long yieldPollMs,
+            OpenSearchGuard guard,
+            MeterRegistry meterRegistry) {
+        this.bulkhead = new FairBulkhead(concurrency);
+        this.guard = guard;
+        this.yieldAtQueryLoad = yieldAtQueryLoad;
+        this.maxYieldMs = maxYieldMs;
+        this.yieldPollMs = Math.max(1, yieldPollMs);
+        this.waitTimer = meterRegistry.timer("stone.bulkhead.ingest.wait");
+        Gauge.builder("stone.bulkhead.ingest.in_use", bulkhead, FairBulkhead::getInUse).register(meterRegistry);
+        Gauge.builder("stone.bulkhead.ingest.waiting_uploaders", bulkhead, FairBulkhead::getWaitingOwners).register(meterRegistry);
+    }
+
+    // Runs work with every bulk request it makes queued under owner
+    public static <T> T callAs(String owner, Supplier<T> work) {
+        String previous = OWNER.get();
+        OWNER.set(owner);
+        try {
+            return work.get();
+        } finally {
+            if (previous != null) {
+                OWNER.set(previous);
+            } else {
+                OWNER.remove();
+            }
+        }
+    }
+
+    // Waits for the uploader's turn and for the queries to leave room, then runs the call behind the circuit breaker
+    public <T> T execute(String operation, OpenSearchGuard.OpenSearchCall<T> call) throws IOException {
+        String owner = OWNER.get() != null ? OWNER.get() : DEFAULT_OWNER;
+        long waitStart = System.nanoTime();
+        try {
+            bulkhead.acquire(owner);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for the ingest bulkhead");
+        }
+        try {
+            yieldToQueries();
+            waitTimer.record(System.nanoTime() - waitStart, TimeUnit.NANOSECONDS);
+            return guard.executeIngest(operation, call);
+        } finally {
+            bulkhead.release(owner);
+        }
+    }
+
+    // Bounded, so a steady query load slows ingest down without stopping it
+    private void yieldToQueries() throws InterruptedIOException {
+        long deadline = System.nanoTime() + maxYieldMs * 1_000_000L;
+        while (guard.getQueryLoad() >= yieldAtQueryLoad && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(yieldPollMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted yielding to queries");
+            }
+        }
+    }
+
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("inUse", bulkhead.getInUse());
+        metrics.put("waitingUploaders", bulkhead.getWaitingOwners());
+        metrics.put("queryLoad", guard.getQueryLoad());
+        metrics.put("yieldAtQueryLoad", yieldAtQueryLoad);
+        return metrics;
+    }
+}
@@ -1,29 +1,92 @@
 package com.cap.stone.service;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.core5.util.Timeout;
 import org.opensearch.client.opensearch.OpenSearchClient;
+import org.opensearch.client.opensearch._types.Level;
 import org.opensearch.client.opensearch._types.SortOrder;
+import org.opensearch.client.opensearch._types.Time;
+import org.opensearch.client.opensearch._types.aggregations.Aggregation;
+import org.opensearch.client.opensearch._types.mapping.FieldType;
 import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.cat.IndicesResponse;
+import org.opensearch.client.opensearch.cat.indices.IndicesRecord;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.opensearch.client.opensearch.core.ReindexRequest;
+import org.opensearch.client.opensearch.core.ReindexResponse;
+import org.opensearch.client.opensearch.core.ScrollRequest;
 import org.opensearch.client.opensearch.core.SearchRequest;
 import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.indices.CreateIndexRequest;
+import org.opensearch.client.opensearch.indices.IndexSettings;
+import org.opensearch.client.opensearch.indices.IndicesStatsResponse;
+import org.opensearch.client.opensearch.indices.stats.IndicesStatsMetric;
+import org.opensearch.client.opensearch.indices.update_aliases.Action;
+import org.opensearch.client.opensearch.tasks.GetTasksResponse;
+import org.opensearch.client.transport.httpclient5.ApacheHttpClient5Options;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
+import com.cap.stone.util.IndexAgeTag;
+import com.cap.stone.util.RequestStageTimer;
+
 import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 // Allows for executing OpenSearch queries with common parameters.
+// Every call goes through the OpenSearchGuard so overload is shed here instead of piling up on the cluster.
+// Bulk ingest has its own connection pool and bulkhead so imports and dashboard queries don't slow each other down.
 @Service
 public class OpenSearchClientService {
     
     @Autowired
     private OpenSearchClient client;
     
+    // Separate connection pool for bulk ingest, an import can't take the connections the queries need
+    @Autowired
+    @Qualifier("ingestOpenSearchClient")
+    private OpenSearchClient ingestClient;
+    
+    @Autowired
+    private OpenSearchGuard guard;
+    
+    @Autowired
+    private IngestBulkhead ingestBulkhead;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Extra time the client waits past a search timeout so OpenSearch can still return its partial results
+    private static final long DEADLINE_GRACE_MS = 500;
+    
     // Executes a search query against OpenSearch with full parameter control
     public SearchResponse<Map<String, Object>> executeSearch(String indexPattern, Query query, Integer size, String[] sourceFields, String sortField, SortOrder sortOrder) throws IOException {
+        return executeSearch(indexPattern, query, size, sourceFields, sortField, sortOrder, null);
+    }
+    
+    // Same as above but bounded by a time budget: OpenSearch stops collecting after the timeout and returns what it has
+    // (timedOut=true), and the client abandons the request shortly after if no response arrives at all.
+    public SearchResponse<Map<String, Object>> executeSearch(String indexPattern, Query query, Integer size, String[] sourceFields, String sortField, SortOrder sortOrder, Duration timeout) throws IOException {
+        return executeSearch(indexPattern, query, size, sourceFields, sortField, sortOrder, timeout, null);
+    }
+    
+    // Same as above, only asking the shards that hold the given routing value (null asks all shards)
+    public SearchResponse<Map<String, Object>> executeSearch(String indexPattern, Query query, Integer size, String[] sourceFields, String sortField, SortOrder sortOrder, Duration timeout, String routing) throws IOException {
         SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
             .index(indexPattern)
             .query(query);
         
+        if (routing != null) {
+            searchBuilder.routing(routing);
+        }
+        
         // Apply size limit if specified
         if (size != null) {
             searchBuilder.size(size);
@@ -43,6 +106,203 @@ public class OpenSearchClientService {
         @SuppressWarnings("unchecked")
         Class<Map<String, Object>> mapClass = (Class<Map<String, Object>>) (Class<?>) Map.class;
         
-        return client.search(searchBuilder.build(), mapClass);
+        // Server side time limit
+        if (timeout != null) {
+            searchBuilder.timeout(timeout.toMillis() + "ms");
+        }
+        
+        SearchRequest searchRequest = searchBuilder.build();
+        OpenSearchClient searchClient = timeout != null ? client.withTransportOptions(deadlineOptions(timeout)) : client;
+        return timed("stone.opensearch.search", indexPattern, () -> guard.execute("search", () -> searchClient.search(searchRequest, mapClass)));
+    }
+    
+    // Searches several index patterns in one request, days without an index are simply empty
+    public SearchResponse<Map<String, Object>> executeSearch(List<String> indexPatterns, Query query, Integer size, String[] sourceFields, String sortField, SortOrder sortOrder) throws IOException {
+        return executeSearch(indexPatterns, query, size, sourceFields, sortField, sortOrder, null);
+    }
+    
+    // Same as above for a sort field some of the indices don't map yet: those sort as unmappedSortType instead of
+    // failing their shards (null requires the field everywhere)
+    public SearchResponse<Map<String, Object>> executeSearch(List<String> indexPatterns, Query query, Integer size, String[] sourceFields, String sortField, SortOrder sortOrder, FieldType unmappedSortType) throws IOException {
+        SearchRequest searchRequest = new SearchRequest.Builder()
+            .index(indexPatterns)
+            .query(query)
+            .size(size)
+            .ignoreUnavailable(true)
+            .allowNoIndices(true)
+            .source(s -> s.filter(f -> f.includes(java.util.Arrays.asList(sourceFields))))
+            .sort(sort -> sort.field(f -> f.field(sortField).order(sortOrder).unmappedType(unmappedSortType)))
+            .build();
+        
+        //casting due to type erasure
+        @SuppressWarnings("unchecked")
+        Class<Map<String, Object>> mapClass = (Class<Map<String, Object>>) (Class<?>) Map.class;
+        
+        // Index tag must stay present for the registry, a range of days is tagged as a whole
+        String indexTag = indexPatterns.size() == 1 ? indexPatterns.get(0) : IndexAgeTag.RANGE;
+        return timed("stone.opensearch.search", indexTag, () -> guard.execute("search", () -> client.search(searchRequest, mapClass)));
+    }
+    
+    // Executes an aggregation-only search (no hits returned) across several index patterns in one request
+    public SearchResponse<Map<String, Object>> executeAggregation(List<String> indexPatterns, Query query, Map<String, Aggregation> aggregations) throws IOException {
+        return executeAggregation(indexPatterns, query, aggregations, null);
+    }
+    
+    // Same as above, only asking the shards that hold the given routing value (null asks all shards)
+    public SearchResponse<Map<String, Object>> executeAggregation(List<String> indexPatterns, Query query, Map<String, Aggregation> aggregations, String routing) throws IOException {
+        SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
+            .index(indexPatterns)
+            .query(query)
+            .size(0)                    // Only the aggregation buckets are needed
+            .ignoreUnavailable(true)    // Days without an index are simply empty
+            .allowNoIndices(true)
+            .aggregations(aggregations);
+        if (routing != null) {
+            searchBuilder.routing(routing);
+        }
+        SearchRequest searchRequest = searchBuilder.build();
+        
+        //casting due to type erasure
+        @SuppressWarnings("unchecked")
+        Class<Map<String, Object>> mapClass = (Class<Map<String, Object>>) (Class<?>) Map.class;
+        
+        return timed("stone.opensearch.aggregation", null, () -> guard.execute("aggregation", () -> client.search(searchRequest, mapClass)));
+    }
+    
+    // Reads document stats (count, deleted) per index and the sequence numbers of every shard copy, for the indices
+    // matching one pattern
+    public IndicesStatsResponse getShardStats(String indexPattern) throws IOException {
+        return guard.execute("index stats", () -> client.indices().stats(s -> s
+            .index(indexPattern)
+            .metric(IndicesStatsMetric.Docs)
+            .level(Level.Shards)
+        ));
+    }
+    
+    // Sends a bulk request on the ingest connection pool behind the ingest bulkhead, item level errors are left to the caller
+    public BulkResponse executeBulk(BulkRequest bulkRequest) throws IOException {
+        return timed("stone.opensearch.bulk", null, () -> ingestBulkhead.execute("bulk", () -> ingestClient.bulk(bulkRequest)));
+    }
+    
+    // Opens a scroll over the indices and returns its first page in _doc order. With sliceMax > 1 only slice sliceId of
+    // the documents is scrolled, so several scrolls can read the same indices in parallel.
+    public SearchResponse<Map<String, Object>> openScroll(List<String> indexPatterns, Query query, int pageSize, int sliceId, int sliceMax, String keepAlive) throws IOException {
+        SearchRequest.Builder searchBuilder = new SearchRequest.Builder()
+            .index(indexPatterns)
+            .query(query)
+            .size(pageSize)
+            .ignoreUnavailable(true)    // Days without an index are simply empty
+            .allowNoIndices(true)
+            .scroll(Time.of(t -> t.time(keepAlive)))
+            .sort(sort -> sort.field(f -> f.field("_doc")));  // Cheapest order, no scoring or sorting work
+        
+        if (sliceMax > 1) {
+            searchBuilder.slice(slice -> slice.id(sliceId).max(sliceMax));
+        }
+        
+        //casting due to type erasure
+        @SuppressWarnings("unchecked")
+        Class<Map<String, Object>> mapClass = (Class<Map<String, Object>>) (Class<?>) Map.class;
+        
+        SearchRequest searchRequest = searchBuilder.build();
+        return timed("stone.opensearch.scroll", null, () -> guard.execute("scroll", () -> client.search(searchRequest, mapClass)));
+    }
+    
+    // Next page of an open scroll, also extends its keep-alive
+    public SearchResponse<Map<String, Object>> continueScroll(String scrollId, String keepAlive) throws IOException {
+        //casting due to type erasure
+        @SuppressWarnings("unchecked")
+        Class<Map<String, Object>> mapClass = (Class<Map<String, Object>>) (Class<?>) Map.class;
+        
+        ScrollRequest scrollRequest = ScrollRequest.of(r -> r.scrollId(scrollId).scroll(Time.of(t -> t.time(keepAlive))));
+        return timed("stone.opensearch.scroll", null, () -> guard.execute("scroll", () -> client.scroll(scrollRequest, mapClass)));
+    }
+    
+    // Frees the scroll's search context right away instead of waiting for the keep-alive to lapse. Best effort
+    public void clearScroll(String scrollId) {
+        try {
+            client.clearScroll(c -> c.scrollId(scrollId));
+        } catch (Exception e) {
+            System.out.println("Could not clear scroll: " + e.getMessage());
+        }
+    }
+    
+    // Concrete indices matching a pattern, aliases are not listed
+    public List<String> listIndices(String indexPattern) throws IOException {
+        IndicesResponse response = guard.execute("cat indices", () -> client.cat().indices(r -> r.index(indexPattern)));
+        return response.valueBody().stream().map(IndicesRecord::index).toList();
+    }
+    
+    public boolean indexExists(String index) throws IOException {
+        return guard.execute("index exists", () -> client.indices().exists(e -> e.index(index)).value());
+    }
+    
+    public void createIndex(CreateIndexRequest request) throws IOException {
+        guard.execute("create index", () -> client.indices().create(request));
+    }
+    
+    // Starts a reindex as a background task on the cluster and returns the task id, poll it with getTask
+    public String startReindex(ReindexRequest request) throws IOException {
+        ReindexResponse response = guard.execute("reindex", () -> client.reindex(request));
+        return response.task();
+    }
+    
+    public GetTasksResponse getTask(String taskId) throws IOException {
+        return guard.execute("task status", () -> client.tasks().get(t -> t.taskId(taskId)));
+    }
+    
+    public long count(String index, Query query) throws IOException {
+        return guard.execute("count", () -> client.count(c -> c.index(index).query(query))).count();
+    }
+    
+    // Merges an index down to maxSegments segments, waiting up to timeout. Runs outside the guard: a merge takes
+    // minutes by design, feeding that to the limiter as latency would shed the interactive traffic for nothing.
+    public void forceMerge(String index, long maxSegments, Duration timeout) throws IOException {
+        client.withTransportOptions(deadlineOptions(timeout)).indices()
+            .forcemerge(f -> f.index(index).maxNumSegments(maxSegments));
+    }
+    
+    // Applies index settings (blocks, visibility) to the given indices
+    public void updateSettings(List<String> indices, IndexSettings settings) throws IOException {
+        guard.execute("update settings", () -> client.indices().putSettings(p -> p.index(indices).settings(settings)));
+    }
+    
+    // Applies all alias actions in one atomic cluster state update
+    public void updateAliases(List<Action> actions) throws IOException {
+        guard.execute("update aliases", () -> client.indices().updateAliases(u -> u.actions(actions)));
+    }
+    
+    // Records the round trip in a Micrometer timer tagged with its outcome (and index age when given),
+    // and in the per-request stage breakdown when one is being collected
+    private <T> T timed(String metricName, String index, OpenSearchGuard.OpenSearchCall<T> call) throws IOException {
+        long startTime = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = call.execute();
+            outcome = result instanceof SearchResponse<?> response && Boolean.TRUE.equals(response.timedOut()) ? "timed_out" : "success";
+            return result;
+        } catch (OpenSearchOverloadedException e) {
+            outcome = "shed";
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - startTime;
+            Timer.Builder timer = Timer.builder(metricName).tag("outcome", outcome);
+            if (index != null) {
+                // Age bucket of the day, not the index name: one series per daily index would grow forever
+                timer.tag("index_age", IndexAgeTag.of(index));
+            }
+            timer.register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+            RequestStageTimer.record("opensearch", elapsed);
+        }
+    }
+    
+    // Client side cutoff, replaces the default request config for this call only
+    private ApacheHttpClient5Options deadlineOptions(Duration timeout) {
+        Timeout cutoff = Timeout.ofMilliseconds(timeout.toMillis() + DEADLINE_GRACE_MS);
+        RequestConfig requestConfig = RequestConfig.custom()
+            .setConnectionRequestTimeout(cutoff)
+            .setResponseTimeout(cutoff)
+            .build();
+        return ApacheHttpClient5Options.DEFAULT.toBuilder().setRequestConfig(requestConfig).build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,171 @@
+package com.cap.stone.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.opensearch.client.opensearch._types.OpenSearchException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.cap.stone.util.AdaptiveConcurrencyLimiter;
+import com.cap.stone.util.CircuitBreaker;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Admission control in front of every OpenSearch call: a circuit breaker that fails fast while the cluster is erroring,
+// and an adaptive concurrency limit that sheds load when latency climbs instead of queuing until timeouts.
+@Component
+public class OpenSearchGuard {
+
+    // A single OpenSearch round trip
+    @FunctionalInterface
+    public interface OpenSearchCall<T> {
+        T execute() throws IOException;
+    }
+
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final CircuitBreaker circuitBreaker;
+
+    private final AtomicLong acceptedCalls = new AtomicLong();
+    private final AtomicLong failedCalls = new AtomicLong();
+    private final AtomicLong shedByLimiter = new AtomicLong();
+    private final AtomicLong shedByCircuitBreaker = new AtomicLong();
+
+    public OpenSearchGuard(
+            @Value("${stone.opensearch-guard.initial-limit:20}") int initialLimit,
+            @Value("${stone.opensearch-guard.min-limit:2}") int minLimit,
+            @Value("${stone.opensearch-guard.max-limit:60}") int maxLimit,
+            @Value("${stone.opensearch-guard.backoff-ratio:0.9}") double backoffRatio,
+            @Value("${stone.opensearch-guard.latency-threshold-ms:5000}") long latencyThresholdMs,
+            @Value("${stone.opensearch-guard.breaker-window-size:50}") int breakerWindowSize,
+            @Value("${stone.opensearch-guard.breaker-minimum-calls:10}") int breakerMinimumCalls,
+            @Value("${stone.opensearch-guard.breaker-failure-rate:0.5}") double breakerFailureRate,
+            @Value("${stone.opensearch-guard.breaker-open-ms:15000}") long breakerOpenMs,
+            MeterRegistry meterRegistry) {
+        this.limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, backoffRatio, latencyThresholdMs);
+        this.circuitBreaker = new CircuitBreaker(breakerWindowSize, breakerMinimumCalls, breakerFailureRate, breakerOpenMs);
+        registerMeters(meterRegistry);
+    }
+    
+    // Same numbers as getMetrics(), in the Prometheus scrape
+    private void registerMeters(MeterRegistry meterRegistry) {
+        Gauge.builder("stone.opensearch.guard.limit", limiter, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("stone.opensearch.guard.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+        Gauge.builder("stone.opensearch.guard.circuit_open", circuitBreaker,
+            breaker -> breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1).register(meterRegistry);
+        Gauge.builder("stone.opensearch.guard.failure_rate", circuitBreaker, CircuitBreaker::getFailureRate).register(meterRegistry);
+        FunctionCounter.builder("stone.opensearch.guard.calls", acceptedCalls, AtomicLong::get)
+            .tag("result", "accepted").register(meterRegistry);
+        FunctionCounter.builder("stone.opensearch.guard.calls", failedCalls, AtomicLong::get)
+            .tag("result", "failed").register(meterRegistry);
+        FunctionCounter.builder("stone.opensearch.guard.calls", shedByLimiter, AtomicLong::get)
+            .tag("result", "shed_limiter").register(meterRegistry);
+        FunctionCounter.builder("stone.opensearch.guard.calls", shedByCircuitBreaker, AtomicLong::get)
+            .tag("result", "shed_circuit_breaker").register(meterRegistry);
+    }
+
+    // Runs the call if both the breaker and the limiter admit it, otherwise throws OpenSearchOverloadedException
+    public <T> T execute(String operation, OpenSearchCall<T> call) throws IOException {
+        if (!circuitBreaker.tryAcquire()) {
+            shedByCircuitBreaker.incrementAndGet();
+            throw new OpenSearchOverloadedException("OpenSearch is unavailable, " + operation
+                + " rejected while the circuit breaker is open (retry in " + circuitBreaker.getRemainingOpenMs() / 1000 + "s)");
+        }
+        if (!limiter.tryAcquire()) {
+            // The breaker permit goes unused, hand a half-open probe slot back
+            circuitBreaker.onIgnored();
+            shedByLimiter.incrementAndGet();
+            throw new OpenSearchOverloadedException("OpenSearch is overloaded, " + operation
+                + " rejected at concurrency limit " + limiter.getLimit());
+        }
+
+        acceptedCalls.incrementAndGet();
+        long startTime = System.nanoTime();
+        try {
+            T result = call.execute();
+            limiter.onSuccess(System.nanoTime() - startTime);
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (IOException e) {
+            // Connection errors and timeouts are the overload signal
+            failedCalls.incrementAndGet();
+            limiter.onDropped();
+            circuitBreaker.onFailure();
+            throw e;
+        } catch (OpenSearchException e) {
+            if (signalsOverload(e)) {
+                failedCalls.incrementAndGet();
+                limiter.onDropped();
+                circuitBreaker.onFailure();
+            } else {
+                // Bad requests say nothing about cluster health
+                limiter.onIgnored();
+                circuitBreaker.onSuccess();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            limiter.onIgnored();
+            circuitBreaker.onSuccess();
+            throw e;
+        }
+    }
+
+    // Bulk ingest skips the concurrency limit: its multi-second round trips would back the limit off and shed the
+    // dashboard queries it is sized for. Ingest has its own bulkhead, only the circuit breaker applies here.
+    public <T> T executeIngest(String operation, OpenSearchCall<T> call) throws IOException {
+        if (!circuitBreaker.tryAcquire()) {
+            shedByCircuitBreaker.incrementAndGet();
+            throw new OpenSearchOverloadedException("OpenSearch is unavailable, " + operation
+                + " rejected while the circuit breaker is open (retry in " + circuitBreaker.getRemainingOpenMs() / 1000 + "s)");
+        }
+
+        acceptedCalls.incrementAndGet();
+        try {
+            T result = call.execute();
+            circuitBreaker.onSuccess();
+            return result;
+        } catch (IOException e) {
+            failedCalls.incrementAndGet();
+            circuitBreaker.onFailure();
+            throw e;
+        } catch (OpenSearchException e) {
+            if (signalsOverload(e)) {
+                failedCalls.incrementAndGet();
+                circuitBreaker.onFailure();
+            } else {
+                circuitBreaker.onSuccess();
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            circuitBreaker.onSuccess();
+            throw e;
+        }
+    }
+
+    // Server errors, and 429 (es_rejected_execution_exception): a thread pool queue of the cluster rejecting work
+    private static boolean signalsOverload(OpenSearchException e) {
+        return e.status() >= 500 || e.status() == 429;
+    }
+
+    // Share of the concurrency limit the guarded (query) calls currently use, 1.0 when at the limit
+    public double getQueryLoad() {
+        return (double) limiter.getInFlight() / Math.max(1, limiter.getLimit());
+    }
+
+    // Current limiter and breaker state with counters since startup
+    public Map<String, Object> getMetrics() {
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("concurrencyLimit", limiter.getLimit());
+        metrics.put("inFlight", limiter.getInFlight());
+        metrics.put("circuitState", circuitBreaker.getState().name());
+        metrics.put("failureRate", circuitBreaker.getFailureRate());
+        metrics.put("acceptedCalls", acceptedCalls.get());
+        metrics.put("failedCalls", failedCalls.get());
+        metrics.put("shedByLimiter", shedByLimiter.get());
+        metrics.put("shedByCircuitBreaker", shedByCircuitBreaker.get());
+        return metrics;
+    }
+}
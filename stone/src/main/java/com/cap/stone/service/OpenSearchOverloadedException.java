@@ -0,0 +1,12 @@
+package com.cap.stone.service;
+
+import java.io.IOException;
+
+// Thrown when a request to OpenSearch is shed before being sent, either because the concurrency limit is reached
+// or because the circuit breaker is open. Extends IOException so existing error handling keeps working.
+public class OpenSearchOverloadedException extends IOException {
+
+    public OpenSearchOverloadedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,43 @@
+package com.cap.stone.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+// Keeps the rejected records of the most recent lenient imports in memory until they are downloaded from
+// /api/import/rejected/{id}. Bounded both in imports and in records per import, the oldest import goes first.
+@Service
+public class RejectedRecordStore {
+
+    @Value("${stone.import.rejected.max-imports:20}")
+    private int maxImports;
+
+    @Value("${stone.import.rejected.max-records:10000}")
+    private int maxRecords;
+
+    private final Map<String, List<Map<String, Object>>> imports = new LinkedHashMap<>();
+
+    public int getMaxRecords() {
+        return maxRecords;
+    }
+
+    // Stores the lines of one import's rejected records file and returns the id to download it by
+    public synchronized String save(List<Map<String, Object>> lines) {
+        String id = UUID.randomUUID().toString();
+        imports.put(id, new ArrayList<>(lines.subList(0, Math.min(lines.size(), maxRecords))));
+        while (imports.size() > Math.max(1, maxImports)) {
+            imports.remove(imports.keySet().iterator().next());
+        }
+        return id;
+    }
+
+    // Lines of a stored import, null when the id is unknown or has been dropped
+    public synchronized List<Map<String, Object>> get(String id) {
+        return imports.get(id);
+    }
+}
@@ -0,0 +1,71 @@
+package com.cap.stone.util;
+
+// AIMD concurrency limit: grows by one while requests come back fast and the limit is actually in use,
+// shrinks multiplicatively when a request is slow or fails. Callers over the limit are rejected, not queued.
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+
+    private double limit;
+    private int inFlight;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double backoffRatio, long latencyThresholdMs) {
+        if (minLimit < 1 || maxLimit < minLimit || initialLimit < minLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max");
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1");
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = latencyThresholdMs * 1_000_000L;
+        this.limit = initialLimit;
+    }
+
+    // Takes a slot if one is free, every successful acquire must be followed by onSuccess or onDropped
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= (int) limit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    // Releases the slot and feeds the observed latency into the limit
+    public synchronized void onSuccess(long latencyNanos) {
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (inFlight * 2 >= limit) {
+            // Only grow when the current limit is at least half used, idle periods say nothing about capacity
+            limit = Math.min(maxLimit, limit + 1);
+        }
+        inFlight--;
+    }
+
+    // Releases the slot after a failed or timed out request
+    public synchronized void onDropped() {
+        decrease();
+        inFlight--;
+    }
+
+    // Releases the slot without touching the limit, for outcomes that say nothing about cluster load
+    public synchronized void onIgnored() {
+        inFlight--;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    private void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
@@ -0,0 +1,23 @@
+package com.cap.stone.util;
+
+// How much of each bucket the timeseries carries
+public enum AnalyticsDetail {
+    // Sample sessions and the full community ID and sid lists of every bucket
+    FULL,
+    // Counts and the top community IDs and sids only, samples are fetched per day from /api/sessions/samples
+    SUMMARY;
+
+    // Parses the request parameter. Returns null for unknown values.
+    public static AnalyticsDetail fromParam(String value) {
+        for (AnalyticsDetail detail : values()) {
+            if (detail.name().equalsIgnoreCase(value)) {
+                return detail;
+            }
+        }
+        return null;
+    }
+
+    public String toParam() {
+        return name().toLowerCase();
+    }
+}
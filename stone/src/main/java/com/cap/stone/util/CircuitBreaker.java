@@ -0,0 +1,140 @@
+package com.cap.stone.util;
+
+import java.util.function.LongSupplier;
+
+// Count-based circuit breaker. Opens when the failure rate over the last windowSize calls reaches the threshold,
+// rejects everything while open, then lets a single probe through; the probe's outcome closes or re-opens it.
+public class CircuitBreaker {
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationMs;
+    private final LongSupplier clock;
+
+    // Ring buffer of recent outcomes, true = failure
+    private final boolean[] outcomes;
+    private int recordedCalls;
+    private int nextSlot;
+    private int failures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openDurationMs) {
+        this(windowSize, minimumCalls, failureRateThreshold, openDurationMs, System::currentTimeMillis);
+    }
+
+    // Clock is injectable so tests can move time forward
+    public CircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold, long openDurationMs, LongSupplier clock) {
+        if (windowSize < 1 || minimumCalls < 1 || minimumCalls > windowSize) {
+            throw new IllegalArgumentException("Window must satisfy 1 <= minimumCalls <= windowSize");
+        }
+        if (failureRateThreshold <= 0 || failureRateThreshold > 1) {
+            throw new IllegalArgumentException("failureRateThreshold must be in (0, 1]");
+        }
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationMs = openDurationMs;
+        this.clock = clock;
+        this.outcomes = new boolean[windowSize];
+    }
+
+    // Returns whether a call may proceed, every permitted call must report onSuccess or onFailure
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openDurationMs) {
+                return false;
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (probeInFlight) {
+                return false;
+            }
+            probeInFlight = true;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            // Cluster answered again, start over with a clean window
+            probeInFlight = false;
+            state = State.CLOSED;
+            resetWindow();
+            return;
+        }
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+            open();
+            return;
+        }
+        record(true);
+        if (recordedCalls >= minimumCalls && (double) failures / recordedCalls >= failureRateThreshold) {
+            open();
+        }
+    }
+
+    // Returns a permit without an outcome, e.g. when the call was never sent
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN) {
+            probeInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        // Report the half-open transition even if nobody asked for a permit yet
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationMs) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public synchronized double getFailureRate() {
+        return recordedCalls == 0 ? 0.0 : (double) failures / recordedCalls;
+    }
+
+    // Milliseconds until an open breaker lets the next probe through, 0 when not open
+    public synchronized long getRemainingOpenMs() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openDurationMs - (clock.getAsLong() - openedAt));
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == windowSize) {
+            if (outcomes[nextSlot]) {
+                failures--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        outcomes[nextSlot] = failure;
+        if (failure) {
+            failures++;
+        }
+        nextSlot = (nextSlot + 1) % windowSize;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        recordedCalls = 0;
+        nextSlot = 0;
+        failures = 0;
+    }
+}
@@ -0,0 +1,77 @@
+package com.cap.stone.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// How many daily session indices are merged into one consolidated index. Consolidated names keep the daily prefix
+// with a period marker, e.g. arkime_sessions3-m2508 or arkime_sessions3-w250818 (week starting Monday 2025-08-18),
+// which the daily index patterns (arkime_sessions*-yyMMdd) never match.
+public enum ConsolidationPeriod {
+    WEEK,
+    MONTH;
+
+    private static final DateTimeFormatter DAY_FORMATTER = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final DateTimeFormatter MONTH_FORMATTER = DateTimeFormatter.ofPattern("yyMM");
+    // prefix-yyMMdd, the name Arkime gives a daily index
+    private static final Pattern DAILY_INDEX = Pattern.compile("(arkime_sessions[^,*]*)-(\\d{6})");
+
+    // Parses the configuration value, null for unknown values
+    public static ConsolidationPeriod fromParam(String value) {
+        for (ConsolidationPeriod period : values()) {
+            if (period.name().equalsIgnoreCase(value)) {
+                return period;
+            }
+        }
+        return null;
+    }
+
+    // UTC day of a daily index name, null when the name is not a daily index
+    public static LocalDate dailyIndexDate(String indexName) {
+        Matcher matcher = DAILY_INDEX.matcher(indexName);
+        if (!matcher.matches()) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(matcher.group(2), DAY_FORMATTER);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    // Name prefix of a daily index (arkime_sessions3 for arkime_sessions3-250821), null when not a daily index
+    public static String dailyIndexPrefix(String indexName) {
+        Matcher matcher = DAILY_INDEX.matcher(indexName);
+        return matcher.matches() ? matcher.group(1) : null;
+    }
+
+    public LocalDate periodStart(LocalDate date) {
+        return switch (this) {
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    // Last day of the period containing date (inclusive)
+    public LocalDate periodEnd(LocalDate date) {
+        return switch (this) {
+            case WEEK -> periodStart(date).plusDays(6);
+            case MONTH -> date.with(TemporalAdjusters.lastDayOfMonth());
+        };
+    }
+
+    // Consolidated index receiving the daily index of date
+    public String targetIndex(String prefix, LocalDate date) {
+        return switch (this) {
+            case WEEK -> prefix + "-w" + periodStart(date).format(DAY_FORMATTER);
+            case MONTH -> prefix + "-m" + date.format(MONTH_FORMATTER);
+        };
+    }
+
+    public String toParam() {
+        return name().toLowerCase();
+    }
+}
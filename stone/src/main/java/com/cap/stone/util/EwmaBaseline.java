@@ -0,0 +1,43 @@
+package com.cap.stone.util;
+
+// Rolling baseline of one daily series: exponentially weighted mean and variance, updated one day at a time.
+// alpha is the weight of the newest day, a higher alpha forgets faster.
+public class EwmaBaseline {
+
+    private double mean;
+    private double variance;
+    private int days;
+
+    // Folds one day's value into the baseline (incremental form, no history kept)
+    public void update(double value, double alpha) {
+        if (days == 0) {
+            mean = value;
+            variance = 0;
+        } else {
+            double diff = value - mean;
+            double increment = alpha * diff;
+            mean += increment;
+            variance = (1 - alpha) * (variance + diff * increment);
+        }
+        days++;
+    }
+
+    // How many standard deviations value lies above the baseline. The deviation is floored at minStdDev so a series
+    // that has been flat (or has never been seen) doesn't turn every small change into an infinite score.
+    public double zScore(double value, double minStdDev) {
+        return (value - mean) / Math.max(getStdDev(), minStdDev);
+    }
+
+    public double getMean() {
+        return mean;
+    }
+
+    public double getStdDev() {
+        return Math.sqrt(variance);
+    }
+
+    // Days folded into the baseline so far
+    public int getDays() {
+        return days;
+    }
+}
@@ -0,0 +1,38 @@
+package com.cap.stone.util;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+// Runs tasks on a fixed-size executor, admitted per owner through a FairBulkhead with one permit per thread. Callers
+// wait for their owner's turn instead of in the executor's FIFO queue, so one owner submitting more tasks than there
+// are threads can't make everyone else wait behind its backlog.
+public class FairAdmissionExecutor {
+
+    private final FairBulkhead slots;
+    private final ExecutorService executor;
+
+    // threads must match the executor's pool size, a task then always finds an idle thread once admitted
+    public FairAdmissionExecutor(ExecutorService executor, int threads) {
+        this.executor = executor;
+        this.slots = new FairBulkhead(threads);
+    }
+
+    // Blocks the caller until owner's turn and the task are done
+    public <T> T call(String owner, Supplier<T> task) throws InterruptedException {
+        slots.acquire(owner);
+        try {
+            return CompletableFuture.supplyAsync(task, executor).join();
+        } finally {
+            slots.release(owner);
+        }
+    }
+
+    public int getWaitingOwners() {
+        return slots.getWaitingOwners();
+    }
+
+    public int getInUse() {
+        return slots.getInUse();
+    }
+}
@@ -0,0 +1,130 @@
+package com.cap.stone.util;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Bounded number of concurrent calls, handed out between owners when callers have to wait: a free permit goes to the
+// waiting owner with the fewest calls running, round-robin among equals. An owner with many queued calls gets one
+// permit per turn like everyone else, and one already holding most permits waits for the others, so it can't starve a
+// smaller one.
+public class FairBulkhead {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final int permits;
+    private int available;
+
+    // Waiters per owner, the owner served last moves to the back
+    private final LinkedHashMap<String, Deque<Waiter>> waiting = new LinkedHashMap<>();
+    // Permits held per owner
+    private final Map<String, Integer> running = new HashMap<>();
+
+    private static final class Waiter {
+        private final Condition granted;
+        private boolean admitted;
+
+        private Waiter(Condition granted) {
+            this.granted = granted;
+        }
+    }
+
+    public FairBulkhead(int permits) {
+        this.permits = Math.max(1, permits);
+        this.available = this.permits;
+    }
+
+    // Blocks until owner gets a permit. Every acquire must be paired with a release.
+    public void acquire(String owner) throws InterruptedException {
+        lock.lock();
+        try {
+            if (available > 0 && waiting.isEmpty()) {
+                available--;
+                running.merge(owner, 1, Integer::sum);
+                return;
+            }
+            Waiter waiter = new Waiter(lock.newCondition());
+            waiting.computeIfAbsent(owner, key -> new ArrayDeque<>()).add(waiter);
+            try {
+                while (!waiter.admitted) {
+                    waiter.granted.await();
+                }
+            } catch (InterruptedException e) {
+                if (waiter.admitted) {
+                    // Granted in the meantime, pass it on
+                    release(owner);
+                } else {
+                    Deque<Waiter> queue = waiting.get(owner);
+                    queue.remove(waiter);
+                    if (queue.isEmpty()) {
+                        waiting.remove(owner);
+                    }
+                }
+                throw e;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Returns a permit owner acquired
+    public void release(String owner) {
+        lock.lock();
+        try {
+            available = Math.min(permits, available + 1);
+            running.computeIfPresent(owner, (key, count) -> count > 1 ? count - 1 : null);
+            dispatch();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Owners with a call waiting
+    public int getWaitingOwners() {
+        lock.lock();
+        try {
+            return waiting.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInUse() {
+        lock.lock();
+        try {
+            return permits - available;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Hands free permits to the waiting owners with the fewest running calls, in turn among equals, lock held
+    private void dispatch() {
+        while (available > 0 && !waiting.isEmpty()) {
+            Map.Entry<String, Deque<Waiter>> next = null;
+            for (Map.Entry<String, Deque<Waiter>> candidate : waiting.entrySet()) {
+                if (next == null || runningCalls(candidate.getKey()) < runningCalls(next.getKey())) {
+                    next = candidate;
+                }
+            }
+            String owner = next.getKey();
+            Deque<Waiter> queue = next.getValue();
+            Waiter waiter = queue.poll();
+            waiting.remove(owner);
+            if (!queue.isEmpty()) {
+                waiting.put(owner, queue);
+            }
+            available--;
+            running.merge(owner, 1, Integer::sum);
+            waiter.admitted = true;
+            waiter.granted.signal();
+        }
+    }
+
+    private int runningCalls(String owner) {
+        return running.getOrDefault(owner, 0);
+    }
+}
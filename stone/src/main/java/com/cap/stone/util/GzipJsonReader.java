@@ -1,18 +1,141 @@
 package com.cap.stone.util;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.MappingIterator;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.zip.ZipException;
 
 //reading and parsing compressed JSON data from uploaded files.
 public class GzipJsonReader {
 
+    private static final String TRUNCATED = "Truncated or corrupt compressed data, rest of the file skipped";
+
+    // Documents that were read, and the records that were skipped on the way
+    public record LenientResult(List<Map<String, Object>> documents, List<RejectedRecord> rejected) {}
+
     public static List<Map<String, Object>> readGzipJsonStream(InputStream inputStream) throws IOException {
         ObjectMapper objectMapper = new ObjectMapper();
         return objectMapper.readValue(inputStream, new TypeReference<List<Map<String, Object>>>() {});
     }
+
+    // Newline-delimited variant, one JSON object per line (the shape the session export writes)
+    public static List<Map<String, Object>> readNdjsonStream(InputStream inputStream) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        try (MappingIterator<Map<String, Object>> documents = objectMapper
+                .readerFor(new TypeReference<Map<String, Object>>() {})
+                .readValues(inputStream)) {
+            return documents.readAll();
+        }
+    }
+
+    // Lenient JSON array read: elements that are not objects or that the validator rejects (it returns a reason, null
+    // when the document is fine) are skipped and recorded with their byte offset. A syntax error can't be resynchronised
+    // inside an array, so it ends the read, as does a truncated gzip tail, keeping everything read up to that point.
+    public static LenientResult readGzipJsonStreamLenient(InputStream inputStream,
+                                                          Function<Map<String, Object>, String> validator) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Map<String, Object>> documents = new ArrayList<>();
+        List<RejectedRecord> rejected = new ArrayList<>();
+
+        try (JsonParser parser = objectMapper.createParser(inputStream)) {
+            long elementOffset = 0;
+            try {
+                if (parser.nextToken() != JsonToken.START_ARRAY) {
+                    rejected.add(new RejectedRecord(0L, "Not a JSON array, file skipped", null));
+                    return new LenientResult(documents, rejected);
+                }
+                while (parser.nextToken() != JsonToken.END_ARRAY) {
+                    elementOffset = parser.currentTokenLocation().getByteOffset();
+                    accept(objectMapper.readValue(parser, Object.class), elementOffset, validator, documents, rejected);
+                }
+            } catch (JsonProcessingException e) {
+                rejected.add(new RejectedRecord(elementOffset,
+                    "Malformed JSON, rest of the file skipped: " + e.getOriginalMessage(), null));
+            } catch (EOFException | ZipException e) {
+                rejected.add(new RejectedRecord(elementOffset, TRUNCATED, null));
+            }
+        }
+        return new LenientResult(documents, rejected);
+    }
+
+    // Lenient NDJSON read: every line stands on its own, so a malformed line is skipped (kept as raw text) and reading
+    // continues with the next one. A truncated gzip tail ends the read, keeping every complete line before it.
+    public static LenientResult readNdjsonStreamLenient(InputStream inputStream,
+                                                        Function<Map<String, Object>, String> validator) throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Map<String, Object>> documents = new ArrayList<>();
+        List<RejectedRecord> rejected = new ArrayList<>();
+
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        long position = 0;
+        long lineStart = 0;
+        try {
+            int read;
+            while ((read = inputStream.read(buffer)) != -1) {
+                int from = 0;
+                for (int i = 0; i < read; i++) {
+                    if (buffer[i] == '\n') {
+                        line.write(buffer, from, i - from);
+                        acceptLine(objectMapper, line, lineStart, validator, documents, rejected);
+                        line.reset();
+                        from = i + 1;
+                        lineStart = position + from;
+                    }
+                }
+                line.write(buffer, from, read - from);
+                position += read;
+            }
+            // Last line without a trailing newline
+            acceptLine(objectMapper, line, lineStart, validator, documents, rejected);
+        } catch (EOFException | ZipException e) {
+            // The partial last line still counts when it happens to be a complete object
+            acceptLine(objectMapper, line, lineStart, validator, documents, rejected);
+            rejected.add(new RejectedRecord(position, TRUNCATED, null));
+        }
+        return new LenientResult(documents, rejected);
+    }
+
+    private static void acceptLine(ObjectMapper objectMapper, ByteArrayOutputStream line, long offset,
+                                   Function<Map<String, Object>, String> validator,
+                                   List<Map<String, Object>> documents, List<RejectedRecord> rejected) {
+        String text = line.toString(StandardCharsets.UTF_8).strip();
+        if (text.isEmpty()) {
+            return;
+        }
+        try {
+            accept(objectMapper.readValue(text, Object.class), offset, validator, documents, rejected);
+        } catch (JsonProcessingException e) {
+            rejected.add(new RejectedRecord(offset, "Malformed JSON: " + e.getOriginalMessage(), text));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void accept(Object value, long offset, Function<Map<String, Object>, String> validator,
+                               List<Map<String, Object>> documents, List<RejectedRecord> rejected) {
+        if (!(value instanceof Map)) {
+            rejected.add(new RejectedRecord(offset, "Not a JSON object", value));
+            return;
+        }
+        Map<String, Object> document = (Map<String, Object>) value;
+        String reason = validator != null ? validator.apply(document) : null;
+        if (reason != null) {
+            rejected.add(new RejectedRecord(offset, reason, document));
+        } else {
+            documents.add(document);
+        }
+    }
 }
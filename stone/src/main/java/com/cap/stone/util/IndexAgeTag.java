@@ -0,0 +1,63 @@
+package com.cap.stone.util;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Metric tag value for a searched index: how old its day is rather than its name, so the tag stays a handful of
+// values while new daily indices keep appearing
+public final class IndexAgeTag {
+
+    // Several days or a wildcard over all of them in one request
+    public static final String RANGE = "range";
+    // Anything without a day suffix
+    public static final String OTHER = "other";
+
+    private static final Pattern DAILY_SUFFIX = Pattern.compile("-(\\d{6})$");
+    private static final DateTimeFormatter INDEX_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyMMdd");
+
+    private IndexAgeTag() {
+    }
+
+    // Daily indices are named after their UTC day
+    public static String of(String indexPattern) {
+        return of(indexPattern, LocalDate.now(ZoneOffset.UTC));
+    }
+
+    public static String of(String indexPattern, LocalDate today) {
+        if (indexPattern == null) {
+            return OTHER;
+        }
+        if (indexPattern.equals(RANGE)) {
+            return RANGE;
+        }
+        Matcher matcher = DAILY_SUFFIX.matcher(indexPattern);
+        if (!matcher.find()) {
+            return indexPattern.contains("*") ? RANGE : OTHER;
+        }
+        LocalDate day;
+        try {
+            day = LocalDate.parse(matcher.group(1), INDEX_DATE_FORMATTER);
+        } catch (DateTimeParseException e) {
+            return OTHER;
+        }
+        long ageDays = ChronoUnit.DAYS.between(day, today);
+        if (ageDays <= 0) {
+            return "today";
+        }
+        if (ageDays == 1) {
+            return "1d";
+        }
+        if (ageDays <= 7) {
+            return "2-7d";
+        }
+        if (ageDays <= 30) {
+            return "8-30d";
+        }
+        return "older";
+    }
+}
@@ -0,0 +1,132 @@
+package com.cap.stone.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+// A single IP address or CIDR block from a search filter, with what it takes to match it on either mapping of an ip field:
+// an ip-typed field takes the value as is (term understands CIDR there), a dynamically mapped keyword field needs exact
+// values or string prefixes. IPv4 blocks are widened to octet-aligned prefixes, e.g. 10.1.16.0/20 -> "10.1.16." .. "10.1.31.".
+public final class IpPattern {
+
+    // Loose IPv6 literal check, the cluster does the real parsing
+    private static final Pattern IPV6 = Pattern.compile("[0-9a-fA-F:.]+");
+
+    private final String value;
+    private final List<String> keywordValues;
+    private final List<String> keywordPrefixes;
+    private final boolean matchesAll;
+
+    private IpPattern(String value, List<String> keywordValues, List<String> keywordPrefixes, boolean matchesAll) {
+        this.value = value;
+        this.keywordValues = keywordValues;
+        this.keywordPrefixes = keywordPrefixes;
+        this.matchesAll = matchesAll;
+    }
+
+    // Throws IllegalArgumentException for anything that is not an IPv4/IPv6 address or block
+    public static IpPattern parse(String text) {
+        if (text == null || text.isBlank()) {
+            throw new IllegalArgumentException("Empty IP");
+        }
+        String trimmed = text.trim();
+        int slash = trimmed.indexOf('/');
+        String address = slash < 0 ? trimmed : trimmed.substring(0, slash);
+        Integer prefixLength = slash < 0 ? null : parsePrefixLength(trimmed.substring(slash + 1), trimmed);
+
+        int[] octets = parseIpv4(address);
+        if (octets != null) {
+            if (prefixLength == null || prefixLength == 32) {
+                return new IpPattern(address, List.of(address), List.of(), false);
+            }
+            if (prefixLength > 32) {
+                throw new IllegalArgumentException("Invalid CIDR prefix length: " + trimmed);
+            }
+            if (prefixLength == 0) {
+                return new IpPattern(trimmed, List.of(), List.of(), true);
+            }
+            return ipv4Block(trimmed, octets, prefixLength);
+        }
+
+        if (address.contains(":") && IPV6.matcher(address).matches()) {
+            if (prefixLength != null && prefixLength > 128) {
+                throw new IllegalArgumentException("Invalid CIDR prefix length: " + trimmed);
+            }
+            String normalized = address.toLowerCase(Locale.ROOT);
+            // IPv6 text forms vary (zero compression), keyword fields can only match the exact address as written
+            return prefixLength == null || prefixLength == 128
+                ? new IpPattern(normalized, List.of(normalized), List.of(), false)
+                : new IpPattern(trimmed.toLowerCase(Locale.ROOT), List.of(), List.of(), false);
+        }
+
+        throw new IllegalArgumentException("Invalid IP or CIDR: " + trimmed);
+    }
+
+    // Value for ip-typed fields, address or block as given
+    public String getValue() { return value; }
+    // Exact addresses to match on a keyword field
+    public List<String> getKeywordValues() { return keywordValues; }
+    // String prefixes to match on a keyword field (IPv4 blocks only)
+    public List<String> getKeywordPrefixes() { return keywordPrefixes; }
+    // /0, no filtering needed
+    public boolean matchesAll() { return matchesAll; }
+
+    private static IpPattern ipv4Block(String block, int[] octets, int prefixLength) {
+        long address = ((long) octets[0] << 24) | (octets[1] << 16) | (octets[2] << 8) | octets[3];
+        long mask = (0xFFFFFFFFL << (32 - prefixLength)) & 0xFFFFFFFFL;
+        long network = address & mask;
+
+        // Widen to the next octet boundary and enumerate every value of the partially fixed octet (at most 128)
+        int alignedLength = ((prefixLength + 7) / 8) * 8;
+        int alignedOctets = alignedLength / 8;
+        int variants = 1 << (alignedLength - prefixLength);
+
+        List<String> values = new ArrayList<>();
+        List<String> prefixes = new ArrayList<>();
+        for (int i = 0; i < variants; i++) {
+            long aligned = network + ((long) i << (32 - alignedLength));
+            StringBuilder text = new StringBuilder();
+            for (int octet = 0; octet < alignedOctets; octet++) {
+                text.append((aligned >> (24 - 8 * octet)) & 0xFF);
+                text.append(octet == 3 ? "" : ".");
+            }
+            if (alignedOctets == 4) {
+                values.add(text.toString());
+            } else {
+                prefixes.add(text.toString());
+            }
+        }
+        return new IpPattern(block, values, prefixes, false);
+    }
+
+    private static int[] parseIpv4(String address) {
+        String[] parts = address.split("\\.", -1);
+        if (parts.length != 4) {
+            return null;
+        }
+        int[] octets = new int[4];
+        for (int i = 0; i < 4; i++) {
+            if (parts[i].isEmpty() || parts[i].length() > 3 || !parts[i].chars().allMatch(Character::isDigit)) {
+                return null;
+            }
+            octets[i] = Integer.parseInt(parts[i]);
+            if (octets[i] > 255) {
+                return null;
+            }
+        }
+        return octets;
+    }
+
+    private static int parsePrefixLength(String text, String block) {
+        try {
+            int length = Integer.parseInt(text);
+            if (length < 0) {
+                throw new IllegalArgumentException("Invalid CIDR prefix length: " + block);
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid CIDR prefix length: " + block);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.cap.stone.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// Largest-Triangle-Three-Buckets downsampling, keeps the visual shape of a series with a fixed number of points.
+public class LttbDownsampler {
+
+    // Reduces points (ordered by xKey) to at most `threshold` entries. First and last points are always kept.
+    public static List<Map<String, Object>> downsample(List<Map<String, Object>> points, int threshold, String xKey, String yKey) {
+        if (threshold >= points.size() || threshold < 3) {
+            return points;
+        }
+
+        List<Map<String, Object>> sampled = new ArrayList<>(threshold);
+        double bucketSize = (double) (points.size() - 2) / (threshold - 2);
+
+        int selected = 0;
+        sampled.add(points.get(0));
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            // Average of the next bucket is the third corner of the triangle
+            int nextStart = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            int nextEnd = Math.min((int) Math.floor((bucket + 2) * bucketSize) + 1, points.size());
+            double avgX = 0;
+            double avgY = 0;
+            for (int i = nextStart; i < nextEnd; i++) {
+                avgX += x(points.get(i), xKey);
+                avgY += y(points.get(i), yKey);
+            }
+            int nextCount = nextEnd - nextStart;
+            avgX /= nextCount;
+            avgY /= nextCount;
+
+            // Pick the point of the current bucket forming the largest triangle with the previous pick and that average
+            int start = (int) Math.floor(bucket * bucketSize) + 1;
+            int end = (int) Math.floor((bucket + 1) * bucketSize) + 1;
+            double prevX = x(points.get(selected), xKey);
+            double prevY = y(points.get(selected), yKey);
+
+            double maxArea = -1;
+            int maxIndex = start;
+            for (int i = start; i < end; i++) {
+                double area = Math.abs((prevX - avgX) * (y(points.get(i), yKey) - prevY)
+                    - (prevX - x(points.get(i), xKey)) * (avgY - prevY));
+                if (area > maxArea) {
+                    maxArea = area;
+                    maxIndex = i;
+                }
+            }
+
+            sampled.add(points.get(maxIndex));
+            selected = maxIndex;
+        }
+
+        sampled.add(points.get(points.size() - 1));
+        return sampled;
+    }
+
+    private static double x(Map<String, Object> point, String key) {
+        return ((Number) point.get(key)).doubleValue();
+    }
+
+    private static double y(Map<String, Object> point, String key) {
+        Object value = point.get(key);
+        return value instanceof Number ? ((Number) value).doubleValue() : 0;
+    }
+}
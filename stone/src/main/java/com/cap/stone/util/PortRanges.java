@@ -0,0 +1,51 @@
+package com.cap.stone.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Parses port filters like "443", "80,443" or "8000-8100,9200" into inclusive {from, to} ranges
+public final class PortRanges {
+
+    private static final int MAX_PORT = 65535;
+    private static final int MAX_RANGES = 20;
+
+    private PortRanges() {
+    }
+
+    // Throws IllegalArgumentException on malformed, reversed or out of range ports
+    public static List<int[]> parse(String text) {
+        List<int[]> ranges = new ArrayList<>();
+        for (String part : text.split(",")) {
+            String trimmed = part.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            int dash = trimmed.indexOf('-');
+            int from = parsePort(dash < 0 ? trimmed : trimmed.substring(0, dash));
+            int to = dash < 0 ? from : parsePort(trimmed.substring(dash + 1));
+            if (from > to) {
+                throw new IllegalArgumentException("Invalid port range: " + trimmed);
+            }
+            ranges.add(new int[] {from, to});
+        }
+        if (ranges.isEmpty()) {
+            throw new IllegalArgumentException("Empty port filter");
+        }
+        if (ranges.size() > MAX_RANGES) {
+            throw new IllegalArgumentException("Too many port ranges (max " + MAX_RANGES + ")");
+        }
+        return ranges;
+    }
+
+    private static int parsePort(String text) {
+        try {
+            int port = Integer.parseInt(text.trim());
+            if (port < 0 || port > MAX_PORT) {
+                throw new IllegalArgumentException("Port out of range: " + text.trim());
+            }
+            return port;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid port: " + text.trim());
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.cap.stone.util;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// A record a lenient import skipped, with where it was in the decompressed file and why it was skipped.
+// record is the parsed document when it was valid JSON, otherwise the raw text (null when nothing could be read).
+public class RejectedRecord {
+
+    private final Long offset;
+    private final String reason;
+    private final Object record;
+
+    public RejectedRecord(Long offset, String reason, Object record) {
+        this.offset = offset;
+        this.reason = reason;
+        this.record = record;
+    }
+
+    // Byte offset in the decompressed file, null when it is not known (e.g. rejected by OpenSearch)
+    public Long getOffset() {
+        return offset;
+    }
+
+    public String getReason() {
+        return reason;
+    }
+
+    public Object getRecord() {
+        return record;
+    }
+
+    public Map<String, Object> toApiResponse(String file) {
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("file", file);
+        response.put("offset", offset);
+        response.put("reason", reason);
+        return response;
+    }
+
+    // One line of the rejected records file. A parsed document keeps its fields so the fixed line can be uploaded again
+    // as is (the import only reads id, index and data), the rejection details ride along under "rejection".
+    @SuppressWarnings("unchecked")
+    public Map<String, Object> toRejectedLine(String file) {
+        Map<String, Object> line = new LinkedHashMap<>();
+        if (record instanceof Map<?, ?> document) {
+            line.putAll((Map<String, Object>) document);
+        } else {
+            line.put("raw", record);
+        }
+        line.put("rejection", toApiResponse(file));
+        return line;
+    }
+}
@@ -0,0 +1,103 @@
+package com.cap.stone.util;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+// Per-request breakdown of where time went (OpenSearch round trips, hit processing, ...), summed per stage.
+// Only collects while a request on the current thread has called begin(), otherwise record() is a no-op.
+// Work handed to other threads (async responses, fan-out searches) keeps collecting into the same request via propagate().
+public final class RequestStageTimer {
+
+    // Stage timings of one request, shared by every thread working on it
+    public static final class Stages {
+
+        // Stage name -> {total nanos, count}, insertion order is the order stages first ran
+        private final Map<String, long[]> totals = new LinkedHashMap<>();
+        private final long startedAt = System.nanoTime();
+
+        private synchronized void record(String stage, long nanos) {
+            long[] stageTotals = totals.computeIfAbsent(stage, key -> new long[2]);
+            stageTotals[0] += nanos;
+            stageTotals[1]++;
+        }
+
+        private synchronized String toServerTiming() {
+            StringBuilder header = new StringBuilder();
+            totals.forEach((stage, stageTotals) -> {
+                header.append(stage)
+                    .append(";dur=").append(formatMillis(stageTotals[0]))
+                    .append(";desc=\"").append(stageTotals[1]).append(stageTotals[1] == 1 ? " call\"" : " calls\"")
+                    .append(", ");
+            });
+            header.append("total;dur=").append(formatMillis(System.nanoTime() - startedAt));
+            return header.toString();
+        }
+    }
+
+    private static final ThreadLocal<Stages> CURRENT = new ThreadLocal<>();
+
+    private RequestStageTimer() {
+    }
+
+    public static void begin() {
+        CURRENT.set(new Stages());
+    }
+
+    // Stages of the request on this thread, null when none is being timed
+    public static Stages current() {
+        return CURRENT.get();
+    }
+
+    // Continues collecting into a request begun on another thread
+    public static void attach(Stages stages) {
+        if (stages == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(stages);
+        }
+    }
+
+    public static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+
+    public static void record(String stage, long nanos) {
+        Stages stages = CURRENT.get();
+        if (stages != null) {
+            stages.record(stage, nanos);
+        }
+    }
+
+    // Server-Timing header value, e.g. opensearch;dur=84.2;desc="3 calls", process;dur=1.7;desc="1000 calls", total;dur=90.3
+    public static String toServerTiming() {
+        Stages stages = CURRENT.get();
+        return stages == null ? null : stages.toServerTiming();
+    }
+
+    public static void end() {
+        CURRENT.remove();
+    }
+
+    // Wraps work for another thread so its stages are recorded against the calling request
+    public static <T> Supplier<T> propagate(Supplier<T> work) {
+        Stages stages = CURRENT.get();
+        if (stages == null) {
+            return work;
+        }
+        return () -> {
+            attach(stages);
+            try {
+                return work.get();
+            } finally {
+                end();
+            }
+        };
+    }
+
+    private static String formatMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.1f", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,57 @@
+package com.cap.stone.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+// Opaque page cursor for newest-first session searches: the timestamp of the last returned session plus the ids already
+// returned at exactly that timestamp. The next page is "timestamp <= t and id not in ids", which needs no unique sort
+// field and neither skips nor repeats sessions sharing a millisecond across a page boundary.
+public final class SearchCursor {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final int MAX_IDS = 10_000;
+
+    private final long timestamp;
+    private final List<String> ids;
+
+    public SearchCursor(long timestamp, List<String> ids) {
+        this.timestamp = timestamp;
+        this.ids = ids;
+    }
+
+    public long getTimestamp() { return timestamp; }
+    public List<String> getIds() { return ids; }
+
+    public String encode() {
+        ObjectNode node = MAPPER.createObjectNode();
+        node.put("t", timestamp);
+        ids.forEach(node.putArray("ids")::add);
+        try {
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(MAPPER.writeValueAsBytes(node));
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Throws IllegalArgumentException when the cursor was not produced by encode()
+    public static SearchCursor decode(String cursor) {
+        try {
+            JsonNode node = MAPPER.readTree(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (node == null || !node.path("t").canConvertToLong() || !node.path("ids").isArray() || node.path("ids").size() > MAX_IDS) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            List<String> ids = new ArrayList<>();
+            node.path("ids").forEach(id -> ids.add(id.asText()));
+            return new SearchCursor(node.path("t").asLong(), ids);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -2,11 +2,15 @@ package com.cap.stone.util;
 
 import org.springframework.stereotype.Component;
 
+import java.time.DayOfWeek;
 import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -16,6 +20,7 @@ public class SingaporeTimezoneUtil {
     
     private static final ZoneId SINGAPORE_ZONE = ZoneId.of("Asia/Singapore");
     private static final DateTimeFormatter INDEX_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyMMdd");
+    private static final String ALL_SESSIONS_PATTERN = "arkime_sessions*";
     
     // Converts UTC timestamp to Singapore time timestamp
     public long convertToSingaporeTimestamp(Object timestampObj) {
@@ -57,7 +62,8 @@ public class SingaporeTimezoneUtil {
         return singaporeDateTime.toLocalDate().toString();
     }
     
-    // Builds OpenSearch index pattern for a specific date, creates index patterns like "arkime_sessions*-250825" for 2025-08-25
+    // Builds OpenSearch index pattern for a specific date, creates index patterns like "arkime_sessions*-250825" for 2025-08-25.
+    // Consolidated days match too: their daily name lives on as a filtered alias of the weekly/monthly index.
     public String buildIndexPattern(LocalDate date) {
         String indexSuffix = date.format(INDEX_DATE_FORMATTER);
         return "arkime_sessions*-" + indexSuffix;
@@ -84,12 +90,59 @@ public class SingaporeTimezoneUtil {
         );
     }
     
+    // Every session index, daily or consolidated. For ranges too long to list day by day: a year of daily patterns
+    // is ~10KB of request line, past OpenSearch's 4KB http.max_initial_line_length. Queries on it must filter on
+    // @timestamp, the shards outside the range are then skipped by the can-match phase.
+    public String getAllSessionsIndexPattern() {
+        return ALL_SESSIONS_PATTERN;
+    }
+    
+    // Gets index patterns covering a whole date range, including the day before and after for timezone boundaries
+    public List<String> getIndexPatternsForDateRange(LocalDate startDate, LocalDate endDate) {
+        List<String> patterns = new ArrayList<>();
+        LocalDate current = startDate.minusDays(1);
+        while (!current.isAfter(endDate.plusDays(1))) {
+            patterns.add(buildIndexPattern(current));
+            current = current.plusDays(1);
+        }
+        return patterns;
+    }
+    
     // Used for D3.js chart positioning, creates a timestamp representing the start of a day in Singapore timezone.
     public long getSingaporeStartOfDayTimestamp(LocalDate date) {
         ZonedDateTime singaporeStartOfDay = date.atStartOfDay(SINGAPORE_ZONE);
         return singaporeStartOfDay.toInstant().toEpochMilli();
     }
     
+    // Exclusive upper bound for a Singapore date, i.e. the start of the following day
+    public long getSingaporeEndOfDayTimestamp(LocalDate date) {
+        return getSingaporeStartOfDayTimestamp(date.plusDays(1));
+    }
+    
+    // Gets the hour of day (0-23) in Singapore time for a timestamp
+    public int getSingaporeHourFromTimestamp(long singaporeTimestamp) {
+        return Instant.ofEpochMilli(singaporeTimestamp).atZone(SINGAPORE_ZONE).getHour();
+    }
+    
+    // Start of the Singapore minute/hour/day/week bucket containing a timestamp, weeks start on Monday
+    public long getBucketStartTimestamp(long singaporeTimestamp, TimeGranularity granularity) {
+        ZonedDateTime singaporeTime = Instant.ofEpochMilli(singaporeTimestamp).atZone(SINGAPORE_ZONE);
+        ZonedDateTime bucketStart = switch (granularity) {
+            case MINUTE -> singaporeTime.truncatedTo(ChronoUnit.MINUTES);
+            case HOUR -> singaporeTime.truncatedTo(ChronoUnit.HOURS);
+            case DAY -> singaporeTime.toLocalDate().atStartOfDay(SINGAPORE_ZONE);
+            case WEEK -> singaporeTime.toLocalDate()
+                .with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                .atStartOfDay(SINGAPORE_ZONE);
+        };
+        return bucketStart.toInstant().toEpochMilli();
+    }
+    
+    // Zone id used for OpenSearch date_histogram bucketing so buckets align with Singapore days
+    public String getZoneId() {
+        return SINGAPORE_ZONE.getId();
+    }
+    
     // Check if a converted Singapore timestamp falls on the target Singapore date.
     public boolean timestampBelongsToSingaporeDate(long singaporeTimestamp, String targetSingaporeDate) {
         String actualSingaporeDate = getSingaporeDateFromTimestamp(singaporeTimestamp);
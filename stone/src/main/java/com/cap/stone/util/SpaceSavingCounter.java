@@ -0,0 +1,71 @@
+package com.cap.stone.util;
+
+import java.util.*;
+
+// Space-Saving heavy-hitter sketch, keeps at most `capacity` counters no matter how many distinct items are offered.
+// When full, a new item replaces the smallest counter and inherits its count as the overestimation error.
+public class SpaceSavingCounter<T> {
+
+    private final int capacity;
+    private final Map<T, long[]> counters = new HashMap<>(); // item -> {count, error}
+
+    public SpaceSavingCounter(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    public void offer(T item) {
+        offer(item, 1);
+    }
+
+    // Adds `increment` occurrences of an item
+    public void offer(T item, long increment) {
+        if (item == null) {
+            return;
+        }
+
+        long[] counter = counters.get(item);
+        if (counter != null) {
+            counter[0] += increment;
+            return;
+        }
+
+        if (counters.size() < capacity) {
+            counters.put(item, new long[]{increment, 0});
+            return;
+        }
+
+        // Evict the minimum counter, the newcomer takes over its count as error bound
+        T minItem = null;
+        long minCount = Long.MAX_VALUE;
+        for (Map.Entry<T, long[]> entry : counters.entrySet()) {
+            if (entry.getValue()[0] < minCount) {
+                minCount = entry.getValue()[0];
+                minItem = entry.getKey();
+            }
+        }
+        counters.remove(minItem);
+        counters.put(item, new long[]{minCount + increment, minCount});
+    }
+
+    // Returns up to n items ordered by estimated count, each as {item, count, error}
+    public List<Map<String, Object>> top(int n, String itemKey) {
+        return counters.entrySet().stream()
+            .sorted((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]))
+            .limit(n)
+            .map(entry -> {
+                Map<String, Object> row = new LinkedHashMap<>();
+                row.put(itemKey, entry.getKey());
+                row.put("hitCount", entry.getValue()[0]);   // Estimated count (never underestimates)
+                row.put("maxError", entry.getValue()[1]);   // Upper bound on overestimation
+                return row;
+            })
+            .toList();
+    }
+
+    public int size() {
+        return counters.size();
+    }
+}
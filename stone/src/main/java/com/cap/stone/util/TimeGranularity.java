@@ -0,0 +1,46 @@
+package com.cap.stone.util;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+// Bucket sizes supported for the timeseries, from finest to coarsest
+public enum TimeGranularity {
+    MINUTE,
+    HOUR,
+    DAY,
+    WEEK;
+
+    // Ranges up to this many days get hourly buckets when granularity is auto
+    private static final long AUTO_HOUR_MAX_DAYS = 3;
+    // Ranges up to this many days get daily buckets when granularity is auto, weekly beyond
+    private static final long AUTO_DAY_MAX_DAYS = 180;
+
+    // Parses the request parameter, resolving "auto" from the range length. Returns null for unknown values.
+    public static TimeGranularity fromParam(String value, LocalDate startDate, LocalDate endDate) {
+        if (value == null || value.equalsIgnoreCase("auto")) {
+            return auto(startDate, endDate);
+        }
+        for (TimeGranularity granularity : values()) {
+            if (granularity.name().equalsIgnoreCase(value)) {
+                return granularity;
+            }
+        }
+        return null;
+    }
+
+    // Picks a bucket size so short ranges show intra-day detail and long ranges stay compact
+    public static TimeGranularity auto(LocalDate startDate, LocalDate endDate) {
+        long days = ChronoUnit.DAYS.between(startDate, endDate) + 1;
+        if (days <= AUTO_HOUR_MAX_DAYS) {
+            return HOUR;
+        }
+        if (days <= AUTO_DAY_MAX_DAYS) {
+            return DAY;
+        }
+        return WEEK;
+    }
+
+    public String toParam() {
+        return name().toLowerCase();
+    }
+}
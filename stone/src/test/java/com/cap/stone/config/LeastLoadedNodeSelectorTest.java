@@ -0,0 +1,91 @@
+package com.cap.stone.config;
+
+import org.apache.hc.client5.http.HttpRoute;
+import org.apache.hc.client5.http.async.AsyncExecCallback;
+import org.apache.hc.client5.http.async.AsyncExecChain;
+import org.apache.hc.client5.http.async.AsyncExecRuntime;
+import org.apache.hc.client5.http.protocol.HttpClientContext;
+import org.apache.hc.core5.concurrent.CancellableDependency;
+import org.apache.hc.core5.http.HttpHost;
+import org.apache.hc.core5.http.message.BasicHttpRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.opensearch.client.transport.httpclient5.internal.Node;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class LeastLoadedNodeSelectorTest {
+
+    private static final HttpHost NODE_1 = new HttpHost("https", "os-1", 9200);
+    private static final HttpHost NODE_2 = new HttpHost("https", "os-2", 9200);
+    private static final HttpHost NODE_3 = new HttpHost("https", "os-3", 9200);
+
+    private final LeastLoadedNodeSelector selector = new LeastLoadedNodeSelector();
+
+    @Test
+    @DisplayName("Should try the least loaded node first whatever rotation the transport applies afterwards")
+    void testLeastLoadedSurvivesRotation() throws Exception {
+        // Given - two requests in flight on os-1, one on os-3
+        dispatch(NODE_1);
+        dispatch(NODE_1);
+        dispatch(NODE_3);
+
+        for (int rotation = 0; rotation < 3; rotation++) {
+            // When - select, then rotate as ApacheHttpClient5Transport.selectNodes does
+            List<Node> nodes = living();
+            selector.select(nodes);
+            Collections.rotate(nodes, rotation);
+
+            // Then
+            assertEquals(NODE_2, nodes.get(0).getHost());
+        }
+    }
+
+    @Test
+    @DisplayName("Should spread requests round-robin over equally loaded nodes and count completed requests out")
+    void testTiesAndCompletion() throws Exception {
+        // Given - os-1 finished its request, so all nodes are idle again
+        AsyncExecCallback completion = dispatch(NODE_1);
+        assertEquals(1, selector.inFlightCount(NODE_1));
+        completion.completed();
+
+        // When
+        Set<HttpHost> firstTried = new HashSet<>();
+        for (int i = 0; i < 3; i++) {
+            List<Node> nodes = living();
+            selector.select(nodes);
+            assertEquals(1, nodes.size());
+            firstTried.add(nodes.get(0).getHost());
+        }
+
+        // Then
+        assertEquals(0, selector.inFlightCount(NODE_1));
+        assertEquals(Set.of(NODE_1, NODE_2, NODE_3), firstTried);
+    }
+
+    private static List<Node> living() {
+        return new ArrayList<>(List.of(new Node(NODE_1), new Node(NODE_2), new Node(NODE_3)));
+    }
+
+    // Sends a request to host through the in-flight tracker and leaves it outstanding, returns its completion callback
+    private AsyncExecCallback dispatch(HttpHost host) throws Exception {
+        AsyncExecChain chain = mock(AsyncExecChain.class);
+        BasicHttpRequest request = new BasicHttpRequest("GET", "/_search");
+        AsyncExecChain.Scope scope = new AsyncExecChain.Scope("exchange", new HttpRoute(host), request,
+            mock(CancellableDependency.class), HttpClientContext.create(), mock(AsyncExecRuntime.class));
+        selector.inFlightTracker().execute(request, null, scope, chain, mock(AsyncExecCallback.class));
+
+        ArgumentCaptor<AsyncExecCallback> callback = ArgumentCaptor.forClass(AsyncExecCallback.class);
+        verify(chain).proceed(any(), any(), any(), callback.capture());
+        return callback.getValue();
+    }
+}
@@ -0,0 +1,80 @@
+package com.cap.stone.controller;
+
+import com.cap.stone.infra.opensearch.SessionExportService;
+import com.cap.stone.service.OpenSearchOverloadedException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(ExportController.class)
+@AutoConfigureMockMvc(addFilters = false)
+@ExtendWith(MockitoExtension.class)
+class ExportControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SessionExportService exportService;
+
+    @Test
+    void shouldStreamExportAsNdjsonGzipAttachment() throws Exception {
+        // Given
+        when(exportService.exportSessions(eq(LocalDate.parse("2025-08-21")), eq(LocalDate.parse("2025-08-22")), any()))
+            .thenAnswer(invocation -> {
+                OutputStream out = invocation.getArgument(2);
+                out.write(new byte[] {0x1f, (byte) 0x8b});
+                return 1L;
+            });
+
+        // When & Then
+        mockMvc.perform(get("/api/export/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/gzip"))
+                .andExpect(header().string("Content-Disposition", "attachment; filename=\"sessions_2025-08-21_2025-08-22.ndjson.gz\""))
+                .andExpect(content().bytes(new byte[] {0x1f, (byte) 0x8b}));
+    }
+
+    @Test
+    void shouldRejectInvertedRange() throws Exception {
+        mockMvc.perform(get("/api/export/sessions")
+                .param("start", "2025-08-22")
+                .param("end", "2025-08-21"))
+                .andExpect(jsonPath("$.error").value("Start date cannot be after end date"));
+
+        verify(exportService, never()).exportSessions(any(), any(), any());
+    }
+
+    @Test
+    void shouldReturnErrorWhenExportFailsBeforeStreaming() throws Exception {
+        // Given
+        when(exportService.exportSessions(any(), any(), any()))
+            .thenThrow(new IOException("Export aborted, reading a slice failed: OpenSearch is overloaded",
+                new OpenSearchOverloadedException("OpenSearch is overloaded")));
+
+        // When & Then
+        mockMvc.perform(get("/api/export/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-21"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.error").value("Export aborted, reading a slice failed: OpenSearch is overloaded"))
+                .andExpect(header().doesNotExist("Content-Disposition"));
+    }
+}
@@ -1,20 +1,29 @@
 package com.cap.stone.controller;
 
 import com.cap.stone.service.ImportService;
+import com.cap.stone.service.RejectedRecordStore;
+import com.cap.stone.util.FairAdmissionExecutor;
 import com.cap.stone.util.GzipJsonReader;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.MockedStatic;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.ExecutorServiceAdapter;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.http.MediaType;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -22,17 +31,21 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 @WebMvcTest(ImportController.class)
+@Import({SimpleMeterRegistry.class, ImportControllerTest.InlineIngestExecutor.class})
 @AutoConfigureMockMvc(addFilters = false)
 @ExtendWith(MockitoExtension.class)
 class ImportControllerTest {
@@ -43,6 +56,18 @@ class ImportControllerTest {
     @MockitoBean
     private ImportService importService;
 
+    @MockitoBean
+    private RejectedRecordStore rejectedRecordStore;
+
+    // Uploads run on the calling thread, where the static reader mocks are registered
+    @TestConfiguration
+    static class InlineIngestExecutor {
+        @Bean
+        FairAdmissionExecutor ingestUploads() {
+            return new FairAdmissionExecutor(new ExecutorServiceAdapter(new SyncTaskExecutor()), 4);
+        }
+    }
+
     @Test
     void shouldSuccessfullyImportSingleGzipFile() throws Exception {
         // Given
@@ -119,6 +144,25 @@ class ImportControllerTest {
         }
     }
 
+    @Test
+    void shouldImportNdjsonExportFiles() throws Exception {
+        // Given - a file as written by /api/export/sessions
+        MockMultipartFile ndjsonFile = createGzipFile("sessions_2025-08-21_2025-08-21.ndjson.gz",
+            "{\"id\":\"a\",\"index\":\"arkime_sessions3-250821\",\"data\":{\"@timestamp\":1}}\n"
+            + "{\"id\":\"b\",\"index\":\"arkime_sessions3-250821\",\"data\":{\"@timestamp\":2}}\n");
+        when(importService.indexDocumentsByIndex(anyList())).thenReturn(Map.of("arkime_sessions3-250821", 2));
+
+        // When & Then
+        mockMvc.perform(multipart("/api/import")
+                .file(ndjsonFile)
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Successfully imported 2 documents from 1 file(s) into 1 indices:")));
+
+        verify(importService).indexDocumentsByIndex(argThat(documents ->
+            documents.size() == 2 && "b".equals(documents.get(1).get("id"))));
+    }
+
     @Test
     void shouldReturnErrorWhenGzipJsonReaderThrowsException() throws Exception {
         // Given
@@ -231,6 +275,82 @@ class ImportControllerTest {
         }
     }
 
+    @Test
+    void shouldSkipAndReportBadRecordsInLenientMode() throws Exception {
+        // Given - one valid line, one malformed line, one without index
+        MockMultipartFile ndjsonFile = createGzipFile("upload.ndjson.gz",
+            "{\"id\":\"a\",\"index\":\"arkime_sessions3-250821\",\"data\":{\"@timestamp\":1}}\n"
+            + "{\"id\":\"b\",\n"
+            + "{\"id\":\"c\",\"data\":{\"@timestamp\":3}}\n");
+        when(importService.indexDocumentsByIndex(anyList(), anyList())).thenReturn(Map.of("arkime_sessions3-250821", 1));
+        when(rejectedRecordStore.getMaxRecords()).thenReturn(10000);
+        when(rejectedRecordStore.save(anyList())).thenReturn("rejected-1");
+
+        // When & Then
+        mockMvc.perform(multipart("/api/import")
+                .file(ndjsonFile)
+                .param("lenient", "true")
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Successfully imported 1 documents from 1 file(s) into 1 indices:")))
+                .andExpect(content().string(containsString("Rejected 2 records, download them from /api/import/rejected/rejected-1")))
+                .andExpect(content().string(containsString("- upload.ndjson.gz at byte 69: Malformed JSON")))
+                .andExpect(content().string(containsString("- upload.ndjson.gz at byte 80: Missing index")));
+
+        verify(importService).indexDocumentsByIndex(argThat(documents ->
+            documents.size() == 1 && "a".equals(documents.get(0).get("id"))), anyList());
+        verify(rejectedRecordStore).save(argThat(lines ->
+            lines.size() == 2 && "c".equals(lines.get(1).get("id")) && lines.get(1).containsKey("rejection")));
+    }
+
+    @Test
+    void shouldSkipNonGzipFilesInLenientMode() throws Exception {
+        // Given
+        MockMultipartFile invalidGzipFile = new MockMultipartFile(
+            "files", "broken.gz", "application/gzip", "not a gzip file".getBytes());
+        when(rejectedRecordStore.save(anyList())).thenReturn("rejected-2");
+
+        // When & Then
+        mockMvc.perform(multipart("/api/import")
+                .file(invalidGzipFile)
+                .param("lenient", "true")
+                .contentType(MediaType.MULTIPART_FORM_DATA))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("Successfully imported 0 documents from 1 file(s) into 0 indices:")))
+                .andExpect(content().string(containsString("- broken.gz at byte 0: Not a gzip file")));
+
+        verify(importService, never()).indexDocumentsByIndex(anyList(), anyList());
+    }
+
+    @Test
+    void shouldDownloadRejectedRecordsAsNdjsonGzip() throws Exception {
+        // Given
+        when(rejectedRecordStore.get("rejected-1")).thenReturn(List.of(Map.of("id", "c", "rejection", Map.of("reason", "Missing index"))));
+
+        // When
+        MvcResult result = mockMvc.perform(get("/api/import/rejected/rejected-1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Disposition", containsString("rejected_rejected-1.ndjson.gz")))
+                .andReturn();
+
+        // Then
+        List<Map<String, Object>> lines = GzipJsonReader.readNdjsonStream(
+            new GZIPInputStream(new ByteArrayInputStream(result.getResponse().getContentAsByteArray())));
+        assertThat(lines).hasSize(1);
+        assertThat(lines.get(0)).containsEntry("id", "c");
+    }
+
+    @Test
+    void shouldReturnErrorForUnknownRejectedRecordsId() throws Exception {
+        // Given
+        when(rejectedRecordStore.get("unknown")).thenReturn(null);
+
+        // When & Then
+        mockMvc.perform(get("/api/import/rejected/unknown"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.error").value("Unknown or expired rejected records id"));
+    }
+
     // Helper methods
     private MockMultipartFile createGzipFile(String filename, String content) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
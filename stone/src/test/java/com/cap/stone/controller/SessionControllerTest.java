@@ -0,0 +1,609 @@
+package com.cap.stone.controller;
+
+import com.cap.stone.config.ConcurrencyConfig;
+import com.cap.stone.infra.opensearch.AnomalyScoringService;
+import com.cap.stone.infra.opensearch.ColumnarResponseEncoder;
+import com.cap.stone.infra.opensearch.DataGenerationService;
+import com.cap.stone.infra.opensearch.SessionAnalyticsService;
+import com.cap.stone.infra.opensearch.SessionDataProcessor;
+import com.cap.stone.infra.opensearch.SessionSearchService;
+import com.cap.stone.infra.opensearch.TrafficStatsService;
+import com.cap.stone.infra.opensearch.model.AnomalyReport;
+import com.cap.stone.infra.opensearch.model.CommunityTrend;
+import com.cap.stone.infra.opensearch.model.SessionAnalytics;
+import com.cap.stone.infra.opensearch.model.SessionScope;
+import com.cap.stone.infra.opensearch.model.SessionSearchFilter;
+import com.cap.stone.infra.opensearch.model.SessionSearchResult;
+import com.cap.stone.infra.opensearch.model.TopHitters;
+import com.cap.stone.infra.opensearch.model.TrafficStats;
+import com.cap.stone.service.OpenSearchOverloadedException;
+import com.cap.stone.util.AnalyticsDetail;
+import com.cap.stone.util.TimeGranularity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(SessionController.class)
+@Import({ColumnarResponseEncoder.class, SessionDataProcessor.class, SimpleMeterRegistry.class, ConcurrencyConfig.class})
+@AutoConfigureMockMvc(addFilters = false)
+@ExtendWith(MockitoExtension.class)
+class SessionControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private SessionAnalyticsService sessionAnalyticsService;
+
+    @MockitoBean
+    private DataGenerationService dataGenerationService;
+
+    @MockitoBean
+    private SessionSearchService sessionSearchService;
+
+    @MockitoBean
+    private AnomalyScoringService anomalyScoringService;
+
+    @MockitoBean
+    private TrafficStatsService trafficStatsService;
+
+    @Test
+    void shouldReturnTrendForCommunityId() throws Exception {
+        // Given
+        List<Map<String, Object>> series = List.of(
+            Map.of("timestamp", 1755705600000L, "singaporeDate", "2025-08-21", "hitCount", 3L),
+            Map.of("timestamp", 1755792000000L, "singaporeDate", "2025-08-22", "hitCount", 0L)
+        );
+        CommunityTrend trend = new CommunityTrend("1:abc=", null, "day", series, 3L);
+
+        when(sessionAnalyticsService.getCommunityIdTrend("2025-08-21", "2025-08-22", "1:abc=", null, "day", SessionScope.ALL))
+            .thenReturn(trend);
+
+        // When & Then
+        perform(get("/api/sessions/trend")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("communityId", "1:abc="))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.communityId").value("1:abc="))
+                .andExpect(jsonPath("$.interval").value("day"))
+                .andExpect(jsonPath("$.totalHits").value(3))
+                .andExpect(jsonPath("$.series.length()").value(2))
+                .andExpect(jsonPath("$.series[0].hitCount").value(3));
+    }
+
+    @Test
+    void shouldPassSidAndHourlyIntervalToService() throws Exception {
+        // Given
+        when(sessionAnalyticsService.getCommunityIdTrend(anyString(), anyString(), isNull(), eq(7942413L), eq("hour"), eq(SessionScope.ALL)))
+            .thenReturn(new CommunityTrend(null, 7942413L, "hour", List.of(), 0L));
+
+        // When & Then
+        perform(get("/api/sessions/trend")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-21")
+                .param("sid", "7942413")
+                .param("interval", "hour"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sid").value(7942413))
+                .andExpect(jsonPath("$.interval").value("hour"));
+    }
+
+    @Test
+    void shouldRequireCommunityIdOrSid() throws Exception {
+        perform(get("/api/sessions/trend")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.error").value("communityId or sid is required"));
+
+        verify(sessionAnalyticsService, never()).getCommunityIdTrend(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectHourlyIntervalForLongRanges() throws Exception {
+        perform(get("/api/sessions/trend")
+                .param("start", "2025-01-01")
+                .param("end", "2025-06-01")
+                .param("sid", "1")
+                .param("interval", "hour"))
+                .andExpect(jsonPath("$.error").value("Date range too large for hourly interval (max 31 days)"));
+
+        verify(sessionAnalyticsService, never()).getCommunityIdTrend(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldReturnErrorWhenTrendQueryFails() throws Exception {
+        // Given
+        when(sessionAnalyticsService.getCommunityIdTrend(any(), any(), any(), any(), any(), any()))
+            .thenThrow(new IOException("OpenSearch connection failed"));
+
+        // When & Then
+        perform(get("/api/sessions/trend")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("communityId", "1:abc="))
+                .andExpect(jsonPath("$.error").value("Error fetching trend data"));
+    }
+
+    @Test
+    void shouldReturnTopHitters() throws Exception {
+        // Given
+        TopHitters topHitters = new TopHitters(
+            List.of(Map.of("sid", 7942413L, "hitCount", 51L, "snortMessage", "Trend Snort Alert")),
+            List.of(Map.of("communityId", "1:abc=", "hitCount", 12L)),
+            4L, 39L);
+
+        when(sessionAnalyticsService.getTopHitters("2025-08-21", "2025-08-25", 5, SessionScope.ALL)).thenReturn(topHitters);
+
+        // When & Then
+        perform(get("/api/sessions/top")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-25")
+                .param("n", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.topSids[0].sid").value(7942413))
+                .andExpect(jsonPath("$.topSids[0].snortMessage").value("Trend Snort Alert"))
+                .andExpect(jsonPath("$.topCommunityIds[0].hitCount").value(12))
+                .andExpect(jsonPath("$.otherCommunityIdHits").value(39));
+    }
+
+    @Test
+    void shouldScopeTopHittersToTenantAndNetwork() throws Exception {
+        // Given
+        when(sessionAnalyticsService.getTopHitters(any(), any(), anyInt(), any()))
+            .thenReturn(new TopHitters(List.of(), List.of(), 0L, 0L));
+
+        // When
+        perform(get("/api/sessions/top")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-25")
+                .param("tenant", " acme ")
+                .param("network", ""))
+                .andExpect(status().isOk());
+
+        // Then - blank parameters don't restrict anything
+        verify(sessionAnalyticsService).getTopHitters("2025-08-21", "2025-08-25", 10, new SessionScope("acme", null));
+    }
+
+    @Test
+    void shouldRejectOutOfBoundsTopN() throws Exception {
+        perform(get("/api/sessions/top")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-25")
+                .param("n", "1000"))
+                .andExpect(jsonPath("$.error").value("n must be between 1 and 100"));
+
+        verify(sessionAnalyticsService, never()).getTopHitters(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void shouldReturnAnomaliesWithZScores() throws Exception {
+        // Given
+        AnomalyReport report = new AnomalyReport("2025-08-25", 28,
+            List.of(Map.of("sid", 7942413L, "hitCount", 40L, "baselineMean", 4.0, "baselineStdDev", 2.0, "zScore", 18.0)),
+            List.of());
+
+        when(anomalyScoringService.getAnomalies(LocalDate.of(2025, 8, 25), 5)).thenReturn(report);
+
+        // When & Then
+        perform(get("/api/sessions/anomalies")
+                .param("date", "2025-08-25")
+                .param("n", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.date").value("2025-08-25"))
+                .andExpect(jsonPath("$.baselineDays").value(28))
+                .andExpect(jsonPath("$.sids[0].sid").value(7942413))
+                .andExpect(jsonPath("$.sids[0].zScore").value(18.0))
+                .andExpect(jsonPath("$.communityIds").isEmpty());
+    }
+
+    @Test
+    void shouldRejectInvalidAnomalyDate() throws Exception {
+        perform(get("/api/sessions/anomalies")
+                .param("date", "25-08-2025"))
+                .andExpect(jsonPath("$.error").value("Invalid date format. Use YYYY-MM-DD"));
+
+        verify(anomalyScoringService, never()).getAnomalies(any(), anyInt());
+    }
+
+    @Test
+    void shouldResolveAutoGranularityAndPassMaxPoints() throws Exception {
+        // Given
+        SessionAnalytics analytics = new SessionAnalytics(List.of(), 0, 0, List.of(), List.of(), "hour", false);
+        when(sessionAnalyticsService.getSessionAnalytics("2025-08-21", "2025-08-22", TimeGranularity.HOUR, 200, SessionScope.ALL, AnalyticsDetail.FULL))
+            .thenReturn(analytics);
+
+        // When & Then
+        perform(get("/api/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("granularity", "auto")
+                .param("maxPoints", "200"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("hour"))
+                .andExpect(jsonPath("$.downsampled").value(false));
+    }
+
+    @Test
+    void shouldRejectMinuteGranularityForLongRanges() throws Exception {
+        perform(get("/api/sessions")
+                .param("start", "2025-08-01")
+                .param("end", "2025-08-31")
+                .param("granularity", "minute"))
+                .andExpect(jsonPath("$.error").value("Date range too large for minute granularity (max 2 days)"));
+
+        verify(sessionAnalyticsService, never()).getSessionAnalytics(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldRejectUnknownGranularity() throws Exception {
+        perform(get("/api/sessions")
+                .param("start", "2025-08-01")
+                .param("end", "2025-08-31")
+                .param("granularity", "fortnight"))
+                .andExpect(jsonPath("$.error").value("Invalid granularity. Use minute, hour, day, week or auto"));
+    }
+
+    @Test
+    void shouldPassSummaryDetailAndRejectItAsColumnar() throws Exception {
+        // Given
+        SessionAnalytics analytics = new SessionAnalytics(List.of(), 0, 0, List.of(), List.of(), "day", false);
+        when(sessionAnalyticsService.getSessionAnalytics("2025-01-01", "2025-12-31", TimeGranularity.DAY, null, SessionScope.ALL, AnalyticsDetail.SUMMARY))
+            .thenReturn(analytics);
+
+        // When & Then
+        perform(get("/api/sessions")
+                .param("start", "2025-01-01")
+                .param("end", "2025-12-31")
+                .param("detail", "summary"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("day"));
+
+        perform(get("/api/sessions")
+                .param("start", "2025-01-01")
+                .param("end", "2025-12-31")
+                .param("detail", "summary")
+                .param("format", "columnar"))
+                .andExpect(jsonPath("$.error").value("Summary detail is only available as json"));
+
+        verify(sessionAnalyticsService, times(1)).getSessionAnalytics(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldAddTrafficStatsOnlyWhenAsked() throws Exception {
+        // Given
+        SessionAnalytics analytics = new SessionAnalytics(List.of(), 0, 0, List.of(), List.of(), "hour", false);
+        when(sessionAnalyticsService.getSessionAnalytics(eq("2025-08-21"), eq("2025-08-21"), eq(TimeGranularity.HOUR), isNull(), eq(SessionScope.ALL), any()))
+            .thenReturn(analytics);
+        List<Map<String, Object>> buckets = List.of(
+            Map.of("timestamp", 1755705600000L, "sessions", 4L, "bytes", Map.of("sum", 8192.0, "p95", 4000.0))
+        );
+        when(trafficStatsService.getTrafficStats("2025-08-21", "2025-08-21", TimeGranularity.HOUR, SessionScope.ALL))
+            .thenReturn(new TrafficStats("hour", buckets, Map.of("sessions", 4L)));
+
+        // When & Then
+        perform(get("/api/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-21")
+                .param("granularity", "hour"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.traffic").doesNotExist());
+
+        perform(get("/api/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-21")
+                .param("granularity", "hour")
+                .param("traffic", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.granularity").value("hour"))
+                .andExpect(jsonPath("$.traffic.granularity").value("hour"))
+                .andExpect(jsonPath("$.traffic.totals.sessions").value(4))
+                .andExpect(jsonPath("$.traffic.buckets[0].bytes.p95").value(4000.0));
+
+        verify(trafficStatsService, times(1)).getTrafficStats(any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldKeepAnalyticsWhenTrafficFails() throws Exception {
+        // Given
+        SessionAnalytics analytics = new SessionAnalytics(List.of(), 7, 0, List.of(), List.of(), "hour", false);
+        when(sessionAnalyticsService.getSessionAnalytics(eq("2025-08-21"), eq("2025-08-21"), eq(TimeGranularity.HOUR), isNull(), eq(SessionScope.ALL), any()))
+            .thenReturn(analytics);
+        when(trafficStatsService.getTrafficStats(any(), any(), any(), any())).thenThrow(new IOException("down"));
+
+        // When & Then
+        perform(get("/api/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-21")
+                .param("granularity", "hour")
+                .param("traffic", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalSnortHits").value(7))
+                .andExpect(jsonPath("$.traffic").doesNotExist())
+                .andExpect(jsonPath("$.trafficError").value("Error fetching traffic stats"))
+                .andExpect(jsonPath("$.error").doesNotExist());
+    }
+
+    @Test
+    void shouldAlignTrafficToDownsampledTimestamps() throws Exception {
+        // Given - the timeseries kept two of three hours
+        List<Map<String, Object>> dailyData = List.of(
+            Map.of("timestamp", 1755705600000L, "hitCount", 1),
+            Map.of("timestamp", 1755712800000L, "hitCount", 5)
+        );
+        SessionAnalytics analytics = new SessionAnalytics(dailyData, 9, 0, List.of(), List.of(), "hour", true);
+        when(sessionAnalyticsService.getSessionAnalytics(eq("2025-08-21"), eq("2025-08-21"), eq(TimeGranularity.HOUR), eq(3), eq(SessionScope.ALL), any()))
+            .thenReturn(analytics);
+        List<Map<String, Object>> buckets = List.of(
+            Map.of("timestamp", 1755705600000L, "sessions", 1L),
+            Map.of("timestamp", 1755709200000L, "sessions", 3L),
+            Map.of("timestamp", 1755712800000L, "sessions", 5L)
+        );
+        when(trafficStatsService.getTrafficStats("2025-08-21", "2025-08-21", TimeGranularity.HOUR, SessionScope.ALL))
+            .thenReturn(new TrafficStats("hour", buckets, Map.of("sessions", 9L)));
+
+        // When & Then
+        perform(get("/api/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-21")
+                .param("granularity", "hour")
+                .param("maxPoints", "3")
+                .param("traffic", "true"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.traffic.buckets.length()").value(2))
+                .andExpect(jsonPath("$.traffic.buckets[1].sessions").value(5))
+                .andExpect(jsonPath("$.traffic.totals.sessions").value(9));
+    }
+
+    @Test
+    void shouldPageSampleSessionsOfOneBucket() throws Exception {
+        // Given - three sessions of the day, two inside the requested hour
+        List<Map<String, Object>> sessions = List.of(
+            Map.of("timestamp", 3_600_500L, "communityId", "1:a="),
+            Map.of("timestamp", 3_600_100L, "communityId", "1:b="),
+            Map.of("timestamp", 100L, "communityId", "1:c=")
+        );
+        when(sessionAnalyticsService.getSessionsForSpecificDay("2025-08-21", SessionScope.ALL)).thenReturn(sessions);
+
+        // When & Then
+        perform(get("/api/sessions/samples")
+                .param("date", "2025-08-21")
+                .param("from", "3600000")
+                .param("to", "7200000")
+                .param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalSessions").value(2))
+                .andExpect(jsonPath("$.sessions.length()").value(1))
+                .andExpect(jsonPath("$.sessions[0].communityId").value("1:a="))
+                .andExpect(jsonPath("$.hasMoreSessions").value(true));
+    }
+
+    @Test
+    void shouldRejectOutOfBoundsSampleLimit() throws Exception {
+        perform(get("/api/sessions/samples")
+                .param("date", "2025-08-21")
+                .param("limit", "5000"))
+                .andExpect(jsonPath("$.error").value("limit must be between 1 and 1000"));
+
+        verify(sessionAnalyticsService, never()).getSessionsForSpecificDay(any(), any());
+    }
+
+    @Test
+    void shouldEncodeDailyDetailsAsColumnsWithDictionaries() throws Exception {
+        // Given - two sessions sharing a community ID, index and snort message
+        List<Map<String, Object>> sessions = List.of(
+            Map.of("timestamp", 1L, "indexName", "arkime_sessions3-250821", "documentId", "a",
+                   "communityId", "1:abc=", "sid", List.of(7942413), "snortMessage", List.of("Trend Snort Alert"),
+                   "sourcePort", 80, "destPort", 443),
+            Map.of("timestamp", 2L, "indexName", "arkime_sessions3-250821", "documentId", "b",
+                   "communityId", "1:abc=", "sid", List.of(7942413), "snortMessage", List.of("Trend Snort Alert"),
+                   "sourcePort", 81, "destPort", 443)
+        );
+        when(sessionAnalyticsService.getSessionsForSpecificDay("2025-08-21", SessionScope.ALL)).thenReturn(sessions);
+
+        // When & Then
+        perform(get("/api/sessions/daily-details")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("date", "2025-08-21")
+                .param("format", "columnar"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.format").value("columnar"))
+                .andExpect(jsonPath("$.totalSessions").value(2))
+                .andExpect(jsonPath("$.sessions.documentId[1]").value("b"))
+                .andExpect(jsonPath("$.sessions.communityId[0]").value(0))
+                .andExpect(jsonPath("$.sessions.communityId[1]").value(0))
+                .andExpect(jsonPath("$.sessions.sourcePort[1]").value(81))
+                .andExpect(jsonPath("$.dictionaries.communityIds.length()").value(1))
+                .andExpect(jsonPath("$.dictionaries.sidMessages['7942413']").value("Trend Snort Alert"));
+    }
+
+    @Test
+    void shouldRejectUnknownFormat() throws Exception {
+        perform(get("/api/sessions/daily-details")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("date", "2025-08-21")
+                .param("format", "xml"))
+                .andExpect(jsonPath("$.error").value("Invalid format. Use json or columnar"));
+
+        verify(sessionAnalyticsService, never()).getSessionsForSpecificDay(any(), any());
+    }
+
+    @Test
+    void shouldReturnNotModifiedWithoutQueryingWhenEtagMatches() throws Exception {
+        // Given
+        when(dataGenerationService.computeRangeEtag(any(), any(), anyString())).thenReturn("\"abc123\"");
+
+        // When & Then
+        perform(get("/api/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string("ETag", "\"abc123\""));
+
+        verify(sessionAnalyticsService, never()).getSessionAnalytics(any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    void shouldSendEtagWithFullResponseWhenDataChanged() throws Exception {
+        // Given
+        when(dataGenerationService.computeRangeEtag(any(), any(), anyString())).thenReturn("\"def456\"");
+        when(sessionAnalyticsService.getSessionAnalytics(any(), any(), any(), any(), any(), any()))
+            .thenReturn(new SessionAnalytics(List.of(), 0, 0, List.of(), List.of(), "day", false));
+
+        // When & Then
+        perform(get("/api/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .header("If-None-Match", "\"abc123\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", "\"def456\""))
+                .andExpect(header().string("Cache-Control", "private, no-cache"))
+                .andExpect(jsonPath("$.totalSnortHits").value(0));
+    }
+
+    @Test
+    void shouldReturnShedReasonWhenOpenSearchIsOverloaded() throws Exception {
+        // Given
+        when(sessionAnalyticsService.getTopHitters(any(), any(), anyInt(), any()))
+            .thenThrow(new OpenSearchOverloadedException("OpenSearch is overloaded, aggregation rejected at concurrency limit 4"));
+
+        // When & Then
+        perform(get("/api/sessions/top")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-25"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.error").value("OpenSearch is overloaded, aggregation rejected at concurrency limit 4"));
+    }
+
+    @Test
+    void shouldFlagIncompleteDaysAndDisableCachingForPartialResults() throws Exception {
+        // Given - one index missed the deadline
+        when(dataGenerationService.computeRangeEtag(any(), any(), anyString())).thenReturn("\"abc123\"");
+        SessionAnalytics partial = new SessionAnalytics(List.of(), 0, 0, List.of(), List.of(), "day", false,
+            List.of("2025-08-22"),
+            List.of(Map.of("index", "arkime_sessions*-250822", "date", "2025-08-22", "reason", "timed_out")));
+        when(sessionAnalyticsService.getSessionAnalytics(any(), any(), any(), any(), any(), any())).thenReturn(partial);
+
+        // When & Then
+        perform(get("/api/sessions")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(jsonPath("$.partial").value(true))
+                .andExpect(jsonPath("$.incompleteDays[0]").value("2025-08-22"))
+                .andExpect(jsonPath("$.slowIndices[0].reason").value("timed_out"));
+    }
+
+    @Test
+    void shouldPassParsedFiltersToSearch() throws Exception {
+        // Given
+        List<Map<String, Object>> sessions = List.of(Map.of("documentId", "d1", "timestamp", 1755705600000L));
+        when(sessionSearchService.search(any(), any(), anyInt(), any()))
+            .thenReturn(new SessionSearchResult(sessions, "next", 5L));
+
+        // When & Then
+        perform(get("/api/sessions/search")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("sourceIp", "10.0.0.0/8")
+                .param("destPort", "443,8000-8100")
+                .param("sid", "1,2")
+                .param("fields", "http.method, source.bytes")
+                .param("size", "50"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.count").value(1))
+                .andExpect(jsonPath("$.nextCursor").value("next"))
+                .andExpect(jsonPath("$.hasMore").value(true));
+
+        ArgumentCaptor<SessionSearchFilter> filter = ArgumentCaptor.forClass(SessionSearchFilter.class);
+        verify(sessionSearchService).search(filter.capture(), eq(List.of("http.method", "source.bytes")), eq(50), isNull());
+        assertEquals(List.of("10."), filter.getValue().getSourceIp().getKeywordPrefixes());
+        assertEquals(2, filter.getValue().getDestPorts().size());
+        assertEquals(List.of(1L, 2L), filter.getValue().getSids());
+        assertNull(filter.getValue().getDestIp());
+    }
+
+    @Test
+    void shouldRejectInvalidSearchFilters() throws Exception {
+        perform(get("/api/sessions/search")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("destIp", "10.0.0.1/40"))
+                .andExpect(jsonPath("$.error").value("Invalid CIDR prefix length: 10.0.0.1/40"));
+
+        perform(get("/api/sessions/search")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("fields", "a,{\"script\"}"))
+                .andExpect(jsonPath("$.error").value("Invalid fields. Use up to 20 comma separated field paths"));
+
+        perform(get("/api/sessions/search")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-22")
+                .param("cursor", "garbage!"))
+                .andExpect(jsonPath("$.error").value("Invalid cursor"));
+
+        perform(get("/api/sessions/search")
+                .param("start", "2025-01-01")
+                .param("end", "2025-03-01"))
+                .andExpect(jsonPath("$.error").value("Date range too large for search (max 31 days)"));
+
+        verify(sessionSearchService, never()).search(any(), any(), anyInt(), any());
+    }
+
+    @Test
+    void shouldReturnErrorWhenSearchFails() throws Exception {
+        // Given
+        when(sessionSearchService.search(any(), any(), anyInt(), any())).thenThrow(new IOException("boom"));
+
+        // When & Then
+        perform(get("/api/sessions/search")
+                .param("start", "2025-08-21")
+                .param("end", "2025-08-21"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.error").value("Error searching sessions"));
+    }
+
+    // Data responses complete asynchronously, validation errors and 304s do not
+    private ResultActions perform(RequestBuilder request) throws Exception {
+        ResultActions actions = mockMvc.perform(request);
+        MvcResult result = actions.andReturn();
+        if (result.getRequest().isAsyncStarted()) {
+            return mockMvc.perform(asyncDispatch(result));
+        }
+        return actions;
+    }
+}
@@ -0,0 +1,120 @@
+package com.cap.stone.infra.opensearch;
+
+import com.cap.stone.infra.opensearch.model.AnomalyReport;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import jakarta.json.stream.JsonParser;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.json.JsonData;
+import org.opensearch.client.json.jackson.JacksonJsonpMapper;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class AnomalyScoringServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 8, 21);
+
+    private final SingaporeTimezoneUtil timezoneUtil = new SingaporeTimezoneUtil();
+
+    @Test
+    @DisplayName("Should score a date the same whether or not earlier dates were scored first")
+    void testScoreIndependentOfHistory() throws Exception {
+        // Given - sid 1 with a count that changes from day to day and spikes on the scored day
+        Function<LocalDate, Long> counts = day -> day.equals(DAY) ? 60L : 10L + (day.getDayOfMonth() % 4) * 7;
+        AnomalyScoringService fresh = service(stubbed(counts, null, null));
+        AnomalyScoringService warmed = service(stubbed(counts, null, null));
+
+        // When - one scores the date directly, the other walks up to it
+        AnomalyReport direct = fresh.getAnomalies(DAY, 10);
+        warmed.getAnomalies(DAY.minusDays(3), 10);
+        warmed.getAnomalies(DAY.minusDays(1), 10);
+        AnomalyReport walked = warmed.getAnomalies(DAY, 10);
+
+        // Then
+        assertEquals(1, direct.getSids().size());
+        assertEquals(direct.toApiResponse(), walked.toApiResponse());
+    }
+
+    @Test
+    @DisplayName("Should not block an import invalidation while a day is being fetched")
+    void testInvalidateDuringFetch() throws Exception {
+        // Given - the fetch of the scored day hangs until released
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AnomalyScoringService service = service(stubbed(day -> 10L, fetching, release));
+        CompletableFuture<AnomalyReport> scoring = CompletableFuture.supplyAsync(() -> {
+            try {
+                return service.getAnomalies(DAY, 10);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(fetching.await(5, TimeUnit.SECONDS));
+
+        // When / Then
+        assertTimeoutPreemptively(Duration.ofSeconds(2),
+            () -> service.invalidateIndices(List.of("arkime_sessions3-250821")));
+        release.countDown();
+        assertNotNull(scoring.get(5, TimeUnit.SECONDS));
+    }
+
+    private AnomalyScoringService service(OpenSearchClientService clientService) {
+        AnomalyScoringService service = new AnomalyScoringService();
+        ReflectionTestUtils.setField(service, "clientService", clientService);
+        ReflectionTestUtils.setField(service, "timezoneUtil", timezoneUtil);
+        ReflectionTestUtils.setField(service, "alpha", 0.3);
+        ReflectionTestUtils.setField(service, "historyDays", 5);
+        ReflectionTestUtils.setField(service, "maxTerms", 100);
+        ReflectionTestUtils.setField(service, "minStdDev", 1.0);
+        ReflectionTestUtils.setField(service, "minCount", 1L);
+        return service;
+    }
+
+    // Answers every day's aggregation with sid 1 at the given count, the fetch of DAY waits on release when set
+    private OpenSearchClientService stubbed(Function<LocalDate, Long> counts, CountDownLatch fetching,
+                                            CountDownLatch release) throws Exception {
+        OpenSearchClientService clientService = mock(OpenSearchClientService.class);
+        when(clientService.executeAggregation(any(), any(), any())).thenAnswer(invocation -> {
+            Query query = invocation.getArgument(1);
+            long start = query.bool().filter().get(1).range().gte().to(Long.class);
+            LocalDate day = DAY.minusDays(40);
+            while (timezoneUtil.getSingaporeStartOfDayTimestamp(day) != start) {
+                day = day.plusDays(1);
+            }
+            if (release != null && day.equals(DAY)) {
+                fetching.countDown();
+                release.await();
+            }
+            return response(counts.apply(day));
+        });
+        return clientService;
+    }
+
+    private static SearchResponse<JsonData> response(long sidCount) {
+        String json = "{\"took\":1,\"timed_out\":false,"
+            + "\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},"
+            + "\"hits\":{\"total\":{\"value\":" + sidCount + ",\"relation\":\"eq\"},\"hits\":[]},"
+            + "\"aggregations\":{"
+            + "\"lterms#sids\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,"
+            + "\"buckets\":[{\"key\":1,\"doc_count\":" + sidCount + "}]},"
+            + "\"sterms#communityIds\":{\"doc_count_error_upper_bound\":0,\"sum_other_doc_count\":0,\"buckets\":[]}}}";
+        JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+        JsonParser parser = mapper.jsonProvider().createParser(new StringReader(json));
+        return SearchResponse.createSearchResponseDeserializer(JsonData._DESERIALIZER).deserialize(parser, mapper);
+    }
+}
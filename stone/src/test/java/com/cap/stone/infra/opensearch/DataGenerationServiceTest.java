@@ -0,0 +1,90 @@
+package com.cap.stone.infra.opensearch;
+
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import jakarta.json.stream.JsonParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.json.jackson.JacksonJsonpMapper;
+import org.opensearch.client.opensearch.indices.IndicesStatsResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class DataGenerationServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2025, 8, 21);
+
+    private OpenSearchClientService clientService;
+    private DataGenerationService generations;
+
+    @BeforeEach
+    void setUp() {
+        clientService = mock(OpenSearchClientService.class);
+        generations = new DataGenerationService();
+        ReflectionTestUtils.setField(generations, "clientService", clientService);
+        ReflectionTestUtils.setField(generations, "timezoneUtil", new SingaporeTimezoneUtil());
+        ReflectionTestUtils.setField(generations, "statsTtlMs", 60_000L);
+    }
+
+    @Test
+    @DisplayName("Should change the ETag on an overwrite that leaves the doc counts unchanged")
+    void testOverwriteChangesEtag() throws Exception {
+        // Given - the same counts before and after, only the sequence number moved
+        when(clientService.getShardStats("arkime_sessions*"))
+            .thenReturn(stats("arkime_sessions3-250821", 10, 41))
+            .thenReturn(stats("arkime_sessions3-250821", 10, 42));
+
+        // When
+        String before = generations.computeRangeEtag(DAY, DAY, "key");
+        generations.markImported();
+        String after = generations.computeRangeEtag(DAY, DAY, "key");
+
+        // Then
+        assertNotNull(before);
+        assertNotEquals(before, after);
+    }
+
+    @Test
+    @DisplayName("Should share one stats call between requests and ignore daily indices outside the range")
+    void testSharesStatsAndScopesToRange() throws Exception {
+        // Given
+        when(clientService.getShardStats("arkime_sessions*")).thenReturn(stats("arkime_sessions3-250821", 10, 41));
+
+        // When
+        String first = generations.computeRangeEtag(DAY, DAY, "key");
+        String second = generations.computeRangeEtag(DAY, DAY, "key");
+        String otherRange = generations.computeRangeEtag(DAY.plusDays(5), DAY.plusDays(5), "key");
+
+        // Then
+        assertEquals(first, second);
+        assertNotEquals(first, otherRange);
+        verify(clientService, times(1)).getShardStats("arkime_sessions*");
+    }
+
+    @Test
+    @DisplayName("Should return no ETag when the stats can't be read")
+    void testNoEtagWithoutStats() throws Exception {
+        when(clientService.getShardStats("arkime_sessions*")).thenThrow(new java.io.IOException("down"));
+
+        assertNull(generations.computeRangeEtag(DAY, DAY, "key"));
+    }
+
+    private static IndicesStatsResponse stats(String index, long docs, long maxSeqNo) {
+        String json = "{\"_shards\":{\"total\":1,\"successful\":1,\"failed\":0},"
+            + "\"_all\":{\"primaries\":{},\"total\":{}},"
+            + "\"indices\":{\"" + index + "\":{\"uuid\":\"u1\","
+            + "\"primaries\":{\"docs\":{\"count\":" + docs + ",\"deleted\":0}},"
+            + "\"total\":{\"docs\":{\"count\":" + docs + ",\"deleted\":0}},"
+            + "\"shards\":{\"0\":[{\"routing\":{\"state\":\"STARTED\",\"primary\":true,\"node\":\"n1\"},"
+            + "\"seq_no\":{\"max_seq_no\":" + maxSeqNo + ",\"local_checkpoint\":" + maxSeqNo + ",\"global_checkpoint\":" + maxSeqNo + "}}]}}}}";
+        JacksonJsonpMapper mapper = new JacksonJsonpMapper();
+        JsonParser parser = mapper.jsonProvider().createParser(new StringReader(json));
+        return IndicesStatsResponse._DESERIALIZER.deserialize(parser, mapper);
+    }
+}
@@ -0,0 +1,98 @@
+package com.cap.stone.infra.opensearch;
+
+import com.cap.stone.service.OpenSearchClientService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.opensearch.client.opensearch.indices.IndexSettings;
+import org.opensearch.client.opensearch.tasks.GetTasksResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class IndexConsolidationServiceTest {
+
+    private static final List<String> DAILY_INDICES = List.of("arkime_sessions3-240101", "arkime_sessions3-240102");
+
+    private OpenSearchClientService clientService;
+    private IndexConsolidationService consolidation;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        clientService = mock(OpenSearchClientService.class);
+        consolidation = new IndexConsolidationService();
+        ReflectionTestUtils.setField(consolidation, "clientService", clientService);
+        ReflectionTestUtils.setField(consolidation, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(consolidation, "periodParam", "month");
+        ReflectionTestUtils.setField(consolidation, "minAgeDays", 7);
+        ReflectionTestUtils.setField(consolidation, "maxPeriodsPerRun", 1);
+        ReflectionTestUtils.setField(consolidation, "shards", 1);
+        ReflectionTestUtils.setField(consolidation, "maxSegments", 1L);
+        ReflectionTestUtils.setField(consolidation, "mergeTimeoutMs", 1000L);
+        ReflectionTestUtils.setField(consolidation, "taskPollMs", 1L);
+        consolidation.start();
+
+        GetTasksResponse task = mock(GetTasksResponse.class);
+        when(task.completed()).thenReturn(true);
+        when(clientService.listIndices(anyString())).thenReturn(DAILY_INDICES);
+        when(clientService.indexExists(anyString())).thenReturn(true);
+        when(clientService.startReindex(any())).thenReturn("task-1");
+        when(clientService.getTask("task-1")).thenReturn(task);
+        for (String dailyIndex : DAILY_INDICES) {
+            when(clientService.count(eq(dailyIndex), any())).thenReturn(10L);
+        }
+    }
+
+    @Test
+    @DisplayName("Should block writes to the daily indices before copying and keep the block through the swap")
+    void testBlocksWritesUntilSwap() throws Exception {
+        // Given - every document was copied
+        when(clientService.count(eq("arkime_sessions3-m2401"), any())).thenReturn(10L);
+
+        // When
+        List<String> consolidated = consolidation.consolidate();
+
+        // Then
+        assertEquals(List.of("arkime_sessions3-m2401"), consolidated);
+        ArgumentCaptor<IndexSettings> settings = ArgumentCaptor.forClass(IndexSettings.class);
+        InOrder order = inOrder(clientService);
+        order.verify(clientService).updateSettings(eq(DAILY_INDICES), settings.capture());
+        order.verify(clientService).startReindex(any());
+        order.verify(clientService, atLeastOnce()).count(anyString(), any());
+        order.verify(clientService).updateAliases(any());
+        assertTrue(settings.getValue().blocks().write());
+        verify(clientService, times(1)).updateSettings(eq(DAILY_INDICES), any());
+
+        // The copy only becomes visible to wildcard range queries once the daily indices are gone
+        ArgumentCaptor<IndexSettings> unhide = ArgumentCaptor.forClass(IndexSettings.class);
+        order.verify(clientService).updateSettings(eq(List.of("arkime_sessions3-m2401")), unhide.capture());
+        assertFalse(unhide.getValue().hidden());
+    }
+
+    @Test
+    @DisplayName("Should lift the write block and keep the daily indices when the copy is incomplete")
+    void testLiftsBlockOnFailedVerification() throws Exception {
+        // Given - one document of a day is missing from the consolidated index
+        when(clientService.count(eq("arkime_sessions3-m2401"), any())).thenReturn(9L);
+
+        // When
+        assertThrows(IOException.class, () -> consolidation.consolidate());
+
+        // Then
+        ArgumentCaptor<IndexSettings> settings = ArgumentCaptor.forClass(IndexSettings.class);
+        verify(clientService, times(2)).updateSettings(eq(DAILY_INDICES), settings.capture());
+        assertTrue(settings.getAllValues().get(0).blocks().write());
+        assertFalse(settings.getAllValues().get(1).blocks().write());
+        verify(clientService, never()).updateAliases(any());
+    }
+}
@@ -0,0 +1,195 @@
+package com.cap.stone.infra.opensearch;
+
+import com.cap.stone.service.ImportService;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.opensearch._types.FieldValue;
+import org.opensearch.client.opensearch._types.query_dsl.BoolQuery;
+import org.opensearch.client.opensearch._types.query_dsl.Query;
+import org.opensearch.client.opensearch._types.query_dsl.RangeQuery;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LiveTailServiceTest {
+
+    private static final long CAPTURED_2024 = 1_704_067_200_000L;
+
+    private OpenSearchClientService clientService;
+    private ImportService importService;
+    private LiveTailService liveTail;
+    // Fake index: id -> (event.ingested, @timestamp)
+    private final Map<String, long[]> indexed = new LinkedHashMap<>();
+    private final List<Object> sent = new ArrayList<>();
+    private long now;
+    private int searches;
+    private int failingSearch;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws Exception {
+        clientService = mock(OpenSearchClientService.class);
+        when(clientService.executeSearch(anyList(), any(), anyInt(), any(), anyString(), any(), any()))
+            .thenAnswer(invocation -> search(invocation.getArgument(1), invocation.getArgument(2)));
+
+        SessionDataProcessor dataProcessor = mock(SessionDataProcessor.class);
+        when(dataProcessor.processHit(any())).thenAnswer(invocation -> {
+            Hit<Map<String, Object>> hit = invocation.getArgument(0);
+            Map<String, Object> session = new HashMap<>();
+            session.put("id", hit.id());
+            session.put("timestamp", hit.source().get("@timestamp"));
+            return session;
+        });
+        importService = mock(ImportService.class);
+        when(importService.oldestUnsettledIngest()).thenReturn(Long.MAX_VALUE);
+
+        liveTail = new LiveTailService();
+        ReflectionTestUtils.setField(liveTail, "clientService", clientService);
+        ReflectionTestUtils.setField(liveTail, "dataProcessor", dataProcessor);
+        ReflectionTestUtils.setField(liveTail, "timezoneUtil", new SingaporeTimezoneUtil());
+        ReflectionTestUtils.setField(liveTail, "importService", importService);
+        ReflectionTestUtils.setField(liveTail, "batchSize", 2);
+        ReflectionTestUtils.setField(liveTail, "settleMs", 0L);
+
+        now = System.currentTimeMillis();
+        ReflectionTestUtils.setField(liveTail, "cursorIngested", now - 60_000);
+        Set<SseEmitter> subscribers = (Set<SseEmitter>) ReflectionTestUtils.getField(liveTail, "subscribers");
+        subscribers.add(new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) {
+                builder.build().forEach(data -> {
+                    if (data.getData() instanceof Map<?, ?> payload) {
+                        ((List<Map<String, Object>>) payload.get("sessions")).forEach(s -> sent.add(s.get("id")));
+                    }
+                });
+            }
+        });
+    }
+
+    @Test
+    @DisplayName("Should stream an import of an older capture")
+    void testStreamsOldCapture() {
+        // Given
+        indexed.put("old", new long[] {now - 10_000, CAPTURED_2024});
+
+        // When
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+
+        // Then
+        assertEquals(List.of("old"), sent);
+    }
+
+    @Test
+    @DisplayName("Should stream a session indexed after a later-captured one, each session once")
+    void testFollowsIndexingOrder() throws Exception {
+        // Given - three documents at one ingest time span two pages, a fourth arrives later with an earlier capture time
+        indexed.put("a", new long[] {now - 30_000, CAPTURED_2024 + 5_000});
+        indexed.put("b", new long[] {now - 30_000, CAPTURED_2024 + 6_000});
+        indexed.put("c", new long[] {now - 30_000, CAPTURED_2024 + 7_000});
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+        indexed.put("d", new long[] {System.currentTimeMillis(), CAPTURED_2024});
+        Thread.sleep(2);
+
+        // When
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+
+        // Then
+        assertEquals(List.of("a", "b", "c", "d"), sent);
+    }
+
+    @Test
+    @DisplayName("Should hold back documents ingested within the settle time until a later poll")
+    void testWaitsForSettle() {
+        // Given
+        ReflectionTestUtils.setField(liveTail, "settleMs", 5_000L);
+        indexed.put("recent", new long[] {now - 1_000, CAPTURED_2024});
+
+        // When
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+        List<Object> beforeSettled = new ArrayList<>(sent);
+        ReflectionTestUtils.setField(liveTail, "settleMs", 0L);
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+
+        // Then
+        assertEquals(List.of(), beforeSettled);
+        assertEquals(List.of("recent"), sent);
+    }
+
+    @Test
+    @DisplayName("Should not pass a document whose bulk is still slower than the settle time")
+    void testWaitsForSlowBulk() {
+        // Given - a bulk stamped 20s ago is still in flight, a later document is already searchable
+        indexed.put("fast", new long[] {now - 10_000, CAPTURED_2024});
+        when(importService.oldestUnsettledIngest()).thenReturn(now - 20_000);
+
+        // When
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+        List<Object> whileInFlight = new ArrayList<>(sent);
+        indexed.put("slow", new long[] {now - 20_000, CAPTURED_2024});
+        when(importService.oldestUnsettledIngest()).thenReturn(Long.MAX_VALUE);
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+
+        // Then
+        assertEquals(List.of(), whileInFlight);
+        assertEquals(List.of("slow", "fast"), sent);
+    }
+
+    @Test
+    @DisplayName("Should keep the sessions of pages sent before a failed page and retry from the failed page")
+    void testResumesAfterFailedPage() {
+        // Given - three documents span two pages, the second page's search fails once
+        indexed.put("a", new long[] {now - 30_000, CAPTURED_2024});
+        indexed.put("b", new long[] {now - 20_000, CAPTURED_2024});
+        indexed.put("c", new long[] {now - 10_000, CAPTURED_2024});
+        failingSearch = 2;
+
+        // When
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+        List<Object> beforeRetry = new ArrayList<>(sent);
+        ReflectionTestUtils.invokeMethod(liveTail, "poll");
+
+        // Then
+        assertEquals(List.of("a", "b"), beforeRetry);
+        assertEquals(List.of("a", "b", "c"), sent);
+    }
+
+    // Applies the live tail's ingest range and id exclusion to the fake index, oldest ingest time first
+    private SearchResponse<Map<String, Object>> search(Query query, int size) throws IOException {
+        if (++searches == failingSearch) {
+            throw new IOException("Read timed out");
+        }
+        BoolQuery bool = query.bool();
+        RangeQuery range = bool.filter().get(1).range();
+        long from = range.gte().to(Long.class);
+        long to = range.lt().to(Long.class);
+        Set<String> excluded = bool.mustNot().isEmpty() ? Set.of() : new HashSet<>(bool.mustNot().get(0).ids().values());
+
+        List<Hit<Map<String, Object>>> hits = indexed.entrySet().stream()
+            .filter(e -> e.getValue()[0] >= from && e.getValue()[0] < to && !excluded.contains(e.getKey()))
+            .sorted(Comparator.comparingLong(e -> e.getValue()[0]))
+            .limit(size)
+            .map(e -> Hit.<Map<String, Object>>of(h -> h
+                .index("arkime_sessions3-240101")
+                .id(e.getKey())
+                .source(Map.of("@timestamp", e.getValue()[1]))
+                .sort(FieldValue.of(e.getValue()[0]))))
+            .toList();
+        return new SearchResponse.Builder<Map<String, Object>>()
+            .took(1)
+            .timedOut(false)
+            .shards(s -> s.total(1).successful(1).failed(0))
+            .hits(h -> h.hits(hits))
+            .build();
+    }
+}
@@ -0,0 +1,190 @@
+package com.cap.stone.infra.opensearch;
+
+import com.cap.stone.infra.opensearch.model.SessionAnalytics;
+import com.cap.stone.infra.opensearch.model.SessionScope;
+import com.cap.stone.infra.segment.DaySegmentStore;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.AnalyticsDetail;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import com.cap.stone.util.TimeGranularity;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.opensearch.core.SearchResponse;
+import org.opensearch.client.opensearch.core.search.Hit;
+import org.opensearch.client.opensearch.core.search.TotalHitsRelation;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class SessionAnalyticsServiceTest {
+
+    // 2025-08-21 10:00 and 2025-08-20 13:00 Singapore time
+    private static final long MORNING_OF_DAY = 1755741600000L;
+    private static final long AFTERNOON_BEFORE = 1755666000000L;
+    // 2025-08-18 10:00 Singapore time, a Monday
+    private static final long MONDAY_MORNING = 1755482400000L;
+
+    private OpenSearchClientService clientService;
+    private ExecutorService executor;
+    private SessionAnalyticsService analytics;
+
+    @BeforeEach
+    void setUp() {
+        clientService = mock(OpenSearchClientService.class);
+        SessionDataProcessor dataProcessor = mock(SessionDataProcessor.class);
+        when(dataProcessor.processHit(any())).thenAnswer(invocation -> {
+            Hit<Map<String, Object>> hit = invocation.getArgument(0);
+            Map<String, Object> session = new HashMap<>();
+            session.put("id", hit.id());
+            session.put("timestamp", hit.source().get("@timestamp"));
+            return session;
+        });
+        when(dataProcessor.extractSids(any())).thenReturn(List.of(1L));
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        analytics = new SessionAnalyticsService();
+        ReflectionTestUtils.setField(analytics, "clientService", clientService);
+        ReflectionTestUtils.setField(analytics, "dataProcessor", dataProcessor);
+        ReflectionTestUtils.setField(analytics, "timezoneUtil", new SingaporeTimezoneUtil());
+        ReflectionTestUtils.setField(analytics, "analyticsDeadlineMs", 10_000L);
+        ReflectionTestUtils.setField(analytics, "fanOutParallelism", 4);
+        ReflectionTestUtils.setField(analytics, "virtualThreadExecutor", executor);
+        ReflectionTestUtils.setField(analytics, "segmentStore", mock(DaySegmentStore.class));
+        ReflectionTestUtils.setField(analytics, "routingService", mock(SessionRoutingService.class));
+        ReflectionTestUtils.setField(analytics, "dataGenerationService", mock(DataGenerationService.class));
+        ReflectionTestUtils.setField(analytics, "summaryTopK", 10);
+        ReflectionTestUtils.setField(analytics, "recentDaysCapacity", 4);
+        ReflectionTestUtils.setField(analytics, "recentDaysTtlMs", 60_000L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should flag a day whose capped hits leave out earlier sessions of that day")
+    void testFlagsTruncatedDay() throws Exception {
+        // Given - the day's own index matched more than it returned, its oldest hit is still inside the day
+        stubSearches("arkime_sessions*-250821", MORNING_OF_DAY);
+
+        // When
+        SessionAnalytics result = analytics.getSessionAnalytics("2025-08-21", "2025-08-21", TimeGranularity.HOUR, null);
+
+        // Then
+        assertEquals(List.of("2025-08-21"), result.getIncompleteDays());
+        assertEquals("truncated", result.getSlowIndices().get(0).get("reason"));
+    }
+
+    @Test
+    @DisplayName("Should not flag a day when the capped hits only leave out sessions of the day before")
+    void testIgnoresTruncationBeforeDay() throws Exception {
+        // Given - the previous index reaches back past the start of the day
+        stubSearches("arkime_sessions*-250820", AFTERNOON_BEFORE);
+
+        // When
+        SessionAnalytics result = analytics.getSessionAnalytics("2025-08-21", "2025-08-21", TimeGranularity.HOUR, null);
+
+        // Then
+        assertTrue(result.getIncompleteDays().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should flag a week bucket when a mid-week day failed")
+    void testFlagsWeekOfFailedDay() throws Exception {
+        // Given - Monday has sessions, the search of Wednesday's index fails
+        when(clientService.executeSearch(anyString(), any(), any(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                String index = invocation.getArgument(0);
+                if (index.equals("arkime_sessions*-250820")) {
+                    throw new IOException("Read timed out");
+                }
+                List<Hit<Map<String, Object>>> hits = index.equals("arkime_sessions*-250818")
+                    ? List.of(Hit.of(h -> h.index(index).id("s1").source(Map.<String, Object>of("@timestamp", MONDAY_MORNING))))
+                    : List.of();
+                return response(hits, hits.size());
+            });
+
+        // When
+        SessionAnalytics result = analytics.getSessionAnalytics("2025-08-18", "2025-08-24", TimeGranularity.WEEK, null);
+
+        // Then
+        assertFalse(result.getIncompleteDays().contains("2025-08-18"));
+        assertEquals(1, result.getDailyData().size());
+        assertEquals("2025-08-18", result.getDailyData().get(0).get("singaporeDate"));
+        assertEquals(true, result.getDailyData().get(0).get("incomplete"));
+    }
+
+    @Test
+    @DisplayName("Should not join a computation started with a different time budget")
+    void testBudgetNotShared() throws Exception {
+        // Given - every search waits until both computations have started theirs
+        CountDownLatch searching = new CountDownLatch(6);
+        CountDownLatch release = new CountDownLatch(1);
+        when(clientService.executeSearch(anyString(), any(), any(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                searching.countDown();
+                release.await();
+                return response(List.of(), 0);
+            });
+
+        // When - a warm-up with its own budget, then a dashboard request for the same view
+        CompletableFuture<SessionAnalytics> warmup = CompletableFuture.supplyAsync(() -> analytics("2025-08-21",
+            Duration.ofMillis(60_000)), executor);
+        CompletableFuture<SessionAnalytics> dashboard = CompletableFuture.supplyAsync(() -> analytics("2025-08-21",
+            Duration.ofMillis(10_000)), executor);
+        boolean bothSearched = searching.await(5, TimeUnit.SECONDS);
+        release.countDown();
+
+        // Then
+        assertTrue(bothSearched);
+        assertNotSame(warmup.get(5, TimeUnit.SECONDS), dashboard.get(5, TimeUnit.SECONDS));
+    }
+
+    private SessionAnalytics analytics(String date, Duration deadline) {
+        try {
+            return analytics.getSessionAnalytics(date, date, TimeGranularity.HOUR, null, SessionScope.ALL,
+                AnalyticsDetail.FULL, deadline);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // The capped index returns one hit at oldestHit out of 5000 matches, every other index is empty
+    private void stubSearches(String cappedIndex, long oldestHit) throws Exception {
+        when(clientService.executeSearch(anyString(), any(), any(), any(), any(), any(), any(), any()))
+            .thenAnswer(invocation -> {
+                boolean capped = cappedIndex.equals(invocation.getArgument(0));
+                List<Hit<Map<String, Object>>> hits = capped
+                    ? List.of(Hit.of(h -> h.index(cappedIndex).id("s1").source(Map.<String, Object>of("@timestamp", oldestHit))))
+                    : List.of();
+                return response(hits, capped ? 5000 : 0);
+            });
+    }
+
+    private static SearchResponse<Map<String, Object>> response(List<Hit<Map<String, Object>>> hits, long total) {
+        return new SearchResponse.Builder<Map<String, Object>>()
+            .took(1)
+            .timedOut(false)
+            .shards(s -> s.total(1).successful(1).failed(0))
+            .hits(h -> h.hits(hits).total(t -> t.value(total).relation(TotalHitsRelation.Eq)))
+            .build();
+    }
+}
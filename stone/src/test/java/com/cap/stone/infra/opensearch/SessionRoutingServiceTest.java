@@ -0,0 +1,54 @@
+package com.cap.stone.infra.opensearch;
+
+import com.cap.stone.infra.opensearch.model.SessionScope;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SessionRoutingServiceTest {
+
+    @Test
+    @DisplayName("Should route documents by the configured field, nested or dotted")
+    void testRoutingForDocument() {
+        // Given
+        SessionRoutingService routing = routing("tenant");
+
+        // When & Then
+        assertEquals("acme", routing.routingForDocument(Map.of("extended", Map.of("tenant", "acme", "network", "dmz"))));
+        assertEquals("acme", routing.routingForDocument(Map.of("extended.tenant", "acme")));
+        assertNull(routing.routingForDocument(Map.of("extended", Map.of("network", "dmz"))));
+        assertNull(routing("none").routingForDocument(Map.of("extended", Map.of("tenant", "acme"))));
+        assertEquals("dmz", routing("network").routingForDocument(Map.of("extended", Map.of("tenant", "acme", "network", "dmz"))));
+    }
+
+    @Test
+    @DisplayName("Should only route queries whose scope pins the routed field")
+    void testRoutingForScope() {
+        // Given
+        SessionRoutingService routing = routing("tenant");
+
+        // When & Then
+        assertEquals("acme", routing.routingForScope(new SessionScope("acme", "dmz")));
+        assertNull(routing.routingForScope(new SessionScope(null, "dmz")));
+        assertNull(routing.routingForScope(SessionScope.ALL));
+        assertEquals(2, routing.scopeFilters(new SessionScope("acme", "dmz")).size());
+        assertTrue(routing.scopeFilters(SessionScope.ALL).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should refuse an unknown routing mode")
+    void testRejectsUnknownMode() {
+        assertThrows(IllegalStateException.class, () -> routing("sensor"));
+    }
+
+    private SessionRoutingService routing(String mode) {
+        SessionRoutingService routing = new SessionRoutingService();
+        ReflectionTestUtils.setField(routing, "mode", mode);
+        routing.validate();
+        return routing;
+    }
+}
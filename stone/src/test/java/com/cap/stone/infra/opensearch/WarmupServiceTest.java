@@ -0,0 +1,142 @@
+package com.cap.stone.infra.opensearch;
+
+import com.cap.stone.config.OpenSearchProperties;
+import com.cap.stone.infra.opensearch.model.SessionAnalytics;
+import com.cap.stone.infra.opensearch.model.SessionScope;
+import com.cap.stone.service.OpenSearchClientService;
+import com.cap.stone.util.AnalyticsDetail;
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import com.cap.stone.util.TimeGranularity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.*;
+
+class WarmupServiceTest {
+
+    private OpenSearchClientService clientService;
+    private SessionAnalyticsService analyticsService;
+    private SimpleMeterRegistry meterRegistry;
+    private ExecutorService executor;
+    private WarmupService warmup;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        clientService = mock(OpenSearchClientService.class);
+        analyticsService = mock(SessionAnalyticsService.class);
+        when(analyticsService.getSessionAnalytics(anyString(), anyString(), any(), any(), any(), any(), any()))
+            .thenReturn(new SessionAnalytics(List.of(), 0, 0, List.of(), List.of(), "day", false));
+        meterRegistry = new SimpleMeterRegistry();
+        SessionDataProcessor dataProcessor = new SessionDataProcessor();
+        ReflectionTestUtils.setField(dataProcessor, "meterRegistry", meterRegistry);
+        ReflectionTestUtils.invokeMethod(dataProcessor, "registerMeters");
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        warmup = new WarmupService();
+        ReflectionTestUtils.setField(warmup, "clientService", clientService);
+        ReflectionTestUtils.setField(warmup, "openSearchProperties", new OpenSearchProperties());
+        ReflectionTestUtils.setField(warmup, "sessionAnalyticsService", analyticsService);
+        ReflectionTestUtils.setField(warmup, "dataProcessor", dataProcessor);
+        ReflectionTestUtils.setField(warmup, "timezoneUtil", new SingaporeTimezoneUtil());
+        ReflectionTestUtils.setField(warmup, "virtualThreadExecutor", executor);
+        ReflectionTestUtils.setField(warmup, "enabled", true);
+        ReflectionTestUtils.setField(warmup, "budgetMs", 30_000L);
+        ReflectionTestUtils.setField(warmup, "connections", 2);
+        ReflectionTestUtils.setField(warmup, "days", 7);
+        ReflectionTestUtils.setField(warmup, "syntheticSessions", 2000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should warm processing without recording synthetic sessions and give analytics the remaining budget")
+    void testWarmsWithinBudget() throws Exception {
+        // When
+        warmup.warmUp();
+
+        // Then
+        assertEquals("warm", warmup.getStatus().get("status"));
+        assertEquals(0, meterRegistry.timer("stone.session.process").count());
+        ArgumentCaptor<Duration> deadline = ArgumentCaptor.forClass(Duration.class);
+        verify(analyticsService).getSessionAnalytics(anyString(), anyString(), eq(TimeGranularity.DAY), isNull(),
+            eq(SessionScope.ALL), eq(AnalyticsDetail.FULL), deadline.capture());
+        assertTrue(deadline.getValue().toMillis() > 0 && deadline.getValue().toMillis() <= 30_000);
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for connections at the budget and skip the remaining steps")
+    @SuppressWarnings("unchecked")
+    void testHangingConnectionsStopAtBudget() throws Exception {
+        // Given - every cluster call hangs
+        CountDownLatch release = new CountDownLatch(1);
+        when(clientService.listIndices(anyString())).thenAnswer(invocation -> {
+            release.await();
+            return List.of();
+        });
+        ReflectionTestUtils.setField(warmup, "budgetMs", 300L);
+
+        // When
+        long startTime = System.currentTimeMillis();
+        warmup.warmUp();
+        long tookMs = System.currentTimeMillis() - startTime;
+        release.countDown();
+
+        // Then
+        assertTrue(tookMs < 5_000, "took " + tookMs + "ms");
+        assertEquals("budget_exceeded", warmup.getStatus().get("status"));
+        List<Map<String, Object>> steps = (List<Map<String, Object>>) warmup.getStatus().get("steps");
+        assertEquals(0L, steps.get(1).get("result"));
+        assertEquals("skipped", steps.get(3).get("outcome"));
+        verify(analyticsService, never()).getSessionAnalytics(any(), any(), any(), any(), any(), any(), any());
+    }
+
+    @Test
+    @DisplayName("Should stop waiting for the index listing at the budget")
+    @SuppressWarnings("unchecked")
+    void testHangingIndexListingStopsAtBudget() throws Exception {
+        // Given - the two connection calls answer, the index listing after them hangs
+        AtomicInteger calls = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        when(clientService.listIndices(anyString())).thenAnswer(invocation -> {
+            if (calls.incrementAndGet() > 2) {
+                release.await();
+            }
+            return List.of();
+        });
+        ReflectionTestUtils.setField(warmup, "budgetMs", 300L);
+
+        // When
+        long startTime = System.currentTimeMillis();
+        warmup.warmUp();
+        long tookMs = System.currentTimeMillis() - startTime;
+        release.countDown();
+
+        // Then
+        assertTrue(tookMs < 5_000, "took " + tookMs + "ms");
+        List<Map<String, Object>> steps = (List<Map<String, Object>>) warmup.getStatus().get("steps");
+        assertEquals(2L, steps.get(1).get("result"));
+        assertEquals("failed", steps.get(2).get("outcome"));
+        assertEquals("skipped", steps.get(3).get("outcome"));
+    }
+}
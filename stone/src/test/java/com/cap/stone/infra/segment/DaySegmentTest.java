@@ -0,0 +1,157 @@
+package com.cap.stone.infra.segment;
+
+import com.cap.stone.util.SingaporeTimezoneUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DaySegmentTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    @DisplayName("Should read back every processed session field in order")
+    void testRoundTrip() throws IOException {
+        // Given
+        Map<String, Object> first = session(1755705600000L, "1:abc=", 2001L, "10.0.0.1", 443);
+        first.put("session", Map.of("length", 12));
+        Map<String, Object> second = session(1755705500000L, "1:abc=", null, null, null);
+        second.put("sid", List.of(3001, 3002));
+        Path file = directory.resolve("2025-08-21.seg");
+
+        // When
+        DaySegment.write(file, List.of(first, second));
+        DaySegment segment = DaySegment.open(file);
+
+        // Then
+        assertEquals(2, segment.rowCount());
+        assertEquals(1755705600000L, segment.timestamp(0));
+        assertEquals("1:abc=", segment.communityId(1));
+        assertEquals(List.of(3001L, 3002L), segment.sids(1));
+        assertEquals(Files.size(file), segment.sizeBytes());
+
+        Map<String, Object> row = segment.session(0);
+        assertEquals(2001L, row.get("sid"));
+        assertEquals("10.0.0.1", row.get("sourceIp"));
+        assertEquals(443, row.get("destPort"));
+        assertEquals("doc-1755705600000", row.get("documentId"));
+        assertEquals(Map.of("length", 12), row.get("session"));
+        assertNull(segment.session(1).get("sourceIp"));
+        assertNull(segment.session(1).get("destPort"));
+        assertEquals(List.of(3001L, 3002L), segment.session(1).get("sid"));
+    }
+
+    @Test
+    @DisplayName("Should refuse files that are not complete segments")
+    void testRejectsTruncatedFile() throws IOException {
+        // Given
+        Path file = directory.resolve("2025-08-21.seg");
+        DaySegment.write(file, List.of(session(1L, "1:a=", 1L, "10.0.0.1", 80)));
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 3));
+
+        // When & Then
+        assertThrows(IOException.class, () -> DaySegment.open(file));
+    }
+
+    @Test
+    @DisplayName("Should drop the days an import touches and keep the others")
+    void testInvalidateOnImport() {
+        // Given
+        DaySegmentStore store = store(Long.MAX_VALUE);
+        store.store(LocalDate.of(2025, 8, 20), List.of(session(1L, "1:a=", 1L, "10.0.0.1", 80)), store.getGeneration());
+        store.store(LocalDate.of(2025, 8, 25), List.of(session(2L, "1:b=", 2L, "10.0.0.2", 80)), store.getGeneration());
+
+        // When - index of 08-21 feeds the Singapore days 08-20 to 08-22
+        store.invalidateIndices(Set.of("arkime_sessions3-250821"));
+
+        // Then
+        assertNull(store.get(LocalDate.of(2025, 8, 20)));
+        assertNotNull(store.get(LocalDate.of(2025, 8, 25)));
+        assertFalse(Files.exists(directory.resolve("2025-08-20.seg")));
+    }
+
+    @Test
+    @DisplayName("Should not store a day read before an invalidation")
+    void testStaleGenerationIsDiscarded() {
+        // Given
+        DaySegmentStore store = store(Long.MAX_VALUE);
+        long generation = store.getGeneration();
+        store.invalidateIndices(Set.of("arkime_sessions3-250821"));
+
+        // When
+        store.store(LocalDate.of(2025, 8, 21), List.of(session(1L, "1:a=", 1L, "10.0.0.1", 80)), generation);
+
+        // Then
+        assertNull(store.get(LocalDate.of(2025, 8, 21)));
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently read segment past the size bound")
+    void testEviction() throws IOException {
+        // Given - room for two segments of this size
+        List<Map<String, Object>> sessions = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            sessions.add(session(1755705600000L + i, "1:c" + i + "=", (long) i, "10.0.0." + i, 80));
+        }
+        DaySegment.write(directory.resolve("probe"), sessions);
+        long segmentBytes = Files.size(directory.resolve("probe"));
+        Files.delete(directory.resolve("probe"));
+        DaySegmentStore store = store(segmentBytes * 2);
+
+        // When
+        store.store(LocalDate.of(2025, 8, 1), sessions, store.getGeneration());
+        store.store(LocalDate.of(2025, 8, 2), sessions, store.getGeneration());
+        store.get(LocalDate.of(2025, 8, 1));
+        store.store(LocalDate.of(2025, 8, 3), sessions, store.getGeneration());
+
+        // Then
+        assertNotNull(store.get(LocalDate.of(2025, 8, 1)));
+        assertNull(store.get(LocalDate.of(2025, 8, 2)));
+        assertNotNull(store.get(LocalDate.of(2025, 8, 3)));
+        assertEquals(segmentBytes * 2, store.getTotalBytes());
+    }
+
+    private DaySegmentStore store(long maxBytes) {
+        DaySegmentStore store = new DaySegmentStore();
+        ReflectionTestUtils.setField(store, "timezoneUtil", new SingaporeTimezoneUtil());
+        ReflectionTestUtils.setField(store, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "directory", directory.toString());
+        ReflectionTestUtils.setField(store, "maxBytes", maxBytes);
+        ReflectionTestUtils.setField(store, "minAgeDays", 2);
+        store.load();
+        return store;
+    }
+
+    private Map<String, Object> session(long timestamp, String communityId, Long sid, String sourceIp, Integer destPort) {
+        Map<String, Object> session = new HashMap<>();
+        session.put("timestamp", timestamp);
+        session.put("indexName", "arkime_sessions3-250821");
+        session.put("documentId", "doc-" + timestamp);
+        session.put("communityId", communityId);
+        session.put("sid", sid);
+        session.put("sourceIp", sourceIp);
+        session.put("destIp", "192.168.0.1");
+        session.put("sourcePort", 51000);
+        session.put("destPort", destPort);
+        session.put("snortMessage", "ET SCAN test");
+        return session;
+    }
+}
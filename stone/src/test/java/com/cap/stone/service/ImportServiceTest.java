@@ -0,0 +1,89 @@
+package com.cap.stone.service;
+
+import com.cap.stone.infra.opensearch.SessionRoutingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.opensearch.core.BulkRequest;
+import org.opensearch.client.opensearch.core.BulkResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ImportServiceTest {
+
+    private OpenSearchClientService clientService;
+    private ImportService importService;
+
+    @BeforeEach
+    void setUp() {
+        clientService = mock(OpenSearchClientService.class);
+
+        importService = new ImportService();
+        ReflectionTestUtils.setField(importService, "clientService", clientService);
+        ReflectionTestUtils.setField(importService, "routingService", mock(SessionRoutingService.class));
+        ReflectionTestUtils.setField(importService, "meterRegistry", new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(importService, "settleMs", 200L);
+    }
+
+    @Test
+    @DisplayName("Should hold the live tail below a bulk slower than the settle time until it settles")
+    void testSlowBulkStaysUnsettled() throws Exception {
+        // Given - the bulk request takes longer than settle-ms
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Long> stamps = new CopyOnWriteArrayList<>();
+        when(clientService.executeBulk(any())).thenAnswer(invocation -> {
+            BulkRequest request = invocation.getArgument(0);
+            request.operations().forEach(op -> stamps.add(ingested(op.index().document())));
+            sending.countDown();
+            release.await();
+            return BulkResponse.of(b -> b.took(1).errors(false).items(List.of()));
+        });
+        assertEquals(Long.MAX_VALUE, importService.oldestUnsettledIngest());
+
+        // When
+        CompletableFuture<Void> importing = CompletableFuture.runAsync(() -> {
+            try {
+                importService.indexDocuments("arkime_sessions3-250821", List.of(document("s1"), document("s2")));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        assertTrue(sending.await(5, TimeUnit.SECONDS));
+        Thread.sleep(400);
+        long whileSending = importService.oldestUnsettledIngest();
+        release.countDown();
+        importing.get(5, TimeUnit.SECONDS);
+        long afterSending = importService.oldestUnsettledIngest();
+        Thread.sleep(400);
+
+        // Then
+        assertTrue(whileSending <= stamps.get(0));
+        assertTrue(afterSending <= stamps.get(0));
+        assertEquals(Long.MAX_VALUE, importService.oldestUnsettledIngest());
+    }
+
+    private static Map<String, Object> document(String id) {
+        Map<String, Object> doc = new HashMap<>();
+        doc.put("id", id);
+        doc.put("data", Map.of("@timestamp", 1755741600000L));
+        return doc;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static long ingested(Object document) {
+        return (Long) ((Map<String, Object>) ((Map<String, Object>) document).get("event")).get("ingested");
+    }
+}
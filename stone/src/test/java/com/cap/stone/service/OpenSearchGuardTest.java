@@ -0,0 +1,65 @@
+package com.cap.stone.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.opensearch.client.opensearch._types.ErrorResponse;
+import org.opensearch.client.opensearch._types.OpenSearchException;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OpenSearchGuardTest {
+
+    // Limit 20 backing off by half, breaker opening at half of at least 2 calls failing
+    private final OpenSearchGuard guard = new OpenSearchGuard(20, 2, 60, 0.5, 5000, 10, 2, 0.5, 15000,
+        new SimpleMeterRegistry());
+
+    @Test
+    @DisplayName("Should back off the limit and open the breaker on search rejections (429)")
+    void testRejectedExecutionIsOverload() {
+        // When
+        assertThrows(OpenSearchException.class, () -> guard.execute("search", () -> errorResponse(429, "es_rejected_execution_exception")));
+        assertThrows(OpenSearchException.class, () -> guard.execute("search", () -> errorResponse(429, "es_rejected_execution_exception")));
+
+        // Then
+        Map<String, Object> metrics = guard.getMetrics();
+        assertTrue((int) metrics.get("concurrencyLimit") < 20);
+        assertEquals(2L, metrics.get("failedCalls"));
+        assertEquals("OPEN", metrics.get("circuitState"));
+        assertThrows(OpenSearchOverloadedException.class, () -> guard.execute("search", () -> "unreached"));
+    }
+
+    @Test
+    @DisplayName("Should count ingest rejections (429) against the breaker")
+    void testIngestRejectionIsOverload() {
+        // When
+        assertThrows(OpenSearchException.class, () -> guard.executeIngest("bulk", () -> errorResponse(429, "es_rejected_execution_exception")));
+        assertThrows(OpenSearchException.class, () -> guard.executeIngest("bulk", () -> errorResponse(429, "es_rejected_execution_exception")));
+
+        // Then
+        assertEquals("OPEN", guard.getMetrics().get("circuitState"));
+    }
+
+    @Test
+    @DisplayName("Should not count bad requests against the limit or the breaker")
+    void testBadRequestIsIgnored() {
+        // When
+        assertThrows(OpenSearchException.class, () -> guard.execute("search", () -> errorResponse(400, "parsing_exception")));
+        assertThrows(OpenSearchException.class, () -> guard.execute("search", () -> errorResponse(400, "parsing_exception")));
+
+        // Then
+        Map<String, Object> metrics = guard.getMetrics();
+        assertEquals(20, metrics.get("concurrencyLimit"));
+        assertEquals(0L, metrics.get("failedCalls"));
+        assertEquals("CLOSED", metrics.get("circuitState"));
+    }
+
+    // A call the cluster answers with an error response
+    private static Object errorResponse(int status, String type) {
+        throw new OpenSearchException(ErrorResponse.of(r -> r
+            .status(status)
+            .error(e -> e.type(type).reason(type))));
+    }
+}
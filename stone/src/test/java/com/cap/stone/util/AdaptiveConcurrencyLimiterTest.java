@@ -0,0 +1,96 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = 10_000_000L;      // 10ms
+    private static final long SLOW = 2_000_000_000L;   // 2s
+
+    @Test
+    @DisplayName("Should reject callers once the limit is in flight")
+    void testRejectsAboveLimit() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 0.5, 1000);
+
+        // When
+        boolean first = limiter.tryAcquire();
+        boolean second = limiter.tryAcquire();
+        boolean third = limiter.tryAcquire();
+
+        // Then
+        assertTrue(first);
+        assertTrue(second);
+        assertFalse(third);
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should grow additively on fast responses while the limit is in use")
+    void testAdditiveIncrease() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 0.5, 1000);
+
+        // When - two of four slots busy, one comes back fast
+        limiter.tryAcquire();
+        limiter.tryAcquire();
+        limiter.onSuccess(FAST);
+
+        // Then
+        assertEquals(5, limiter.getLimit());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should not grow while mostly idle")
+    void testNoIncreaseWhenIdle() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(10, 1, 20, 0.5, 1000);
+
+        // When
+        limiter.tryAcquire();
+        limiter.onSuccess(FAST);
+
+        // Then
+        assertEquals(10, limiter.getLimit());
+    }
+
+    @Test
+    @DisplayName("Should back off multiplicatively on slow responses and drops, down to the minimum")
+    void testMultiplicativeDecrease() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(8, 2, 10, 0.5, 1000);
+
+        // When & Then
+        limiter.tryAcquire();
+        limiter.onSuccess(SLOW);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertEquals(2, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.onDropped();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    @DisplayName("Should leave the limit unchanged for ignored outcomes")
+    void testIgnoredOutcome() {
+        // Given
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 1, 10, 0.5, 1000);
+
+        // When
+        limiter.tryAcquire();
+        limiter.onIgnored();
+
+        // Then
+        assertEquals(4, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
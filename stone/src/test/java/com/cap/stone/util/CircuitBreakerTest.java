@@ -0,0 +1,108 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CircuitBreakerTest {
+
+    @Test
+    @DisplayName("Should stay closed until the minimum number of calls is recorded")
+    void testMinimumCalls() {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 1000, () -> 0L);
+
+        // When
+        for (int i = 0; i < 3; i++) {
+            breaker.tryAcquire();
+            breaker.onFailure();
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    @DisplayName("Should open at the failure rate threshold and reject calls while open")
+    void testOpensOnFailureRate() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(10, 4, 0.5, 1000, now::get);
+
+        // When - 2 of 4 calls fail
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        now.set(400);
+        assertEquals(600, breaker.getRemainingOpenMs());
+    }
+
+    @Test
+    @DisplayName("Should let one probe through after the open duration and close when it succeeds")
+    void testHalfOpenProbeSuccess() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 1.0, 1000, now::get);
+        breaker.onFailure();
+        breaker.onFailure();
+
+        // When
+        now.set(1000);
+        boolean probe = breaker.tryAcquire();
+        boolean concurrent = breaker.tryAcquire();
+        breaker.onSuccess();
+
+        // Then
+        assertTrue(probe);
+        assertFalse(concurrent);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate());
+    }
+
+    @Test
+    @DisplayName("Should re-open when the probe fails")
+    void testHalfOpenProbeFailure() {
+        // Given
+        AtomicLong now = new AtomicLong();
+        CircuitBreaker breaker = new CircuitBreaker(4, 2, 1.0, 1000, now::get);
+        breaker.onFailure();
+        breaker.onFailure();
+
+        // When
+        now.set(1500);
+        breaker.tryAcquire();
+        breaker.onFailure();
+
+        // Then
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(1000, breaker.getRemainingOpenMs());
+    }
+
+    @Test
+    @DisplayName("Should forget old outcomes as the window slides")
+    void testSlidingWindow() {
+        // Given
+        CircuitBreaker breaker = new CircuitBreaker(4, 4, 0.75, 1000, () -> 0L);
+
+        // When - two failures followed by enough successes to push them out
+        breaker.onFailure();
+        breaker.onFailure();
+        for (int i = 0; i < 4; i++) {
+            breaker.onSuccess();
+        }
+
+        // Then
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0.0, breaker.getFailureRate());
+    }
+}
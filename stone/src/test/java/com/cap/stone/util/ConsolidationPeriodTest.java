@@ -0,0 +1,51 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsolidationPeriodTest {
+
+    @Test
+    @DisplayName("Should recognize daily index names only")
+    void testDailyIndexNames() {
+        assertEquals(LocalDate.of(2025, 8, 21), ConsolidationPeriod.dailyIndexDate("arkime_sessions3-250821"));
+        assertEquals("arkime_sessions3", ConsolidationPeriod.dailyIndexPrefix("arkime_sessions3-250821"));
+        assertNull(ConsolidationPeriod.dailyIndexDate("arkime_sessions3-m2508"));
+        assertNull(ConsolidationPeriod.dailyIndexDate("arkime_sessions3-w250818"));
+        assertNull(ConsolidationPeriod.dailyIndexDate("arkime_sessions3-251341"));
+        assertNull(ConsolidationPeriod.dailyIndexDate("other-250821"));
+    }
+
+    @Test
+    @DisplayName("Should name monthly targets so daily patterns never match them")
+    void testMonthlyTarget() {
+        // Given
+        LocalDate date = LocalDate.of(2025, 8, 21);
+
+        // When
+        String target = ConsolidationPeriod.MONTH.targetIndex("arkime_sessions3", date);
+
+        // Then
+        assertEquals("arkime_sessions3-m2508", target);
+        assertEquals(LocalDate.of(2025, 8, 1), ConsolidationPeriod.MONTH.periodStart(date));
+        assertEquals(LocalDate.of(2025, 8, 31), ConsolidationPeriod.MONTH.periodEnd(date));
+        assertNull(ConsolidationPeriod.dailyIndexDate(target));
+    }
+
+    @Test
+    @DisplayName("Should group weeks from Monday to Sunday")
+    void testWeeklyTarget() {
+        // Given - a Sunday
+        LocalDate date = LocalDate.of(2025, 8, 24);
+
+        // When & Then
+        assertEquals("arkime_sessions3-w250818", ConsolidationPeriod.WEEK.targetIndex("arkime_sessions3", date));
+        assertEquals(LocalDate.of(2025, 8, 24), ConsolidationPeriod.WEEK.periodEnd(date));
+        assertEquals(ConsolidationPeriod.WEEK, ConsolidationPeriod.fromParam("week"));
+        assertNull(ConsolidationPeriod.fromParam("year"));
+    }
+}
@@ -0,0 +1,46 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EwmaBaselineTest {
+
+    @Test
+    @DisplayName("Should settle on a steady series and score a spike far above it")
+    void testSpikeAgainstSteadySeries() {
+        // Given - a series alternating between 9 and 11 hits a day
+        EwmaBaseline baseline = new EwmaBaseline();
+        for (int day = 0; day < 30; day++) {
+            baseline.update(day % 2 == 0 ? 9 : 11, 0.3);
+        }
+
+        // When
+        double spike = baseline.zScore(40, 1.0);
+        double usual = baseline.zScore(11, 1.0);
+
+        // Then
+        assertEquals(30, baseline.getDays());
+        assertEquals(10.0, baseline.getMean(), 0.5);
+        assertTrue(baseline.getStdDev() > 0.5 && baseline.getStdDev() < 2.0);
+        assertTrue(spike > 10, "spike z-score was " + spike);
+        assertTrue(usual < 2, "usual z-score was " + usual);
+    }
+
+    @Test
+    @DisplayName("Should floor the deviation of a flat or unseen series")
+    void testMinStdDevFloor() {
+        // Given
+        EwmaBaseline flat = new EwmaBaseline();
+        for (int day = 0; day < 10; day++) {
+            flat.update(5, 0.3);
+        }
+        EwmaBaseline unseen = new EwmaBaseline();
+
+        // When & Then - the deviation is zero, the floor keeps the scores finite
+        assertEquals(0.0, flat.getStdDev());
+        assertEquals(3.0, flat.zScore(8, 1.0), 1e-9);
+        assertEquals(4.0, unseen.zScore(8, 2.0), 1e-9);
+    }
+}
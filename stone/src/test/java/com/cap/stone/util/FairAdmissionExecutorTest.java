@@ -0,0 +1,70 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairAdmissionExecutorTest {
+
+    @Test
+    @DisplayName("Should run another owner's upload before the backlog of an owner with more uploads than threads")
+    void testOtherOwnerSkipsBacklog() throws Exception {
+        // Given - two threads, "big" submits four uploads and holds both threads, then "small" submits one
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        FairAdmissionExecutor uploads = new FairAdmissionExecutor(pool, 2);
+        Semaphore finish = new Semaphore(0);
+        List<String> started = new CopyOnWriteArrayList<>();
+        List<Thread> callers = new CopyOnWriteArrayList<>();
+        List<String> owners = List.of("big", "big", "big", "big", "small");
+        for (int i = 0; i < owners.size(); i++) {
+            String owner = owners.get(i);
+            callers.add(Thread.ofVirtual().start(() -> {
+                try {
+                    uploads.call(owner, () -> {
+                        started.add(owner);
+                        finish.acquireUninterruptibly();
+                        return null;
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }));
+            int submitted = i + 1;
+            awaitTrue(() -> submitted <= 2 ? started.size() == submitted : uploads.getWaitingOwners() == (owner.equals("small") ? 2 : 1));
+            Thread.sleep(20);
+        }
+        assertEquals(List.of("big", "big"), started);
+
+        // When - one of big's uploads finishes
+        finish.release();
+        awaitTrue(() -> started.size() == 3);
+
+        // Then - small gets the free thread, not big's next upload
+        assertEquals("small", started.get(2));
+
+        finish.release(10);
+        for (Thread caller : callers) {
+            assertTrue(caller.join(Duration.ofSeconds(5)));
+        }
+        pool.close();
+        assertEquals(5, started.size());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,72 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FairBulkheadTest {
+
+    @Test
+    @DisplayName("Should admit up to the permit count without waiting")
+    void testAdmitsWithinPermits() throws Exception {
+        // Given
+        FairBulkhead bulkhead = new FairBulkhead(2);
+
+        // When
+        bulkhead.acquire("a");
+        bulkhead.acquire("b");
+
+        // Then
+        assertEquals(2, bulkhead.getInUse());
+        bulkhead.release("a");
+        bulkhead.release("b");
+        assertEquals(0, bulkhead.getInUse());
+    }
+
+    @Test
+    @DisplayName("Should alternate between owners instead of serving one owner's backlog first")
+    void testRoundRobinBetweenOwners() throws Exception {
+        // Given - the only permit is taken, then "big" queues three calls before "small" queues one
+        FairBulkhead bulkhead = new FairBulkhead(1);
+        bulkhead.acquire("holder");
+        List<String> order = new CopyOnWriteArrayList<>();
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        for (String owner : List.of("big", "big", "big", "small")) {
+            Thread thread = Thread.ofVirtual().start(() -> {
+                try {
+                    bulkhead.acquire(owner);
+                    order.add(owner);
+                    bulkhead.release(owner);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            threads.add(thread);
+            awaitWaiting(bulkhead, owner.equals("small") ? 2 : 1);
+        }
+
+        // When
+        bulkhead.release("holder");
+        for (Thread thread : threads) {
+            assertTrue(thread.join(Duration.ofSeconds(5)));
+        }
+
+        // Then - small gets the second turn, not the fourth
+        assertEquals(List.of("big", "small", "big", "big"), order);
+    }
+
+    // Queued calls register before the test releases anything
+    private void awaitWaiting(FairBulkhead bulkhead, int owners) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bulkhead.getWaitingOwners() < owners && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        Thread.sleep(20);
+    }
+}
@@ -11,6 +11,7 @@ import org.springframework.test.context.TestPropertySource;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.zip.GZIPInputStream;
@@ -116,6 +117,23 @@ class GzipJsonReaderTest {
         });
     }
 
+    @Test
+    @DisplayName("Should read newline-delimited JSON objects")
+    void testReadNdjson() throws IOException {
+        // Given
+        String ndjson = "{\"id\":\"a\",\"index\":\"idx\",\"data\":{\"port\":80}}\n"
+            + "{\"id\":\"b\",\"index\":\"idx\",\"data\":{\"port\":443}}\n";
+        InputStream inputStream = new ByteArrayInputStream(ndjson.getBytes());
+
+        // When
+        List<Map<String, Object>> result = GzipJsonReader.readNdjsonStream(inputStream);
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals("b", result.get(1).get("id"));
+        assertEquals(Map.of("port", 443), result.get(1).get("data"));
+    }
+
     @Test
     @DisplayName("Should handle null values in JSON")
     void testJsonWithNullValues() throws IOException {
@@ -228,6 +246,68 @@ class GzipJsonReaderTest {
         assertEquals("User999", lastItem.get("name"));
     }
 
+    @Test
+    @DisplayName("Should skip invalid array elements with their byte offset and keep the rest")
+    void testLenientArraySkipsInvalidElements() throws IOException {
+        // Given - the second element has no id, the third is not an object
+        String jsonData = "[{\"id\":\"a\"},{\"name\":\"x\"},42,{\"id\":\"b\"}]";
+        InputStream inputStream = new ByteArrayInputStream(jsonData.getBytes());
+
+        // When
+        GzipJsonReader.LenientResult result = GzipJsonReader.readGzipJsonStreamLenient(inputStream,
+            doc -> doc.get("id") == null ? "Missing id" : null);
+
+        // Then
+        assertEquals(2, result.documents().size());
+        assertEquals("b", result.documents().get(1).get("id"));
+        assertEquals(2, result.rejected().size());
+        assertEquals(12L, result.rejected().get(0).getOffset());
+        assertEquals("Missing id", result.rejected().get(0).getReason());
+        assertEquals(Map.of("name", "x"), result.rejected().get(0).getRecord());
+        assertEquals("Not a JSON object", result.rejected().get(1).getReason());
+    }
+
+    @Test
+    @DisplayName("Should skip malformed NDJSON lines and keep reading")
+    void testLenientNdjsonSkipsMalformedLines() throws IOException {
+        // Given
+        String ndjson = "{\"id\":\"a\"}\n{\"id\":\n\n{\"id\":\"c\"}";
+        InputStream inputStream = new ByteArrayInputStream(ndjson.getBytes());
+
+        // When
+        GzipJsonReader.LenientResult result = GzipJsonReader.readNdjsonStreamLenient(inputStream, null);
+
+        // Then
+        assertEquals(2, result.documents().size());
+        assertEquals("c", result.documents().get(1).get("id"));
+        assertEquals(1, result.rejected().size());
+        assertEquals(11L, result.rejected().get(0).getOffset());
+        assertEquals("{\"id\":", result.rejected().get(0).getRecord());
+    }
+
+    @Test
+    @DisplayName("Should keep the documents before a truncated gzip tail")
+    void testLenientRecoversTruncatedGzip() throws IOException {
+        // Given - a gzip file cut off in the middle of its compressed data
+        StringBuilder ndjson = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            ndjson.append("{\"id\":").append(i).append(",\"value\":\"").append(Integer.toHexString(i * 7919)).append("\"}\n");
+        }
+        byte[] gzipped = compressString(ndjson.toString());
+        byte[] truncated = Arrays.copyOf(gzipped, gzipped.length / 2);
+
+        // When
+        GzipJsonReader.LenientResult result = GzipJsonReader.readNdjsonStreamLenient(
+            new GZIPInputStream(new ByteArrayInputStream(truncated)), null);
+
+        // Then
+        assertFalse(result.documents().isEmpty());
+        assertTrue(result.documents().size() < 2000);
+        assertEquals(0, result.documents().get(0).get("id"));
+        RejectedRecord last = result.rejected().get(result.rejected().size() - 1);
+        assertTrue(last.getReason().startsWith("Truncated"));
+    }
+
     // Helper method to compress string data with GZIP
     private byte[] compressString(String data) throws IOException {
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -0,0 +1,33 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IndexAgeTagTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2025, 8, 22);
+
+    @Test
+    @DisplayName("Should bucket daily indices by the age of their day")
+    void testDailyIndices() {
+        assertEquals("today", IndexAgeTag.of("arkime_sessions*-250822", TODAY));
+        assertEquals("1d", IndexAgeTag.of("arkime_sessions3-250821", TODAY));
+        assertEquals("2-7d", IndexAgeTag.of("arkime_sessions*-250815", TODAY));
+        assertEquals("8-30d", IndexAgeTag.of("arkime_sessions*-250801", TODAY));
+        assertEquals("older", IndexAgeTag.of("arkime_sessions*-240101", TODAY));
+    }
+
+    @Test
+    @DisplayName("Should tag wildcards as a range and anything else as other")
+    void testOtherPatterns() {
+        assertEquals(IndexAgeTag.RANGE, IndexAgeTag.of("arkime_sessions*", TODAY));
+        assertEquals(IndexAgeTag.RANGE, IndexAgeTag.of(IndexAgeTag.RANGE, TODAY));
+        assertEquals(IndexAgeTag.OTHER, IndexAgeTag.of("arkime_sessions3-w250818", TODAY));
+        assertEquals(IndexAgeTag.OTHER, IndexAgeTag.of("arkime_sessions*-259999", TODAY));
+        assertEquals(IndexAgeTag.OTHER, IndexAgeTag.of(null, TODAY));
+    }
+}
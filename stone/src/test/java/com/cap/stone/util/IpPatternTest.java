@@ -0,0 +1,77 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IpPatternTest {
+
+    @Test
+    @DisplayName("Should match a single IPv4 address exactly")
+    void testSingleAddress() {
+        // When
+        IpPattern pattern = IpPattern.parse(" 10.1.2.3 ");
+
+        // Then
+        assertEquals("10.1.2.3", pattern.getValue());
+        assertEquals(List.of("10.1.2.3"), pattern.getKeywordValues());
+        assertTrue(pattern.getKeywordPrefixes().isEmpty());
+        assertFalse(pattern.matchesAll());
+    }
+
+    @Test
+    @DisplayName("Should widen an unaligned IPv4 block to octet prefixes")
+    void testUnalignedBlock() {
+        // When
+        IpPattern pattern = IpPattern.parse("10.1.17.5/20");
+
+        // Then
+        assertEquals("10.1.17.5/20", pattern.getValue());
+        assertEquals(16, pattern.getKeywordPrefixes().size());
+        assertEquals("10.1.16.", pattern.getKeywordPrefixes().get(0));
+        assertEquals("10.1.31.", pattern.getKeywordPrefixes().get(15));
+        assertTrue(pattern.getKeywordValues().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should enumerate exact addresses for blocks inside the last octet")
+    void testSmallBlock() {
+        // When
+        IpPattern pattern = IpPattern.parse("192.168.1.4/30");
+
+        // Then
+        assertEquals(List.of("192.168.1.4", "192.168.1.5", "192.168.1.6", "192.168.1.7"), pattern.getKeywordValues());
+        assertTrue(pattern.getKeywordPrefixes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should treat /0 as no filter")
+    void testMatchAll() {
+        assertTrue(IpPattern.parse("0.0.0.0/0").matchesAll());
+    }
+
+    @Test
+    @DisplayName("Should keep IPv6 blocks for the ip-typed field only")
+    void testIpv6Block() {
+        // When
+        IpPattern pattern = IpPattern.parse("2001:DB8::/32");
+
+        // Then
+        assertEquals("2001:db8::/32", pattern.getValue());
+        assertTrue(pattern.getKeywordValues().isEmpty());
+        assertTrue(pattern.getKeywordPrefixes().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should reject malformed addresses and prefix lengths")
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> IpPattern.parse("10.1.2"));
+        assertThrows(IllegalArgumentException.class, () -> IpPattern.parse("10.1.2.256"));
+        assertThrows(IllegalArgumentException.class, () -> IpPattern.parse("10.1.2.3/33"));
+        assertThrows(IllegalArgumentException.class, () -> IpPattern.parse("10.1.2.3/x"));
+        assertThrows(IllegalArgumentException.class, () -> IpPattern.parse("example.com"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LttbDownsamplerTest {
+
+    @Test
+    @DisplayName("Should return the series unchanged when it already fits")
+    void testNoDownsamplingWhenUnderThreshold() {
+        // Given
+        List<Map<String, Object>> points = series(10);
+
+        // When
+        List<Map<String, Object>> result = LttbDownsampler.downsample(points, 20, "timestamp", "hitCount");
+
+        // Then
+        assertSame(points, result);
+    }
+
+    @Test
+    @DisplayName("Should reduce to threshold points keeping first and last")
+    void testDownsampleKeepsEndpoints() {
+        // Given
+        List<Map<String, Object>> points = series(365);
+
+        // When
+        List<Map<String, Object>> result = LttbDownsampler.downsample(points, 50, "timestamp", "hitCount");
+
+        // Then
+        assertEquals(50, result.size());
+        assertSame(points.get(0), result.get(0));
+        assertSame(points.get(364), result.get(49));
+        for (int i = 1; i < result.size(); i++) {
+            long previous = (Long) result.get(i - 1).get("timestamp");
+            long current = (Long) result.get(i).get("timestamp");
+            assertTrue(current > previous, "Points must stay in chronological order");
+        }
+    }
+
+    @Test
+    @DisplayName("Should keep a lone spike in the downsampled series")
+    void testSpikeIsPreserved() {
+        // Given
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            points.add(Map.of("timestamp", (long) i * 60_000, "hitCount", i == 517 ? 500 : 1));
+        }
+
+        // When
+        List<Map<String, Object>> result = LttbDownsampler.downsample(points, 20, "timestamp", "hitCount");
+
+        // Then
+        assertTrue(result.stream().anyMatch(p -> (Integer) p.get("hitCount") == 500));
+    }
+
+    private List<Map<String, Object>> series(int size) {
+        List<Map<String, Object>> points = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            points.add(Map.of("timestamp", (long) i * 86_400_000, "hitCount", (int) (10 + 5 * Math.sin(i / 7.0))));
+        }
+        return points;
+    }
+}
@@ -0,0 +1,32 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PortRangesTest {
+
+    @Test
+    @DisplayName("Should parse single ports and ranges into inclusive ranges")
+    void testParse() {
+        // When
+        List<int[]> ranges = PortRanges.parse("443, 8000-8100");
+
+        // Then
+        assertEquals(2, ranges.size());
+        assertArrayEquals(new int[] {443, 443}, ranges.get(0));
+        assertArrayEquals(new int[] {8000, 8100}, ranges.get(1));
+    }
+
+    @Test
+    @DisplayName("Should reject reversed, out of range and malformed ports")
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> PortRanges.parse("9000-80"));
+        assertThrows(IllegalArgumentException.class, () -> PortRanges.parse("70000"));
+        assertThrows(IllegalArgumentException.class, () -> PortRanges.parse("http"));
+        assertThrows(IllegalArgumentException.class, () -> PortRanges.parse(","));
+    }
+}
@@ -0,0 +1,84 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestStageTimerTest {
+
+    @AfterEach
+    void tearDown() {
+        RequestStageTimer.end();
+    }
+
+    @Test
+    @DisplayName("Should ignore stages when no request is being timed")
+    void testInactiveByDefault() {
+        // When
+        RequestStageTimer.record("opensearch", 1_000_000L);
+
+        // Then
+        assertFalse(RequestStageTimer.isActive());
+        assertNull(RequestStageTimer.toServerTiming());
+    }
+
+    @Test
+    @DisplayName("Should sum durations and counts per stage in first-seen order")
+    void testSumsPerStage() {
+        // Given
+        RequestStageTimer.begin();
+
+        // When
+        RequestStageTimer.record("opensearch", 2_000_000L);
+        RequestStageTimer.record("process", 500_000L);
+        RequestStageTimer.record("opensearch", 3_000_000L);
+        String header = RequestStageTimer.toServerTiming();
+
+        // Then
+        assertTrue(header.startsWith("opensearch;dur=5.0;desc=\"2 calls\", process;dur=0.5;desc=\"1 call\", total;dur="));
+    }
+
+    @Test
+    @DisplayName("Should stop collecting after end")
+    void testEndClearsState() {
+        // Given
+        RequestStageTimer.begin();
+        RequestStageTimer.record("parse", 1_000_000L);
+
+        // When
+        RequestStageTimer.end();
+
+        // Then
+        assertFalse(RequestStageTimer.isActive());
+        assertNull(RequestStageTimer.toServerTiming());
+    }
+
+    @Test
+    @DisplayName("Should record stages from propagated work on another thread into the calling request")
+    void testPropagatesAcrossThreads() throws Exception {
+        // Given
+        RequestStageTimer.begin();
+        Supplier<Boolean> work = RequestStageTimer.propagate(() -> {
+            RequestStageTimer.record("opensearch", 4_000_000L);
+            return RequestStageTimer.isActive();
+        });
+
+        // When
+        boolean activeOnWorker;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            activeOnWorker = CompletableFuture.supplyAsync(work, executor).get();
+        }
+        String header = RequestStageTimer.toServerTiming();
+
+        // Then
+        assertTrue(activeOnWorker);
+        assertTrue(header.startsWith("opensearch;dur=4.0;desc=\"1 call\""));
+    }
+}
@@ -0,0 +1,42 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchCursorTest {
+
+    @Test
+    @DisplayName("Should round-trip timestamp and ids through the encoded form")
+    void testRoundTrip() {
+        // Given
+        SearchCursor cursor = new SearchCursor(1755705600123L, List.of("a1", "b2"));
+
+        // When
+        SearchCursor decoded = SearchCursor.decode(cursor.encode());
+
+        // Then
+        assertEquals(1755705600123L, decoded.getTimestamp());
+        assertEquals(List.of("a1", "b2"), decoded.getIds());
+    }
+
+    @Test
+    @DisplayName("Should produce a URL-safe cursor")
+    void testUrlSafe() {
+        // When
+        String encoded = new SearchCursor(1L, List.of("???>>>~~~")).encode();
+
+        // Then
+        assertTrue(encoded.matches("[A-Za-z0-9_-]+"));
+    }
+
+    @Test
+    @DisplayName("Should reject cursors it did not produce")
+    void testInvalid() {
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("not a cursor"));
+        assertThrows(IllegalArgumentException.class, () -> SearchCursor.decode("eyJ4IjoxfQ")); // {"x":1}
+    }
+}
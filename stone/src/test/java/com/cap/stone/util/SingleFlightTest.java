@@ -0,0 +1,92 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    @DisplayName("Should run one computation for concurrent identical keys and share its result")
+    void testConcurrentCallsAreCoalesced() throws Exception {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+
+        try {
+            // When - the first caller blocks inside the computation while the others arrive
+            List<Future<Integer>> results = new ArrayList<>();
+            results.add(executor.submit(() -> singleFlight.execute("2025-08-01|2025-08-31", () -> {
+                computations.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 42;
+            })));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 7; i++) {
+                results.add(executor.submit(() -> singleFlight.execute("2025-08-01|2025-08-31", () -> {
+                    computations.incrementAndGet();
+                    return -1;
+                })));
+            }
+            Thread.sleep(100); // let the followers attach to the in-flight computation
+            release.countDown();
+
+            // Then
+            for (Future<Integer> result : results) {
+                assertEquals(42, result.get(5, TimeUnit.SECONDS));
+            }
+            assertEquals(1, computations.get());
+            assertEquals(0, singleFlight.inFlightCount());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Should recompute once the previous computation has finished")
+    void testSequentialCallsAreNotCached() throws IOException {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger computations = new AtomicInteger();
+
+        // When
+        singleFlight.execute("key", computations::incrementAndGet);
+        int second = singleFlight.execute("key", computations::incrementAndGet);
+
+        // Then
+        assertEquals(2, second);
+    }
+
+    @Test
+    @DisplayName("Should propagate IOException to the caller and release the key")
+    void testFailurePropagates() {
+        // Given
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+
+        // When & Then
+        assertThrows(IOException.class, () -> singleFlight.execute("key", () -> {
+            throw new IOException("OpenSearch unavailable");
+        }));
+        assertEquals(0, singleFlight.inFlightCount());
+    }
+}
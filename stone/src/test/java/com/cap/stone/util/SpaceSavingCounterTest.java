@@ -0,0 +1,69 @@
+package com.cap.stone.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SpaceSavingCounterTest {
+
+    @Test
+    @DisplayName("Should count exactly while distinct items fit in capacity")
+    void testExactCountsWithinCapacity() {
+        // Given
+        SpaceSavingCounter<String> counter = new SpaceSavingCounter<>(10);
+
+        // When
+        for (int i = 0; i < 5; i++) counter.offer("a");
+        for (int i = 0; i < 3; i++) counter.offer("b");
+        counter.offer("c");
+
+        // Then
+        List<Map<String, Object>> top = counter.top(2, "communityId");
+        assertEquals(2, top.size());
+        assertEquals("a", top.get(0).get("communityId"));
+        assertEquals(5L, top.get(0).get("hitCount"));
+        assertEquals(0L, top.get(0).get("maxError"));
+        assertEquals("b", top.get(1).get("communityId"));
+        assertEquals(3L, top.get(1).get("hitCount"));
+    }
+
+    @Test
+    @DisplayName("Should keep heavy hitters and stay bounded when many distinct items are offered")
+    void testHeavyHittersSurviveEviction() {
+        // Given
+        SpaceSavingCounter<Long> counter = new SpaceSavingCounter<>(20);
+
+        // When - two heavy sids interleaved with a long tail of one-off sids
+        for (long i = 0; i < 10_000; i++) {
+            counter.offer(1L);
+            if (i % 2 == 0) counter.offer(2L);
+            counter.offer(1_000L + i);
+        }
+
+        // Then
+        assertEquals(20, counter.size());
+        List<Map<String, Object>> top = counter.top(2, "sid");
+        assertEquals(1L, top.get(0).get("sid"));
+        assertEquals(2L, top.get(1).get("sid"));
+        long estimate = (Long) top.get(0).get("hitCount");
+        assertTrue(estimate >= 10_000, "Space-Saving never underestimates");
+    }
+
+    @Test
+    @DisplayName("Should ignore null items")
+    void testNullItemsIgnored() {
+        SpaceSavingCounter<String> counter = new SpaceSavingCounter<>(5);
+        counter.offer(null);
+        assertEquals(0, counter.size());
+    }
+
+    @Test
+    @DisplayName("Should reject non-positive capacity")
+    void testInvalidCapacity() {
+        assertThrows(IllegalArgumentException.class, () -> new SpaceSavingCounter<String>(0));
+    }
+}